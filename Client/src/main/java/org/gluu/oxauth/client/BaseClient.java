@@ -14,6 +14,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 import javax.ws.rs.HttpMethod;
 import javax.ws.rs.client.Invocation.Builder;
@@ -233,7 +235,8 @@ public abstract class BaseClient<T extends BaseRequest, V extends BaseResponse>
 
     protected void initClientRequest() {
         if (this.executor == null) {
-        	resteasyClient = (ResteasyClient) ResteasyClientBuilder.newClient();
+            // shared pooled client keeps connections alive between requests
+            resteasyClient = SharedClientEngine.isEnabled() ? SharedClientEngine.getClient() : (ResteasyClient) ResteasyClientBuilder.newClient();
         } else {
         	resteasyClient = ((ResteasyClientBuilder) ResteasyClientBuilder.newBuilder()).httpEngine(executor).build();
         }
@@ -266,6 +269,19 @@ public abstract class BaseClient<T extends BaseRequest, V extends BaseResponse>
 
     public abstract String getHttpMethod();
 
+    /**
+     * Executes request.
+     */
+    public abstract V exec();
+
+    /**
+     * Executes request asynchronously with executor of {@link SharedClientEngine}.
+     * Client should not be used by other threads till returned stage is completed.
+     */
+    public CompletionStage<V> execAsync() {
+        return CompletableFuture.supplyAsync(this::exec, SharedClientEngine.getAsyncExecutor());
+    }
+
     public List<Cookie> getCookies() {
         return cookies;
     }
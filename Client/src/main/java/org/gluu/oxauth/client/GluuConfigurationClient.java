@@ -38,6 +38,11 @@ public class GluuConfigurationClient extends BaseClient<GluuConfigurationRequest
         return HttpMethod.GET;
     }
 
+    @Override
+    public GluuConfigurationResponse exec() {
+        return execGluuConfiguration();
+    }
+
     public GluuConfigurationResponse execGluuConfiguration() {
         initClientRequest();
 
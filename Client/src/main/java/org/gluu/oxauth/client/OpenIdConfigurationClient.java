@@ -62,6 +62,7 @@ import static org.gluu.oxauth.model.configuration.ConfigurationResponseClaim.USE
 import static org.gluu.oxauth.model.configuration.ConfigurationResponseClaim.USER_INFO_SIGNING_ALG_VALUES_SUPPORTED;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 
 import javax.ws.rs.HttpMethod;
 import javax.ws.rs.client.Invocation.Builder;
@@ -103,6 +104,15 @@ public class OpenIdConfigurationClient extends BaseClient<OpenIdConfigurationReq
         return HttpMethod.GET;
     }
 
+    @Override
+    public OpenIdConfigurationResponse exec() {
+        try {
+            return execOpenIdConfiguration();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     public OpenIdConfigurationResponse execOpenIdConfiguration() throws IOException {
         initClientRequest();
 
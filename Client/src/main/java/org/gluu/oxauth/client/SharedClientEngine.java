@@ -0,0 +1,180 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2020, Gluu
+ */
+
+package org.gluu.oxauth.client;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.client.config.CookieSpecs;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.log4j.Logger;
+import org.jboss.resteasy.client.jaxrs.ResteasyClient;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
+import org.jboss.resteasy.client.jaxrs.engines.ApacheHttpClient43Engine;
+
+/**
+ * Process wide pooled keep-alive http engine which is used by clients without explicitly set executor,
+ * so connections (and TLS sessions) are reused between requests. Engine ignores cookies, cookies of client
+ * are sent explicitly with each request, so cookies are never shared between clients.
+ * <p>
+ * Pool limits can be set with system properties {@value #MAX_TOTAL_PROPERTY} and {@value #MAX_PER_ROUTE_PROPERTY}
+ * or with {@link #configure(int, int)}. Shared engine can be turned off with {@link #setEnabled(boolean)}, then each
+ * request creates own client as before.
+ */
+public final class SharedClientEngine {
+
+    private static final Logger LOG = Logger.getLogger(SharedClientEngine.class);
+
+    public static final String MAX_TOTAL_PROPERTY = "oxauth.client.maxTotalConnections";
+    public static final String MAX_PER_ROUTE_PROPERTY = "oxauth.client.maxConnectionsPerRoute";
+    public static final String IDLE_TIMEOUT_PROPERTY = "oxauth.client.idleConnectionTimeout";
+    public static final String ASYNC_THREADS_PROPERTY = "oxauth.client.asyncThreads";
+
+    private static int maxTotal = Integer.getInteger(MAX_TOTAL_PROPERTY, 200);
+    private static int maxPerRoute = Integer.getInteger(MAX_PER_ROUTE_PROPERTY, 50);
+    private static int idleTimeoutInSeconds = Integer.getInteger(IDLE_TIMEOUT_PROPERTY, 30);
+    private static int asyncThreads = Integer.getInteger(ASYNC_THREADS_PROPERTY, 20);
+
+    private static volatile boolean enabled = true;
+
+    private static PoolingHttpClientConnectionManager connectionManager;
+    private static CloseableHttpClient httpClient;
+    private static ApacheHttpClient43Engine engine;
+    private static volatile ResteasyClient client;
+    private static volatile ExecutorService asyncExecutor;
+
+    private SharedClientEngine() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        SharedClientEngine.enabled = enabled;
+    }
+
+    /**
+     * Sets pool limits. Limits are applied to already created pool as well.
+     */
+    public static synchronized void configure(int maxTotal, int maxPerRoute) {
+        if (maxTotal <= 0 || maxPerRoute <= 0) {
+            throw new IllegalArgumentException("Connection limits must be positive.");
+        }
+        SharedClientEngine.maxTotal = maxTotal;
+        SharedClientEngine.maxPerRoute = maxPerRoute;
+        if (connectionManager != null) {
+            connectionManager.setMaxTotal(maxTotal);
+            connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        }
+    }
+
+    /**
+     * @return shared client, it's created on first call (or on first call after {@link #shutdown()})
+     */
+    public static ResteasyClient getClient() {
+        ResteasyClient result = client;
+        if (result == null) {
+            result = createClient();
+        }
+        return result;
+    }
+
+    public static synchronized ApacheHttpClient43Engine getEngine() {
+        getClient();
+        return engine;
+    }
+
+    /**
+     * @return executor of asynchronous requests. Requests are blocking, so they are executed by bounded pool of daemon threads.
+     */
+    public static ExecutorService getAsyncExecutor() {
+        ExecutorService result = asyncExecutor;
+        if (result == null) {
+            result = createAsyncExecutor();
+        }
+        return result;
+    }
+
+    /**
+     * Closes shared client and pooled connections and stops async executor.
+     */
+    public static synchronized void shutdown() {
+        if (client != null) {
+            try {
+                client.close();
+            } catch (Exception e) {
+                LOG.error(e.getMessage(), e);
+            }
+        }
+        if (httpClient != null) {
+            try {
+                httpClient.close();
+            } catch (Exception e) {
+                LOG.error(e.getMessage(), e);
+            }
+        }
+        client = null;
+        engine = null;
+        httpClient = null;
+        connectionManager = null;
+
+        if (asyncExecutor != null) {
+            asyncExecutor.shutdown();
+            asyncExecutor = null;
+        }
+    }
+
+    private static synchronized ResteasyClient createClient() {
+        if (client != null) {
+            return client;
+        }
+
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+
+        httpClient = HttpClients.custom()
+                .setDefaultRequestConfig(RequestConfig.custom().setCookieSpec(CookieSpecs.IGNORE_COOKIES).build())
+                .setConnectionManager(connectionManager)
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeoutInSeconds, TimeUnit.SECONDS)
+                .build();
+
+        engine = new ApacheHttpClient43Engine(httpClient);
+        engine.setFollowRedirects(false);
+        client = ((ResteasyClientBuilder) ResteasyClientBuilder.newBuilder()).httpEngine(engine).build();
+
+        LOG.debug(String.format("Created shared client engine, maxTotal: %s, maxPerRoute: %s", maxTotal, maxPerRoute));
+        return client;
+    }
+
+    private static synchronized ExecutorService createAsyncExecutor() {
+        if (asyncExecutor != null) {
+            return asyncExecutor;
+        }
+
+        final AtomicInteger counter = new AtomicInteger();
+        final ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "oxauth-client-async-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(asyncThreads, asyncThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        asyncExecutor = executor;
+        return asyncExecutor;
+    }
+}
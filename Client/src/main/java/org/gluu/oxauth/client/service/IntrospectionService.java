@@ -10,9 +10,12 @@ import javax.ws.rs.Consumes;
 import javax.ws.rs.FormParam;
 import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
+import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
 
+import java.util.List;
+
 import org.gluu.oxauth.model.common.IntrospectionResponse;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -48,4 +51,17 @@ public interface IntrospectionService {
     @Produces({MediaType.APPLICATION_JSON})
     JsonNode introspect(@HeaderParam("Authorization") String p_authorization, @FormParam("token") String p_token);
 
+    /**
+     * Returns introspection responses for specified tokens (one request for all tokens).
+     *
+     * @param p_authorization authorization token
+     * @param p_tokens        tokens to introspect
+     * @return introspection responses in order of tokens
+     */
+    @POST
+    @Path("/batch")
+    @Consumes({MediaType.APPLICATION_JSON})
+    @Produces({MediaType.APPLICATION_JSON})
+    List<IntrospectionResponse> introspectTokens(@HeaderParam("Authorization") String p_authorization, @FormParam("token") List<String> p_tokens);
+
 }
@@ -0,0 +1,178 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2020, Gluu
+ */
+
+package org.gluu.oxauth.load;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.gluu.oxauth.client.ClientAuthnRequest;
+import org.gluu.oxauth.client.OpenIdConfigurationResponse;
+import org.gluu.oxauth.client.SharedClientEngine;
+import org.gluu.oxauth.client.service.ClientFactory;
+import org.gluu.oxauth.client.service.IntrospectionService;
+import org.gluu.oxauth.model.common.AuthenticationMethod;
+import org.gluu.oxauth.model.crypto.AbstractCryptoProvider;
+import org.gluu.oxauth.model.crypto.signature.SignatureAlgorithm;
+
+/**
+ * Settings and state which are shared by all scenario executions: endpoints from discovery, client and user
+ * credentials and pools of tokens which are issued by one scenario and used by another one (e.g. refresh tokens
+ * issued by code flow are used by refresh scenario).
+ */
+public class LoadContext {
+
+    private static final int TOKEN_POOL_LIMIT = 10000;
+
+    private final OpenIdConfigurationResponse discovery;
+    private final String clientId;
+    private final String clientSecret;
+
+    private String scope = "openid";
+    private String redirectUri;
+    private String userId;
+    private String userSecret;
+
+    private AbstractCryptoProvider cryptoProvider;
+    private String keyId;
+    private SignatureAlgorithm signatureAlgorithm;
+
+    private IntrospectionService introspectionService;
+    private volatile String introspectionAuthorization;
+
+    private final ConcurrentLinkedDeque<String> accessTokens = new ConcurrentLinkedDeque<>();
+    private final ConcurrentLinkedDeque<String> refreshTokens = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger accessTokenCount = new AtomicInteger();
+    private final AtomicInteger refreshTokenCount = new AtomicInteger();
+
+    public LoadContext(OpenIdConfigurationResponse discovery, String clientId, String clientSecret) {
+        this.discovery = discovery;
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+    }
+
+    public OpenIdConfigurationResponse getDiscovery() {
+        return discovery;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public void setScope(String scope) {
+        this.scope = scope;
+    }
+
+    public String getRedirectUri() {
+        return redirectUri;
+    }
+
+    public void setRedirectUri(String redirectUri) {
+        this.redirectUri = redirectUri;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getUserSecret() {
+        return userSecret;
+    }
+
+    public void setUser(String userId, String userSecret) {
+        this.userId = userId;
+        this.userSecret = userSecret;
+    }
+
+    /**
+     * Turns on private_key_jwt client authentication, each token request is sent with new signed client assertion.
+     */
+    public void setPrivateKeyJwt(AbstractCryptoProvider cryptoProvider, String keyId, SignatureAlgorithm signatureAlgorithm) {
+        this.cryptoProvider = cryptoProvider;
+        this.keyId = keyId;
+        this.signatureAlgorithm = signatureAlgorithm;
+    }
+
+    public List<String> getScopes() {
+        return Arrays.asList(scope.split(" "));
+    }
+
+    /**
+     * Sets client authentication of request: client_secret_basic or private_key_jwt.
+     */
+    public void authenticate(ClientAuthnRequest request) {
+        request.setAuthUsername(clientId);
+        if (cryptoProvider != null) {
+            request.setAuthenticationMethod(AuthenticationMethod.PRIVATE_KEY_JWT);
+            request.setCryptoProvider(cryptoProvider);
+            request.setKeyId(keyId);
+            request.setAlgorithm(signatureAlgorithm);
+            request.setAudience(discovery.getTokenEndpoint());
+        } else {
+            request.setAuthPassword(clientSecret);
+        }
+    }
+
+    public synchronized IntrospectionService getIntrospectionService() {
+        if (introspectionService == null) {
+            introspectionService = ClientFactory.instance().createIntrospectionService(discovery.getIntrospectionEndpoint(),
+                    SharedClientEngine.getEngine());
+        }
+        return introspectionService;
+    }
+
+    /**
+     * @return value of Authorization header of introspection requests or null if it's not obtained yet
+     */
+    public String getIntrospectionAuthorization() {
+        return introspectionAuthorization;
+    }
+
+    public void setIntrospectionAuthorization(String introspectionAuthorization) {
+        this.introspectionAuthorization = introspectionAuthorization;
+    }
+
+    public String pollAccessToken() {
+        return poll(accessTokens, accessTokenCount);
+    }
+
+    public void offerAccessToken(String accessToken) {
+        offer(accessTokens, accessTokenCount, accessToken);
+    }
+
+    public String pollRefreshToken() {
+        return poll(refreshTokens, refreshTokenCount);
+    }
+
+    public void offerRefreshToken(String refreshToken) {
+        offer(refreshTokens, refreshTokenCount, refreshToken);
+    }
+
+    private static String poll(ConcurrentLinkedDeque<String> pool, AtomicInteger count) {
+        String token = pool.pollFirst();
+        if (token != null) {
+            count.decrementAndGet();
+        }
+        return token;
+    }
+
+    private static void offer(ConcurrentLinkedDeque<String> pool, AtomicInteger count, String token) {
+        if (token == null) {
+            return;
+        }
+        pool.offerFirst(token);
+        // pool is full, drop oldest token
+        if (count.incrementAndGet() > TOKEN_POOL_LIMIT && pool.pollLast() != null) {
+            count.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,426 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2020, Gluu
+ */
+
+package org.gluu.oxauth.load;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.HistogramLogWriter;
+import org.apache.commons.cli.BasicParser;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.log4j.Logger;
+import org.gluu.oxauth.client.OpenIdConfigurationClient;
+import org.gluu.oxauth.client.OpenIdConfigurationResponse;
+import org.gluu.oxauth.client.SharedClientEngine;
+import org.gluu.oxauth.client.TokenClient;
+import org.gluu.oxauth.client.TokenRequest;
+import org.gluu.oxauth.client.TokenResponse;
+import org.gluu.oxauth.model.common.GrantType;
+import org.gluu.oxauth.model.crypto.OxAuthCryptoProvider;
+import org.gluu.oxauth.model.crypto.signature.SignatureAlgorithm;
+import org.gluu.util.StringHelper;
+
+/**
+ * Open loop load generator. Scenarios (see {@link LoadScenario}) are started with given arrival rate independently of
+ * completion of previous ones, so slow responses of server increase measured latency instead of decreasing offered
+ * load. Latencies are collected with HdrHistogram, interval lines are printed while load is running and summary with
+ * percentiles is printed at the end. Interval histograms can be written to histogram log for later analysis
+ * (e.g. with HistogramLogAnalyzer).
+ * <p/>
+ * Command example:
+ * <p/>
+ * LoadGenerator -url https://localhost:8443 -client_id 0008-ab -client_secret secret -user test_user -password secret
+ * -redirect_uri https://localhost/cb -scope "openid profile" -scenarios client_credentials:50,code:10,refresh:20,introspection:20
+ * -rate 200 -duration 120 -warmup 30 -threads 64 -hlog load.hlog
+ * <p/>
+ * For private_key_jwt client authentication set -keystore, -keypasswd, -dnname, -key_id and -alg instead of -client_secret.
+ */
+public class LoadGenerator {
+
+    private static final String URL = "url";
+    private static final String CLIENT_ID = "client_id";
+    private static final String CLIENT_SECRET = "client_secret";
+    private static final String KEY_STORE_FILE = "keystore";
+    private static final String KEY_STORE_PASSWORD = "keypasswd";
+    private static final String DN_NAME = "dnname";
+    private static final String KEY_ID = "key_id";
+    private static final String ALGORITHM = "alg";
+    private static final String USER = "user";
+    private static final String PASSWORD = "password";
+    private static final String REDIRECT_URI = "redirect_uri";
+    private static final String SCOPE = "scope";
+    private static final String INTROSPECTION_SCOPE = "introspection_scope";
+    private static final String SCENARIOS = "scenarios";
+    private static final String RATE = "rate";
+    private static final String ARRIVAL = "arrival";
+    private static final String DURATION = "duration";
+    private static final String WARMUP = "warmup";
+    private static final String THREADS = "threads";
+    private static final String QUEUE = "queue";
+    private static final String INTERVAL = "interval";
+    private static final String HISTOGRAM_LOG = "hlog";
+    private static final String PERCENTILES = "percentiles";
+    private static final String HELP = "h";
+
+    private static final String DISCOVERY_PATH = "/.well-known/openid-configuration";
+    private static final int MAX_LOGGED_ERRORS = 20;
+
+    private static final Logger log = Logger.getLogger(LoadGenerator.class);
+
+    private final LoadContext context;
+    private final LoadStatistics statistics = new LoadStatistics();
+    private final ScenarioMix mix;
+    private final AtomicInteger loggedErrors = new AtomicInteger();
+
+    private double rate = 10;
+    private boolean poisson;
+    private long durationSeconds = 60;
+    private long warmupSeconds = 0;
+    private int threads = 32;
+    private int queueSize = 1000;
+    private long intervalSeconds = 5;
+    private PrintStream out = System.out;
+
+    public LoadGenerator(LoadContext context, ScenarioMix mix) {
+        this.context = context;
+        this.mix = mix;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Cli(args).parse();
+    }
+
+    public LoadStatistics getStatistics() {
+        return statistics;
+    }
+
+    public void run() throws InterruptedException {
+        if (mix.contains(LoadScenario.INTROSPECTION) && context.getIntrospectionAuthorization() == null) {
+            throw new IllegalStateException("Authorization of introspection requests is not set.");
+        }
+
+        SharedClientEngine.configure(threads, threads);
+
+        final AtomicInteger counter = new AtomicInteger();
+        final ThreadFactory threadFactory = runnable -> new Thread(runnable, "load-worker-" + counter.incrementAndGet());
+        final ThreadPoolExecutor workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), threadFactory);
+        final ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(() -> statistics.printInterval(out, TimeUnit.SECONDS.toMillis(intervalSeconds)),
+                intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+
+        out.println(String.format("Starting load, rate: %s/s (%s), duration: %ss, warmup: %ss, threads: %s, scenarios: %s",
+                rate, poisson ? "poisson" : "uniform", durationSeconds, warmupSeconds, threads, mix));
+
+        final Random random = ThreadLocalRandom.current();
+        final double nanosPerArrival = TimeUnit.SECONDS.toNanos(1) / rate;
+        final long start = System.nanoTime();
+        final long warmupEnd = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        final long end = warmupEnd + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        boolean measuring = warmupSeconds == 0;
+        double next = start;
+        while (next < end) {
+            final long intendedStart = (long) next;
+            final long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!measuring && intendedStart >= warmupEnd) {
+                statistics.reset();
+                measuring = true;
+                out.println("Warmup finished");
+            }
+
+            final LoadScenario scenario = mix.next(random);
+            try {
+                workers.execute(() -> execute(scenario, intendedStart));
+            } catch (RejectedExecutionException e) {
+                statistics.recordDropped();
+            }
+
+            next += poisson ? -Math.log(1 - random.nextDouble()) * nanosPerArrival : nanosPerArrival;
+        }
+
+        workers.shutdown();
+        if (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+            log.warn("Not all scenarios are finished in 1 minute after end of load.");
+            workers.shutdownNow();
+        }
+        reporter.shutdownNow();
+
+        statistics.printSummary(out, TimeUnit.SECONDS.toMillis(durationSeconds));
+    }
+
+    private void execute(LoadScenario scenario, long intendedStart) {
+        try {
+            scenario.run(context, statistics);
+            statistics.recordSuccess(scenario.getName(), intendedStart);
+        } catch (Exception e) {
+            statistics.recordError(scenario.getName(), intendedStart);
+            if (loggedErrors.incrementAndGet() <= MAX_LOGGED_ERRORS) {
+                log.error(String.format("Scenario %s failed: %s", scenario.getName(), e.getMessage()), e);
+            }
+        }
+    }
+
+    public void setRate(double rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Rate must be positive.");
+        }
+        this.rate = rate;
+    }
+
+    public void setPoisson(boolean poisson) {
+        this.poisson = poisson;
+    }
+
+    public void setDurationSeconds(long durationSeconds) {
+        this.durationSeconds = durationSeconds;
+    }
+
+    public void setWarmupSeconds(long warmupSeconds) {
+        this.warmupSeconds = warmupSeconds;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public void setIntervalSeconds(long intervalSeconds) {
+        this.intervalSeconds = intervalSeconds;
+    }
+
+    public void setOut(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Weighted mix of scenarios, e.g. {@code client_credentials:50,code:10,refresh:20,introspection:20}.
+     * Weight is 1 if it's not specified.
+     */
+    public static class ScenarioMix {
+
+        private final List<LoadScenario> scenarios = new ArrayList<>();
+        private final List<Integer> weights = new ArrayList<>();
+        private int totalWeight;
+
+        public static ScenarioMix parse(String value) {
+            ScenarioMix mix = new ScenarioMix();
+            for (String item : value.split(",")) {
+                if (StringHelper.isEmpty(item.trim())) {
+                    continue;
+                }
+                String[] parts = item.trim().split(":");
+                int weight = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+                if (weight <= 0) {
+                    throw new IllegalArgumentException("Weight of scenario must be positive: " + item);
+                }
+                mix.scenarios.add(LoadScenario.fromString(parts[0].trim()));
+                mix.weights.add(weight);
+                mix.totalWeight += weight;
+            }
+            if (mix.scenarios.isEmpty()) {
+                throw new IllegalArgumentException("No scenarios are specified.");
+            }
+            return mix;
+        }
+
+        public LoadScenario next(Random random) {
+            int value = random.nextInt(totalWeight);
+            for (int i = 0; i < scenarios.size(); i++) {
+                value -= weights.get(i);
+                if (value < 0) {
+                    return scenarios.get(i);
+                }
+            }
+            return scenarios.get(scenarios.size() - 1);
+        }
+
+        public boolean contains(LoadScenario scenario) {
+            return scenarios.contains(scenario);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder result = new StringBuilder();
+            for (int i = 0; i < scenarios.size(); i++) {
+                if (i > 0) {
+                    result.append(',');
+                }
+                result.append(scenarios.get(i).getName()).append(':').append(weights.get(i));
+            }
+            return result.toString();
+        }
+    }
+
+    public static class Cli {
+        private String[] args = null;
+        private Options options = new Options();
+
+        public Cli(String[] args) {
+            this.args = args;
+
+            options.addOption(URL, true, "Server url, e.g. https://localhost:8443 (discovery is read from " + DISCOVERY_PATH + ").");
+            options.addOption(CLIENT_ID, true, "Client id.");
+            options.addOption(CLIENT_SECRET, true, "Client secret (client_secret_basic authentication).");
+            options.addOption(KEY_STORE_FILE, true, "Key Store file (private_key_jwt authentication).");
+            options.addOption(KEY_STORE_PASSWORD, true, "Key Store password.");
+            options.addOption(DN_NAME, true, "DN of certificate issuer.");
+            options.addOption(KEY_ID, true, "Key id of signing key (private_key_jwt authentication).");
+            options.addOption(ALGORITHM, true, "Signature algorithm of client assertion. Default: RS256.");
+            options.addOption(USER, true, "User name (code scenario).");
+            options.addOption(PASSWORD, true, "User password (code scenario).");
+            options.addOption(REDIRECT_URI, true, "Redirect uri of client (code scenario).");
+            options.addOption(SCOPE, true, "Scope of requests. Default: openid.");
+            options.addOption(INTROSPECTION_SCOPE, true, "Scope of token which authorizes introspection requests. Default: uma_protection.");
+            options.addOption(SCENARIOS, true, "Weighted scenarios (client_credentials, code, refresh, introspection), e.g. client_credentials:50,code:10,refresh:20,introspection:20.");
+            options.addOption(RATE, true, "Arrival rate, scenarios per second. Default: 10.");
+            options.addOption(ARRIVAL, true, "Arrival distribution: uniform or poisson. Default: uniform.");
+            options.addOption(DURATION, true, "Duration of measured load in seconds. Default: 60.");
+            options.addOption(WARMUP, true, "Duration of warmup in seconds, results of warmup are not reported. Default: 0.");
+            options.addOption(THREADS, true, "Max number of concurrently executed scenarios (and of connections). Default: 32.");
+            options.addOption(QUEUE, true, "Max number of arrived but not started scenarios, above that arrivals are dropped. Default: 1000.");
+            options.addOption(INTERVAL, true, "Reporting interval in seconds. Default: 5.");
+            options.addOption(HISTOGRAM_LOG, true, "File to write interval histograms to (HdrHistogram log format).");
+            options.addOption(PERCENTILES, false, "Print percentile distribution of each scenario and step.");
+            options.addOption(HELP, false, "Show help.");
+        }
+
+        public void parse() {
+            CommandLineParser parser = new BasicParser();
+
+            CommandLine cmd = null;
+            try {
+                cmd = parser.parse(options, args);
+
+                if (cmd.hasOption(HELP)) {
+                    help();
+                }
+
+                if (!(cmd.hasOption(URL) && cmd.hasOption(CLIENT_ID) && cmd.hasOption(SCENARIOS)
+                        && (cmd.hasOption(CLIENT_SECRET) || cmd.hasOption(KEY_STORE_FILE)))) {
+                    help();
+                }
+
+                ScenarioMix mix = ScenarioMix.parse(cmd.getOptionValue(SCENARIOS));
+                if ((mix.contains(LoadScenario.CODE) || mix.contains(LoadScenario.REFRESH))
+                        && !(cmd.hasOption(USER) && cmd.hasOption(PASSWORD) && cmd.hasOption(REDIRECT_URI))) {
+                    log.error("User, password and redirect_uri are required by code and refresh scenarios.");
+                    help();
+                }
+
+                String discoveryUrl = cmd.getOptionValue(URL) + DISCOVERY_PATH;
+                OpenIdConfigurationResponse discovery = new OpenIdConfigurationClient(discoveryUrl).execOpenIdConfiguration();
+                if (discovery.getStatus() != 200) {
+                    log.error("Failed to read discovery from " + discoveryUrl + ", status: " + discovery.getStatus());
+                    return;
+                }
+
+                LoadContext context = new LoadContext(discovery, cmd.getOptionValue(CLIENT_ID), cmd.getOptionValue(CLIENT_SECRET));
+                context.setScope(cmd.getOptionValue(SCOPE, "openid"));
+                context.setRedirectUri(cmd.getOptionValue(REDIRECT_URI));
+                context.setUser(cmd.getOptionValue(USER), cmd.getOptionValue(PASSWORD));
+                if (cmd.hasOption(KEY_STORE_FILE)) {
+                    OxAuthCryptoProvider cryptoProvider = new OxAuthCryptoProvider(cmd.getOptionValue(KEY_STORE_FILE),
+                            cmd.getOptionValue(KEY_STORE_PASSWORD), cmd.getOptionValue(DN_NAME));
+                    context.setPrivateKeyJwt(cryptoProvider, cmd.getOptionValue(KEY_ID),
+                            SignatureAlgorithm.fromString(cmd.getOptionValue(ALGORITHM, SignatureAlgorithm.RS256.getName())));
+                }
+                if (mix.contains(LoadScenario.INTROSPECTION)) {
+                    context.setIntrospectionAuthorization(requestIntrospectionAuthorization(context,
+                            cmd.getOptionValue(INTROSPECTION_SCOPE, "uma_protection")));
+                }
+
+                LoadGenerator generator = new LoadGenerator(context, mix);
+                generator.setRate(Double.parseDouble(cmd.getOptionValue(RATE, "10")));
+                generator.setPoisson("poisson".equalsIgnoreCase(cmd.getOptionValue(ARRIVAL)));
+                generator.setDurationSeconds(StringHelper.toInt(cmd.getOptionValue(DURATION), 60));
+                generator.setWarmupSeconds(StringHelper.toInt(cmd.getOptionValue(WARMUP), 0));
+                generator.setThreads(StringHelper.toInt(cmd.getOptionValue(THREADS), 32));
+                generator.setQueueSize(StringHelper.toInt(cmd.getOptionValue(QUEUE), 1000));
+                generator.setIntervalSeconds(StringHelper.toInt(cmd.getOptionValue(INTERVAL), 5));
+
+                HistogramLogWriter logWriter = null;
+                if (cmd.hasOption(HISTOGRAM_LOG)) {
+                    logWriter = createLogWriter(cmd.getOptionValue(HISTOGRAM_LOG));
+                    generator.getStatistics().setLogWriter(logWriter);
+                }
+
+                try {
+                    generator.run();
+                    if (cmd.hasOption(PERCENTILES)) {
+                        generator.getStatistics().printPercentiles(System.out);
+                    }
+                } finally {
+                    if (logWriter != null) {
+                        logWriter.close();
+                    }
+                    SharedClientEngine.shutdown();
+                }
+            } catch (ParseException e) {
+                log.error("Failed to parse options", e);
+                help();
+            } catch (Exception e) {
+                log.error("Failed to run load", e);
+            }
+        }
+
+        private static String requestIntrospectionAuthorization(LoadContext context, String scope) {
+            TokenRequest request = new TokenRequest(GrantType.CLIENT_CREDENTIALS);
+            request.setScope(scope);
+            context.authenticate(request);
+
+            TokenClient tokenClient = new TokenClient(context.getDiscovery().getTokenEndpoint());
+            tokenClient.setRequest(request);
+            TokenResponse response = tokenClient.exec();
+            if (response.getStatus() != 200) {
+                throw new IllegalStateException("Failed to obtain token for introspection requests: " + response.getEntity());
+            }
+            return "Bearer " + response.getAccessToken();
+        }
+
+        private static HistogramLogWriter createLogWriter(String file) throws FileNotFoundException {
+            HistogramLogWriter logWriter = new HistogramLogWriter(new File(file));
+            logWriter.outputLogFormatVersion();
+            logWriter.outputStartTime(System.currentTimeMillis());
+            logWriter.outputLegend();
+            return logWriter;
+        }
+
+        private void help() {
+            HelpFormatter formatter = new HelpFormatter();
+
+            formatter.printHelp(
+                    "LoadGenerator -url server_url -client_id id [-client_secret secret | -keystore path -keypasswd secret -dnname dn_name -key_id kid] -scenarios name:weight,... [-user name -password secret -redirect_uri uri] [-rate n] [-duration seconds] [-warmup seconds] [-threads n] [-hlog path]",
+                    options);
+            System.exit(0);
+        }
+    }
+}
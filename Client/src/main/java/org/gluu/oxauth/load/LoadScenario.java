@@ -0,0 +1,185 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2020, Gluu
+ */
+
+package org.gluu.oxauth.load;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import org.gluu.oxauth.client.AuthorizationRequest;
+import org.gluu.oxauth.client.AuthorizationResponse;
+import org.gluu.oxauth.client.AuthorizeClient;
+import org.gluu.oxauth.client.BaseResponse;
+import org.gluu.oxauth.client.TokenClient;
+import org.gluu.oxauth.client.TokenRequest;
+import org.gluu.oxauth.client.TokenResponse;
+import org.gluu.oxauth.client.UserInfoClient;
+import org.gluu.oxauth.client.UserInfoResponse;
+import org.gluu.oxauth.model.authorize.CodeVerifier;
+import org.gluu.oxauth.model.common.GrantType;
+import org.gluu.oxauth.model.common.IntrospectionResponse;
+import org.gluu.oxauth.model.common.ResponseType;
+
+/**
+ * Load scenarios. Each step of scenario is recorded separately as {@code <scenario>.<step>}, whole scenario is recorded
+ * by {@link LoadGenerator}. Scenario fails with {@link IllegalStateException} if any step returns unexpected response.
+ */
+public enum LoadScenario {
+
+    /**
+     * Token request with client_credentials grant.
+     */
+    CLIENT_CREDENTIALS("client_credentials") {
+        @Override
+        public void run(LoadContext context, LoadStatistics statistics) {
+            TokenRequest request = new TokenRequest(GrantType.CLIENT_CREDENTIALS);
+            request.setScope(context.getScope());
+
+            TokenResponse response = token(context, statistics, getName() + ".token", request);
+            context.offerAccessToken(response.getAccessToken());
+        }
+    },
+
+    /**
+     * Authorization code flow with PKCE: authorization request with user credentials in Authorization header (so no
+     * user interaction is needed), code exchange and userinfo request.
+     */
+    CODE("code") {
+        @Override
+        public void run(LoadContext context, LoadStatistics statistics) {
+            AuthorizationRequest authorizationRequest = new AuthorizationRequest(Collections.singletonList(ResponseType.CODE),
+                    context.getClientId(), context.getScopes(), context.getRedirectUri(), UUID.randomUUID().toString());
+            authorizationRequest.setState(UUID.randomUUID().toString());
+            authorizationRequest.setAuthUsername(context.getUserId());
+            authorizationRequest.setAuthPassword(context.getUserSecret());
+            CodeVerifier codeVerifier = authorizationRequest.generateAndSetCodeChallengeWithMethod();
+
+            AuthorizeClient authorizeClient = new AuthorizeClient(context.getDiscovery().getAuthorizationEndpoint());
+            authorizeClient.setRequest(authorizationRequest);
+            AuthorizationResponse authorizationResponse = step(statistics, getName() + ".authorize", authorizeClient::exec);
+            if (authorizationResponse.getCode() == null) {
+                throw new IllegalStateException("Authorization response does not contain code, status: "
+                        + authorizationResponse.getStatus() + ", location: " + authorizationResponse.getLocation());
+            }
+
+            TokenRequest tokenRequest = new TokenRequest(GrantType.AUTHORIZATION_CODE);
+            tokenRequest.setCode(authorizationResponse.getCode());
+            tokenRequest.setRedirectUri(context.getRedirectUri());
+            tokenRequest.setCodeVerifier(codeVerifier.getCodeVerifier());
+            TokenResponse tokenResponse = token(context, statistics, getName() + ".token", tokenRequest);
+
+            UserInfoClient userInfoClient = new UserInfoClient(context.getDiscovery().getUserInfoEndpoint());
+            UserInfoResponse userInfoResponse = step(statistics, getName() + ".userinfo",
+                    () -> userInfoClient.execUserInfo(tokenResponse.getAccessToken()));
+            checkStatus(userInfoResponse, 200);
+
+            context.offerAccessToken(tokenResponse.getAccessToken());
+            context.offerRefreshToken(tokenResponse.getRefreshToken());
+        }
+    },
+
+    /**
+     * Token request with refresh_token grant. Refresh tokens are taken from tokens issued by code flow, if there is no
+     * free refresh token code flow is executed first.
+     */
+    REFRESH("refresh") {
+        @Override
+        public void run(LoadContext context, LoadStatistics statistics) {
+            String refreshToken = context.pollRefreshToken();
+            if (refreshToken == null) {
+                CODE.run(context, statistics);
+                refreshToken = context.pollRefreshToken();
+                if (refreshToken == null) {
+                    throw new IllegalStateException("Refresh token is not issued by code flow, check grant types of client.");
+                }
+            }
+
+            TokenRequest request = new TokenRequest(GrantType.REFRESH_TOKEN);
+            request.setScope(context.getScope());
+            request.setRefreshToken(refreshToken);
+
+            TokenResponse response = token(context, statistics, getName() + ".token", request);
+            context.offerAccessToken(response.getAccessToken());
+            context.offerRefreshToken(response.getRefreshToken() != null ? response.getRefreshToken() : refreshToken);
+        }
+    },
+
+    /**
+     * Introspection of issued access token. If there is no free access token client_credentials grant is executed first.
+     */
+    INTROSPECTION("introspection") {
+        @Override
+        public void run(LoadContext context, LoadStatistics statistics) {
+            String accessToken = context.pollAccessToken();
+            if (accessToken == null) {
+                CLIENT_CREDENTIALS.run(context, statistics);
+                accessToken = context.pollAccessToken();
+            }
+
+            final String token = accessToken;
+            IntrospectionResponse response = step(statistics, getName() + ".introspect",
+                    () -> context.getIntrospectionService().introspectToken(context.getIntrospectionAuthorization(), token));
+            if (!response.isActive()) {
+                throw new IllegalStateException("Introspected token is not active.");
+            }
+            context.offerAccessToken(token);
+        }
+    };
+
+    private final String name;
+
+    LoadScenario(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public abstract void run(LoadContext context, LoadStatistics statistics);
+
+    public static LoadScenario fromString(String name) {
+        for (LoadScenario scenario : values()) {
+            if (scenario.name.equalsIgnoreCase(name)) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("Unknown scenario: " + name);
+    }
+
+    private static TokenResponse token(LoadContext context, LoadStatistics statistics, String step, TokenRequest request) {
+        context.authenticate(request);
+
+        TokenClient tokenClient = new TokenClient(context.getDiscovery().getTokenEndpoint());
+        tokenClient.setRequest(request);
+        TokenResponse response = step(statistics, step, tokenClient::exec);
+        checkStatus(response, 200);
+        return response;
+    }
+
+    private static <T> T step(LoadStatistics statistics, String step, Supplier<T> call) {
+        final long start = System.nanoTime();
+        try {
+            T result = call.get();
+            if (result instanceof BaseResponse && ((BaseResponse) result).getStatus() >= 400) {
+                statistics.recordError(step, start);
+            } else {
+                statistics.recordSuccess(step, start);
+            }
+            return result;
+        } catch (RuntimeException e) {
+            statistics.recordError(step, start);
+            throw e;
+        }
+    }
+
+    private static void checkStatus(BaseResponse response, int expectedStatus) {
+        if (response.getStatus() != expectedStatus) {
+            throw new IllegalStateException("Unexpected response status: " + response.getStatus() + ", entity: " + response.getEntity());
+        }
+    }
+}
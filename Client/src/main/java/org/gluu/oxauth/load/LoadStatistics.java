@@ -0,0 +1,152 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2020, Gluu
+ */
+
+package org.gluu.oxauth.load;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Latency histograms of scenarios and of their steps. Values are recorded in microseconds with {@link Recorder}, so
+ * recording is lock free and interval histograms can be taken while load is running.
+ * <p>
+ * Scenario latency is measured from intended arrival time (not from the time when worker picked it up), so queueing
+ * delay is included and numbers are not affected by coordinated omission.
+ */
+public class LoadStatistics {
+
+    private static final long HIGHEST_TRACKABLE_VALUE = TimeUnit.MINUTES.toMicros(5);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private HistogramLogWriter logWriter;
+
+    public void setLogWriter(HistogramLogWriter logWriter) {
+        this.logWriter = logWriter;
+    }
+
+    public void recordSuccess(String name, long startNanos) {
+        entry(name).record(System.nanoTime() - startNanos);
+    }
+
+    public void recordError(String name, long startNanos) {
+        Entry entry = entry(name);
+        entry.record(System.nanoTime() - startNanos);
+        entry.errors.incrementAndGet();
+    }
+
+    public void recordDropped() {
+        dropped.incrementAndGet();
+    }
+
+    /**
+     * Clears everything recorded so far, e.g. at the end of warmup.
+     */
+    public void reset() {
+        for (Entry entry : entries.values()) {
+            entry.reset();
+        }
+        dropped.set(0);
+    }
+
+    /**
+     * Moves interval histograms into totals, writes them to histogram log (if set) and prints short interval line.
+     */
+    public void printInterval(PrintStream out, long intervalMillis) {
+        StringBuilder line = new StringBuilder();
+        for (Map.Entry<String, Entry> e : new TreeMap<>(entries).entrySet()) {
+            Histogram interval = e.getValue().takeInterval();
+            if (logWriter != null) {
+                interval.setTag(e.getKey());
+                logWriter.outputIntervalHistogram(interval);
+            }
+            if (interval.getTotalCount() == 0) {
+                continue;
+            }
+            line.append(String.format("%s: %.1f/s p50=%.2fms p99=%.2fms; ", e.getKey(),
+                    interval.getTotalCount() * 1000.0 / intervalMillis,
+                    toMillis(interval.getValueAtPercentile(50)),
+                    toMillis(interval.getValueAtPercentile(99))));
+        }
+        if (dropped.get() > 0) {
+            line.append("dropped: ").append(dropped.get());
+        }
+        out.println(line);
+    }
+
+    public void printSummary(PrintStream out, long durationMillis) {
+        out.println();
+        out.println(String.format("%-40s %10s %8s %10s %9s %9s %9s %9s %9s %9s", "name", "count", "errors",
+                "rate/s", "min", "p50", "p90", "p99", "p99.9", "max"));
+        for (Map.Entry<String, Entry> e : new TreeMap<>(entries).entrySet()) {
+            Entry entry = e.getValue();
+            Histogram total = entry.takeTotal();
+            out.println(String.format("%-40s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f", e.getKey(),
+                    total.getTotalCount(), entry.errors.get(), total.getTotalCount() * 1000.0 / durationMillis,
+                    toMillis(total.getMinValue()), toMillis(total.getValueAtPercentile(50)),
+                    toMillis(total.getValueAtPercentile(90)), toMillis(total.getValueAtPercentile(99)),
+                    toMillis(total.getValueAtPercentile(99.9)), toMillis(total.getMaxValue())));
+        }
+        out.println("Latencies are in milliseconds. Dropped arrivals (no free worker and full queue): " + dropped.get());
+    }
+
+    public void printPercentiles(PrintStream out) {
+        for (Map.Entry<String, Entry> e : new TreeMap<>(entries).entrySet()) {
+            out.println();
+            out.println(e.getKey());
+            e.getValue().takeTotal().outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private Entry entry(String name) {
+        return entries.computeIfAbsent(name, key -> new Entry());
+    }
+
+    private static double toMillis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static class Entry {
+
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_VALUE, SIGNIFICANT_DIGITS);
+        private final Histogram total = new Histogram(HIGHEST_TRACKABLE_VALUE, SIGNIFICANT_DIGITS);
+        private final AtomicLong errors = new AtomicLong();
+
+        private void record(long nanos) {
+            recorder.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_TRACKABLE_VALUE));
+        }
+
+        private synchronized Histogram takeInterval() {
+            Histogram interval = recorder.getIntervalHistogram();
+            total.add(interval);
+            return interval;
+        }
+
+        /**
+         * @return copy of total histogram including values recorded since last interval
+         */
+        private synchronized Histogram takeTotal() {
+            takeInterval();
+            return total.copy();
+        }
+
+        private synchronized void reset() {
+            recorder.reset();
+            total.reset();
+            errors.set(0);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.gluu.oxauth.client;
+
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+import org.jboss.resteasy.client.jaxrs.ResteasyClient;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+public class SharedClientEngineTest {
+
+    @AfterMethod
+    public void tearDown() {
+        SharedClientEngine.setEnabled(true);
+        SharedClientEngine.shutdown();
+    }
+
+    @Test
+    public void initClientRequest_twoClients_shouldUseSharedClient() {
+        TestClient client1 = new TestClient();
+        TestClient client2 = new TestClient();
+
+        client1.initClientRequest();
+        client2.initClientRequest();
+
+        assertSame(client1.getResteasyClient(), client2.getResteasyClient());
+        assertSame(client1.getResteasyClient(), SharedClientEngine.getClient());
+        assertSame(SharedClientEngine.getEngine(), SharedClientEngine.getEngine());
+    }
+
+    @Test
+    public void closeConnection_ofOneClient_shouldNotCloseSharedClient() {
+        TestClient client1 = new TestClient();
+        client1.initClientRequest();
+        client1.closeConnection();
+
+        TestClient client2 = new TestClient();
+        client2.initClientRequest();
+
+        assertSame(client2.getResteasyClient(), client1.getResteasyClient());
+        // closed client throws IllegalStateException on target creation
+        assertNotNull(client2.getResteasyClient().target("https://localhost/other"));
+    }
+
+    @Test
+    public void initClientRequest_sharedEngineDisabled_shouldCreateOwnClient() {
+        SharedClientEngine.setEnabled(false);
+
+        TestClient client = new TestClient();
+        client.initClientRequest();
+
+        assertNotSame(client.getResteasyClient(), SharedClientEngine.getClient());
+        client.getResteasyClient().close();
+    }
+
+    @Test
+    public void shutdown_shouldCreateNewSharedClientOnNextUse() {
+        ResteasyClient before = SharedClientEngine.getClient();
+
+        SharedClientEngine.shutdown();
+
+        assertNotSame(SharedClientEngine.getClient(), before);
+    }
+
+    private static class TestClient extends BaseClient<BaseRequest, BaseResponse> {
+
+        TestClient() {
+            super("https://localhost/test");
+        }
+
+        @Override
+        public String getHttpMethod() {
+            return "GET";
+        }
+
+        @Override
+        public BaseResponse exec() {
+            return null;
+        }
+
+        ResteasyClient getResteasyClient() {
+            return resteasyClient;
+        }
+    }
+}
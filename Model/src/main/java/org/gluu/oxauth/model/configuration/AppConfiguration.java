@@ -46,15 +46,23 @@ public class AppConfiguration implements Configuration {
     private String idGenerationEndpoint;
     private String introspectionEndpoint;
     private String deviceAuthzEndpoint;
+    private String parEndpoint;
 
     private int discoveryCacheLifetimeInMinutes = 60;
     private int sectorIdentifierCacheLifetimeInMinutes = 1440;
+    private int userCacheLifetimeInSeconds = 0;
+    private int userCacheSizeLimit = 10000;
+    private int userMissCacheLifetimeInSeconds = 5;
+    private int userGroupsCacheLifetimeInSeconds = 0;
+    private int userGroupsCacheSizeLimit = 10000;
 
     private Boolean sessionAsJwt = false;
+    private String sessionJwtSignatureAlgorithm = "RS512";
     private Boolean forceRopcInAuthorizationEndpoint = false;
 
     private String umaConfigurationEndpoint;
     private Boolean umaRptAsJwt = false;
+    private Boolean umaRptSelfContained = false;
     private int umaRptLifetime;
     private int umaTicketLifetime;
     private int umaPctLifetime;
@@ -197,6 +205,17 @@ public class AppConfiguration implements Configuration {
     private Boolean introspectionAccessTokenMustHaveUmaProtectionScope = false;
     private Boolean introspectionSkipAuthorization;
     private Boolean introspectionRestrictBasicAuthnToOwnTokens = false;
+    private int introspectionBatchSizeLimit = 100;
+
+    private Boolean inumGeneratorCompatibilityMode = false;
+
+    private Boolean configurationChangeNotificationEnabled = true;
+    private int configurationChangeCheckInterval = 5;
+    private int configurationReloadInterval = 30;
+
+    private int scriptExecutionTimeout = 0;
+    private String scriptExecutionFallbackPolicy = "fail";
+    private int scriptExecutorPoolSize = 20;
 
     private Boolean endSessionWithAccessToken;
     private String cookieDomain;
@@ -230,6 +249,7 @@ public class AppConfiguration implements Configuration {
     private Boolean forceOfflineAccessScopeToEnableRefreshToken = true;
     private Boolean errorReasonEnabled  = false;
     private Boolean removeRefreshTokensForClientOnLogout  = true;
+    private Boolean revokeTokensAsyncOnLogout = false;
     private Boolean skipRefreshTokenDuringRefreshing  = false;
     private Boolean refreshTokenExtendLifetimeOnRotation  = false;
     private Boolean checkUserPresenceOnRefreshToken = false;
@@ -248,6 +268,7 @@ public class AppConfiguration implements Configuration {
     private Boolean keepAuthenticatorAttributesOnAcrChange = false;
     private Boolean disableAuthnForMaxAgeZero = false;
     private int deviceAuthzRequestExpiresIn;
+    private int parLifetime = 60;
     private int deviceAuthzTokenPollInterval;
     private String deviceAuthzResponseTypeToProcessAuthz;
 
@@ -329,6 +350,46 @@ public class AppConfiguration implements Configuration {
         this.discoveryCacheLifetimeInMinutes = discoveryCacheLifetimeInMinutes;
     }
 
+    public int getUserCacheLifetimeInSeconds() {
+        return userCacheLifetimeInSeconds;
+    }
+
+    public void setUserCacheLifetimeInSeconds(int userCacheLifetimeInSeconds) {
+        this.userCacheLifetimeInSeconds = userCacheLifetimeInSeconds;
+    }
+
+    public int getUserCacheSizeLimit() {
+        return userCacheSizeLimit;
+    }
+
+    public void setUserCacheSizeLimit(int userCacheSizeLimit) {
+        this.userCacheSizeLimit = userCacheSizeLimit;
+    }
+
+    public int getUserMissCacheLifetimeInSeconds() {
+        return userMissCacheLifetimeInSeconds;
+    }
+
+    public void setUserMissCacheLifetimeInSeconds(int userMissCacheLifetimeInSeconds) {
+        this.userMissCacheLifetimeInSeconds = userMissCacheLifetimeInSeconds;
+    }
+
+    public int getUserGroupsCacheLifetimeInSeconds() {
+        return userGroupsCacheLifetimeInSeconds;
+    }
+
+    public void setUserGroupsCacheLifetimeInSeconds(int userGroupsCacheLifetimeInSeconds) {
+        this.userGroupsCacheLifetimeInSeconds = userGroupsCacheLifetimeInSeconds;
+    }
+
+    public int getUserGroupsCacheSizeLimit() {
+        return userGroupsCacheSizeLimit;
+    }
+
+    public void setUserGroupsCacheSizeLimit(int userGroupsCacheSizeLimit) {
+        this.userGroupsCacheSizeLimit = userGroupsCacheSizeLimit;
+    }
+
     public int getSectorIdentifierCacheLifetimeInMinutes() {
         return sectorIdentifierCacheLifetimeInMinutes;
     }
@@ -541,6 +602,15 @@ public class AppConfiguration implements Configuration {
         this.removeRefreshTokensForClientOnLogout = removeRefreshTokensForClientOnLogout;
     }
 
+    public Boolean getRevokeTokensAsyncOnLogout() {
+        if (revokeTokensAsyncOnLogout == null) revokeTokensAsyncOnLogout = false;
+        return revokeTokensAsyncOnLogout;
+    }
+
+    public void setRevokeTokensAsyncOnLogout(Boolean revokeTokensAsyncOnLogout) {
+        this.revokeTokensAsyncOnLogout = revokeTokensAsyncOnLogout;
+    }
+
     public Boolean getDisableJdkLogger() {
         return disableJdkLogger;
     }
@@ -599,6 +669,72 @@ public class AppConfiguration implements Configuration {
         this.introspectionRestrictBasicAuthnToOwnTokens = introspectionRestrictBasicAuthnToOwnTokens;
     }
 
+    public Boolean getInumGeneratorCompatibilityMode() {
+        if (inumGeneratorCompatibilityMode == null) inumGeneratorCompatibilityMode = false;
+        return inumGeneratorCompatibilityMode;
+    }
+
+    public void setInumGeneratorCompatibilityMode(Boolean inumGeneratorCompatibilityMode) {
+        this.inumGeneratorCompatibilityMode = inumGeneratorCompatibilityMode;
+    }
+
+    public Boolean getConfigurationChangeNotificationEnabled() {
+        if (configurationChangeNotificationEnabled == null) configurationChangeNotificationEnabled = true;
+        return configurationChangeNotificationEnabled;
+    }
+
+    public void setConfigurationChangeNotificationEnabled(Boolean configurationChangeNotificationEnabled) {
+        this.configurationChangeNotificationEnabled = configurationChangeNotificationEnabled;
+    }
+
+    public int getConfigurationChangeCheckInterval() {
+        return configurationChangeCheckInterval;
+    }
+
+    public void setConfigurationChangeCheckInterval(int configurationChangeCheckInterval) {
+        this.configurationChangeCheckInterval = configurationChangeCheckInterval;
+    }
+
+    public int getConfigurationReloadInterval() {
+        return configurationReloadInterval;
+    }
+
+    public void setConfigurationReloadInterval(int configurationReloadInterval) {
+        this.configurationReloadInterval = configurationReloadInterval;
+    }
+
+    public int getScriptExecutionTimeout() {
+        return scriptExecutionTimeout;
+    }
+
+    public void setScriptExecutionTimeout(int scriptExecutionTimeout) {
+        this.scriptExecutionTimeout = scriptExecutionTimeout;
+    }
+
+    public String getScriptExecutionFallbackPolicy() {
+        return scriptExecutionFallbackPolicy;
+    }
+
+    public void setScriptExecutionFallbackPolicy(String scriptExecutionFallbackPolicy) {
+        this.scriptExecutionFallbackPolicy = scriptExecutionFallbackPolicy;
+    }
+
+    public int getScriptExecutorPoolSize() {
+        return scriptExecutorPoolSize;
+    }
+
+    public void setScriptExecutorPoolSize(int scriptExecutorPoolSize) {
+        this.scriptExecutorPoolSize = scriptExecutorPoolSize;
+    }
+
+    public int getIntrospectionBatchSizeLimit() {
+        return introspectionBatchSizeLimit;
+    }
+
+    public void setIntrospectionBatchSizeLimit(int introspectionBatchSizeLimit) {
+        this.introspectionBatchSizeLimit = introspectionBatchSizeLimit;
+    }
+
     public Boolean getUmaRptAsJwt() {
         return umaRptAsJwt;
     }
@@ -607,6 +743,14 @@ public class AppConfiguration implements Configuration {
         this.umaRptAsJwt = umaRptAsJwt;
     }
 
+    public Boolean getUmaRptSelfContained() {
+        return umaRptSelfContained;
+    }
+
+    public void setUmaRptSelfContained(Boolean umaRptSelfContained) {
+        this.umaRptSelfContained = umaRptSelfContained;
+    }
+
     public Boolean getForceRopcInAuthorizationEndpoint() {
         if (forceRopcInAuthorizationEndpoint == null) forceRopcInAuthorizationEndpoint = false;
         return forceRopcInAuthorizationEndpoint;
@@ -624,6 +768,14 @@ public class AppConfiguration implements Configuration {
         this.sessionAsJwt = sessionAsJwt;
     }
 
+    public String getSessionJwtSignatureAlgorithm() {
+        return sessionJwtSignatureAlgorithm;
+    }
+
+    public void setSessionJwtSignatureAlgorithm(String sessionJwtSignatureAlgorithm) {
+        this.sessionJwtSignatureAlgorithm = sessionJwtSignatureAlgorithm;
+    }
+
     public Boolean getUmaAddScopesAutomatically() {
         return umaAddScopesAutomatically;
     }
@@ -2148,6 +2300,22 @@ public class AppConfiguration implements Configuration {
         this.deviceAuthzEndpoint = deviceAuthzEndpoint;
     }
 
+    public String getParEndpoint() {
+        return parEndpoint;
+    }
+
+    public void setParEndpoint(String parEndpoint) {
+        this.parEndpoint = parEndpoint;
+    }
+
+    public int getParLifetime() {
+        return parLifetime;
+    }
+
+    public void setParLifetime(int parLifetime) {
+        this.parLifetime = parLifetime;
+    }
+
     public int getDeviceAuthzRequestExpiresIn() {
         return deviceAuthzRequestExpiresIn;
     }
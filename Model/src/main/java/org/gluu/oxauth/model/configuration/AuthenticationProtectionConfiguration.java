@@ -17,6 +17,10 @@ public class AuthenticationProtectionConfiguration {
     
     private Boolean bruteForceProtectionEnabled;
 
+    private Boolean rejectInsteadOfDelay;
+    private int maximumAllowedAttemptsPerClient;
+    private int maximumAllowedAttemptsPerIpAddress;
+
     public final int getAttemptExpiration() {
         return attemptExpiration;
     }
@@ -49,4 +53,28 @@ public class AuthenticationProtectionConfiguration {
         this.bruteForceProtectionEnabled = bruteForceProtectionEnabled;
     }
 
+    public final Boolean getRejectInsteadOfDelay() {
+        return rejectInsteadOfDelay;
+    }
+
+    public final void setRejectInsteadOfDelay(Boolean rejectInsteadOfDelay) {
+        this.rejectInsteadOfDelay = rejectInsteadOfDelay;
+    }
+
+    public final int getMaximumAllowedAttemptsPerClient() {
+        return maximumAllowedAttemptsPerClient;
+    }
+
+    public final void setMaximumAllowedAttemptsPerClient(int maximumAllowedAttemptsPerClient) {
+        this.maximumAllowedAttemptsPerClient = maximumAllowedAttemptsPerClient;
+    }
+
+    public final int getMaximumAllowedAttemptsPerIpAddress() {
+        return maximumAllowedAttemptsPerIpAddress;
+    }
+
+    public final void setMaximumAllowedAttemptsPerIpAddress(int maximumAllowedAttemptsPerIpAddress) {
+        this.maximumAllowedAttemptsPerIpAddress = maximumAllowedAttemptsPerIpAddress;
+    }
+
 }
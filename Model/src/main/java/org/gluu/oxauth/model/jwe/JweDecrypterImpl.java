@@ -26,8 +26,13 @@ import java.security.Key;
 import java.security.MessageDigest;
 import java.security.PrivateKey;
 import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
+ * Decrypter is thread safe and can be reused: nimbus decrypters (with derived symmetric key)
+ * are created once per key encryption and block encryption algorithm pair and kept by instance.
+ *
  * @author Javier Rojas Blum
  * @version November 20, 2018
  */
@@ -39,6 +44,8 @@ public class JweDecrypterImpl extends AbstractJweDecrypter {
     private RSAPrivateKey rsaPrivateKey;
     private byte[] sharedSymmetricKey;
 
+    private final ConcurrentMap<String, JWEDecrypter> decrypters = new ConcurrentHashMap<>();
+
     public JweDecrypterImpl(byte[] sharedSymmetricKey) {
         if (sharedSymmetricKey != null) {
             this.sharedSymmetricKey = sharedSymmetricKey.clone();
@@ -77,35 +84,11 @@ public class JweDecrypterImpl extends AbstractJweDecrypter {
 
             EncryptedJWT encryptedJwt = EncryptedJWT.parse(encryptedJwe);
 
-            setKeyEncryptionAlgorithm(KeyEncryptionAlgorithm.fromName(jwe.getHeader().getClaimAsString(JwtHeaderName.ALGORITHM)));
-            setBlockEncryptionAlgorithm(BlockEncryptionAlgorithm.fromName(jwe.getHeader().getClaimAsString(JwtHeaderName.ENCRYPTION_METHOD)));
-
-            final KeyEncryptionAlgorithm keyEncryptionAlgorithm = getKeyEncryptionAlgorithm();
-            Key encriptionKey = null;
-            if (keyEncryptionAlgorithm == KeyEncryptionAlgorithm.RSA1_5 || keyEncryptionAlgorithm == KeyEncryptionAlgorithm.RSA_OAEP) {
-                encriptionKey = privateKey;
-            } else if (keyEncryptionAlgorithm == KeyEncryptionAlgorithm.A128KW || keyEncryptionAlgorithm == KeyEncryptionAlgorithm.A256KW) {
-                if (sharedSymmetricKey == null) {
-                    throw new InvalidJweException("The shared symmetric key is null");
-                }
-
-                int keyLength = 16;
-                if (keyEncryptionAlgorithm == KeyEncryptionAlgorithm.A256KW) {
-                    keyLength = 32;
-                }
-
-                if (sharedSymmetricKey.length != keyLength) {
-                    MessageDigest sha = MessageDigest.getInstance("SHA-256");
-                    sharedSymmetricKey = sha.digest(sharedSymmetricKey);
-                    sharedSymmetricKey = Arrays.copyOf(sharedSymmetricKey, keyLength);
-                }
-                encriptionKey = new SecretKeySpec(sharedSymmetricKey, 0, sharedSymmetricKey.length, "AES");
-            } else {
-                throw new InvalidJweException("The key encryption algorithm is not supported");
-            }
+            // algorithms are taken from header of each jwe, instance fields are not changed to keep decrypter shareable
+            final KeyEncryptionAlgorithm keyEncryptionAlgorithm = KeyEncryptionAlgorithm.fromName(jwe.getHeader().getClaimAsString(JwtHeaderName.ALGORITHM));
+            final BlockEncryptionAlgorithm blockEncryptionAlgorithm = BlockEncryptionAlgorithm.fromName(jwe.getHeader().getClaimAsString(JwtHeaderName.ENCRYPTION_METHOD));
 
-            JWEDecrypter decrypter = DECRYPTER_FACTORY.createJWEDecrypter(encryptedJwt.getHeader(), encriptionKey);
-            decrypter.getJCAContext().setProvider(SecurityProviderUtility.getBCProvider());
+            JWEDecrypter decrypter = getDecrypter(encryptedJwt, keyEncryptionAlgorithm, blockEncryptionAlgorithm);
             encryptedJwt.decrypt(decrypter);
 
             final SignedJWT signedJWT = encryptedJwt.getPayload().toSignedJWT();
@@ -123,4 +106,44 @@ public class JweDecrypterImpl extends AbstractJweDecrypter {
             throw new InvalidJweException(e);
         }
     }
+
+    private JWEDecrypter getDecrypter(EncryptedJWT encryptedJwt, KeyEncryptionAlgorithm keyEncryptionAlgorithm,
+                                      BlockEncryptionAlgorithm blockEncryptionAlgorithm) throws Exception {
+        final String key = keyEncryptionAlgorithm + "_" + blockEncryptionAlgorithm;
+        JWEDecrypter decrypter = decrypters.get(key);
+        if (decrypter != null) {
+            return decrypter;
+        }
+
+        decrypter = DECRYPTER_FACTORY.createJWEDecrypter(encryptedJwt.getHeader(), getEncryptionKey(keyEncryptionAlgorithm));
+        decrypter.getJCAContext().setProvider(SecurityProviderUtility.getBCProvider());
+
+        final JWEDecrypter existing = decrypters.putIfAbsent(key, decrypter);
+        return existing != null ? existing : decrypter;
+    }
+
+    private Key getEncryptionKey(KeyEncryptionAlgorithm keyEncryptionAlgorithm) throws Exception {
+        if (keyEncryptionAlgorithm == KeyEncryptionAlgorithm.RSA1_5 || keyEncryptionAlgorithm == KeyEncryptionAlgorithm.RSA_OAEP) {
+            return privateKey;
+        } else if (keyEncryptionAlgorithm == KeyEncryptionAlgorithm.A128KW || keyEncryptionAlgorithm == KeyEncryptionAlgorithm.A256KW) {
+            if (sharedSymmetricKey == null) {
+                throw new InvalidJweException("The shared symmetric key is null");
+            }
+
+            int keyLength = 16;
+            if (keyEncryptionAlgorithm == KeyEncryptionAlgorithm.A256KW) {
+                keyLength = 32;
+            }
+
+            // derived key is computed per algorithm, shared key itself is never overwritten
+            byte[] encryptionKey = sharedSymmetricKey;
+            if (encryptionKey.length != keyLength) {
+                MessageDigest sha = MessageDigest.getInstance("SHA-256");
+                encryptionKey = Arrays.copyOf(sha.digest(encryptionKey), keyLength);
+            }
+            return new SecretKeySpec(encryptionKey, 0, encryptionKey.length, "AES");
+        } else {
+            throw new InvalidJweException("The key encryption algorithm is not supported");
+        }
+    }
 }
\ No newline at end of file
@@ -29,6 +29,9 @@ import org.gluu.oxauth.model.jwt.JwtType;
 import org.gluu.oxauth.model.util.Base64Util;
 
 /**
+ * Encrypter is thread safe and can be reused: nimbus encrypter (with derived symmetric key)
+ * is created on first encryption and kept by instance.
+ *
  * @author Javier Rojas Blum
  * @version November 20, 2018
  */
@@ -37,6 +40,8 @@ public class JweEncrypterImpl extends AbstractJweEncrypter {
     private PublicKey publicKey;
     private byte[] sharedSymmetricKey;
 
+    private volatile JWEEncrypter jweEncrypter;
+
     public JweEncrypterImpl(KeyEncryptionAlgorithm keyEncryptionAlgorithm, BlockEncryptionAlgorithm blockEncryptionAlgorithm, byte[] sharedSymmetricKey) {
         super(keyEncryptionAlgorithm, blockEncryptionAlgorithm);
         if (sharedSymmetricKey != null) {
@@ -63,18 +68,27 @@ public class JweEncrypterImpl extends AbstractJweEncrypter {
                 keyLength = 32;
             }
 
-            if (sharedSymmetricKey.length != keyLength) {
+            byte[] encryptionKey = sharedSymmetricKey;
+            if (encryptionKey.length != keyLength) {
                 MessageDigest sha = MessageDigest.getInstance("SHA-256");
-                sharedSymmetricKey = sha.digest(sharedSymmetricKey);
-                sharedSymmetricKey = Arrays.copyOf(sharedSymmetricKey, keyLength);
+                encryptionKey = Arrays.copyOf(sha.digest(encryptionKey), keyLength);
             }
 
-            return new AESEncrypter(sharedSymmetricKey);
+            return new AESEncrypter(encryptionKey);
         } else {
             throw new InvalidJweException("The key encryption algorithm is not supported");
         }
     }
 
+    private JWEEncrypter getJweEncrypter() throws JOSEException, InvalidJweException, NoSuchAlgorithmException {
+        JWEEncrypter encrypter = jweEncrypter;
+        if (encrypter == null) {
+            encrypter = createJweEncrypter();
+            jweEncrypter = encrypter;
+        }
+        return encrypter;
+    }
+
     public static Payload createPayload(Jwe jwe) throws ParseException, InvalidJwtException, UnsupportedEncodingException {
         if (jwe.getSignedJWTPayload() != null) {
             return new Payload(SignedJWT.parse(jwe.getSignedJWTPayload().toString()));
@@ -85,7 +99,7 @@ public class JweEncrypterImpl extends AbstractJweEncrypter {
     @Override
     public Jwe encrypt(Jwe jwe) throws InvalidJweException {
         try {
-            JWEEncrypter encrypter = createJweEncrypter();
+            JWEEncrypter encrypter = getJweEncrypter();
 
             if (jwe.getSignedJWTPayload() != null) {
                 jwe.getHeader().setContentType(JwtType.JWT);
@@ -0,0 +1,82 @@
+package org.gluu.oxauth.model.jwe;
+
+import org.gluu.oxauth.model.crypto.encryption.BlockEncryptionAlgorithm;
+import org.gluu.oxauth.model.crypto.encryption.KeyEncryptionAlgorithm;
+import org.gluu.oxauth.model.exception.InvalidJweException;
+import org.gluu.util.security.SecurityProviderUtility;
+import org.testng.Reporter;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+
+/**
+ * Compares encryption/decryption with encrypter and decrypter created per token
+ * and with shared instances (as cached by server) for RSA-OAEP and A128KW. Run with testng-benchmark.xml.
+ */
+public class JweBenchmarkTest {
+
+    private static final int WARM_UP_ITERATIONS = 200;
+    private static final int ITERATIONS = 2000;
+
+    private static final byte[] SHARED_SECRET = "client_secret_which_is_not_of_aes_key_length".getBytes(StandardCharsets.UTF_8);
+
+    private KeyPair keyPair;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        SecurityProviderUtility.installBCProvider();
+
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        keyPair = keyPairGenerator.generateKeyPair();
+    }
+
+    @Test
+    public void rsaOaep() throws Exception {
+        final KeyEncryptionAlgorithm alg = KeyEncryptionAlgorithm.RSA_OAEP;
+        final BlockEncryptionAlgorithm enc = BlockEncryptionAlgorithm.A128GCM;
+
+        JweEncrypterImpl sharedEncrypter = new JweEncrypterImpl(alg, enc, keyPair.getPublic());
+        JweDecrypterImpl sharedDecrypter = new JweDecrypterImpl(keyPair.getPrivate());
+
+        run("RSA-OAEP per token", () -> new JweDecrypterImpl(keyPair.getPrivate()).decrypt(
+                new JweEncrypterImpl(alg, enc, keyPair.getPublic()).encrypt(JweEncrypterDecrypterTest.newJwe(alg, enc, "user")).toString()));
+        run("RSA-OAEP shared", () -> sharedDecrypter.decrypt(
+                sharedEncrypter.encrypt(JweEncrypterDecrypterTest.newJwe(alg, enc, "user")).toString()));
+    }
+
+    @Test
+    public void a128kw() throws Exception {
+        final KeyEncryptionAlgorithm alg = KeyEncryptionAlgorithm.A128KW;
+        final BlockEncryptionAlgorithm enc = BlockEncryptionAlgorithm.A128GCM;
+
+        JweEncrypterImpl sharedEncrypter = new JweEncrypterImpl(alg, enc, SHARED_SECRET);
+        JweDecrypterImpl sharedDecrypter = new JweDecrypterImpl(SHARED_SECRET);
+
+        run("A128KW per token", () -> new JweDecrypterImpl(SHARED_SECRET).decrypt(
+                new JweEncrypterImpl(alg, enc, SHARED_SECRET).encrypt(JweEncrypterDecrypterTest.newJwe(alg, enc, "user")).toString()));
+        run("A128KW shared", () -> sharedDecrypter.decrypt(
+                sharedEncrypter.encrypt(JweEncrypterDecrypterTest.newJwe(alg, enc, "user")).toString()));
+    }
+
+    private static void run(String name, RoundTrip roundTrip) throws InvalidJweException {
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            roundTrip.run();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            roundTrip.run();
+        }
+        long took = System.nanoTime() - start;
+
+        Reporter.log(String.format("%s: %d round trips, %.1f us per round trip", name, ITERATIONS, took / 1000.0 / ITERATIONS), true);
+    }
+
+    private interface RoundTrip {
+        void run() throws InvalidJweException;
+    }
+}
@@ -0,0 +1,64 @@
+package org.gluu.oxauth.model.jwe;
+
+import org.gluu.oxauth.model.crypto.encryption.BlockEncryptionAlgorithm;
+import org.gluu.oxauth.model.crypto.encryption.KeyEncryptionAlgorithm;
+import org.gluu.oxauth.model.jwt.JwtType;
+import org.gluu.util.security.SecurityProviderUtility;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+
+import static org.testng.Assert.assertEquals;
+
+public class JweEncrypterDecrypterTest {
+
+    private static final byte[] SHARED_SECRET = "client_secret_which_is_not_of_aes_key_length".getBytes(StandardCharsets.UTF_8);
+
+    private KeyPair keyPair;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        SecurityProviderUtility.installBCProvider();
+
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        keyPair = keyPairGenerator.generateKeyPair();
+    }
+
+    @Test
+    public void decrypt_rsaOaepWithSharedInstances_shouldDecryptEachJwe() throws Exception {
+        JweEncrypterImpl encrypter = new JweEncrypterImpl(KeyEncryptionAlgorithm.RSA_OAEP, BlockEncryptionAlgorithm.A128GCM, keyPair.getPublic());
+        JweDecrypterImpl decrypter = new JweDecrypterImpl(keyPair.getPrivate());
+
+        for (int i = 0; i < 3; i++) {
+            String encoded = encrypter.encrypt(newJwe(KeyEncryptionAlgorithm.RSA_OAEP, BlockEncryptionAlgorithm.A128GCM, "user" + i)).toString();
+            assertEquals(decrypter.decrypt(encoded).getClaims().getClaimAsString("sub"), "user" + i);
+        }
+    }
+
+    @Test
+    public void decrypt_differentKeyWrapAlgorithmsWithSameDecrypter_shouldDeriveKeyPerAlgorithm() throws Exception {
+        JweEncrypterImpl encrypter128 = new JweEncrypterImpl(KeyEncryptionAlgorithm.A128KW, BlockEncryptionAlgorithm.A128GCM, SHARED_SECRET);
+        JweEncrypterImpl encrypter256 = new JweEncrypterImpl(KeyEncryptionAlgorithm.A256KW, BlockEncryptionAlgorithm.A256GCM, SHARED_SECRET);
+        JweDecrypterImpl decrypter = new JweDecrypterImpl(SHARED_SECRET);
+
+        String encoded128 = encrypter128.encrypt(newJwe(KeyEncryptionAlgorithm.A128KW, BlockEncryptionAlgorithm.A128GCM, "user128")).toString();
+        String encoded256 = encrypter256.encrypt(newJwe(KeyEncryptionAlgorithm.A256KW, BlockEncryptionAlgorithm.A256GCM, "user256")).toString();
+
+        assertEquals(decrypter.decrypt(encoded128).getClaims().getClaimAsString("sub"), "user128");
+        assertEquals(decrypter.decrypt(encoded256).getClaims().getClaimAsString("sub"), "user256");
+        assertEquals(decrypter.decrypt(encoded128).getClaims().getClaimAsString("sub"), "user128");
+    }
+
+    static Jwe newJwe(KeyEncryptionAlgorithm keyEncryptionAlgorithm, BlockEncryptionAlgorithm blockEncryptionAlgorithm, String subject) {
+        Jwe jwe = new Jwe();
+        jwe.getHeader().setType(JwtType.JWT);
+        jwe.getHeader().setAlgorithm(keyEncryptionAlgorithm);
+        jwe.getHeader().setEncryptionMethod(blockEncryptionAlgorithm);
+        jwe.getClaims().setClaim("sub", subject);
+        return jwe;
+    }
+}
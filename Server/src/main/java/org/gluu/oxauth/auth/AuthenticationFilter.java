@@ -62,7 +62,8 @@ import static org.gluu.oxauth.model.ciba.BackchannelAuthenticationErrorResponseT
                 "/restv1/revoke",
                 "/restv1/revoke_session",
                 "/restv1/bc-authorize",
-                "/restv1/device_authorization"},
+                "/restv1/device_authorization",
+                "/restv1/par"},
         displayName = "oxAuth")
 public class AuthenticationFilter implements Filter {
 
@@ -133,6 +134,7 @@ public class AuthenticationFilter implements Filter {
             boolean tokenRevocationEndpoint = ServerUtil.isSameRequestPath(requestUrl, appConfiguration.getTokenRevocationEndpoint());
             boolean backchannelAuthenticationEnpoint = ServerUtil.isSameRequestPath(requestUrl, appConfiguration.getBackchannelAuthenticationEndpoint());
             boolean deviceAuthorizationEndpoint = ServerUtil.isSameRequestPath(requestUrl, appConfiguration.getDeviceAuthzEndpoint());
+            boolean parEndpoint = ServerUtil.isSameRequestPath(requestUrl, appConfiguration.getParEndpoint());
             boolean umaTokenEndpoint = requestUrl.endsWith("/uma/token");
             boolean revokeSessionEndpoint = requestUrl.endsWith("/revoke_session");
             String authorizationHeader = httpRequest.getHeader("Authorization");
@@ -147,13 +149,13 @@ public class AuthenticationFilter implements Filter {
                 log.error(ex.getMessage(), ex);
             }
 
-            if ((tokenRevocationEndpoint || deviceAuthorizationEndpoint) && clientService.isPublic(httpRequest.getParameter("client_id"))) {
-                log.trace("Skipped authentication for {} for public client.", tokenRevocationEndpoint ? "Token Revocation" : "Device Authorization");
+            if ((tokenRevocationEndpoint || deviceAuthorizationEndpoint || parEndpoint) && clientService.isPublic(httpRequest.getParameter("client_id"))) {
+                log.trace("Skipped authentication for {} for public client.", tokenRevocationEndpoint ? "Token Revocation" : (parEndpoint ? "Pushed Authorization Request" : "Device Authorization"));
                 filterChain.doFilter(httpRequest, httpResponse);
                 return;
             }
 
-            if (tokenEndpoint || umaTokenEndpoint || revokeSessionEndpoint || tokenRevocationEndpoint || deviceAuthorizationEndpoint) {
+            if (tokenEndpoint || umaTokenEndpoint || revokeSessionEndpoint || tokenRevocationEndpoint || deviceAuthorizationEndpoint || parEndpoint) {
                 log.debug("Starting endpoint authentication {}", requestUrl);
 
                 // #686 : allow authenticated client via user access_token
@@ -336,7 +338,8 @@ public class AuthenticationFilter implements Filter {
                                 || servletRequest.getRequestURI().endsWith("/revoke_session")
                                 || servletRequest.getRequestURI().endsWith("/userinfo")
                                 || servletRequest.getRequestURI().endsWith("/bc-authorize")
-                                || servletRequest.getRequestURI().endsWith("/device_authorization")) {
+                                || servletRequest.getRequestURI().endsWith("/device_authorization")
+                                || ServerUtil.isSameRequestPath(servletRequest.getRequestURL().toString(), appConfiguration.getParEndpoint())) {
                             Client client = clientService.getClient(username);
                             if (client == null
                                     || AuthenticationMethod.CLIENT_SECRET_BASIC != client.getAuthenticationMethod()) {
@@ -36,6 +36,7 @@ import javax.faces.context.FacesContext;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -130,7 +131,10 @@ public class Authenticator {
 
 		if (Constants.RESULT_SUCCESS.equals(lastResult)) {
 			return true;
-		} else if (Constants.RESULT_FAILURE.equals(lastResult)) {
+		}
+
+		addRetryAfterHeader();
+		if (Constants.RESULT_FAILURE.equals(lastResult)) {
 			authenticationFailed();
 		} else if (Constants.RESULT_NO_PERMISSIONS.equals(lastResult)) {
 			handlePermissionsError();
@@ -149,6 +153,9 @@ public class Authenticator {
 	public String authenticateWithOutcome() {
 		HttpServletRequest servletRequest = (HttpServletRequest) facesContext.getExternalContext().getRequest();
 		lastResult = authenticateImpl(servletRequest, true, false, false);
+		if (!Constants.RESULT_SUCCESS.equals(lastResult)) {
+			addRetryAfterHeader();
+		}
 
 		if (Constants.RESULT_SUCCESS.equals(lastResult)) {
 		} else if (Constants.RESULT_FAILURE.equals(lastResult)) {
@@ -744,6 +751,22 @@ public class Authenticator {
 		this.authAcr = sessionIdAttributes.get(JwtClaimName.AUTHENTICATION_CONTEXT_CLASS_REFERENCE);
 	}
 
+	/**
+	 * Tells client when to retry if attempt was rejected by brute force protection, the same way as token endpoint does for ROPC
+	 */
+	private void addRetryAfterHeader() {
+		final int retryAfter = authenticationService.getRetryAfter();
+		if (retryAfter <= 0) {
+			return;
+		}
+
+		final Object response = facesContext.getExternalContext().getResponse();
+		if (response instanceof HttpServletResponse) {
+			logger.debug("Too many authentication attempts, retry after {} seconds", retryAfter);
+			((HttpServletResponse) response).setHeader("Retry-After", String.valueOf(retryAfter));
+		}
+	}
+
 	private boolean authenticationFailed() {
 		addMessage(FacesMessage.SEVERITY_ERROR, "login.errorMessage");
 		handleScriptError(null);
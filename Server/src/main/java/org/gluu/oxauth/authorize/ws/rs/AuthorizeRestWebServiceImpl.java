@@ -155,6 +155,12 @@ public class AuthorizeRestWebServiceImpl implements AuthorizeRestWebService {
     @Inject
     private ExternalResourceOwnerPasswordCredentialsService externalResourceOwnerPasswordCredentialsService;
 
+    @Inject
+    private ParService parService;
+
+    @Inject
+    private PollingThrottleService pollingThrottleService;
+
     @Context
     private HttpServletRequest servletRequest;
 
@@ -196,6 +202,54 @@ public class AuthorizeRestWebServiceImpl implements AuthorizeRestWebService {
         scope = ServerUtil.urlDecode(scope); // it may be encoded in uma case
         requestUri = ServerUtil.urlDecode(requestUri); // requestUri usually contains encoded characters.
 
+        PushedAuthorizationRequest par = null;
+        JwtAuthorizationRequest parJwtRequest = null;
+        if (ParService.isParRequestUri(requestUri)) {
+            par = parService.getAndRemove(requestUri);
+            if (par == null || !StringUtils.equals(par.getClientId(), clientId)) {
+                log.debug("Pushed authorization request is not found, expired or issued to another client, request_uri: {}", requestUri);
+                throw new WebApplicationException(Response
+                        .status(Response.Status.BAD_REQUEST)
+                        .entity(errorResponseFactory.getErrorAsJson(AuthorizeErrorResponseType.INVALID_REQUEST_URI, state, "Invalid request_uri."))
+                        .build());
+            }
+
+            // only parameters of pushed request are used (RFC 9126 4)
+            scope = par.getParameter(AuthorizeRequestParam.SCOPE);
+            responseType = par.getParameter(AuthorizeRequestParam.RESPONSE_TYPE);
+            redirectUri = par.getParameter(AuthorizeRequestParam.REDIRECT_URI);
+            state = par.getParameter(AuthorizeRequestParam.STATE);
+            respMode = par.getParameter(AuthorizeRequestParam.RESPONSE_MODE);
+            nonce = par.getParameter(AuthorizeRequestParam.NONCE);
+            display = par.getParameter(AuthorizeRequestParam.DISPLAY);
+            prompt = par.getParameter(AuthorizeRequestParam.PROMPT);
+            maxAge = StringHelper.toInteger(par.getParameter(AuthorizeRequestParam.MAX_AGE), null);
+            uiLocalesStr = par.getParameter(AuthorizeRequestParam.UI_LOCALES);
+            idTokenHint = par.getParameter(AuthorizeRequestParam.ID_TOKEN_HINT);
+            loginHint = par.getParameter(AuthorizeRequestParam.LOGIN_HINT);
+            acrValuesStr = par.getParameter(AuthorizeRequestParam.ACR_VALUES);
+            amrValuesStr = par.getParameter(AuthorizeRequestParam.AMR_VALUES);
+            codeChallenge = par.getParameter(AuthorizeRequestParam.CODE_CHALLENGE);
+            codeChallengeMethod = par.getParameter(AuthorizeRequestParam.CODE_CHALLENGE_METHOD);
+            customRespHeaders = par.getParameter(AuthorizeRequestParam.CUSTOM_RESPONSE_HEADERS);
+            claims = par.getParameter(AuthorizeRequestParam.CLAIMS);
+
+            // request object was validated by PAR endpoint, it is passed further only to be kept in session
+            request = par.getRequest();
+            requestUri = null;
+            if (StringUtils.isNotBlank(par.getRequestPayload())) {
+                try {
+                    parJwtRequest = JwtAuthorizationRequest.createFromVerifiedPayload(appConfiguration, par.getRequest(), par.getRequestPayload());
+                } catch (Exception e) {
+                    log.error("Failed to load request object of pushed authorization request.", e);
+                    throw new WebApplicationException(Response
+                            .status(Response.Status.BAD_REQUEST)
+                            .entity(errorResponseFactory.getErrorAsJson(AuthorizeErrorResponseType.INVALID_REQUEST_OBJECT, state, ""))
+                            .build());
+                }
+            }
+        }
+
         String tokenBindingHeader = httpRequest.getHeader("Sec-Token-Binding");
 
         OAuth2AuditLog oAuth2AuditLog = new OAuth2AuditLog(ServerUtil.getIpAddress(httpRequest), Action.USER_AUTHORIZATION);
@@ -229,6 +283,9 @@ public class AuthorizeRestWebServiceImpl implements AuthorizeRestWebService {
         if (HttpMethod.POST.endsWith(method)) {
             requestParameterService.addCustomParameters(httpRequest, customParameters);
         }
+        if (par != null) {
+            customParameters.putAll(requestParameterService.getCustomParameters(par.getParameters()));
+        }
 
         SessionId sessionUser = identity.getSessionId();
         User user = sessionIdService.getUser(sessionUser);
@@ -254,9 +311,10 @@ public class AuthorizeRestWebServiceImpl implements AuthorizeRestWebService {
             authorizeRestWebServiceValidator.validateRequestUriParameterSupported(requestUri, state);
 
             JwtAuthorizationRequest jwtRequest = null;
-            if (StringUtils.isNotBlank(request) || StringUtils.isNotBlank(requestUri)) {
+            if (parJwtRequest != null || StringUtils.isNotBlank(request) || StringUtils.isNotBlank(requestUri)) {
                 try {
-                    jwtRequest = JwtAuthorizationRequest.createJwtRequest(request, requestUri, client, redirectUriResponse, cryptoProvider, appConfiguration);
+                    jwtRequest = parJwtRequest != null ? parJwtRequest :
+                            JwtAuthorizationRequest.createJwtRequest(request, requestUri, client, redirectUriResponse, cryptoProvider, appConfiguration);
 
                     if (jwtRequest == null) {
                         throw createInvalidJwtRequestException(redirectUriResponse, "Failed to parse jwt.");
@@ -762,6 +820,7 @@ public class AuthorizeRestWebServiceImpl implements AuthorizeRestWebService {
 
         cibaRequestService.removeCibaRequest(authReqId);
         CIBAGrant cibaGrant = authorizationGrantList.createCIBAGrant(cibaRequest);
+        pollingThrottleService.removeLastPollTime(authReqId, cibaRequest.getClient().getClientId());
         executionContext.setGrant(cibaGrant);
 
         RefreshToken refreshToken = cibaGrant.createRefreshToken(executionContext);
@@ -1049,6 +1108,7 @@ public class AuthorizeRestWebServiceImpl implements AuthorizeRestWebService {
 
         deviceAuthorizationService.removeDeviceAuthRequestInCache(userCode, cacheData.getDeviceCode());
         DeviceCodeGrant deviceCodeGrant = authorizationGrantList.createDeviceGrant(cacheData, user);
+        pollingThrottleService.removeLastPollTime(cacheData.getDeviceCode(), cacheData.getClient().getClientId());
 
         log.info("Granted device authorization request, user_code: {}, device_code: {}, grant_id: {}", userCode, cacheData.getDeviceCode(), deviceCodeGrant.getGrantId());
     }
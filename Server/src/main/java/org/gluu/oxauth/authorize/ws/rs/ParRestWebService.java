@@ -0,0 +1,46 @@
+package org.gluu.oxauth.authorize.ws.rs;
+
+import org.gluu.oxauth.model.authorize.AuthorizeRequestParam;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.FormParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
+
+/**
+ * <p>
+ * Provides interface for Pushed Authorization Requests (RFC 9126).
+ * </p>
+ */
+public interface ParRestWebService {
+
+    /**
+     * Pushed Authorization Request [RFC9126 2.1].
+     * Accepts authorization request parameters (and optionally request object) from authenticated client
+     * and returns request_uri which can be used once at authorization endpoint instead of the parameters.
+     *
+     * @param clientId     REQUIRED The client identifier.
+     * @param responseType REQUIRED The response type.
+     * @param redirectUri  REQUIRED Redirection URI to which the response will be sent.
+     * @param request      OPTIONAL Request object.
+     * @param requestUri   Not allowed for pushed authorization requests.
+     */
+    @POST
+    @Path("/par")
+    @Produces({MediaType.APPLICATION_JSON})
+    Response requestPushedAuthorization(
+            @FormParam(AuthorizeRequestParam.CLIENT_ID) String clientId,
+            @FormParam(AuthorizeRequestParam.RESPONSE_TYPE) String responseType,
+            @FormParam(AuthorizeRequestParam.REDIRECT_URI) String redirectUri,
+            @FormParam(AuthorizeRequestParam.REQUEST) String request,
+            @FormParam(AuthorizeRequestParam.REQUEST_URI) String requestUri,
+            @Context HttpServletRequest httpRequest,
+            @Context HttpServletResponse httpResponse,
+            @Context SecurityContext securityContext);
+}
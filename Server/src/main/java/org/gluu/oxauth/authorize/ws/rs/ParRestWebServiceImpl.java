@@ -0,0 +1,172 @@
+package org.gluu.oxauth.authorize.ws.rs;
+
+import com.google.common.collect.Sets;
+import org.apache.commons.lang.ArrayUtils;
+import org.apache.commons.lang.StringUtils;
+import org.gluu.oxauth.audit.ApplicationAuditLogger;
+import org.gluu.oxauth.model.audit.Action;
+import org.gluu.oxauth.model.audit.OAuth2AuditLog;
+import org.gluu.oxauth.model.authorize.AuthorizeErrorResponseType;
+import org.gluu.oxauth.model.authorize.AuthorizeRequestParam;
+import org.gluu.oxauth.model.authorize.JwtAuthorizationRequest;
+import org.gluu.oxauth.model.authorize.PushedAuthorizationRequest;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.crypto.AbstractCryptoProvider;
+import org.gluu.oxauth.model.error.ErrorResponseFactory;
+import org.gluu.oxauth.model.registration.Client;
+import org.gluu.oxauth.model.session.SessionClient;
+import org.gluu.oxauth.security.Identity;
+import org.gluu.oxauth.service.ClientService;
+import org.gluu.oxauth.service.ParService;
+import org.gluu.oxauth.service.RedirectionUriService;
+import org.gluu.oxauth.util.ServerUtil;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.Path;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.gluu.oxauth.model.token.TokenErrorResponseType.INVALID_CLIENT;
+
+/**
+ * Implementation for pushed authorization request rest service (RFC 9126).
+ * Request object is validated once here, authorization endpoint takes validated request from cache by request_uri.
+ */
+@Path("/")
+public class ParRestWebServiceImpl implements ParRestWebService {
+
+    /**
+     * Parameters which are not part of authorization request (client authentication, etc.)
+     */
+    private static final Set<String> SKIPPED_PARAMETERS = Sets.newHashSet(AuthorizeRequestParam.REQUEST_URI,
+            "client_secret", "client_assertion", "client_assertion_type");
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private ApplicationAuditLogger applicationAuditLogger;
+
+    @Inject
+    private ErrorResponseFactory errorResponseFactory;
+
+    @Inject
+    private Identity identity;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    @Inject
+    private ClientService clientService;
+
+    @Inject
+    private RedirectionUriService redirectionUriService;
+
+    @Inject
+    private ParService parService;
+
+    @Inject
+    private AbstractCryptoProvider cryptoProvider;
+
+    @Override
+    public Response requestPushedAuthorization(String clientId, String responseType, String redirectUri, String request, String requestUri,
+                                               HttpServletRequest httpRequest, HttpServletResponse httpResponse, SecurityContext securityContext) {
+        OAuth2AuditLog oAuth2AuditLog = new OAuth2AuditLog(ServerUtil.getIpAddress(httpRequest), Action.PUSHED_AUTHORIZATION_REQUEST);
+        oAuth2AuditLog.setClientId(clientId);
+
+        try {
+            log.debug("Attempting to push authorization request: clientId = {}, responseType = {}, redirectUri = {}", clientId, responseType, redirectUri);
+
+            SessionClient sessionClient = identity.getSessionClient();
+            Client client = sessionClient != null ? sessionClient.getClient() : null;
+            if (client == null) {
+                client = clientService.getClient(clientId);
+                if (!clientService.isPublic(client)) {
+                    log.trace("Client is not public and not authenticated. Skip pushed authorization request, clientId: {}", clientId);
+                    throw errorResponseFactory.createWebApplicationException(Response.Status.UNAUTHORIZED, INVALID_CLIENT, "");
+                }
+            }
+            if (client == null) {
+                log.trace("Client is unknown. Skip pushed authorization request.");
+                throw errorResponseFactory.createWebApplicationException(Response.Status.UNAUTHORIZED, INVALID_CLIENT, "");
+            }
+            if (StringUtils.isNotBlank(clientId) && !clientId.equals(client.getClientId())) {
+                throw errorResponseFactory.createWebApplicationException(Response.Status.BAD_REQUEST, AuthorizeErrorResponseType.INVALID_REQUEST, "client_id does not match authenticated client.");
+            }
+            if (StringUtils.isNotBlank(requestUri)) {
+                throw errorResponseFactory.createWebApplicationException(Response.Status.BAD_REQUEST, AuthorizeErrorResponseType.INVALID_REQUEST, "request_uri is not allowed in pushed authorization request.");
+            }
+
+            PushedAuthorizationRequest par = parService.create(client.getClientId(), getParameters(httpRequest));
+            par.getParameters().put(AuthorizeRequestParam.CLIENT_ID, client.getClientId());
+
+            if (StringUtils.isNotBlank(request)) {
+                final JwtAuthorizationRequest jwtRequest = createJwtRequest(request, client);
+                par.setRequest(request);
+                par.setRequestPayload(jwtRequest.getPayload());
+
+                if (StringUtils.isNotBlank(jwtRequest.getRedirectUri())) {
+                    redirectUri = jwtRequest.getRedirectUri(); // JWT wins
+                }
+            }
+
+            if (redirectionUriService.validateRedirectionUri(client, redirectUri) == null) {
+                throw errorResponseFactory.createWebApplicationException(Response.Status.BAD_REQUEST, AuthorizeErrorResponseType.INVALID_REQUEST, "Invalid redirect uri.");
+            }
+
+            parService.persist(par);
+            log.debug("Pushed authorization request is stored, request_uri: {}, clientId: {}", par.getRequestUri(), client.getClientId());
+
+            applicationAuditLogger.sendMessage(oAuth2AuditLog);
+            return Response.status(Response.Status.CREATED)
+                    .entity(getResponseJSONObject(par).toString(4).replace("\\/", "/"))
+                    .type(MediaType.APPLICATION_JSON_TYPE)
+                    .build();
+        } catch (WebApplicationException wae) {
+            throw wae;
+        } catch (Exception e) {
+            log.error("Problems processing pushed authorization request, clientId: {}", clientId, e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .build();
+        }
+    }
+
+    private JwtAuthorizationRequest createJwtRequest(String request, Client client) {
+        try {
+            return new JwtAuthorizationRequest(appConfiguration, cryptoProvider, request, client);
+        } catch (Exception e) {
+            log.debug("Invalid request object in pushed authorization request. " + e.getMessage(), e);
+            throw errorResponseFactory.createWebApplicationException(Response.Status.BAD_REQUEST, AuthorizeErrorResponseType.INVALID_REQUEST_OBJECT, "Invalid request object.");
+        }
+    }
+
+    private Map<String, String> getParameters(HttpServletRequest httpRequest) {
+        Map<String, String> parameters = new HashMap<>();
+        for (Map.Entry<String, String[]> entry : httpRequest.getParameterMap().entrySet()) {
+            if (SKIPPED_PARAMETERS.contains(entry.getKey()) || ArrayUtils.isEmpty(entry.getValue())) {
+                continue;
+            }
+            parameters.put(entry.getKey(), entry.getValue()[0]);
+        }
+        return parameters;
+    }
+
+    private JSONObject getResponseJSONObject(PushedAuthorizationRequest par) throws JSONException {
+        JSONObject responseJsonObject = new JSONObject();
+
+        responseJsonObject.put(AuthorizeRequestParam.REQUEST_URI, par.getRequestUri());
+        responseJsonObject.put("expires_in", par.getExpiresIn());
+
+        return responseJsonObject;
+    }
+}
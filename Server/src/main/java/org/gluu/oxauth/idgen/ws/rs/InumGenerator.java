@@ -6,6 +6,7 @@
 
 package org.gluu.oxauth.idgen.ws.rs;
 
+import java.security.SecureRandom;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -26,11 +27,18 @@ import javax.enterprise.context.ApplicationScoped;
 
 import org.gluu.oxauth.model.config.BaseDnConfiguration;
 import org.gluu.oxauth.model.config.StaticConfiguration;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
 import org.gluu.oxauth.model.gluu.GluuConfiguration;
 import org.gluu.oxauth.model.registration.Client;
 
+import static org.gluu.oxauth.util.ServerUtil.isTrue;
+
 /**
  * Inum ID generator. Generates inum: e.g. @!1111!0001!1234.
+ * <p>
+ * By default random part of inum has 128 random bits (8 blocks of 4 hex digits), probability of collision
+ * for n generated ids is less than n^2 / 2^129, so uniqueness is not checked in persistence.
+ * Compatibility mode (inumGeneratorCompatibilityMode) generates short inums and checks that inum is not used yet.
  *
  * @author Yuriy Zabrovarnyy
  * @version 0.9, 26/06/2013
@@ -42,6 +50,11 @@ public class InumGenerator {
 
     private static final int MAX = 100;
 
+    private static final int RANDOM_BLOCKS = 8;
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private final SecureRandom random = new SecureRandom();
+
 	private final Pattern baseRdnPattern = Pattern.compile(".+o=([\\w\\!\\@\\.]+)$");
 
     @Inject
@@ -52,6 +65,9 @@ public class InumGenerator {
     @Inject
     private StaticConfiguration staticConfiguration;
 
+    @Inject
+    private AppConfiguration appConfiguration;
+
     public String generateId(String p_idType, String p_idPrefix) {
         final IdType idType = IdType.fromString(p_idType);
         if (idType != null) {
@@ -63,6 +79,12 @@ public class InumGenerator {
     }
 
     public String generateId(IdType p_idType, String p_idPrefix) {
+        if (!isTrue(appConfiguration.getInumGeneratorCompatibilityMode())) {
+            final String inum = p_idPrefix + SEPARATOR + p_idType.getInum() + SEPARATOR + generateRandomPart();
+            log.trace("Generated inum: {}", inum);
+            return inum;
+        }
+
         String inum;
         int counter = 0;
 
@@ -105,6 +127,23 @@ public class InumGenerator {
         return inum;
     }
 
+    /**
+     * @return 128 random bits in inum format, e.g. 1A2B.3C4D.5E6F.7A8B.9C0D.1E2F.3A4B.5C6D
+     */
+    private String generateRandomPart() {
+        final byte[] bytes = new byte[RANDOM_BLOCKS * 2];
+        random.nextBytes(bytes);
+
+        final StringBuilder sb = new StringBuilder(RANDOM_BLOCKS * 5);
+        for (int i = 0; i < bytes.length; i++) {
+            if (i > 0 && i % 2 == 0) {
+                sb.append('.');
+            }
+            sb.append(HEX_DIGITS[(bytes[i] >> 4) & 0xF]).append(HEX_DIGITS[bytes[i] & 0xF]);
+        }
+        return sb.toString();
+    }
+
 	public boolean contains(String inum, IdType type) {
 		final String baseDn = baseDn(type);
 		final Filter filter = Filter.createEqualityFilter("inum", inum);
@@ -0,0 +1,92 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2020, Gluu
+ */
+
+package org.gluu.oxauth.introspection.ws.rs;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsonorg.JsonOrgModule;
+import org.apache.commons.lang.StringUtils;
+import org.gluu.oxauth.model.common.IntrospectionResponse;
+import org.gluu.oxauth.model.jwt.JwtClaims;
+import org.gluu.oxauth.util.ServerUtil;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Claims of introspection response kept in one ordered map. Map is built from {@link IntrospectionResponse}
+ * without intermediate json string and is written to output (or to jwt claims) only once.
+ * org.json object is created only when introspection scripts have to modify response.
+ */
+public final class IntrospectionClaims {
+
+    private static final TypeReference<LinkedHashMap<String, Object>> MAP_TYPE = new TypeReference<LinkedHashMap<String, Object>>() {
+    };
+
+    // mapper is thread safe once configured, json-org module allows to write values put by scripts
+    private static final ObjectMapper MAPPER = ServerUtil.createJsonMapper().registerModule(new JsonOrgModule());
+
+    private IntrospectionClaims() {
+    }
+
+    public static Map<String, Object> create(IntrospectionResponse response, String x5ts256) {
+        final Map<String, Object> claims = MAPPER.convertValue(response, MAP_TYPE);
+
+        if (StringUtils.isNotBlank(x5ts256)) {
+            final Map<String, Object> cnf = new LinkedHashMap<>();
+            cnf.put("x5t#S256", x5ts256);
+            claims.put("cnf", cnf);
+        }
+
+        return claims;
+    }
+
+    public static JSONObject toJsonObject(Map<String, Object> claims) {
+        final JSONObject result = new JSONObject();
+        for (Map.Entry<String, Object> entry : claims.entrySet()) {
+            result.put(entry.getKey(), entry.getValue() != null ? JSONObject.wrap(entry.getValue()) : JSONObject.NULL);
+        }
+        return result;
+    }
+
+    public static Map<String, Object> fromJsonObject(JSONObject jsonObject) {
+        final Map<String, Object> claims = new LinkedHashMap<>();
+        final Iterator<String> keys = jsonObject.keys();
+        while (keys.hasNext()) {
+            final String key = keys.next();
+            final Object value = jsonObject.opt(key);
+            claims.put(key, JSONObject.NULL.equals(value) ? null : value);
+        }
+        return claims;
+    }
+
+    /**
+     * Sets claims to jwt claims. Null claims are skipped, nested objects are set as json objects.
+     */
+    @SuppressWarnings("unchecked")
+    public static void setJwtClaim(JwtClaims jwtClaims, String key, Object value) {
+        if (value == null) {
+            return;
+        }
+        jwtClaims.setClaimObject(key, value instanceof Map ? new JSONObject((Map<String, Object>) value) : value, false);
+    }
+
+    /**
+     * Writes claims (or list of claims for batch introspection) to output.
+     */
+    public static void write(Object claims, OutputStream output) throws IOException {
+        MAPPER.writeValue(output, claims);
+    }
+
+    public static String asString(Object claims) throws IOException {
+        return MAPPER.writeValueAsString(claims);
+    }
+}
@@ -26,7 +26,6 @@ import org.gluu.oxauth.service.external.context.ExternalIntrospectionContext;
 import org.gluu.oxauth.service.token.TokenService;
 import org.gluu.oxauth.util.ServerUtil;
 import org.gluu.util.Pair;
-import org.json.JSONException;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 
@@ -37,11 +36,14 @@ import javax.ws.rs.*;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import static org.apache.commons.lang3.BooleanUtils.isTrue;
 
@@ -96,6 +98,57 @@ public class IntrospectionWebService {
         return introspect(p_authorization, p_token, tokenTypeHint, responseAsJwt, httpRequest, httpResponse);
     }
 
+    /**
+     * Introspects batch of tokens with one request: caller is authenticated once and grants of all tokens
+     * are looked up at once. Response is json array of introspection responses in order of tokens.
+     */
+    @POST
+    @Path("/batch")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response introspectBatch(@HeaderParam("Authorization") String p_authorization,
+                                    @FormParam("token") List<String> tokens,
+                                    @Context HttpServletRequest httpRequest,
+                                    @Context HttpServletResponse httpResponse) {
+        try {
+            log.trace("Introspect batch of tokens, authorization: {}, tokens to introspect: {}", p_authorization, tokens);
+
+            final Pair<AuthorizationGrant, String> caller = validateBatchAuthorization(p_authorization);
+
+            if (tokens == null || tokens.isEmpty() || tokens.size() > appConfiguration.getIntrospectionBatchSizeLimit()) {
+                log.trace("Bad request: Tokens are not set or batch size limit is exceeded.");
+                return Response.status(Response.Status.BAD_REQUEST).type(MediaType.APPLICATION_JSON_TYPE).entity(errorResponseFactory.errorAsJson(AuthorizeErrorResponseType.INVALID_REQUEST, "")).build();
+            }
+
+            final String basicClientId = caller.getSecond();
+            final Map<String, AuthorizationGrant> grants = authorizationGrantList.getAuthorizationGrantsByAccessTokens(tokens);
+
+            final List<Map<String, Object>> result = new ArrayList<>(tokens.size());
+            for (String token : tokens) {
+                AuthorizationGrant grantOfIntrospectionToken = grants.get(token);
+                AuthorizationGrant authorizationGrant = caller.getFirst();
+                if (basicClientId != null) {
+                    if (isTrue(appConfiguration.getIntrospectionRestrictBasicAuthnToOwnTokens()) && grantOfIntrospectionToken != null && !grantOfIntrospectionToken.getClientId().equals(basicClientId)) {
+                        log.trace("Failed to match grant object clientId and client id provided during authentication.");
+                        grantOfIntrospectionToken = null;
+                    }
+                    authorizationGrant = grantOfIntrospectionToken;
+                }
+                result.add(createClaims(token, grantOfIntrospectionToken, authorizationGrant, httpRequest, httpResponse));
+            }
+
+            if (log.isTraceEnabled()) {
+                log.trace("Response entity: {}", IntrospectionClaims.asString(result));
+            }
+            return Response.status(Response.Status.OK).entity((StreamingOutput) output -> IntrospectionClaims.write(result, output)).type(MediaType.APPLICATION_JSON_TYPE).build();
+        } catch (WebApplicationException e) {
+            log.error(e.getMessage(), e);
+            throw e;
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).type(MediaType.APPLICATION_JSON_TYPE).build();
+        }
+    }
+
     private AuthorizationGrant validateAuthorization(String p_authorization, String p_token) throws IOException {
         final boolean skipAuthorization = ServerUtil.isTrue(appConfiguration.getIntrospectionSkipAuthorization());
         log.trace("skipAuthorization: {}", skipAuthorization);
@@ -125,20 +178,55 @@ public class IntrospectionWebService {
                     .build());
         }
 
-        final AbstractToken authorizationAccessToken = authorizationGrant.getAccessToken(tokenService.getToken(p_authorization));
+        checkUmaProtectionScope(authorizationGrant);
+        return authorizationGrant;
+    }
+
+    /**
+     * Authenticates caller of batch introspection once for all tokens of batch.
+     *
+     * @return pair of authorization grant of caller (bearer token) or client id of caller (basic client authentication)
+     */
+    private Pair<AuthorizationGrant, String> validateBatchAuthorization(String p_authorization) throws IOException {
+        final boolean skipAuthorization = ServerUtil.isTrue(appConfiguration.getIntrospectionSkipAuthorization());
+        log.trace("skipAuthorization: {}", skipAuthorization);
+        if (skipAuthorization) {
+            return new Pair<>(null, null);
+        }
+
+        if (StringUtils.isBlank(p_authorization)) {
+            log.trace("Bad request: Authorization header is blank.");
+            throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST).type(MediaType.APPLICATION_JSON_TYPE).entity(errorResponseFactory.errorAsJson(AuthorizeErrorResponseType.INVALID_REQUEST, "")).build());
+        }
 
-        if ((authorizationAccessToken == null || !authorizationAccessToken.isValid()) && !pair.getSecond()) {
-            log.error("Access token is not valid. Valid: " + (authorizationAccessToken != null && authorizationAccessToken.isValid()) + ", basicClientAuthentication: " + pair.getSecond());
-            throw new WebApplicationException(Response.status(Response.Status.UNAUTHORIZED).type(MediaType.APPLICATION_JSON_TYPE).entity(errorResponseFactory.errorAsJson(AuthorizeErrorResponseType.ACCESS_DENIED, "Access token is not valid")).build());
+        final AuthorizationGrant grant = getAccessTokenGrant(p_authorization);
+        if (grant != null) {
+            if (!isAccessTokenValid(grant, p_authorization)) {
+                log.error("Access token is not valid.");
+                throw new WebApplicationException(Response.status(Response.Status.UNAUTHORIZED).type(MediaType.APPLICATION_JSON_TYPE).entity(errorResponseFactory.errorAsJson(AuthorizeErrorResponseType.ACCESS_DENIED, "Access token is not valid")).build());
+            }
+            checkUmaProtectionScope(grant);
+            return new Pair<>(grant, null);
+        }
+
+        final String clientId = authenticateBasicClient(p_authorization);
+        if (clientId != null) {
+            return new Pair<>(null, clientId);
         }
 
+        throw new WebApplicationException(Response.status(Response.Status.UNAUTHORIZED)
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .entity(errorResponseFactory.errorAsJson(AuthorizeErrorResponseType.ACCESS_DENIED, "Authorization grant is null."))
+                .build());
+    }
+
+    private void checkUmaProtectionScope(AuthorizationGrant authorizationGrant) {
         if (ServerUtil.isTrue(appConfiguration.getIntrospectionAccessTokenMustHaveUmaProtectionScope()) &&
                 !authorizationGrant.getScopesAsString().contains(UmaScopeType.PROTECTION.getValue())) { // #562 - make uma_protection optional
             final String reason = "access_token used to access introspection endpoint does not have uma_protection scope, however in oxauth configuration `checkUmaProtectionScopePresenceDuringIntrospection` is true";
             log.trace(reason);
             throw new WebApplicationException(Response.status(Response.Status.UNAUTHORIZED).entity(errorResponseFactory.errorAsJson(AuthorizeErrorResponseType.ACCESS_DENIED, reason)).type(MediaType.APPLICATION_JSON_TYPE).build());
         }
-        return authorizationGrant;
     }
 
     private Response introspect(String p_authorization, String p_token, String tokenTypeHint, String responseAsJwt, HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
@@ -152,57 +240,18 @@ public class IntrospectionWebService {
                 return Response.status(Response.Status.BAD_REQUEST).type(MediaType.APPLICATION_JSON_TYPE).entity(errorResponseFactory.errorAsJson(AuthorizeErrorResponseType.INVALID_REQUEST, "")).build();
             }
 
-            final IntrospectionResponse response = new IntrospectionResponse(false);
-
             final AuthorizationGrant grantOfIntrospectionToken = authorizationGrantList.getAuthorizationGrantByAccessToken(p_token);
+            final Map<String, Object> claims = createClaims(p_token, grantOfIntrospectionToken, authorizationGrant, httpRequest, httpResponse);
 
-            AbstractToken tokenToIntrospect = null;
-            if (grantOfIntrospectionToken != null) {
-                tokenToIntrospect = grantOfIntrospectionToken.getAccessToken(p_token);
-
-                response.setActive(tokenToIntrospect.isValid());
-                response.setExpiresAt(ServerUtil.dateToSeconds(tokenToIntrospect.getExpirationDate()));
-                response.setIssuedAt(ServerUtil.dateToSeconds(tokenToIntrospect.getCreationDate()));
-                response.setAcrValues(grantOfIntrospectionToken.getAcrValues());
-                response.setScope(grantOfIntrospectionToken.getScopes() != null ? grantOfIntrospectionToken.getScopes() : Lists.newArrayList()); // #433
-                response.setClientId(grantOfIntrospectionToken.getClientId());
-                response.setSub(grantOfIntrospectionToken.getSub());
-                response.setUsername(grantOfIntrospectionToken.getUserId());
-                response.setIssuer(appConfiguration.getIssuer());
-                response.setAudience(grantOfIntrospectionToken.getClientId());
-
-                if (tokenToIntrospect instanceof AccessToken) {
-                    AccessToken accessToken = (AccessToken) tokenToIntrospect;
-                    response.setTokenType(accessToken.getTokenType() != null ? accessToken.getTokenType().getName() : TokenType.BEARER.getName());
-                }
-            } else {
-                log.debug("Failed to find grant for access_token: " + p_token + ". Return 200 with active=false.");
-            }
-            JSONObject responseAsJsonObject = createResponseAsJsonObject(response, grantOfIntrospectionToken);
-
-            ExternalIntrospectionContext context = new ExternalIntrospectionContext(authorizationGrant, httpRequest, httpResponse, appConfiguration, attributeService);
-            context.setGrantOfIntrospectionToken(grantOfIntrospectionToken);
-            if (externalIntrospectionService.executeExternalModifyResponse(responseAsJsonObject, context)) {
-                log.trace("Successfully run extenal introspection scripts.");
-            } else {
-                responseAsJsonObject = createResponseAsJsonObject(response, grantOfIntrospectionToken);
-                log.trace("Canceled changes made by external introspection script since method returned `false`.");
-            }
-
-            // Make scopes conform as required by spec, see #1499
-            if (response.getScope()!= null && !appConfiguration.getIntrospectionResponseScopesBackwardCompatibility()) {
-            	String scopes = StringUtils.join(response.getScope().toArray(), " ");
-            	responseAsJsonObject.put("scope", scopes);
-            }
             if (Boolean.TRUE.toString().equalsIgnoreCase(responseAsJwt)) {
-                return Response.status(Response.Status.OK).entity(createResponseAsJwt(responseAsJsonObject, grantOfIntrospectionToken)).build();
+                return Response.status(Response.Status.OK).entity(createResponseAsJwt(claims, grantOfIntrospectionToken)).build();
             }
 
-            final String entity = responseAsJsonObject.toString();
             if (log.isTraceEnabled()) {
-                log.trace("Response entity: {}", entity);
+                log.trace("Response entity: {}", IntrospectionClaims.asString(claims));
             }
-            return Response.status(Response.Status.OK).entity(entity).type(MediaType.APPLICATION_JSON_TYPE).build();
+            final Map<String, Object> entity = claims;
+            return Response.status(Response.Status.OK).entity((StreamingOutput) output -> IntrospectionClaims.write(entity, output)).type(MediaType.APPLICATION_JSON_TYPE).build();
 
         } catch (WebApplicationException e) {
             log.error(e.getMessage(), e);
@@ -213,21 +262,66 @@ public class IntrospectionWebService {
         }
     }
 
-    private String createResponseAsJwt(JSONObject response, AuthorizationGrant grant) throws Exception {
+    private Map<String, Object> createClaims(String token, AuthorizationGrant grantOfIntrospectionToken, AuthorizationGrant authorizationGrant,
+                                             HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
+        final IntrospectionResponse response = new IntrospectionResponse(false);
+
+        AbstractToken tokenToIntrospect = null;
+        if (grantOfIntrospectionToken != null) {
+            tokenToIntrospect = grantOfIntrospectionToken.getAccessToken(token);
+
+            response.setActive(tokenToIntrospect.isValid());
+            response.setExpiresAt(ServerUtil.dateToSeconds(tokenToIntrospect.getExpirationDate()));
+            response.setIssuedAt(ServerUtil.dateToSeconds(tokenToIntrospect.getCreationDate()));
+            response.setAcrValues(grantOfIntrospectionToken.getAcrValues());
+            response.setScope(grantOfIntrospectionToken.getScopes() != null ? grantOfIntrospectionToken.getScopes() : Lists.newArrayList()); // #433
+            response.setClientId(grantOfIntrospectionToken.getClientId());
+            response.setSub(grantOfIntrospectionToken.getSub());
+            response.setUsername(grantOfIntrospectionToken.getUserId());
+            response.setIssuer(appConfiguration.getIssuer());
+            response.setAudience(grantOfIntrospectionToken.getClientId());
+
+            if (tokenToIntrospect instanceof AccessToken) {
+                AccessToken accessToken = (AccessToken) tokenToIntrospect;
+                response.setTokenType(accessToken.getTokenType() != null ? accessToken.getTokenType().getName() : TokenType.BEARER.getName());
+            }
+        } else {
+            log.debug("Failed to find grant for access_token: " + token + ". Return 200 with active=false.");
+        }
+        Map<String, Object> claims = IntrospectionClaims.create(response, getX5ts256(grantOfIntrospectionToken));
+
+        if (externalIntrospectionService.isEnabled()) {
+            ExternalIntrospectionContext context = new ExternalIntrospectionContext(authorizationGrant, httpRequest, httpResponse, appConfiguration, attributeService);
+            context.setGrantOfIntrospectionToken(grantOfIntrospectionToken);
+
+            // scripts work with json object, original claims are kept if script cancels changes
+            JSONObject responseAsJsonObject = IntrospectionClaims.toJsonObject(claims);
+            if (externalIntrospectionService.executeExternalModifyResponse(responseAsJsonObject, context)) {
+                claims = IntrospectionClaims.fromJsonObject(responseAsJsonObject);
+                log.trace("Successfully run extenal introspection scripts.");
+            } else {
+                log.trace("Canceled changes made by external introspection script since method returned `false`.");
+            }
+        }
+
+        // Make scopes conform as required by spec, see #1499
+        if (response.getScope()!= null && !appConfiguration.getIntrospectionResponseScopesBackwardCompatibility()) {
+        	String scopes = StringUtils.join(response.getScope().toArray(), " ");
+        	claims.put("scope", scopes);
+        }
+        return claims;
+    }
+
+    private String createResponseAsJwt(Map<String, Object> claims, AuthorizationGrant grant) throws Exception {
         final JwtSigner jwtSigner = JwtSigner.newJwtSigner(appConfiguration, webKeysConfiguration, grant.getClient());
         final Jwt jwt = jwtSigner.newJwt();
         Audience.setAudience(jwt.getClaims(), grant.getClient());
 
-        Iterator<String> keysIter = response.keys();
-        while (keysIter.hasNext()) {
-            String key = keysIter.next();
-            Object value = response.opt(key);
-            if (value != null) {
-                try {
-                    jwt.getClaims().setClaimObject(key, value, false);
-                } catch (Exception e) {
-                    log.error("Failed to put claims into jwt. Key: " + key + ", response: " + response.toString(), e);
-                }
+        for (Map.Entry<String, Object> entry : claims.entrySet()) {
+            try {
+                IntrospectionClaims.setJwtClaim(jwt.getClaims(), entry.getKey(), entry.getValue());
+            } catch (Exception e) {
+                log.error("Failed to put claims into jwt. Key: " + entry.getKey() + ", response: " + claims, e);
             }
         }
 
@@ -237,24 +331,12 @@ public class IntrospectionWebService {
         return jwtSigner.sign().toString();
     }
 
-    private JSONObject createResponseAsJsonObject(IntrospectionResponse response, AuthorizationGrant grantOfIntrospectionToken) throws JSONException, IOException {
-        final JSONObject result = new JSONObject(ServerUtil.asJson(response));
-
+    private String getX5ts256(AuthorizationGrant grantOfIntrospectionToken) {
         if (log.isTraceEnabled()) {
             log.trace("grantOfIntrospectionToken: {}, x5ts256: {}", (grantOfIntrospectionToken != null), (grantOfIntrospectionToken != null ? grantOfIntrospectionToken.getX5ts256() : ""));
         }
 
-        if (grantOfIntrospectionToken != null && StringUtils.isNotBlank(grantOfIntrospectionToken.getX5ts256())) {
-            JSONObject cnf = result.optJSONObject("cnf");
-            if (cnf == null) {
-                cnf = new JSONObject();
-                result.put("cnf", cnf);
-            }
-
-            cnf.put("x5t#S256", grantOfIntrospectionToken.getX5ts256());
-        }
-
-        return result;
+        return grantOfIntrospectionToken != null ? grantOfIntrospectionToken.getX5ts256() : null;
     }
 
     /**
@@ -262,46 +344,66 @@ public class IntrospectionWebService {
      * @throws UnsupportedEncodingException when encoding is not supported
      */
     private Pair<AuthorizationGrant, Boolean> getAuthorizationGrant(String authorization, String accessToken) throws UnsupportedEncodingException {
-        AuthorizationGrant grant = tokenService.getBearerAuthorizationGrant(authorization);
+        AuthorizationGrant grant = getAccessTokenGrant(authorization);
         if (grant != null) {
-            final String authorizationAccessToken = tokenService.getBearerToken(authorization);
-            final AbstractToken accessTokenObject = grant.getAccessToken(authorizationAccessToken);
-            if (accessTokenObject != null && accessTokenObject.isValid()) {
+            if (isAccessTokenValid(grant, authorization)) {
                 return new Pair<>(grant, false);
             } else {
-                log.error("Access token is not valid: " + authorizationAccessToken);
+                log.error("Access token is not valid: " + tokenService.getToken(authorization));
                 return EMPTY;
             }
         }
 
-        grant = tokenService.getBasicAuthorizationGrant(authorization);
-        if (grant != null) {
-            return new Pair<>(grant, false);
+        final String clientId = authenticateBasicClient(authorization);
+        if (clientId != null) {
+            grant = authorizationGrantList.getAuthorizationGrantByAccessToken(accessToken);
+            if (isTrue(appConfiguration.getIntrospectionRestrictBasicAuthnToOwnTokens()) && grant != null && !grant.getClientId().equals(clientId)) {
+                log.trace("Failed to match grant object clientId and client id provided during authentication.");
+                return EMPTY;
+            }
+            return new Pair<>(grant, true);
+        }
+        return EMPTY;
+    }
+
+    /**
+     * @return grant of access token sent as bearer or basic authorization token, otherwise null
+     */
+    private AuthorizationGrant getAccessTokenGrant(String authorization) {
+        final AuthorizationGrant grant = tokenService.getBearerAuthorizationGrant(authorization);
+        return grant != null ? grant : tokenService.getBasicAuthorizationGrant(authorization);
+    }
+
+    private boolean isAccessTokenValid(AuthorizationGrant grant, String authorization) {
+        final AbstractToken accessToken = grant.getAccessToken(tokenService.getToken(authorization));
+        return accessToken != null && accessToken.isValid();
+    }
+
+    /**
+     * @return client id if authorization is basic authentication of client, otherwise null
+     * @throws UnsupportedEncodingException when encoding is not supported
+     */
+    private String authenticateBasicClient(String authorization) throws UnsupportedEncodingException {
+        if (!tokenService.isBasicAuthToken(authorization)) {
+            return null;
         }
-        if (tokenService.isBasicAuthToken(authorization)) {
 
-            String encodedCredentials = tokenService.getBasicToken(authorization);
+        String encodedCredentials = tokenService.getBasicToken(authorization);
 
-            String token = new String(Base64.decodeBase64(encodedCredentials), StandardCharsets.UTF_8);
+        String token = new String(Base64.decodeBase64(encodedCredentials), StandardCharsets.UTF_8);
 
-            int delim = token.indexOf(":");
+        int delim = token.indexOf(":");
 
-            if (delim != -1) {
-                String clientId = URLDecoder.decode(token.substring(0, delim), Util.UTF8_STRING_ENCODING);
-                String password = URLDecoder.decode(token.substring(delim + 1), Util.UTF8_STRING_ENCODING);
-                if (clientService.authenticate(clientId, password)) {
-                    grant = authorizationGrantList.getAuthorizationGrantByAccessToken(accessToken);
-                    if (isTrue(appConfiguration.getIntrospectionRestrictBasicAuthnToOwnTokens()) && grant != null && !grant.getClientId().equals(clientId)) {
-                        log.trace("Failed to match grant object clientId and client id provided during authentication.");
-                        return EMPTY;
-                    }
-                    return new Pair<>(grant, true);
-                } else {
-                    log.trace("Failed to perform basic authentication for client: {}", clientId);
-                }
+        if (delim != -1) {
+            String clientId = URLDecoder.decode(token.substring(0, delim), Util.UTF8_STRING_ENCODING);
+            String password = URLDecoder.decode(token.substring(delim + 1), Util.UTF8_STRING_ENCODING);
+            if (clientService.authenticate(clientId, password)) {
+                return clientId;
+            } else {
+                log.trace("Failed to perform basic authentication for client: {}", clientId);
             }
         }
-        return EMPTY;
+        return null;
     }
 
 }
@@ -24,7 +24,8 @@ public enum Action {
     SESSION_UNAUTHENTICATED("SESSION_UNAUTHENTICATED"),
     SESSION_AUTHENTICATED("SESSION_AUTHENTICATED"),
     SESSION_DESTROYED("SESSION_DESTROYED"),
-    DEVICE_CODE_AUTHORIZATION("DEVICE_CODE_AUTHORIZATION");
+    DEVICE_CODE_AUTHORIZATION("DEVICE_CODE_AUTHORIZATION"),
+    PUSHED_AUTHORIZATION_REQUEST("PUSHED_AUTHORIZATION_REQUEST");
 
     private String value;
 
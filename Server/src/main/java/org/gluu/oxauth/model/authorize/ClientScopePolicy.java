@@ -0,0 +1,76 @@
+package org.gluu.oxauth.model.authorize;
+
+import org.gluu.oxauth.model.registration.Client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable scope policy of client: ids of allowed scopes and compiled spontaneous scope patterns.
+ * Policy is built from client scope dns and spontaneous scopes, it's valid for client till these attributes are not changed.
+ * Spontaneous scope which is not valid regexp has null pattern and allows only exactly matching scope.
+ */
+public class ClientScopePolicy {
+
+    private final List<String> scopeDns;
+    private final List<String> spontaneousScopes;
+    private final Boolean allowSpontaneousScopes;
+
+    private final Set<String> allowedScopeIds;
+    private final Map<String, Pattern> spontaneousScopePatterns;
+
+    public ClientScopePolicy(Client client, Collection<String> allowedScopeIds, Map<String, Pattern> spontaneousScopePatterns) {
+        this.scopeDns = scopeDns(client);
+        this.spontaneousScopes = new ArrayList<>(client.getAttributes().getSpontaneousScopes());
+        this.allowSpontaneousScopes = client.getAttributes().getAllowSpontaneousScopes();
+        this.allowedScopeIds = allowedScopeIds != null ? Collections.unmodifiableSet(new HashSet<>(allowedScopeIds)) : Collections.emptySet();
+        this.spontaneousScopePatterns = Collections.unmodifiableMap(new LinkedHashMap<>(spontaneousScopePatterns));
+    }
+
+    /**
+     * @return true if policy was built for current state of client scopes and spontaneous scopes
+     */
+    public boolean isValidFor(Client client) {
+        return scopeDns.equals(scopeDns(client)) &&
+                spontaneousScopes.equals(client.getAttributes().getSpontaneousScopes()) &&
+                Objects.equals(allowSpontaneousScopes, client.getAttributes().getAllowSpontaneousScopes());
+    }
+
+    public boolean isAllowed(String scopeId) {
+        return allowedScopeIds.contains(scopeId);
+    }
+
+    /**
+     * @return spontaneous scope (regexp) which allows requested scope or null if there is no such spontaneous scope
+     */
+    public String getAllowingSpontaneousScope(String scopeRequested) {
+        for (Map.Entry<String, Pattern> entry : spontaneousScopePatterns.entrySet()) {
+            if (entry.getKey().equals(scopeRequested) ||
+                    (entry.getValue() != null && entry.getValue().matcher(scopeRequested).matches())) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    public Set<String> getAllowedScopeIds() {
+        return allowedScopeIds;
+    }
+
+    public Set<String> getSpontaneousScopes() {
+        return spontaneousScopePatterns.keySet();
+    }
+
+    private static List<String> scopeDns(Client client) {
+        return client.getScopes() != null ? new ArrayList<>(Arrays.asList(client.getScopes())) : Collections.emptyList();
+    }
+}
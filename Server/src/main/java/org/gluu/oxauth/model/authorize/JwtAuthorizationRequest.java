@@ -15,7 +15,6 @@ import org.gluu.oxauth.model.common.ResponseMode;
 import org.gluu.oxauth.model.common.ResponseType;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
 import org.gluu.oxauth.model.crypto.AbstractCryptoProvider;
-import org.gluu.oxauth.model.crypto.encryption.BlockEncryptionAlgorithm;
 import org.gluu.oxauth.model.crypto.encryption.KeyEncryptionAlgorithm;
 import org.gluu.oxauth.model.crypto.signature.SignatureAlgorithm;
 import org.gluu.oxauth.model.error.ErrorResponseFactory;
@@ -30,6 +29,7 @@ import org.gluu.oxauth.model.util.JwtUtil;
 import org.gluu.oxauth.model.util.URLPatternList;
 import org.gluu.oxauth.model.util.Util;
 import org.gluu.oxauth.service.ClientService;
+import org.gluu.oxauth.service.JweCacheService;
 import org.gluu.oxauth.service.RedirectUriResponse;
 import org.gluu.oxauth.service.RedirectionUriService;
 import org.gluu.oxauth.util.ServerUtil;
@@ -48,7 +48,6 @@ import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
-import java.security.PrivateKey;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -121,19 +120,14 @@ public class JwtAuthorizationRequest {
                 keyId = jwtHeader.getKeyId();
                 KeyEncryptionAlgorithm keyEncryptionAlgorithm = KeyEncryptionAlgorithm.fromName(
                         jwtHeader.getClaimAsString(JwtHeaderName.ALGORITHM));
-                BlockEncryptionAlgorithm blockEncryptionAlgorithm = BlockEncryptionAlgorithm.fromName(
-                        jwtHeader.getClaimAsString(JwtHeaderName.ENCRYPTION_METHOD));
 
+                JweCacheService jweCacheService = CdiUtil.bean(JweCacheService.class);
                 JweDecrypterImpl jweDecrypter = null;
                 if ("RSA".equals(keyEncryptionAlgorithm.getFamily())) {
-                    PrivateKey privateKey = cryptoProvider.getPrivateKey(keyId);
-                    jweDecrypter = new JweDecrypterImpl(privateKey);
+                    jweDecrypter = jweCacheService.getDecrypter(keyId);
                 } else {
-                    ClientService clientService = CdiUtil.bean(ClientService.class);
-                    jweDecrypter = new JweDecrypterImpl(clientService.decryptSecret(client.getClientSecret()).getBytes(StandardCharsets.UTF_8));
+                    jweDecrypter = jweCacheService.getDecrypter(client);
                 }
-                jweDecrypter.setKeyEncryptionAlgorithm(keyEncryptionAlgorithm);
-                jweDecrypter.setBlockEncryptionAlgorithm(blockEncryptionAlgorithm);
 
                 Jwe jwe = jweDecrypter.decrypt(encodedJwt);
 
@@ -175,6 +169,28 @@ public class JwtAuthorizationRequest {
         }
     }
 
+    private JwtAuthorizationRequest(AppConfiguration appConfiguration, String encodedJwt, String verifiedPayload) throws InvalidJwtException {
+        try {
+            this.appConfiguration = appConfiguration;
+            this.responseTypes = new ArrayList<>();
+            this.scopes = new ArrayList<>();
+            this.prompts = new ArrayList<>();
+            this.encodedJwt = encodedJwt;
+
+            loadPayload(verifiedPayload);
+        } catch (Exception e) {
+            throw new InvalidJwtException(e);
+        }
+    }
+
+    /**
+     * Creates request from payload which was already decrypted and verified by server (e.g. pushed authorization request),
+     * so decryption and signature validation are not performed again.
+     */
+    public static JwtAuthorizationRequest createFromVerifiedPayload(AppConfiguration appConfiguration, String encodedJwt, String verifiedPayload) throws InvalidJwtException {
+        return new JwtAuthorizationRequest(appConfiguration, encodedJwt, verifiedPayload);
+    }
+
     public String getEncodedJwt() {
         return encodedJwt;
     }
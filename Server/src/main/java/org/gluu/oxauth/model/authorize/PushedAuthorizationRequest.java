@@ -0,0 +1,92 @@
+package org.gluu.oxauth.model.authorize;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pushed authorization request (RFC 9126) kept in cache till it is used by authorization endpoint.
+ * Request object (if any) is already decrypted and its signature verified, payload is kept to avoid second validation.
+ */
+public class PushedAuthorizationRequest implements Serializable {
+
+    private static final long serialVersionUID = 2617409516330582931L;
+
+    private String requestUri;
+    private String clientId;
+    private Map<String, String> parameters = new HashMap<>();
+    private String request;
+    private String requestPayload;
+    private int expiresIn;
+
+    public PushedAuthorizationRequest() {
+    }
+
+    public PushedAuthorizationRequest(String requestUri, String clientId, Map<String, String> parameters, int expiresIn) {
+        this.requestUri = requestUri;
+        this.clientId = clientId;
+        this.parameters = parameters;
+        this.expiresIn = expiresIn;
+    }
+
+    public String getRequestUri() {
+        return requestUri;
+    }
+
+    public void setRequestUri(String requestUri) {
+        this.requestUri = requestUri;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
+
+    public Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    public void setParameters(Map<String, String> parameters) {
+        this.parameters = parameters;
+    }
+
+    public String getParameter(String name) {
+        return parameters != null ? parameters.get(name) : null;
+    }
+
+    public String getRequest() {
+        return request;
+    }
+
+    public void setRequest(String request) {
+        this.request = request;
+    }
+
+    public String getRequestPayload() {
+        return requestPayload;
+    }
+
+    public void setRequestPayload(String requestPayload) {
+        this.requestPayload = requestPayload;
+    }
+
+    public int getExpiresIn() {
+        return expiresIn;
+    }
+
+    public void setExpiresIn(int expiresIn) {
+        this.expiresIn = expiresIn;
+    }
+
+    @Override
+    public String toString() {
+        return "PushedAuthorizationRequest{" +
+                "requestUri='" + requestUri + '\'' +
+                ", clientId='" + clientId + '\'' +
+                ", expiresIn=" + expiresIn +
+                '}';
+    }
+}
@@ -6,6 +6,8 @@
 
 package org.gluu.oxauth.model.authorize;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Sets;
 
 import javax.enterprise.context.ApplicationScoped;
@@ -23,6 +25,7 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Validates the scopes received for the authorize web service.
@@ -35,6 +38,16 @@ import java.util.Set;
 @ApplicationScoped
 public class ScopeChecker {
 
+    private static final int POLICY_CACHE_SIZE_LIMIT = 10000;
+
+    // scope entries are cached for 60 seconds, policy is rebuilt with the same period to pick up changed scope ids
+    private static final int POLICY_CACHE_LIFETIME_IN_SECONDS = 60;
+
+    private final Cache<String, ClientScopePolicy> policyCache = CacheBuilder.newBuilder()
+            .maximumSize(POLICY_CACHE_SIZE_LIMIT)
+            .expireAfterWrite(POLICY_CACHE_LIFETIME_IN_SECONDS, TimeUnit.SECONDS)
+            .build();
+
     @Inject
     private Logger log;
 
@@ -62,27 +75,27 @@ public class ScopeChecker {
             return grantedScopes;
         }
 
-        String[] scopesAllowed = client.getScopes() != null ? client.getScopes() : new String[0];
+        final ClientScopePolicy policy = getScopePolicy(client);
+        final boolean spontaneousScopesAllowed = spontaneousScopeService.isSpontaneousScopesAllowed(client);
 
         for (String scopeRequested : scopesRequested) {
             if (StringUtils.isBlank(scopeRequested)) {
                 continue;
             }
 
-            List<String> scopesAllowedIds = scopeService.getScopeIdsByDns(Arrays.asList(scopesAllowed));
-            if (scopesAllowedIds.contains(scopeRequested)) {
+            if (policy.isAllowed(scopeRequested)) {
                 grantedScopes.add(scopeRequested);
                 continue;
             }
 
-            if (spontaneousScopeService.isAllowedBySpontaneousScopes(client, scopeRequested)) {
+            if (spontaneousScopesAllowed && policy.getAllowingSpontaneousScope(scopeRequested) != null) {
                 grantedScopes.add(scopeRequested);
 
                 SpontaneousScopeExternalContext context = new SpontaneousScopeExternalContext(client, scopeRequested, grantedScopes, spontaneousScopeService);
                 externalSpontaneousScopeService.executeExternalManipulateScope(context);
 
                 if (context.isAllowSpontaneousScopePersistence()) {
-                    spontaneousScopeService.createSpontaneousScopeIfNeeded(Sets.newHashSet(client.getAttributes().getSpontaneousScopes()), scopeRequested, client.getClientId());
+                    spontaneousScopeService.createSpontaneousScopeIfNeeded(Sets.newHashSet(policy.getSpontaneousScopes()), scopeRequested, client.getClientId());
                 }
             }
         }
@@ -91,4 +104,28 @@ public class ScopeChecker {
 
         return grantedScopes;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns compiled scope policy of client. Policy is rebuilt if client scopes or spontaneous scopes were changed.
+     */
+    public ClientScopePolicy getScopePolicy(Client client) {
+        final String key = client.getClientId();
+        ClientScopePolicy policy = policyCache.getIfPresent(key);
+        if (policy != null && policy.isValidFor(client)) {
+            return policy;
+        }
+
+        String[] scopesAllowed = client.getScopes() != null ? client.getScopes() : new String[0];
+        policy = new ClientScopePolicy(client, scopeService.getScopeIdsByDns(Arrays.asList(scopesAllowed)),
+                spontaneousScopeService.compileSpontaneousScopes(client.getAttributes().getSpontaneousScopes()));
+        policyCache.put(key, policy);
+        log.trace("Built scope policy for client {}, allowed scopes: {}", key, policy.getAllowedScopeIds());
+        return policy;
+    }
+
+    public void invalidateScopePolicy(String clientId) {
+        if (clientId != null) {
+            policyCache.invalidate(clientId);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.gluu.oxauth.model.common;
+
+import java.io.Serializable;
+
+/**
+ * Failed authentication attempts counted with sliding window algorithm. Attempts of previous window
+ * are weighted by part of it which still overlaps sliding window. Windows are aligned to epoch,
+ * so all nodes use the same window boundaries.
+ */
+public class AuthenticationAttempts implements Serializable {
+
+    private static final long serialVersionUID = -4096236734120447318L;
+
+    private long windowStart;
+    private int currentCount;
+    private int previousCount;
+
+    public AuthenticationAttempts() {
+    }
+
+    public AuthenticationAttempts(AuthenticationAttempts attempts) {
+        this.windowStart = attempts.windowStart;
+        this.currentCount = attempts.currentCount;
+        this.previousCount = attempts.previousCount;
+    }
+
+    public void slide(long now, long windowMillis) {
+        final long start = now - (now % windowMillis);
+        if (start == windowStart) {
+            return;
+        }
+
+        previousCount = (start - windowStart == windowMillis) ? currentCount : 0;
+        currentCount = 0;
+        windowStart = start;
+    }
+
+    public void add(long now, long windowMillis, int count) {
+        slide(now, windowMillis);
+        currentCount += count;
+    }
+
+    public double estimate(long now, long windowMillis) {
+        slide(now, windowMillis);
+
+        final double previousWeight = 1 - (double) (now - windowStart) / windowMillis;
+        return previousCount * previousWeight + currentCount;
+    }
+
+    /**
+     * @return milliseconds to wait till estimated count of attempts drops below limit, 0 if limit is not reached
+     */
+    public long retryAfter(long now, long windowMillis, int limit) {
+        if (estimate(now, windowMillis) < limit) {
+            return 0;
+        }
+
+        final long elapsed = now - windowStart;
+        if (currentCount >= limit) {
+            // attempts of current window have to slide out partially in next window
+            return (windowMillis - elapsed) + (long) Math.ceil(windowMillis * (1 - (double) limit / currentCount)) + 1;
+        }
+
+        return Math.max(1, (long) Math.ceil(windowMillis * (1 - (double) (limit - currentCount) / previousCount)) - elapsed + 1);
+    }
+
+    public long getWindowStart() {
+        return windowStart;
+    }
+
+    public int getCurrentCount() {
+        return currentCount;
+    }
+
+    public int getPreviousCount() {
+        return previousCount;
+    }
+
+    @Override
+    public String toString() {
+        return "AuthenticationAttempts{" +
+                "windowStart=" + windowStart +
+                ", currentCount=" + currentCount +
+                ", previousCount=" + previousCount +
+                '}';
+    }
+}
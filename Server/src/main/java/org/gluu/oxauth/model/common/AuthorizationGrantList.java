@@ -30,8 +30,11 @@ import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Component to hold in memory authorization grant objects.
@@ -187,7 +190,7 @@ public class AuthorizationGrantList implements IAuthorizationGrantList {
     }
 
     public AuthorizationGrant assertTokenType(TokenLdap tokenLdap, TokenType tokenType, String clientId) {
-        if (tokenLdap == null || tokenLdap.getTokenTypeEnum() != tokenType) {
+        if (tokenLdap == null || tokenLdap.getTokenTypeEnum() != tokenType || grantService.isRevokedBySessionLogout(tokenLdap)) {
             return null;
         }
 
@@ -226,11 +229,34 @@ public class AuthorizationGrantList implements IAuthorizationGrantList {
     public AuthorizationGrant getAuthorizationGrantByAccessToken(String accessToken, boolean onlyFromCache) {
         final TokenLdap tokenLdap = grantService.getGrantByCode(accessToken);
         if (tokenLdap != null    && (tokenLdap.getTokenTypeEnum() == org.gluu.oxauth.model.ldap.TokenType.ACCESS_TOKEN || tokenLdap.getTokenTypeEnum() == org.gluu.oxauth.model.ldap.TokenType.LONG_LIVED_ACCESS_TOKEN)) {
+            if (grantService.isRevokedBySessionLogout(tokenLdap)) {
+                return null;
+            }
             return asGrant(tokenLdap);
         }
         return null;
     }
 
+    /**
+     * Returns grants of access tokens. Grants are looked up all at once instead of lookup per token.
+     *
+     * @return map of access token to grant, tokens without valid grant are not in map
+     */
+    public Map<String, AuthorizationGrant> getAuthorizationGrantsByAccessTokens(Collection<String> accessTokens) {
+        final Map<String, AuthorizationGrant> result = new HashMap<>();
+        for (Map.Entry<String, TokenLdap> entry : grantService.getGrantsByCodes(accessTokens).entrySet()) {
+            final TokenLdap tokenLdap = entry.getValue();
+            if ((tokenLdap.getTokenTypeEnum() == org.gluu.oxauth.model.ldap.TokenType.ACCESS_TOKEN || tokenLdap.getTokenTypeEnum() == org.gluu.oxauth.model.ldap.TokenType.LONG_LIVED_ACCESS_TOKEN)
+                    && !grantService.isRevokedBySessionLogout(tokenLdap)) {
+                final AuthorizationGrant grant = asGrant(tokenLdap);
+                if (grant != null) {
+                    result.put(entry.getKey(), grant);
+                }
+            }
+        }
+        return result;
+    }
+
     @Override
     public AuthorizationGrant getAuthorizationGrantByIdToken(String idToken) {
         if (StringUtils.isBlank(idToken)) {
@@ -238,6 +264,9 @@ public class AuthorizationGrantList implements IAuthorizationGrantList {
         }
         final TokenLdap tokenLdap = grantService.getGrantByCode(idToken);
         if (tokenLdap != null && (tokenLdap.getTokenTypeEnum() == org.gluu.oxauth.model.ldap.TokenType.ID_TOKEN)) {
+            if (grantService.isRevokedBySessionLogout(tokenLdap)) {
+                return null;
+            }
             return asGrant(tokenLdap);
         }
         return null;
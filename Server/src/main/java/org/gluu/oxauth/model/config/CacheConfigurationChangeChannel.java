@@ -0,0 +1,79 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2020, Gluu
+ */
+
+package org.gluu.oxauth.model.config;
+
+import org.gluu.service.CacheService;
+import org.gluu.service.cache.CacheConfiguration;
+import org.gluu.service.cache.CacheProviderType;
+import org.slf4j.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * Publishes configuration revision to shared cache (redis, memcached), so checking it costs one cache read
+ * instead of persistence read. With in memory cache provider revision is visible only on current node.
+ */
+@ApplicationScoped
+public class CacheConfigurationChangeChannel implements ConfigurationChangeChannel {
+
+    private static final String REVISION_KEY = "oxauth_configuration_revision";
+
+    private static final int REVISION_LIFETIME_IN_SECONDS = 86400;
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private CacheService cacheService;
+
+    @Inject
+    private CacheConfiguration cacheConfiguration;
+
+    @Override
+    public boolean isAvailable() {
+        try {
+            // native persistence cache is stored in the same DB, so it's not cheaper than revision check
+            return cacheConfiguration.getCacheProviderType() != CacheProviderType.NATIVE_PERSISTENCE;
+        } catch (Exception e) {
+            // e.g. cache configuration is not loaded yet
+            log.error("Failed to get cache configuration", e);
+            return false;
+        }
+    }
+
+    @Override
+    public void publish(long revision) {
+        if (!isAvailable()) {
+            return;
+        }
+
+        try {
+            if (getPublishedRevision() >= revision) {
+                return;
+            }
+
+            cacheService.put(REVISION_LIFETIME_IN_SECONDS, REVISION_KEY, revision);
+            log.debug("Published configuration revision: {}", revision);
+        } catch (Exception e) {
+            log.error("Failed to publish configuration revision " + revision, e);
+        }
+    }
+
+    @Override
+    public long getPublishedRevision() {
+        try {
+            final Object value = cacheService.get(REVISION_KEY);
+            if (value instanceof Number) {
+                return ((Number) value).longValue();
+            }
+        } catch (Exception e) {
+            log.error("Failed to get published configuration revision", e);
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2020, Gluu
+ */
+
+package org.gluu.oxauth.model.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.gluu.oxauth.util.ServerUtil;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Event fired after configuration is (re)loaded from persistence. Contains only sections which were changed,
+ * so observers can skip refresh if section they depend on is the same.
+ */
+public class ConfigurationChange {
+
+    public enum Section {
+        DYNAMIC, STATIC, ERRORS, WEB_KEYS
+    }
+
+    private static final ObjectMapper MAPPER = ServerUtil.createJsonMapper();
+
+    private final long revision;
+    private final Set<Section> changedSections;
+
+    public ConfigurationChange(long revision, Set<Section> changedSections) {
+        this.revision = revision;
+        this.changedSections = Collections.unmodifiableSet(changedSections.isEmpty() ? EnumSet.noneOf(Section.class) : EnumSet.copyOf(changedSections));
+    }
+
+    /**
+     * @return json of each section of configuration, it's used to find changed sections on next reload
+     */
+    public static Map<Section, String> sections(Conf conf) throws JsonProcessingException {
+        final Map<Section, String> sections = new EnumMap<>(Section.class);
+        sections.put(Section.DYNAMIC, conf.getDynamic() != null ? MAPPER.writeValueAsString(conf.getDynamic()) : null);
+        sections.put(Section.STATIC, conf.getStatics() != null ? MAPPER.writeValueAsString(conf.getStatics()) : null);
+        sections.put(Section.ERRORS, conf.getErrors() != null ? MAPPER.writeValueAsString(conf.getErrors()) : null);
+        sections.put(Section.WEB_KEYS, conf.getWebKeys() != null ? MAPPER.writeValueAsString(conf.getWebKeys()) : null);
+        return sections;
+    }
+
+    /**
+     * @param previous sections of previously loaded configuration, null if configuration was not loaded yet (all sections are changed)
+     */
+    public static ConfigurationChange compare(long revision, Map<Section, String> previous, Map<Section, String> current) {
+        final Set<Section> changed = EnumSet.noneOf(Section.class);
+        for (Section section : Section.values()) {
+            if (previous == null || !Objects.equals(previous.get(section), current.get(section))) {
+                changed.add(section);
+            }
+        }
+        return new ConfigurationChange(revision, changed);
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public Set<Section> getChangedSections() {
+        return changedSections;
+    }
+
+    public boolean isChanged(Section section) {
+        return changedSections.contains(section);
+    }
+
+    public boolean isEmpty() {
+        return changedSections.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigurationChange{" +
+                "revision=" + revision +
+                ", changedSections=" + changedSections +
+                '}';
+    }
+}
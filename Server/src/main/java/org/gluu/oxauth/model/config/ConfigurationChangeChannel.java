@@ -0,0 +1,31 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2020, Gluu
+ */
+
+package org.gluu.oxauth.model.config;
+
+/**
+ * Channel which notifies cluster nodes about new revision of configuration stored in persistence.
+ * Nodes check channel often and read configuration from persistence only if newer revision was published.
+ * Periodical check of configuration revision in persistence stays as fallback, e.g. for changes made by other applications.
+ * Default implementation is {@link CacheConfigurationChangeChannel}, other one can be provided as CDI alternative.
+ */
+public interface ConfigurationChangeChannel {
+
+    /**
+     * @return false if channel can't be used, in this case configuration is checked in persistence with each timer tick
+     */
+    boolean isAvailable();
+
+    /**
+     * Publishes revision of configuration which is stored in persistence.
+     */
+    void publish(long revision);
+
+    /**
+     * @return last published revision or -1 if it's unknown
+     */
+    long getPublishedRevision();
+}
@@ -42,6 +42,7 @@ import javax.inject.Named;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletRegistration;
 import java.io.File;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
@@ -69,6 +70,12 @@ public class ConfigurationFactory {
 	@Inject
 	private Event<String> event;
 
+	@Inject
+	private Event<ConfigurationChange> configurationChangeEvent;
+
+	@Inject
+	private ConfigurationChangeChannel configurationChangeChannel;
+
 	@Inject @Named(ApplicationFactory.PERSISTENCE_ENTRY_MANAGER_NAME)
 	private Instance<PersistenceEntryManager> persistenceEntryManagerInstance;
 
@@ -134,6 +141,11 @@ public class ConfigurationFactory {
 
 	private long loadedRevision = -1;
 	private boolean loadedFromLdap = true;
+	private Map<ConfigurationChange.Section, String> loadedSections;
+
+	private int timerInterval = DEFAULT_INTERVAL;
+	private long lastRevisionCheckTime;
+	private long lastPublishedRevision = -1;
 
 	@PostConstruct
 	public void init() {
@@ -190,12 +202,24 @@ public class ConfigurationFactory {
 		log.debug("Initializing Configuration Timer");
 
 		final int delay = 30;
-		final int interval = DEFAULT_INTERVAL;
+		// With change channel timer checks published revision often, persistence is checked with reload interval
+		final int interval = isChangeChannelEnabled() ? conf.getConfigurationChangeCheckInterval() : getReloadInterval();
+
+		this.timerInterval = Math.max(1, interval);
+		this.lastRevisionCheckTime = System.currentTimeMillis();
 
-		timerEvent.fire(new TimerEvent(new TimerSchedule(delay, interval), new ConfigurationEvent(),
+		timerEvent.fire(new TimerEvent(new TimerSchedule(delay, timerInterval), new ConfigurationEvent(),
 				Scheduled.Literal.INSTANCE));
 	}
 
+	private boolean isChangeChannelEnabled() {
+		return conf != null && conf.getConfigurationChangeNotificationEnabled() && configurationChangeChannel.isAvailable();
+	}
+
+	private int getReloadInterval() {
+		return conf != null && conf.getConfigurationReloadInterval() > 0 ? conf.getConfigurationReloadInterval() : DEFAULT_INTERVAL;
+	}
+
 	@Asynchronous
 	public void reloadConfigurationTimerEvent(@Observes @Scheduled ConfigurationEvent configurationEvent) {
 		if (this.isActive.get()) {
@@ -216,6 +240,17 @@ public class ConfigurationFactory {
 	}
 
 	private void reloadConfiguration() {
+		final long now = System.currentTimeMillis();
+		// half of tick is tolerance for timer jitter
+		final boolean checkPersistence = (now - lastRevisionCheckTime + timerInterval * 500L) >= getReloadInterval() * 1000L;
+		if (!checkPersistence) {
+			if (loadedFromLdap && isChangeChannelEnabled() && isRevisionPublished()) {
+				createFromLdap(false);
+			}
+			return;
+		}
+		this.lastRevisionCheckTime = now;
+
 		// Reload LDAP configuration if needed
 	    PersistenceConfiguration newPersistenceConfiguration = persistanceFactoryService.loadPersistenceConfiguration(LDAP_PROPERTIES_FILE);
 
@@ -249,6 +284,19 @@ public class ConfigurationFactory {
 		createFromLdap(false);
 	}
 
+	private boolean isRevisionPublished() {
+		final long publishedRevision = configurationChangeChannel.getPublishedRevision();
+
+		log.trace("Published revision: " + publishedRevision + ", server revision:" + loadedRevision);
+		if (publishedRevision <= this.loadedRevision || publishedRevision == this.lastPublishedRevision) {
+			return false;
+		}
+
+		// Load published revision once, if persistence has older revision it's loaded by regular revision check
+		this.lastPublishedRevision = publishedRevision;
+		return true;
+	}
+
 	private boolean isRevisionIncreased() {
         final Conf conf = loadConfigurationFromLdap("oxRevision");
         if (conf == null) {
@@ -381,22 +429,48 @@ public class ConfigurationFactory {
 		try {
 			final Conf c = loadConfigurationFromLdap();
 			if (c != null) {
-				init(c);
+				final Map<ConfigurationChange.Section, String> sections = ConfigurationChange.sections(c);
+				final ConfigurationChange change = ConfigurationChange.compare(c.getRevision(), this.loadedSections, sections);
+				log.debug("Loaded configuration revision: {}, changed sections: {}", c.getRevision(), change.getChangedSections());
 
-				// Destroy old configuration
+				init(c, change);
+				this.loadedSections = sections;
+
+				// Destroy only changed parts of old configuration
+				final boolean dynamicChanged = change.isChanged(ConfigurationChange.Section.DYNAMIC);
+				final boolean webKeysChanged = change.isChanged(ConfigurationChange.Section.WEB_KEYS);
 				if (this.loaded) {
-					destroy(AppConfiguration.class);
-					destroy(StaticConfiguration.class);
-					destroy(WebKeysConfiguration.class);
-					destroy(ErrorResponseFactory.class);
+					if (dynamicChanged) {
+						destroy(AppConfiguration.class);
+					}
+					if (change.isChanged(ConfigurationChange.Section.STATIC)) {
+						destroy(StaticConfiguration.class);
+					}
+					if (webKeysChanged) {
+						destroy(WebKeysConfiguration.class);
+					}
+					if (dynamicChanged || change.isChanged(ConfigurationChange.Section.ERRORS)) {
+						destroy(ErrorResponseFactory.class);
+					}
 				}
 
+				final boolean firstLoad = !this.loaded;
 				this.loaded = true;
-				configurationUpdateEvent.select(ConfigurationUpdate.Literal.INSTANCE).fire(conf);
+				if (dynamicChanged) {
+					configurationUpdateEvent.select(ConfigurationUpdate.Literal.INSTANCE).fire(conf);
+				}
+
+				// Crypto provider depends on key store settings and keys
+				if (firstLoad || dynamicChanged || webKeysChanged) {
+					destroyCryptoProviderInstance();
+					AbstractCryptoProvider newAbstractCryptoProvider = abstractCryptoProviderInstance.get();
+					cryptoProviderEvent.select(CryptoProviderEvent.Literal.INSTANCE).fire(newAbstractCryptoProvider);
+				}
+
+				configurationChangeEvent.fire(change);
 
-                destroyCryptoProviderInstance();
-				AbstractCryptoProvider newAbstractCryptoProvider = abstractCryptoProviderInstance.get();
-				cryptoProviderEvent.select(CryptoProviderEvent.Literal.INSTANCE).fire(newAbstractCryptoProvider);
+				// Let other nodes know about new revision without waiting for their persistence check
+				configurationChangeChannel.publish(this.loadedRevision);
 
 				return true;
 			}
@@ -443,24 +517,27 @@ public class ConfigurationFactory {
 		return null;
 	}
 
-	private void init(Conf p_conf) {
-		initConfigurationConf(p_conf);
+	private void init(Conf p_conf, ConfigurationChange change) {
+		initConfigurationConf(p_conf, change);
 		this.loadedRevision = p_conf.getRevision();
 	}
 
-	private void initConfigurationConf(Conf p_conf) {
-		if (p_conf.getDynamic() != null) {
+	private void initConfigurationConf(Conf p_conf, ConfigurationChange change) {
+		final boolean dynamicChanged = change.isChanged(ConfigurationChange.Section.DYNAMIC);
+		if (p_conf.getDynamic() != null && dynamicChanged) {
 			conf = p_conf.getDynamic();
 		}
-		if (p_conf.getStatics() != null) {
+		if (p_conf.getStatics() != null && change.isChanged(ConfigurationChange.Section.STATIC)) {
 			staticConf = p_conf.getStatics();
 		}
 		if (p_conf.getWebKeys() != null) {
-			jwks = p_conf.getWebKeys();
+			if (change.isChanged(ConfigurationChange.Section.WEB_KEYS)) {
+				jwks = p_conf.getWebKeys();
+			}
 		} else {
 			generateWebKeys();
 		}
-		if (p_conf.getErrors() != null) {
+		if (p_conf.getErrors() != null && (dynamicChanged || change.isChanged(ConfigurationChange.Section.ERRORS))) {
 			errorResponseFactory = new ErrorResponseFactory(p_conf.getErrors(), p_conf.getDynamic());
 		}
 	}
@@ -488,6 +565,7 @@ public class ConfigurationFactory {
 
 			final PersistenceEntryManager ldapManager = persistenceEntryManagerInstance.get();
 			ldapManager.merge(conf);
+			configurationChangeChannel.publish(nextRevision);
 
 			log.info("Generated new JWKS successfully.");
             log.trace("JWKS keys: " + conf.getWebKeys().getKeys().stream().map(JSONWebKey::getKid).collect(Collectors.toList()));
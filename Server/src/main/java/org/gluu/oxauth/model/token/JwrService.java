@@ -8,29 +8,17 @@ import org.apache.commons.lang.StringUtils;
 import org.gluu.oxauth.model.common.IAuthorizationGrant;
 import org.gluu.oxauth.model.config.WebKeysConfiguration;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
-import org.gluu.oxauth.model.crypto.AbstractCryptoProvider;
 import org.gluu.oxauth.model.crypto.encryption.BlockEncryptionAlgorithm;
 import org.gluu.oxauth.model.crypto.encryption.KeyEncryptionAlgorithm;
-import org.gluu.oxauth.model.exception.InvalidJweException;
 import org.gluu.oxauth.model.jwe.Jwe;
-import org.gluu.oxauth.model.jwe.JweEncrypter;
-import org.gluu.oxauth.model.jwe.JweEncrypterImpl;
-import org.gluu.oxauth.model.jwk.Algorithm;
-import org.gluu.oxauth.model.jwk.JSONWebKeySet;
-import org.gluu.oxauth.model.jwk.Use;
 import org.gluu.oxauth.model.jwt.Jwt;
 import org.gluu.oxauth.model.jwt.JwtType;
 import org.gluu.oxauth.model.registration.Client;
-import org.gluu.oxauth.service.ClientService;
+import org.gluu.oxauth.service.JweCacheService;
 import org.gluu.oxauth.service.SectorIdentifierService;
-import org.gluu.oxauth.service.ServerCryptoProvider;
-import org.gluu.oxauth.util.ServerUtil;
-import org.json.JSONObject;
 import org.slf4j.Logger;
 
 import javax.inject.Inject;
-import java.nio.charset.StandardCharsets;
-import java.security.PublicKey;
 
 import static org.gluu.oxauth.model.jwt.JwtHeaderName.ALGORITHM;
 
@@ -44,12 +32,6 @@ public class JwrService {
     @Inject
     private Logger log;
 
-    @Inject
-    private AbstractCryptoProvider cryptoProvider;
-
-    @Inject
-    private ClientService clientService;
-
     @Inject
     private AppConfiguration appConfiguration;
 
@@ -59,6 +41,9 @@ public class JwrService {
     @Inject
     private SectorIdentifierService sectorIdentifierService;
 
+    @Inject
+    private JweCacheService jweCacheService;
+
     /**
      * Encode means encrypt for Jwe and sign for Jwt, means it's implementaiton specific but we want to abstract it.
      *
@@ -94,28 +79,7 @@ public class JwrService {
         KeyEncryptionAlgorithm keyEncryptionAlgorithm = KeyEncryptionAlgorithm.fromName(jwe.getHeader().getClaimAsString(ALGORITHM));
         final BlockEncryptionAlgorithm encryptionMethod = jwe.getHeader().getEncryptionMethod();
 
-        if (keyEncryptionAlgorithm == KeyEncryptionAlgorithm.RSA_OAEP || keyEncryptionAlgorithm == KeyEncryptionAlgorithm.RSA1_5) {
-            JSONObject jsonWebKeys = ServerUtil.getJwks(client);
-            String keyId = new ServerCryptoProvider(cryptoProvider).getKeyId(JSONWebKeySet.fromJSONObject(jsonWebKeys),
-                    Algorithm.fromString(keyEncryptionAlgorithm.getName()),
-                    Use.ENCRYPTION);
-            PublicKey publicKey = cryptoProvider.getPublicKey(keyId, jsonWebKeys, null);
-            jwe.getHeader().setKeyId(keyId);
-
-            if (publicKey == null) {
-                throw new InvalidJweException("The public key is not valid");
-            }
-
-            JweEncrypter jweEncrypter = new JweEncrypterImpl(keyEncryptionAlgorithm, encryptionMethod, publicKey);
-            return jweEncrypter.encrypt(jwe);
-        }
-        if (keyEncryptionAlgorithm == KeyEncryptionAlgorithm.A128KW || keyEncryptionAlgorithm == KeyEncryptionAlgorithm.A256KW) {
-            byte[] sharedSymmetricKey = clientService.decryptSecret(client.getClientSecret()).getBytes(StandardCharsets.UTF_8);
-            JweEncrypter jweEncrypter = new JweEncrypterImpl(keyEncryptionAlgorithm, encryptionMethod, sharedSymmetricKey);
-            return jweEncrypter.encrypt(jwe);
-        }
-
-        throw new IllegalArgumentException("Unsupported encryption algorithm: " + keyEncryptionAlgorithm);
+        return jweCacheService.encrypt(jwe, client, keyEncryptionAlgorithm, encryptionMethod);
     }
 
     public JsonWebResponse createJwr(Client client) {
@@ -24,6 +24,7 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 
@@ -72,13 +73,18 @@ public class RevokeSessionRestWebService {
                 return Response.ok().build(); // no error because we don't want to disclose internal AS info about users
             }
 
-            List<SessionId> sessionIdList = sessionIdService.findByUser(user.getDn());
+            // state is enough to pick sessions to revoke, full entries are loaded only for removed sessions (GONE event)
+            List<SessionId> sessionIdList = sessionIdService.findByUser(user.getDn(), "oxId", "oxState");
             if (sessionIdList == null || sessionIdList.isEmpty()) {
                 log.trace("No sessions found for user uid: {}, dn: {}", user.getUserId(), user.getDn());
                 return Response.ok().build();
             }
 
-            final List<SessionId> authenticatedSessions = sessionIdList.stream().filter(sessionId -> sessionId.getState() == SessionIdState.AUTHENTICATED).collect(Collectors.toList());
+            final List<SessionId> authenticatedSessions = sessionIdList.stream()
+                    .filter(sessionId -> sessionId.getState() == SessionIdState.AUTHENTICATED)
+                    .map(sessionId -> sessionIdService.getSessionByDn(sessionId.getDn(), true))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
             sessionIdService.remove(authenticatedSessions);
             log.debug("Revoked {} user's sessions (user: {})", authenticatedSessions.size(), user.getUserId());
 
@@ -1,13 +1,22 @@
 package org.gluu.oxauth.service;
 
+import java.util.concurrent.TimeUnit;
+
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.gluu.oxauth.model.common.AuthenticationAttempts;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
 import org.gluu.oxauth.model.configuration.AuthenticationProtectionConfiguration;
+import org.gluu.service.CacheService;
 import org.gluu.service.cdi.event.ConfigurationUpdate;
+import org.gluu.util.StringHelper;
+import org.slf4j.Logger;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 /**
  * Brute Force authentication protection service implementation
@@ -25,10 +34,25 @@ public class AuthenticationProtectionService extends org.gluu.service.security.p
     private static final int DEFAULT_DELAY_TIME = 2; // 5 seconds
 
     private static final String DEFAULT_KEY_PREFIX = "user";
-    
+
+    private static final String ATTEMPTS_KEY_PREFIX = "authn_attempts_";
+
+    private static final long SYNC_INTERVAL_MILLIS = 1000; // local counters are synchronized with cache not often than once per second
+
+    private static final int LOCAL_ATTEMPTS_SIZE_LIMIT = 100000;
+
+    @Inject
+    private Logger log;
+
     @Inject
     private AppConfiguration appConfiguration;
 
+    @Inject
+    private CacheService cacheService;
+
+    private final Cache<String, LocalAttempts> localAttempts = CacheBuilder.newBuilder()
+            .maximumSize(LOCAL_ATTEMPTS_SIZE_LIMIT).expireAfterAccess(10, TimeUnit.MINUTES).build();
+
     @Override
     protected void init() {
         updateConfiguration(appConfiguration);
@@ -61,4 +85,134 @@ public class AuthenticationProtectionService extends org.gluu.service.security.p
         
     }
 
+    /**
+     * @return true if attempts over limit should be rejected (with retry after) instead of delaying request thread
+     */
+    public boolean isRejectInsteadOfDelay() {
+        AuthenticationProtectionConfiguration authenticationProtectionConfiguration = appConfiguration.getAuthenticationProtectionConfiguration();
+
+        return (authenticationProtectionConfiguration != null) && Boolean.TRUE.equals(authenticationProtectionConfiguration.getRejectInsteadOfDelay());
+    }
+
+    /**
+     * Checks sliding window limits of failed attempts for user, client and IP address.
+     *
+     * @return seconds to wait before next attempt, 0 if attempt is allowed
+     */
+    public int getRetryAfter(String userId, String clientId, String ipAddress) {
+        final AuthenticationProtectionConfiguration configuration = appConfiguration.getAuthenticationProtectionConfiguration();
+        final long windowMillis = getWindowMillis();
+        final long now = System.currentTimeMillis();
+
+        long retryAfter = retryAfter(buildKey("user", userId), this.maximumAllowedAttemptsWithoutDelay, windowMillis, now);
+        if (configuration != null) {
+            retryAfter = Math.max(retryAfter, retryAfter(buildKey("client", clientId), configuration.getMaximumAllowedAttemptsPerClient(), windowMillis, now));
+            retryAfter = Math.max(retryAfter, retryAfter(buildKey("ip", ipAddress), configuration.getMaximumAllowedAttemptsPerIpAddress(), windowMillis, now));
+        }
+
+        return (int) TimeUnit.MILLISECONDS.toSeconds(retryAfter + 999);
+    }
+
+    /**
+     * Registers authentication attempt. Failed attempt increments user, client and IP address counters,
+     * successful attempt resets user counter.
+     */
+    public void registerAttempt(String userId, String clientId, String ipAddress, boolean success) {
+        final String userKey = buildKey("user", userId);
+        if (success) {
+            resetAttempts(userKey);
+            return;
+        }
+
+        final AuthenticationProtectionConfiguration configuration = appConfiguration.getAuthenticationProtectionConfiguration();
+        final long windowMillis = getWindowMillis();
+        final long now = System.currentTimeMillis();
+
+        addAttempt(userKey, this.maximumAllowedAttemptsWithoutDelay, windowMillis, now);
+        if (configuration != null) {
+            addAttempt(buildKey("client", clientId), configuration.getMaximumAllowedAttemptsPerClient(), windowMillis, now);
+            addAttempt(buildKey("ip", ipAddress), configuration.getMaximumAllowedAttemptsPerIpAddress(), windowMillis, now);
+        }
+    }
+
+    private long retryAfter(String key, int limit, long windowMillis, long now) {
+        if ((key == null) || (limit <= 0)) {
+            return 0;
+        }
+
+        final LocalAttempts local = localAttempts.asMap().computeIfAbsent(key, k -> new LocalAttempts());
+        synchronized (local) {
+            if (now - local.lastSync >= SYNC_INTERVAL_MILLIS) {
+                sync(key, local, windowMillis, now);
+            }
+            return local.attempts.retryAfter(now, windowMillis, limit);
+        }
+    }
+
+    private void addAttempt(String key, int limit, long windowMillis, long now) {
+        if ((key == null) || (limit <= 0)) {
+            return;
+        }
+
+        final LocalAttempts local = localAttempts.asMap().computeIfAbsent(key, k -> new LocalAttempts());
+        synchronized (local) {
+            local.attempts.add(now, windowMillis, 1);
+            local.unflushed++;
+
+            // Flush immediately when limit is reached to let other nodes know about it
+            if ((now - local.lastSync >= SYNC_INTERVAL_MILLIS) || (local.attempts.estimate(now, windowMillis) >= limit)) {
+                sync(key, local, windowMillis, now);
+            }
+        }
+    }
+
+    private void resetAttempts(String key) {
+        if (key == null) {
+            return;
+        }
+
+        localAttempts.invalidate(key);
+        try {
+            cacheService.remove(ATTEMPTS_KEY_PREFIX + key);
+        } catch (Exception e) {
+            log.error("Failed to reset authentication attempts, key: " + key, e);
+        }
+    }
+
+    private void sync(String key, LocalAttempts local, long windowMillis, long now) {
+        final String cacheKey = ATTEMPTS_KEY_PREFIX + key;
+        try {
+            final Object cached = cacheService.get(cacheKey);
+            final AuthenticationAttempts shared = cached instanceof AuthenticationAttempts ? (AuthenticationAttempts) cached : new AuthenticationAttempts();
+            if (local.unflushed > 0) {
+                shared.add(now, windowMillis, local.unflushed);
+                cacheService.put((int) TimeUnit.MILLISECONDS.toSeconds(2 * windowMillis), cacheKey, shared);
+                local.unflushed = 0;
+            }
+
+            local.attempts = new AuthenticationAttempts(shared);
+        } catch (Exception e) {
+            log.error("Failed to synchronize authentication attempts with cache, key: " + key, e);
+        }
+        local.lastSync = now;
+    }
+
+    private long getWindowMillis() {
+        return TimeUnit.SECONDS.toMillis(Math.max(1, this.attemptExpiration));
+    }
+
+    private static String buildKey(String type, String value) {
+        if (StringHelper.isEmpty(value)) {
+            return null;
+        }
+
+        return type + "_" + StringHelper.toLowerCase(value);
+    }
+
+    private static class LocalAttempts {
+        private AuthenticationAttempts attempts = new AuthenticationAttempts();
+        private int unflushed;
+        private long lastSync;
+    }
+
 }
@@ -39,6 +39,7 @@ import org.gluu.model.security.Credentials;
 import org.gluu.model.security.SimplePrincipal;
 import org.gluu.oxauth.model.common.SimpleUser;
 import org.gluu.oxauth.model.common.User;
+import org.gluu.oxauth.model.authorize.AuthorizeRequestParam;
 import org.gluu.oxauth.model.config.Constants;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
 import org.gluu.oxauth.model.registration.Client;
@@ -48,6 +49,7 @@ import org.gluu.oxauth.model.util.Util;
 import org.gluu.oxauth.security.Identity;
 import org.gluu.oxauth.service.common.ApplicationFactory;
 import org.gluu.oxauth.service.common.UserService;
+import org.gluu.oxauth.util.ServerUtil;
 import org.gluu.persist.PersistenceEntryManager;
 import org.gluu.persist.exception.AuthenticationException;
 import org.gluu.persist.exception.EntryPersistenceException;
@@ -119,6 +121,8 @@ public class AuthenticationService {
 	@Inject
 	private AuthenticationProtectionService authenticationProtectionService;
 
+	private int retryAfter;
+
 	/**
 	 * Authenticate user.
 	 *
@@ -134,6 +138,9 @@ public class AuthenticationService {
 
 		boolean authenticated = false;
 		boolean protectionServiceEnabled = authenticationProtectionService.isEnabled();
+		if (protectionServiceEnabled && isAttemptRejected(userName)) {
+			return false;
+		}
 
 		com.codahale.metrics.Timer.Context timerContext = null;
 		timerContext = metricService
@@ -164,8 +171,7 @@ public class AuthenticationService {
 		metricService.incCounter(metricType);
 
 		if (protectionServiceEnabled) {
-			authenticationProtectionService.storeAttempt(userId, authenticated);
-			authenticationProtectionService.doDelayIfNeeded(userId);
+			processAttempt(userName, userId, authenticated);
 		}
 
 		return authenticated;
@@ -190,6 +196,9 @@ public class AuthenticationService {
 		Pair<Boolean, User> authenticatedPair = null;
 		boolean authenticated = false;
 		boolean protectionServiceEnabled = authenticationProtectionService.isEnabled();
+		if (protectionServiceEnabled && isAttemptRejected(nameValue)) {
+			return false;
+		}
 
 		com.codahale.metrics.Timer.Context timerContext = metricService
 				.getTimer(MetricType.OXAUTH_USER_AUTHENTICATION_RATE).time();
@@ -216,13 +225,70 @@ public class AuthenticationService {
 		metricService.incCounter(metricType);
 
 		if (protectionServiceEnabled) {
-			authenticationProtectionService.storeAttempt(userId, authenticated);
-			authenticationProtectionService.doDelayIfNeeded(userId);
+			processAttempt(nameValue, userId, authenticated);
 		}
 
 		return authenticated;
 	}
 
+	private boolean isAttemptRejected(String attemptKey) {
+		this.retryAfter = 0;
+		if (!authenticationProtectionService.isRejectInsteadOfDelay()) {
+			return false;
+		}
+
+		this.retryAfter = authenticationProtectionService.getRetryAfter(attemptKey, getAttemptClientId(), getAttemptIpAddress());
+		if (this.retryAfter > 0) {
+			log.debug("Authentication attempt is rejected, too many failed attempts: '{}', retry after: {}s", attemptKey, this.retryAfter);
+			metricService.incCounter(MetricType.OXAUTH_USER_AUTHENTICATION_FAILURES);
+			return true;
+		}
+
+		return false;
+	}
+
+	private void processAttempt(String attemptKey, String userId, boolean authenticated) {
+		if (authenticationProtectionService.isRejectInsteadOfDelay()) {
+			// Count attempts by entered key to match check done before authentication
+			authenticationProtectionService.registerAttempt(attemptKey, getAttemptClientId(), getAttemptIpAddress(), authenticated);
+			return;
+		}
+
+		authenticationProtectionService.storeAttempt(userId, authenticated);
+		authenticationProtectionService.doDelayIfNeeded(userId);
+	}
+
+	private String getAttemptClientId() {
+		SessionClient sessionClient = identity.getSessionClient();
+		if ((sessionClient != null) && (sessionClient.getClient() != null)) {
+			return sessionClient.getClient().getClientId();
+		}
+
+		SessionId sessionId = sessionIdService.getSessionId();
+		if (sessionId != null) {
+			return sessionId.getSessionAttributes().get(AuthorizeRequestParam.CLIENT_ID);
+		}
+
+		return null;
+	}
+
+	private String getAttemptIpAddress() {
+		try {
+			HttpServletRequest httpRequest = getHttpRequest();
+			return httpRequest != null ? ServerUtil.getIpAddress(httpRequest) : null;
+		} catch (Exception ex) {
+			// External context is not active outside of JSF requests
+			return null;
+		}
+	}
+
+	/**
+	 * @return seconds to wait before next authentication attempt if last attempt was rejected by brute force protection, otherwise 0
+	 */
+	public int getRetryAfter() {
+		return retryAfter;
+	}
+
 	private void setAuthenticatedUserSessionAttribute(String userName, boolean authenticated) {
 		SessionId sessionId = sessionIdService.getSessionId();
 		if (sessionId != null) {
@@ -321,6 +387,9 @@ public class AuthenticationService {
 
 		boolean authenticated = false;
 		boolean protectionServiceEnabled = authenticationProtectionService.isEnabled();
+		if (protectionServiceEnabled && isAttemptRejected(keyValue)) {
+			return false;
+		}
 
 		com.codahale.metrics.Timer.Context timerContext = metricService
 				.getTimer(MetricType.OXAUTH_USER_AUTHENTICATION_RATE).time();
@@ -354,8 +423,7 @@ public class AuthenticationService {
 		metricService.incCounter(metricType);
 
 		if (protectionServiceEnabled) {
-			authenticationProtectionService.storeAttempt(keyValue, authenticated);
-			authenticationProtectionService.doDelayIfNeeded(keyValue);
+			processAttempt(keyValue, keyValue, authenticated);
 		}
 
 		return authenticated;
@@ -377,6 +445,9 @@ public class AuthenticationService {
 			String keyValue, String password, String primaryKey, String localPrimaryKey, boolean updateMetrics) {
 		boolean authenticated = false;
 		boolean protectionServiceEnabled = authenticationProtectionService.isEnabled();
+		if (protectionServiceEnabled && isAttemptRejected(keyValue)) {
+			return false;
+		}
 
 		com.codahale.metrics.Timer.Context timerContext = null;
 		
@@ -410,8 +481,7 @@ public class AuthenticationService {
 		}
 
 		if (protectionServiceEnabled) {
-			authenticationProtectionService.storeAttempt(userId, authenticated);
-			authenticationProtectionService.doDelayIfNeeded(userId);
+			processAttempt(keyValue, userId, authenticated);
 		}
 
 		return authenticated;
@@ -513,8 +583,7 @@ public class AuthenticationService {
 		metricService.incCounter(metricType);
 
 		if (protectionServiceEnabled) {
-			authenticationProtectionService.storeAttempt(userName, authenticated);
-			authenticationProtectionService.doDelayIfNeeded(userName);
+			processAttempt(userName, userName, authenticated);
 		}
 
 		return authenticated;
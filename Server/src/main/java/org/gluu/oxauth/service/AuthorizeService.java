@@ -106,6 +106,9 @@ public class AuthorizeService {
     @Inject
     private DeviceAuthorizationService deviceAuthorizationService;
 
+    @Inject
+    private PollingThrottleService pollingThrottleService;
+
     public SessionId getSession() {
         return getSession(null);
     }
@@ -213,40 +216,7 @@ public class AuthorizeService {
         // CIBA
         Map<String, String> sessionAttribute = requestParameterService.getAllowedParameters(session.getSessionAttributes());
         if (sessionAttribute.containsKey(AuthorizeRequestParam.AUTH_REQ_ID)) {
-            String authReqId = sessionAttribute.get(AuthorizeRequestParam.AUTH_REQ_ID);
-            CibaRequestCacheControl request = cibaRequestService.getCibaRequest(authReqId);
-
-            if (request != null  && request.getClient() != null) {
-                if (request.getStatus() == CibaRequestStatus.PENDING) {
-                    cibaRequestService.removeCibaRequest(authReqId);
-                }
-                switch (request.getClient().getBackchannelTokenDeliveryMode()) {
-                    case POLL:
-                        request.setStatus(CibaRequestStatus.DENIED);
-                        request.setTokensDelivered(false);
-                        cibaRequestService.update(request);
-                        break;
-                    case PING:
-                        request.setStatus(CibaRequestStatus.DENIED);
-                        request.setTokensDelivered(false);
-                        cibaRequestService.update(request);
-
-                        cibaPingCallbackService.pingCallback(
-                                request.getAuthReqId(),
-                                request.getClient().getBackchannelClientNotificationEndpoint(),
-                                request.getClientNotificationToken()
-                        );
-                        break;
-                    case PUSH:
-                        cibaPushErrorService.pushError(
-                                request.getAuthReqId(),
-                                request.getClient().getBackchannelClientNotificationEndpoint(),
-                                request.getClientNotificationToken(),
-                                PushErrorResponseType.ACCESS_DENIED,
-                                "The end-user denied the authorization request.");
-                        break;
-                }
-            }
+            processCibaDeniedResponse(sessionAttribute.get(AuthorizeRequestParam.AUTH_REQ_ID));
         }
         if (sessionAttribute.containsKey(DeviceAuthorizationService.SESSION_USER_CODE)) {
             processDeviceAuthDeniedResponse(sessionAttribute);
@@ -314,7 +284,44 @@ public class AuthorizeService {
         return false;
     }
 
-    private void processDeviceAuthDeniedResponse(Map<String, String> sessionAttribute) {
+    void processCibaDeniedResponse(String authReqId) {
+        CibaRequestCacheControl request = cibaRequestService.getCibaRequest(authReqId);
+
+        if (request != null  && request.getClient() != null) {
+            if (request.getStatus() == CibaRequestStatus.PENDING) {
+                cibaRequestService.removeCibaRequest(authReqId);
+            }
+            pollingThrottleService.removeLastPollTime(authReqId, request.getClient().getClientId());
+            switch (request.getClient().getBackchannelTokenDeliveryMode()) {
+                case POLL:
+                    request.setStatus(CibaRequestStatus.DENIED);
+                    request.setTokensDelivered(false);
+                    cibaRequestService.update(request);
+                    break;
+                case PING:
+                    request.setStatus(CibaRequestStatus.DENIED);
+                    request.setTokensDelivered(false);
+                    cibaRequestService.update(request);
+
+                    cibaPingCallbackService.pingCallback(
+                            request.getAuthReqId(),
+                            request.getClient().getBackchannelClientNotificationEndpoint(),
+                            request.getClientNotificationToken()
+                    );
+                    break;
+                case PUSH:
+                    cibaPushErrorService.pushError(
+                            request.getAuthReqId(),
+                            request.getClient().getBackchannelClientNotificationEndpoint(),
+                            request.getClientNotificationToken(),
+                            PushErrorResponseType.ACCESS_DENIED,
+                            "The end-user denied the authorization request.");
+                    break;
+            }
+        }
+    }
+
+    void processDeviceAuthDeniedResponse(Map<String, String> sessionAttribute) {
         String userCode = sessionAttribute.get(DeviceAuthorizationService.SESSION_USER_CODE);
         DeviceAuthorizationCacheControl cacheData = deviceAuthorizationService.getDeviceAuthzByUserCode(userCode);
 
@@ -322,6 +329,7 @@ public class AuthorizeService {
             cacheData.setStatus(DeviceAuthorizationStatus.DENIED);
             deviceAuthorizationService.saveInCache(cacheData, true, false);
             deviceAuthorizationService.removeDeviceAuthRequestInCache(userCode, null);
+            pollingThrottleService.removeLastPollTime(cacheData.getDeviceCode(), cacheData.getClient().getClientId());
         }
     }
 }
@@ -55,6 +55,8 @@ public abstract class BaseAuthFilterService {
         private BaseFilter authenticationFilter;
         private List<String> variableNames;
         private List<AuthenticationFilterService.IndexedParameter> indexedVariables;
+        private List<String> slotIndexes;
+        private ParameterizedFilter compiledFilter;
 
         public AuthenticationFilterWithParameters(BaseFilter authenticationFilter, List<String> variableNames, List<AuthenticationFilterService.IndexedParameter> indexedVariables) {
             this.authenticationFilter = authenticationFilter;
@@ -86,6 +88,22 @@ public abstract class BaseAuthFilterService {
             this.indexedVariables = indexedVariables;
         }
 
+        /**
+         * @return distinct parameter indexes (e.g. "{0}") in order of slots of compiled filter
+         */
+        public List<String> getSlotIndexes() {
+            return slotIndexes;
+        }
+
+        public ParameterizedFilter getCompiledFilter() {
+            return compiledFilter;
+        }
+
+        public void setCompiledFilter(List<String> slotIndexes, ParameterizedFilter compiledFilter) {
+            this.slotIndexes = slotIndexes;
+            this.compiledFilter = compiledFilter;
+        }
+
         public String toString() {
             return String.format("AutheticationFilterWithParameters [authenticationFilter=%s, variableNames=%s, indexedVariables=%s]",
                     authenticationFilter, variableNames, indexedVariables);
@@ -156,6 +174,7 @@ public abstract class BaseAuthFilterService {
             }
 
             AuthenticationFilterWithParameters tmpAutheticationFilterWithParameter = new AuthenticationFilterWithParameters(authenticationFilter, variableNames, indexedParameters);
+            compileFilter(tmpAutheticationFilterWithParameter);
             tmpAuthenticationFilterWithParameters.add(tmpAutheticationFilterWithParameter);
 
             log.debug("Authentication filter with parameters: '{}'. ", tmpAutheticationFilterWithParameter);
@@ -164,6 +183,32 @@ public abstract class BaseAuthFilterService {
         return tmpAuthenticationFilterWithParameters;
     }
 
+    /**
+     * Parses filter template once with placeholders replaced by slot tokens. If template can't be compiled
+     * filter is built from template string per request.
+     */
+    private void compileFilter(AuthenticationFilterWithParameters authenticationFilterWithParameters) {
+        final List<String> slotIndexes = new ArrayList<String>();
+        String template = authenticationFilterWithParameters.getAuthenticationFilter().getFilter();
+        for (IndexedParameter indexedParameter : authenticationFilterWithParameters.getIndexedVariables()) {
+            if (!slotIndexes.contains(indexedParameter.getParamIndex())) {
+                template = template.replace(indexedParameter.getParamIndex(), ParameterizedFilter.token(slotIndexes.size()));
+                slotIndexes.add(indexedParameter.getParamIndex());
+            }
+        }
+
+        try {
+            ParameterizedFilter compiledFilter = ParameterizedFilter.compile(ldapFilterConverter.convertRawLdapFilterToFilter(template), slotIndexes.size());
+            if (compiledFilter == null) {
+                log.debug("Authentication filter '{}' can't be compiled, it will be parsed per request", authenticationFilterWithParameters.getAuthenticationFilter().getFilter());
+                return;
+            }
+            authenticationFilterWithParameters.setCompiledFilter(slotIndexes, compiledFilter);
+        } catch (SearchException ex) {
+            log.error("Failed to parse authentication filter: '{}'", authenticationFilterWithParameters.getAuthenticationFilter().getFilter(), ex);
+        }
+    }
+
     public static List<AuthenticationFilterWithParameters> getAllowedAuthenticationFilters(Collection<?> attributeNames, List<AuthenticationFilterWithParameters> p_filterList) {
         List<AuthenticationFilterWithParameters> tmpAuthenticationFilterWithParameters = new ArrayList<AuthenticationFilterWithParameters>();
         if (attributeNames == null) {
@@ -218,10 +263,36 @@ public abstract class BaseAuthFilterService {
         return filter;
     }
 
+    /**
+     * Binds attribute values to compiled filter. Value of parameter index is taken from first parameter which has value,
+     * index without value is bound as is, the same way as {@link #buildFilter} leaves it in filter.
+     */
+    public static Filter bindFilter(AuthenticationFilterWithParameters authenticationFilterWithParameters, Map<String, String> p_normalizedAttributeValues) {
+        final List<String> slotIndexes = authenticationFilterWithParameters.getSlotIndexes();
+        final String[] values = new String[slotIndexes.size()];
+        for (IndexedParameter indexedParameter : authenticationFilterWithParameters.getIndexedVariables()) {
+            int slot = slotIndexes.indexOf(indexedParameter.getParamIndex());
+            if (values[slot] == null) {
+                values[slot] = p_normalizedAttributeValues.get(indexedParameter.getParamName());
+            }
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                values[i] = slotIndexes.get(i);
+            }
+        }
+        return authenticationFilterWithParameters.getCompiledFilter().bind(values);
+    }
+
     public <T> String loadEntryDN(PersistenceEntryManager p_manager, Class<T> entryClass, AuthenticationFilterWithParameters authenticationFilterWithParameters, Map<String, String> normalizedAttributeValues) throws SearchException {
-        final String filter = buildFilter(authenticationFilterWithParameters, normalizedAttributeValues);
+        Filter ldapFilter;
+        if (authenticationFilterWithParameters.getCompiledFilter() != null) {
+            ldapFilter = bindFilter(authenticationFilterWithParameters, normalizedAttributeValues).multiValued(false);
+        } else {
+            final String filter = buildFilter(authenticationFilterWithParameters, normalizedAttributeValues);
+            ldapFilter = ldapFilterConverter.convertRawLdapFilterToFilter(filter).multiValued(false);
+        }
 
-        Filter ldapFilter = ldapFilterConverter.convertRawLdapFilterToFilter(filter).multiValued(false);
         List<T> foundEntries = p_manager.findEntries(authenticationFilterWithParameters.getAuthenticationFilter().getBaseDn(), entryClass, ldapFilter, new String[0]);
 
         if (foundEntries.size() > 1) {
@@ -8,6 +8,7 @@ package org.gluu.oxauth.service;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Sets;
+import org.gluu.oxauth.model.authorize.ScopeChecker;
 import org.gluu.oxauth.model.common.AuthenticationMethod;
 import org.gluu.oxauth.model.config.StaticConfiguration;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
@@ -59,6 +60,12 @@ public class ClientService {
 	@Inject
 	private ScopeService scopeService;
 
+	@Inject
+	private ScopeChecker scopeChecker;
+
+	@Inject
+	private JweCacheService jweCacheService;
+
 	@Inject
 	private EncryptionService encryptionService;
 
@@ -75,6 +82,8 @@ public class ClientService {
 	public void merge(Client client) {
 		ldapEntryManager.merge(client);
 		removeFromCache(client);
+		scopeChecker.invalidateScopePolicy(client.getClientId());
+		jweCacheService.invalidate(client.getClientId());
 	}
 
 	/**
@@ -237,6 +246,8 @@ public class ClientService {
 	public void remove(Client client) {
 		if (client != null) {
 			removeFromCache(client);
+			scopeChecker.invalidateScopePolicy(client.getClientId());
+			jweCacheService.invalidate(client.getClientId());
 
 			String clientDn = client.getDn();
 			ldapEntryManager.removeRecursively(clientDn, Client.class);
@@ -6,7 +6,6 @@ import org.gluu.oxauth.model.config.ConfigurationFactory;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
 import org.gluu.oxauth.model.session.SessionId;
 import org.gluu.oxauth.model.session.SessionIdState;
-import org.gluu.persist.exception.EntryPersistenceException;
 import org.gluu.service.cdi.util.CdiUtil;
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -23,6 +22,8 @@ import javax.servlet.http.HttpServletResponse;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 
 import static org.gluu.oxauth.model.util.StringUtils.toList;
@@ -109,6 +110,28 @@ public class CookieService {
         removeOutdatedCurrentSessions(currentSessions, sessionId);
         currentSessions.add(sessionId.getId());
 
+        createCurrentSessionsCookie(currentSessions, httpResponse);
+    }
+
+    /**
+     * Removes given session ids (e.g. stale ids) from current_sessions cookie.
+     */
+    public void removeCurrentSessions(Collection<String> sessionIds) {
+        try {
+            final Object request = externalContext.getRequest();
+            final Object response = externalContext.getResponse();
+            if (request instanceof HttpServletRequest && response instanceof HttpServletResponse) {
+                final Set<String> currentSessions = getCurrentSessions((HttpServletRequest) request);
+                if (currentSessions.removeAll(sessionIds)) {
+                    createCurrentSessionsCookie(currentSessions, (HttpServletResponse) response);
+                }
+            }
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    private void createCurrentSessionsCookie(Set<String> currentSessions, HttpServletResponse httpResponse) {
         String header = CURRENT_SESSIONS_COOKIE_NAME + "=" + new JSONArray(currentSessions).toString();
         header += "; Path=/";
         header += "; Secure";
@@ -131,19 +154,10 @@ public class CookieService {
 
         SessionIdService sessionIdService = CdiUtil.bean(SessionIdService.class); // avoid cycle dependency
 
-        Set<String> toRemove = Sets.newHashSet();
-        for (String sessionId : currentSessions) {
-            SessionId sessionIdObject = null;
-            try {
-                sessionIdObject = sessionIdService.getSessionId(sessionId, true);
-            } catch (EntryPersistenceException e) {
-                // ignore - valid case if session is outdated
-            }
-            if (sessionIdObject == null) {
-                toRemove.add(sessionId);
-            }
+        final Map<String, SessionId> found = sessionIdService.getSessionIds(currentSessions);
+        if (found != null) {
+            currentSessions.retainAll(found.keySet());
         }
-        currentSessions.removeAll(toRemove);
     }
 
     public String getValueFromCookie(HttpServletRequest request, String cookieName) {
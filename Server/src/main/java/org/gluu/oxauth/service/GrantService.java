@@ -6,7 +6,6 @@
 
 package org.gluu.oxauth.service;
 
-import com.google.common.collect.Lists;
 import org.apache.commons.lang.BooleanUtils;
 import org.apache.commons.lang.StringUtils;
 import org.gluu.oxauth.model.common.AuthorizationGrant;
@@ -18,15 +17,19 @@ import org.gluu.oxauth.model.configuration.AppConfiguration;
 import org.gluu.oxauth.model.ldap.TokenLdap;
 import org.gluu.oxauth.model.ldap.TokenType;
 import org.gluu.oxauth.model.registration.Client;
+import org.gluu.oxauth.service.cdi.event.SessionLogoutEvent;
 import org.gluu.oxauth.util.TokenHashUtil;
 import org.gluu.persist.PersistenceEntryManager;
 import org.gluu.search.filter.Filter;
 import org.gluu.service.CacheService;
+import org.gluu.service.cdi.async.Asynchronous;
 import org.gluu.service.cache.CacheConfiguration;
 import org.gluu.service.cache.CacheProviderType;
 import org.slf4j.Logger;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 import java.util.*;
 
@@ -40,6 +43,14 @@ import static org.gluu.oxauth.util.ServerUtil.isTrue;
 @ApplicationScoped
 public class GrantService {
 
+    /**
+     * Attributes required to remove token entry and related cache entries (tknCde, authzCode, grtId)
+     * and to decide whether it has to be removed (tknTyp, clnId, exp). DN is always returned.
+     */
+    public static final String[] TOKEN_REMOVAL_ATTRIBUTES = new String[] { "tknCde", "tknTyp", "authzCode", "grtId", "ssnId", "clnId", "exp", "del" };
+
+    private static final int REMOVE_BATCH_SIZE = 100;
+
     @Inject
     private Logger log;
 
@@ -61,6 +72,9 @@ public class GrantService {
     @Inject
     private CacheConfiguration cacheConfiguration;
 
+    @Inject
+    private Event<SessionLogoutEvent> sessionLogoutEvent;
+
     public static String generateGrantId() {
         return UUID.randomUUID().toString();
     }
@@ -233,18 +247,64 @@ public class GrantService {
         return Collections.emptyList();
     }
 
-    public TokenLdap getGrantByCode(String p_code) {
+    public TokenLdap getGrantByCode(String p_code, String... returnAttributes) {
         Object grant = cacheService.get(TokenHashUtil.hash(p_code));
         if (grant instanceof TokenLdap) {
             return (TokenLdap) grant;
         } else {
-            return load(buildDn(TokenHashUtil.hash(p_code)));
+            return load(buildDn(TokenHashUtil.hash(p_code)), returnAttributes);
         }
     }
 
-    private TokenLdap load(String p_tokenDn) {
+    /**
+     * Returns grants of codes. Grants are taken from cache first, grants missed in cache are loaded with one search request.
+     *
+     * @return map of code to grant, codes without grant are not in map
+     */
+    public Map<String, TokenLdap> getGrantsByCodes(Collection<String> codes, String... returnAttributes) {
+        final Map<String, TokenLdap> result = new HashMap<>();
+        final Map<String, String> missedCodes = new HashMap<>(); // hashed code -> code
+        for (String code : codes) {
+            if (StringUtils.isBlank(code) || result.containsKey(code)) {
+                continue;
+            }
+
+            final String hashedCode = TokenHashUtil.hash(code);
+            final Object grant = cacheService.get(hashedCode);
+            if (grant instanceof TokenLdap) {
+                result.put(code, (TokenLdap) grant);
+            } else {
+                missedCodes.put(hashedCode, code);
+            }
+        }
+
+        if (missedCodes.isEmpty()) {
+            return result;
+        }
+
+        final List<Filter> filters = new ArrayList<>();
+        for (String hashedCode : missedCodes.keySet()) {
+            filters.add(Filter.createEqualityFilter("tknCde", hashedCode));
+        }
+
         try {
-            final TokenLdap entry = ldapEntryManager.find(TokenLdap.class, p_tokenDn);
+            final List<TokenLdap> entries = ldapEntryManager.findEntries(tokenBaseDn(), TokenLdap.class,
+                    Filter.createORFilter(filters.toArray(new Filter[0])), returnAttributes);
+            for (TokenLdap entry : entries) {
+                final String code = missedCodes.get(entry.getTokenCode());
+                if (code != null) {
+                    result.put(code, entry);
+                }
+            }
+        } catch (Exception e) {
+            logException(e);
+        }
+        return result;
+    }
+
+    private TokenLdap load(String p_tokenDn, String... returnAttributes) {
+        try {
+            final TokenLdap entry = ldapEntryManager.find(p_tokenDn, TokenLdap.class, returnAttributes);
             return entry;
         } catch (Exception e) {
             logException(e);
@@ -252,28 +312,28 @@ public class GrantService {
         return null;
     }
 
-    public List<TokenLdap> getGrantsByGrantId(String p_grantId) {
+    public List<TokenLdap> getGrantsByGrantId(String p_grantId, String... returnAttributes) {
         try {
-            return ldapEntryManager.findEntries(tokenBaseDn(), TokenLdap.class, Filter.createEqualityFilter("grtId", p_grantId));
+            return ldapEntryManager.findEntries(tokenBaseDn(), TokenLdap.class, Filter.createEqualityFilter("grtId", p_grantId), returnAttributes);
         } catch (Exception e) {
             logException(e);
         }
         return Collections.emptyList();
     }
 
-    public List<TokenLdap> getGrantsByAuthorizationCode(String p_authorizationCode) {
+    public List<TokenLdap> getGrantsByAuthorizationCode(String p_authorizationCode, String... returnAttributes) {
         try {
-            return ldapEntryManager.findEntries(tokenBaseDn(), TokenLdap.class, Filter.createEqualityFilter("authzCode", TokenHashUtil.hash(p_authorizationCode)));
+            return ldapEntryManager.findEntries(tokenBaseDn(), TokenLdap.class, Filter.createEqualityFilter("authzCode", TokenHashUtil.hash(p_authorizationCode)), returnAttributes);
         } catch (Exception e) {
             logException(e);
         }
         return Collections.emptyList();
     }
 
-    public List<TokenLdap> getGrantsBySessionDn(String sessionDn) {
+    public List<TokenLdap> getGrantsBySessionDn(String sessionDn, String... returnAttributes) {
         List<TokenLdap> grants = new ArrayList<>();
         try {
-            List<TokenLdap> ldapGrants = ldapEntryManager.findEntries(tokenBaseDn(), TokenLdap.class, Filter.createEqualityFilter("ssnId", sessionDn));
+            List<TokenLdap> ldapGrants = ldapEntryManager.findEntries(tokenBaseDn(), TokenLdap.class, Filter.createEqualityFilter("ssnId", sessionDn), returnAttributes);
             if (ldapGrants != null) {
                 grants.addAll(ldapGrants);
             }
@@ -325,24 +385,111 @@ public class GrantService {
     }
 
     public void logout(String sessionDn) {
-        final List<TokenLdap> tokens = getGrantsBySessionDn(sessionDn);
-        if (!appConfiguration.getRemoveRefreshTokensForClientOnLogout()) {
-            List<TokenLdap> refreshTokens = Lists.newArrayList();
-            for (TokenLdap token : tokens) {
-                if (token.getTokenTypeEnum() == TokenType.REFRESH_TOKEN) {
-                    refreshTokens.add(token);
-                }
+        final boolean removeRefreshTokens = appConfiguration.getRemoveRefreshTokensForClientOnLogout();
+        if (!removeRefreshTokens) {
+            log.trace("Refresh tokens are not removed on logout (because removeRefreshTokensForClientOnLogout configuration property is false)");
+        }
+
+        if (appConfiguration.getRevokeTokensAsyncOnLogout()) {
+            markSessionLoggedOut(sessionDn, removeRefreshTokens);
+            sessionLogoutEvent.fire(new SessionLogoutEvent(sessionDn, removeRefreshTokens));
+            return;
+        }
+
+        removeTokensBySession(sessionDn, removeRefreshTokens);
+    }
+
+    @Asynchronous
+    public void revokeTokensOnLogout(@Observes SessionLogoutEvent event) {
+        try {
+            removeTokensBySession(event.getSessionDn(), event.isRemoveRefreshTokens());
+        } catch (Exception e) {
+            log.error("Failed to revoke tokens on logout, sessionDn: " + event.getSessionDn(), e);
+        }
+    }
+
+    /**
+     * Removes tokens of the session. Persisted tokens are removed with filtered delete (without loading every entry),
+     * tokens which are kept in cache are removed by keys taken from session tokens index.
+     *
+     * @param sessionDn           session dn
+     * @param removeRefreshTokens whether refresh tokens should be removed too
+     */
+    public void removeTokensBySession(String sessionDn, boolean removeRefreshTokens) {
+        if (StringUtils.isBlank(sessionDn)) {
+            return;
+        }
+
+        List<TokenLdap> cacheTokens = getGrantsFromCacheBySessionDn(sessionDn);
+        if (!removeRefreshTokens) {
+            cacheTokens.removeIf(token -> token.getTokenTypeEnum() == TokenType.REFRESH_TOKEN);
+        }
+        removeSilently(cacheTokens);
+        if (removeRefreshTokens) {
+            cacheService.remove(new SessionTokens(sessionDn).cacheKey());
+        }
+
+        try {
+            Filter filter = Filter.createEqualityFilter("ssnId", sessionDn);
+            if (!removeRefreshTokens) {
+                filter = Filter.createANDFilter(filter, Filter.createNOTFilter(Filter.createEqualityFilter("tknTyp", TokenType.REFRESH_TOKEN.getValue())));
             }
-            if (!refreshTokens.isEmpty()) {
-                log.trace("Refresh tokens are not removed on logout (because removeRefreshTokensForClientOnLogout configuration property is false)");
-                tokens.removeAll(refreshTokens);
+
+            // authorization grants are kept in cache by authorization code, they have to be removed by key
+            final Filter authorizationCodeFilter = Filter.createANDFilter(filter, Filter.createPresenceFilter("authzCode"));
+            final List<TokenLdap> withAuthorizationCode = ldapEntryManager.findEntries(tokenBaseDn(), TokenLdap.class, authorizationCodeFilter, new String[] { "authzCode", "grtId" });
+            for (TokenLdap token : withAuthorizationCode) {
+                cacheService.remove(CacheGrant.cacheKey(token.getAuthorizationCode(), token.getGrantId()));
             }
+
+            int removed;
+            int removedTotal = 0;
+            do {
+                removed = ldapEntryManager.remove(tokenBaseDn(), TokenLdap.class, filter, REMOVE_BATCH_SIZE);
+                removedTotal += removed;
+            } while (removed >= REMOVE_BATCH_SIZE);
+            log.trace("Removed {} persisted tokens of session {}", removedTotal, sessionDn);
+        } catch (Exception e) {
+            log.error("Failed to remove persisted tokens of session " + sessionDn, e);
+        }
+    }
+
+    private void markSessionLoggedOut(String sessionDn, boolean removeRefreshTokens) {
+        if (StringUtils.isBlank(sessionDn)) {
+            return;
+        }
+
+        int expiration = Math.max(appConfiguration.getAccessTokenLifetime(), appConfiguration.getIdTokenLifetime());
+        if (removeRefreshTokens) {
+            expiration = Math.max(expiration, appConfiguration.getRefreshTokenLifetime());
+        }
+        cacheService.put(expiration, sessionLogoutCacheKey(sessionDn), removeRefreshTokens);
+    }
+
+    /**
+     * Checks whether token belongs to session which was logged out but tokens are not removed yet (asynchronous revocation).
+     *
+     * @param token token
+     * @return true if token has to be treated as revoked
+     */
+    public boolean isRevokedBySessionLogout(TokenLdap token) {
+        if (token == null || StringUtils.isBlank(token.getSessionDn()) || !appConfiguration.getRevokeTokensAsyncOnLogout()) {
+            return false;
         }
-        removeSilently(tokens);
+
+        final Object removeRefreshTokens = cacheService.get(sessionLogoutCacheKey(token.getSessionDn()));
+        if (!(removeRefreshTokens instanceof Boolean)) {
+            return false;
+        }
+        return token.getTokenTypeEnum() != TokenType.REFRESH_TOKEN || (Boolean) removeRefreshTokens;
+    }
+
+    private static String sessionLogoutCacheKey(String sessionDn) {
+        return "session_logout_" + sessionDn;
     }
 
     public void removeAllTokensBySession(String sessionDn, boolean logout) {
-        removeSilently(getGrantsBySessionDn(sessionDn));
+        removeSilently(getGrantsBySessionDn(sessionDn, TOKEN_REMOVAL_ATTRIBUTES));
     }
 
     /**
@@ -351,7 +498,7 @@ public class GrantService {
      * @param p_code code
      */
     public void removeByCode(String p_code) {
-        final TokenLdap t = getGrantByCode(p_code);
+        final TokenLdap t = getGrantByCode(p_code, TOKEN_REMOVAL_ATTRIBUTES);
         if (t != null) {
             removeSilently(t);
         }
@@ -364,11 +511,11 @@ public class GrantService {
     }
 
     public void removeAllByAuthorizationCode(String p_authorizationCode) {
-        removeSilently(getGrantsByAuthorizationCode(p_authorizationCode));
+        removeSilently(getGrantsByAuthorizationCode(p_authorizationCode, TOKEN_REMOVAL_ATTRIBUTES));
     }
 
     public void removeAllByGrantId(String p_grantId) {
-        removeSilently(getGrantsByGrantId(p_grantId));
+        removeSilently(getGrantsByGrantId(p_grantId, TOKEN_REMOVAL_ATTRIBUTES));
     }
 
 }
\ No newline at end of file
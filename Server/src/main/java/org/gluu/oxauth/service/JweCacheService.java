@@ -0,0 +1,193 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2020, Gluu
+ */
+
+package org.gluu.oxauth.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.lang.StringUtils;
+import org.gluu.oxauth.model.config.ConfigurationChange;
+import org.gluu.oxauth.model.crypto.AbstractCryptoProvider;
+import org.gluu.oxauth.model.crypto.encryption.BlockEncryptionAlgorithm;
+import org.gluu.oxauth.model.crypto.encryption.KeyEncryptionAlgorithm;
+import org.gluu.oxauth.model.exception.InvalidJweException;
+import org.gluu.oxauth.model.jwe.Jwe;
+import org.gluu.oxauth.model.jwe.JweDecrypterImpl;
+import org.gluu.oxauth.model.jwe.JweEncrypterImpl;
+import org.gluu.oxauth.model.jwk.Algorithm;
+import org.gluu.oxauth.model.jwk.JSONWebKeySet;
+import org.gluu.oxauth.model.jwk.Use;
+import org.gluu.oxauth.model.registration.Client;
+import org.gluu.oxauth.util.ServerUtil;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.nio.charset.StandardCharsets;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps ready to use JWE encrypters and decrypters, so key lookup, client jwks fetch, client secret decryption
+ * and key derivation are not repeated for each token. Decrypters of server keys are cached by key id,
+ * client decrypters and encrypters are cached by client id (and algorithms) and rebuilt if client keys or secret were changed.
+ */
+@ApplicationScoped
+public class JweCacheService {
+
+    private static final int CACHE_SIZE_LIMIT = 10000;
+
+    // client jwks_uri content can be rotated by client, so cached encrypters are refreshed with this period
+    private static final int CACHE_LIFETIME_IN_SECONDS = 300;
+
+    private final Cache<String, CacheEntry<JweDecrypterImpl>> decrypterCache = CacheBuilder.newBuilder()
+            .maximumSize(CACHE_SIZE_LIMIT)
+            .expireAfterWrite(CACHE_LIFETIME_IN_SECONDS, TimeUnit.SECONDS)
+            .build();
+
+    private final Cache<String, CacheEntry<JweEncrypterImpl>> encrypterCache = CacheBuilder.newBuilder()
+            .maximumSize(CACHE_SIZE_LIMIT)
+            .expireAfterWrite(CACHE_LIFETIME_IN_SECONDS, TimeUnit.SECONDS)
+            .build();
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private AbstractCryptoProvider cryptoProvider;
+
+    @Inject
+    private ClientService clientService;
+
+    /**
+     * Returns decrypter for JWE encrypted with server key (RSA key encryption algorithms).
+     */
+    public JweDecrypterImpl getDecrypter(String keyId) throws Exception {
+        final String key = "kid_" + keyId;
+        CacheEntry<JweDecrypterImpl> entry = decrypterCache.getIfPresent(key);
+        if (entry != null) {
+            return entry.value;
+        }
+
+        PrivateKey privateKey = cryptoProvider.getPrivateKey(keyId);
+        if (privateKey == null) {
+            throw new InvalidJweException("Unable to find private key, kid: " + keyId);
+        }
+
+        entry = new CacheEntry<>(null, keyId, new JweDecrypterImpl(privateKey));
+        decrypterCache.put(key, entry);
+        return entry.value;
+    }
+
+    /**
+     * Returns decrypter for JWE encrypted with client secret (AES key wrap algorithms).
+     */
+    public JweDecrypterImpl getDecrypter(Client client) throws Exception {
+        final String key = "client_" + client.getClientId();
+        final String source = client.getClientSecret();
+        CacheEntry<JweDecrypterImpl> entry = decrypterCache.getIfPresent(key);
+        if (entry != null && entry.isValidFor(source)) {
+            return entry.value;
+        }
+
+        final byte[] sharedSymmetricKey = clientService.decryptSecret(source).getBytes(StandardCharsets.UTF_8);
+        entry = new CacheEntry<>(source, null, new JweDecrypterImpl(sharedSymmetricKey));
+        decrypterCache.put(key, entry);
+        return entry.value;
+    }
+
+    /**
+     * Encrypts JWE for client. For RSA key encryption algorithms key id of client key is set to JWE header.
+     */
+    public Jwe encrypt(Jwe jwe, Client client, KeyEncryptionAlgorithm keyEncryptionAlgorithm,
+                       BlockEncryptionAlgorithm blockEncryptionAlgorithm) throws Exception {
+        CacheEntry<JweEncrypterImpl> entry = getEncrypter(client, keyEncryptionAlgorithm, blockEncryptionAlgorithm);
+        if (entry.keyId != null) {
+            jwe.getHeader().setKeyId(entry.keyId);
+        }
+        return entry.value.encrypt(jwe);
+    }
+
+    private CacheEntry<JweEncrypterImpl> getEncrypter(Client client, KeyEncryptionAlgorithm keyEncryptionAlgorithm,
+                                                      BlockEncryptionAlgorithm blockEncryptionAlgorithm) throws Exception {
+        final boolean rsa = keyEncryptionAlgorithm == KeyEncryptionAlgorithm.RSA_OAEP || keyEncryptionAlgorithm == KeyEncryptionAlgorithm.RSA1_5;
+        final boolean aes = keyEncryptionAlgorithm == KeyEncryptionAlgorithm.A128KW || keyEncryptionAlgorithm == KeyEncryptionAlgorithm.A256KW;
+        if (!rsa && !aes) {
+            throw new IllegalArgumentException("Unsupported encryption algorithm: " + keyEncryptionAlgorithm);
+        }
+
+        final String key = client.getClientId() + "_" + keyEncryptionAlgorithm + "_" + blockEncryptionAlgorithm;
+        final String source = rsa ? (StringUtils.isNotBlank(client.getJwks()) ? client.getJwks() : client.getJwksUri()) : client.getClientSecret();
+        CacheEntry<JweEncrypterImpl> entry = encrypterCache.getIfPresent(key);
+        if (entry != null && entry.isValidFor(source)) {
+            return entry;
+        }
+
+        if (rsa) {
+            JSONObject jsonWebKeys = ServerUtil.getJwks(client);
+            String keyId = new ServerCryptoProvider(cryptoProvider).getKeyId(JSONWebKeySet.fromJSONObject(jsonWebKeys),
+                    Algorithm.fromString(keyEncryptionAlgorithm.getName()),
+                    Use.ENCRYPTION);
+            PublicKey publicKey = cryptoProvider.getPublicKey(keyId, jsonWebKeys, null);
+            if (publicKey == null) {
+                throw new InvalidJweException("The public key is not valid");
+            }
+
+            entry = new CacheEntry<>(source, keyId, new JweEncrypterImpl(keyEncryptionAlgorithm, blockEncryptionAlgorithm, publicKey));
+        } else {
+            byte[] sharedSymmetricKey = clientService.decryptSecret(source).getBytes(StandardCharsets.UTF_8);
+            entry = new CacheEntry<>(source, null, new JweEncrypterImpl(keyEncryptionAlgorithm, blockEncryptionAlgorithm, sharedSymmetricKey));
+        }
+
+        encrypterCache.put(key, entry);
+        log.trace("Created JWE encrypter for client {}, alg: {}, enc: {}", client.getClientId(), keyEncryptionAlgorithm, blockEncryptionAlgorithm);
+        return entry;
+    }
+
+    public void invalidate(String clientId) {
+        if (clientId == null) {
+            return;
+        }
+
+        decrypterCache.invalidate("client_" + clientId);
+        final String prefix = clientId + "_";
+        encrypterCache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * Invalidates all cached encrypters and decrypters, e.g. after rotation of server keys.
+     */
+    public void invalidateAll() {
+        decrypterCache.invalidateAll();
+        encrypterCache.invalidateAll();
+    }
+
+    public void onConfigurationChange(@Observes ConfigurationChange configurationChange) {
+        if (configurationChange.isChanged(ConfigurationChange.Section.WEB_KEYS)) {
+            invalidateAll();
+        }
+    }
+
+    private static class CacheEntry<T> {
+        private final String source;
+        private final String keyId;
+        private final T value;
+
+        private CacheEntry(String source, String keyId, T value) {
+            this.source = source;
+            this.keyId = keyId;
+            this.value = value;
+        }
+
+        private boolean isValidFor(String currentSource) {
+            return Objects.equals(source, currentSource);
+        }
+    }
+}
@@ -7,6 +7,7 @@
 package org.gluu.oxauth.service;
 
 import org.gluu.oxauth.model.config.Conf;
+import org.gluu.oxauth.model.config.ConfigurationChangeChannel;
 import org.gluu.oxauth.model.config.ConfigurationFactory;
 import org.gluu.oxauth.model.config.WebKeysConfiguration;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
@@ -63,6 +64,12 @@ public class KeyGeneratorTimer {
     @Inject
     private AbstractCryptoProvider cryptoProvider;
 
+    @Inject
+    private JweCacheService jweCacheService;
+
+    @Inject
+    private ConfigurationChangeChannel configurationChangeChannel;
+
     private AtomicBoolean isActive;
 	private long lastFinishedTime;
 
@@ -135,6 +142,10 @@ public class KeyGeneratorTimer {
         long nextRevision = conf.getRevision() + 1;
         conf.setRevision(nextRevision);
         ldapEntryManager.merge(conf);
+        configurationChangeChannel.publish(nextRevision);
+
+        // decrypters of removed keys must not be used anymore
+        jweCacheService.invalidateAll();
 
         log.info("Updated JWKS successfully");
         log.trace("JWKS keys: " + conf.getWebKeys().getKeys().stream().map(JSONWebKey::getKid).collect(Collectors.toList()));
@@ -0,0 +1,77 @@
+package org.gluu.oxauth.service;
+
+import org.apache.commons.lang.StringUtils;
+import org.gluu.oxauth.model.authorize.PushedAuthorizationRequest;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.service.CacheService;
+import org.slf4j.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps pushed authorization requests (RFC 9126) in cache. Each request_uri can be used only once.
+ */
+@ApplicationScoped
+public class ParService {
+
+    public static final String PAR_REQUEST_URI_PREFIX = "urn:ietf:params:oauth:request_uri:";
+
+    private static final String CACHE_KEY_PREFIX = "par_";
+
+    private static final int DEFAULT_PAR_LIFETIME = 60; // 60 seconds
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    @Inject
+    private CacheService cacheService;
+
+    public static boolean isParRequestUri(String requestUri) {
+        return StringUtils.startsWith(requestUri, PAR_REQUEST_URI_PREFIX);
+    }
+
+    public PushedAuthorizationRequest create(String clientId, Map<String, String> parameters) {
+        int lifetime = appConfiguration.getParLifetime();
+        if (lifetime <= 0) {
+            lifetime = DEFAULT_PAR_LIFETIME;
+        }
+
+        return new PushedAuthorizationRequest(PAR_REQUEST_URI_PREFIX + UUID.randomUUID().toString(), clientId, parameters, lifetime);
+    }
+
+    public void persist(PushedAuthorizationRequest par) {
+        cacheService.put(par.getExpiresIn(), cacheKey(par.getRequestUri()), par);
+        log.trace("Persisted pushed authorization request: {}", par);
+    }
+
+    /**
+     * Returns pushed authorization request and removes it, so request_uri can't be used again.
+     *
+     * @return pushed authorization request or null if it does not exist or expired
+     */
+    public PushedAuthorizationRequest getAndRemove(String requestUri) {
+        if (!isParRequestUri(requestUri)) {
+            return null;
+        }
+
+        final String key = cacheKey(requestUri);
+        final Object cached = cacheService.get(key);
+        if (!(cached instanceof PushedAuthorizationRequest)) {
+            log.debug("Pushed authorization request is not found or expired, request_uri: {}", requestUri);
+            return null;
+        }
+
+        cacheService.remove(key);
+        return (PushedAuthorizationRequest) cached;
+    }
+
+    private static String cacheKey(String requestUri) {
+        return CACHE_KEY_PREFIX + requestUri.substring(PAR_REQUEST_URI_PREFIX.length());
+    }
+}
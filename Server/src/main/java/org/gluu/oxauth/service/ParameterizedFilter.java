@@ -0,0 +1,299 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2020, Gluu
+ */
+
+package org.gluu.oxauth.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.gluu.search.filter.Filter;
+import org.gluu.search.filter.FilterType;
+
+/**
+ * Filter template parsed once with bind variable slots. Template is parsed with placeholders replaced by slot tokens,
+ * so per request only values are bound into copy of parsed tree. Values are set as assertion values of filter
+ * and are escaped by persistence layer, so filter metacharacters in values do not change filter structure.
+ * Subtrees without slots are shared between bound filters.
+ */
+public final class ParameterizedFilter {
+
+    private static final String TOKEN_PREFIX = "oxauthfilterslot";
+    private static final String TOKEN_SUFFIX = "x";
+
+    private final Node root;
+    private final int slotCount;
+
+    private ParameterizedFilter(Node root, int slotCount) {
+        this.root = root;
+        this.slotCount = slotCount;
+    }
+
+    /**
+     * @return token which has to be put into raw filter template instead of placeholder of given slot
+     */
+    public static String token(int slot) {
+        return TOKEN_PREFIX + slot + TOKEN_SUFFIX;
+    }
+
+    /**
+     * Compiles filter parsed from template with slot tokens.
+     *
+     * @return compiled filter or null if filter contains nodes which can't be bound (e.g. raw filters)
+     */
+    public static ParameterizedFilter compile(Filter parsedTemplate, int slotCount) {
+        final Node root = compileNode(parsedTemplate, slotCount);
+        if (root == null) {
+            return null;
+        }
+        return new ParameterizedFilter(root, slotCount);
+    }
+
+    /**
+     * Binds values to slots. Value of slot should not be null.
+     */
+    public Filter bind(String[] values) {
+        if (values == null || values.length != slotCount) {
+            throw new IllegalArgumentException("Expected " + slotCount + " filter values");
+        }
+        return root.bind(values);
+    }
+
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    private static Node compileNode(Filter filter, int slotCount) {
+        if (filter == null || filter.getType() == null) {
+            return null;
+        }
+
+        switch (filter.getType()) {
+            case AND:
+            case OR:
+            case NOT:
+                final Filter[] filters = filter.getFilters();
+                if (filters == null) {
+                    return null;
+                }
+                final Node[] children = new Node[filters.length];
+                boolean parameterized = false;
+                for (int i = 0; i < filters.length; i++) {
+                    children[i] = compileNode(filters[i], slotCount);
+                    if (children[i] == null) {
+                        return null;
+                    }
+                    parameterized |= !(children[i] instanceof ConstantNode);
+                }
+                return parameterized ? new CompositeNode(filter.getType(), children) : new ConstantNode(filter);
+            case EQUALITY:
+            case GREATER:
+            case LESS:
+            case APPROXIMATE_MATCH:
+                final Object assertionValue = filter.getAssertionValue();
+                if (!(assertionValue instanceof String)) {
+                    return new ConstantNode(filter);
+                }
+                final Value value = Value.compile((String) assertionValue, slotCount);
+                return value.isConstant() ? new ConstantNode(filter) : new AssertionNode(filter.getType(), filter.getAttributeName(), value);
+            case SUBSTRING:
+                final Value subInitial = Value.compile(filter.getSubInitial(), slotCount);
+                final Value subFinal = Value.compile(filter.getSubFinal(), slotCount);
+                final String[] subAnyValues = filter.getSubAny();
+                final Value[] subAny = new Value[subAnyValues != null ? subAnyValues.length : 0];
+                boolean constant = subInitial.isConstant() && subFinal.isConstant();
+                for (int i = 0; i < subAny.length; i++) {
+                    subAny[i] = Value.compile(subAnyValues[i], slotCount);
+                    constant &= subAny[i].isConstant();
+                }
+                return constant ? new ConstantNode(filter) : new SubstringNode(filter.getAttributeName(), subInitial, subAny, subFinal);
+            case PRESENCE:
+                return new ConstantNode(filter);
+            default:
+                return null;
+        }
+    }
+
+    private interface Node {
+        Filter bind(String[] values);
+    }
+
+    private static class ConstantNode implements Node {
+        private final Filter filter;
+
+        private ConstantNode(Filter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public Filter bind(String[] values) {
+            return filter;
+        }
+    }
+
+    private static class CompositeNode implements Node {
+        private final FilterType type;
+        private final Node[] children;
+
+        private CompositeNode(FilterType type, Node[] children) {
+            this.type = type;
+            this.children = children;
+        }
+
+        @Override
+        public Filter bind(String[] values) {
+            final Filter[] filters = new Filter[children.length];
+            for (int i = 0; i < children.length; i++) {
+                filters[i] = children[i].bind(values);
+            }
+
+            switch (type) {
+                case AND:
+                    return Filter.createANDFilter(filters);
+                case OR:
+                    return Filter.createORFilter(filters);
+                default:
+                    return Filter.createNOTFilter(filters[0]);
+            }
+        }
+    }
+
+    private static class AssertionNode implements Node {
+        private final FilterType type;
+        private final String attributeName;
+        private final Value value;
+
+        private AssertionNode(FilterType type, String attributeName, Value value) {
+            this.type = type;
+            this.attributeName = attributeName;
+            this.value = value;
+        }
+
+        @Override
+        public Filter bind(String[] values) {
+            final String boundValue = value.bind(values);
+            switch (type) {
+                case GREATER:
+                    return Filter.createGreaterOrEqualFilter(attributeName, boundValue);
+                case LESS:
+                    return Filter.createLessOrEqualFilter(attributeName, boundValue);
+                case APPROXIMATE_MATCH:
+                    return Filter.createApproximateMatchFilter(attributeName, boundValue);
+                default:
+                    return Filter.createEqualityFilter(attributeName, boundValue);
+            }
+        }
+    }
+
+    private static class SubstringNode implements Node {
+        private final String attributeName;
+        private final Value subInitial;
+        private final Value[] subAny;
+        private final Value subFinal;
+
+        private SubstringNode(String attributeName, Value subInitial, Value[] subAny, Value subFinal) {
+            this.attributeName = attributeName;
+            this.subInitial = subInitial;
+            this.subAny = subAny;
+            this.subFinal = subFinal;
+        }
+
+        @Override
+        public Filter bind(String[] values) {
+            String[] boundSubAny = null;
+            if (subAny.length > 0) {
+                boundSubAny = new String[subAny.length];
+                for (int i = 0; i < subAny.length; i++) {
+                    boundSubAny[i] = subAny[i].bind(values);
+                }
+            }
+            return Filter.createSubstringFilter(attributeName, subInitial.bind(values), boundSubAny, subFinal.bind(values));
+        }
+    }
+
+    /**
+     * Assertion value split to constant parts and slots, e.g. "{0}@example.com" is [slot 0, "@example.com"].
+     */
+    static class Value {
+
+        private static final Value NULL = new Value(null, new String[0], new int[0]);
+
+        private final String constant;
+        private final String[] parts;
+        private final int[] slots;
+
+        private Value(String constant, String[] parts, int[] slots) {
+            this.constant = constant;
+            this.parts = parts;
+            this.slots = slots;
+        }
+
+        static Value compile(String value, int slotCount) {
+            if (value == null) {
+                return NULL;
+            }
+
+            final List<String> parts = new ArrayList<>();
+            final List<Integer> slots = new ArrayList<>();
+            int start = 0;
+            int index = value.indexOf(TOKEN_PREFIX);
+            while (index >= 0) {
+                final int suffix = value.indexOf(TOKEN_SUFFIX, index + TOKEN_PREFIX.length());
+                final Integer slot = suffix > 0 ? parseSlot(value.substring(index + TOKEN_PREFIX.length(), suffix)) : null;
+                if (slot == null || slot >= slotCount) {
+                    index = value.indexOf(TOKEN_PREFIX, index + 1);
+                    continue;
+                }
+
+                parts.add(value.substring(start, index));
+                slots.add(slot);
+                start = suffix + TOKEN_SUFFIX.length();
+                index = value.indexOf(TOKEN_PREFIX, start);
+            }
+
+            if (slots.isEmpty()) {
+                return new Value(value, new String[0], new int[0]);
+            }
+
+            parts.add(value.substring(start));
+            final int[] slotArray = new int[slots.size()];
+            for (int i = 0; i < slotArray.length; i++) {
+                slotArray[i] = slots.get(i);
+            }
+            return new Value(null, parts.toArray(new String[0]), slotArray);
+        }
+
+        private static Integer parseSlot(String slot) {
+            if (slot.isEmpty() || slot.length() > 4) {
+                return null;
+            }
+            for (int i = 0; i < slot.length(); i++) {
+                if (!Character.isDigit(slot.charAt(i))) {
+                    return null;
+                }
+            }
+            return Integer.parseInt(slot);
+        }
+
+        boolean isConstant() {
+            return slots.length == 0;
+        }
+
+        String bind(String[] values) {
+            if (isConstant()) {
+                return constant;
+            }
+            if (slots.length == 1 && parts[0].isEmpty() && parts[1].isEmpty()) {
+                return values[slots[0]];
+            }
+
+            final StringBuilder result = new StringBuilder();
+            for (int i = 0; i < slots.length; i++) {
+                result.append(parts[i]).append(values[slots[i]]);
+            }
+            return result.append(parts[slots.length]).toString();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2020, Gluu
+ */
+
+package org.gluu.oxauth.service;
+
+import org.gluu.service.CacheService;
+import org.slf4j.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * Keeps time of last accepted token endpoint poll of device code and CIBA poll requests under separate small cache key,
+ * so throttled polls (slow_down) are answered with one small cache read and request data is not rewritten on each poll.
+ * Key contains client id, so polls of other clients are not throttled and go to normal validation.
+ */
+@ApplicationScoped
+public class PollingThrottleService {
+
+    private static final String KEY_PREFIX = "poll_";
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private CacheService cacheService;
+
+    /**
+     * @return time in milliseconds of last accepted poll or null if there was no accepted poll yet
+     */
+    public Long getLastPollTime(String code, String clientId) {
+        Object cachedObject = cacheService.get(key(code, clientId));
+        return cachedObject instanceof Long ? (Long) cachedObject : null;
+    }
+
+    public void setLastPollTime(String code, String clientId, long time, int expiresIn) {
+        cacheService.put(expiresIn, key(code, clientId), time);
+        log.trace("Saved poll time, code: {}, clientId: {}", code, clientId);
+    }
+
+    /**
+     * Must be called when request moves out of pending state (granted or denied), so next poll is not throttled and
+     * gets tokens or final error immediately.
+     */
+    public void removeLastPollTime(String code, String clientId) {
+        cacheService.remove(key(code, clientId));
+        log.trace("Removed poll time, code: {}, clientId: {}", code, clientId);
+    }
+
+    /**
+     * @return true if poll is done earlier than interval after last accepted poll. First poll is treated as too fast.
+     */
+    public boolean isTooFast(Long lastPollTime, long currentTime, int intervalSeconds) {
+        final long lastPoll = lastPollTime != null ? lastPollTime : currentTime;
+        return currentTime - lastPoll <= intervalSeconds * 1000L;
+    }
+
+    private static String key(String code, String clientId) {
+        return KEY_PREFIX + clientId + "_" + code;
+    }
+}
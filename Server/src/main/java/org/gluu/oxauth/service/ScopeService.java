@@ -242,42 +242,51 @@ public class ScopeService {
     }
 
     public Map<String, Object> getClaims(User user, Scope scope) throws InvalidClaimException {
-        Map<String, Object> claims = new HashMap<>();
+        return getClaims(user, getClaimAttributes(scope));
+    }
 
+    /**
+     * Resolves claim attributes of scope. Attributes without claim name or name are skipped.
+     */
+    public List<GluuAttribute> getClaimAttributes(Scope scope) {
+        final List<GluuAttribute> attributes = new ArrayList<>();
         if (scope == null) {
             log.trace("Scope is null.");
-            return claims;
+            return attributes;
         }
 
         final List<String> scopeClaims = scope.getOxAuthClaims();
         if (scopeClaims == null) {
             log.trace("No claims set for scope: {}", scope.getId());
-            return claims;
+            return attributes;
         }
 
-        fillClaims(claims, scopeClaims, user);
-
-        return claims;
-    }
-
-    private void fillClaims(Map<String, Object> claims, List<String> scopeClaims, User user) throws InvalidClaimException {
         for (String claimDn : scopeClaims) {
             GluuAttribute gluuAttribute = attributeService.getAttributeByDn(claimDn);
 
-            String claimName = gluuAttribute.getOxAuthClaimName();
-            String ldapName = gluuAttribute.getName();
-
-            if (StringUtils.isBlank(claimName)) {
+            if (StringUtils.isBlank(gluuAttribute.getOxAuthClaimName())) {
                 log.error("Failed to get claim because claim name is not set for attribute, id: {}", gluuAttribute.getDn());
                 continue;
             }
-            if (StringUtils.isBlank(ldapName)) {
+            if (StringUtils.isBlank(gluuAttribute.getName())) {
                 log.error("Failed to get claim because name is not set for attribute, id: {}", gluuAttribute.getDn());
                 continue;
             }
 
-            setClaimField(ldapName, claimName, user, gluuAttribute, claims);
+            attributes.add(gluuAttribute);
+        }
+        return attributes;
+    }
+
+    /**
+     * Returns claims of user for claim attributes resolved with {@link #getClaimAttributes(Scope)}.
+     */
+    public Map<String, Object> getClaims(User user, List<GluuAttribute> claimAttributes) throws InvalidClaimException {
+        Map<String, Object> claims = new HashMap<>();
+        for (GluuAttribute gluuAttribute : claimAttributes) {
+            setClaimField(gluuAttribute.getName(), gluuAttribute.getOxAuthClaimName(), user, gluuAttribute, claims);
         }
+        return claims;
     }
 
     private void setClaimField(String ldapName, String claimName, User user, GluuAttribute gluuAttribute,
@@ -22,6 +22,7 @@ import org.gluu.oxauth.model.config.Constants;
 import org.gluu.oxauth.model.config.StaticConfiguration;
 import org.gluu.oxauth.model.config.WebKeysConfiguration;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.crypto.signature.AlgorithmFamily;
 import org.gluu.oxauth.model.crypto.signature.SignatureAlgorithm;
 import org.gluu.oxauth.model.exception.AcrChangedException;
 import org.gluu.oxauth.model.exception.InvalidSessionStateException;
@@ -36,6 +37,7 @@ import org.gluu.oxauth.model.util.Pair;
 import org.gluu.oxauth.model.util.Util;
 import org.gluu.oxauth.security.Identity;
 import org.gluu.oxauth.service.common.UserService;
+import org.gluu.oxauth.service.expiration.ExpirationNotificatorTimer;
 import org.gluu.oxauth.service.external.ExternalApplicationSessionService;
 import org.gluu.oxauth.service.external.ExternalAuthenticationService;
 import org.gluu.oxauth.service.external.session.SessionEvent;
@@ -134,6 +136,9 @@ public class SessionIdService {
     @Inject
     private StatService statService;
 
+    @Inject
+    private ExpirationNotificatorTimer expirationNotificatorTimer;
+
     private String buildDn(String sessionId) {
         return String.format("oxId=%s,%s", sessionId, staticConfiguration.getBaseDn().getSessions());
     }
@@ -141,15 +146,28 @@ public class SessionIdService {
     public Set<SessionId> getCurrentSessions() {
         final Set<String> ids = cookieService.getCurrentSessions();
         final Set<SessionId> sessions = Sets.newHashSet();
+        if (ids == null || ids.isEmpty()) {
+            return sessions;
+        }
+
+        final Map<String, SessionId> found = getSessionIds(ids);
+        if (found == null) {
+            // don't prune current_sessions cookie, sessions may still be alive
+            return sessions;
+        }
+
+        final Set<String> stale = Sets.newHashSet();
         for (String sessionId : ids) {
             if (StringUtils.isBlank(sessionId)) {
                 log.error("Invalid sessionId in current_sessions: " + sessionId);
+                stale.add(sessionId);
                 continue;
             }
 
-            final SessionId sessionIdObj = getSessionId(sessionId);
+            final SessionId sessionIdObj = found.get(sessionId);
             if (sessionIdObj == null) {
                 log.trace("Unable to find session object by id: " + sessionId + " {expired?}");
+                stale.add(sessionId);
                 continue;
             }
 
@@ -159,6 +177,10 @@ public class SessionIdService {
             }
             sessions.add(sessionIdObj);
         }
+
+        if (!stale.isEmpty()) {
+            cookieService.removeCurrentSessions(stale);
+        }
         return sessions;
     }
 
@@ -511,7 +533,7 @@ public class SessionIdService {
 
     private Jwt generateJwt(SessionId sessionId, String audience) {
         try {
-            JwtSigner jwtSigner = new JwtSigner(appConfiguration, webKeysConfiguration, SignatureAlgorithm.RS512, audience);
+            JwtSigner jwtSigner = newJwtSigner(audience);
             Jwt jwt = jwtSigner.newJwt();
 
             // claims
@@ -535,6 +557,15 @@ public class SessionIdService {
         }
     }
 
+    JwtSigner newJwtSigner(String audience) {
+        SignatureAlgorithm signatureAlgorithm = SignatureAlgorithm.fromString(appConfiguration.getSessionJwtSignatureAlgorithm());
+        // session jwt is signed with server keys, so algorithms which need shared secret are not allowed
+        if (signatureAlgorithm == null || signatureAlgorithm.getFamily() == AlgorithmFamily.HMAC) {
+            signatureAlgorithm = SignatureAlgorithm.RS512;
+        }
+        return new JwtSigner(appConfiguration, webKeysConfiguration, signatureAlgorithm, audience);
+    }
+
     public SessionId setSessionIdStateAuthenticated(HttpServletRequest httpRequest, HttpServletResponse httpResponse, SessionId sessionId, String p_userDn) {
         sessionId.setUserDn(p_userDn);
         sessionId.setAuthenticationTime(new Date());
@@ -608,6 +639,7 @@ public class SessionIdService {
                     persistenceEntryManager.persist(sessionId);
                 }
                 localCacheService.put(DEFAULT_LOCAL_CACHE_EXPIRATION, sessionId.getDn(), sessionId);
+                expirationNotificatorTimer.register(sessionId);
                 return true;
             }
         } catch (Exception e) {
@@ -727,6 +759,7 @@ public class SessionIdService {
                     persistenceEntryManager.merge(sessionId);
                 }
                 localCacheService.put(DEFAULT_LOCAL_CACHE_EXPIRATION, sessionId.getDn(), sessionId);
+                expirationNotificatorTimer.register(sessionId);
                 externalEvent(new SessionEvent(SessionEventType.UPDATED, sessionId));
                 return;
             } catch (EntryPersistenceException ex) {
@@ -860,6 +893,76 @@ public class SessionIdService {
         return null;
     }
 
+    /**
+     * Loads valid sessions by ids in one pass. Sessions which are not in local cache are loaded with one search
+     * if sessions are kept in persistence. Cache service does not support multi-get, so in cache mode
+     * sessions are loaded one by one.
+     *
+     * @return valid sessions by id, ids of not found, expired or invalid sessions are not in map. Null if sessions
+     * can't be loaded (e.g. persistence is not available), in this case caller must not treat sessions as removed.
+     */
+    @Nullable
+    public Map<String, SessionId> getSessionIds(Collection<String> sessionIds) {
+        final Map<String, SessionId> result = new HashMap<>();
+        if (sessionIds == null || sessionIds.isEmpty()) {
+            return result;
+        }
+
+        final Set<String> toLoad = new LinkedHashSet<>();
+        for (String sessionId : sessionIds) {
+            if (StringUtils.isBlank(sessionId) || result.containsKey(sessionId)) {
+                continue;
+            }
+
+            final Object localCopy = localCacheService.get(buildDn(sessionId));
+            if (localCopy instanceof SessionId && isSessionValid((SessionId) localCopy)) {
+                result.put(sessionId, (SessionId) localCopy);
+            } else {
+                toLoad.add(sessionId);
+            }
+        }
+
+        if (toLoad.isEmpty()) {
+            return result;
+        }
+
+        final List<SessionId> loaded = new ArrayList<>();
+        try {
+            if (appConfiguration.getSessionIdPersistInCache()) {
+                for (String sessionId : toLoad) {
+                    final Object entry = cacheService.get(buildDn(sessionId));
+                    if (entry instanceof SessionId) {
+                        loaded.add((SessionId) entry);
+                    }
+                }
+            } else {
+                final Filter[] filters = new Filter[toLoad.size()];
+                int i = 0;
+                for (String sessionId : toLoad) {
+                    filters[i++] = Filter.createEqualityFilter("oxId", sessionId);
+                }
+                final Filter filter = filters.length == 1 ? filters[0] : Filter.createORFilter(filters);
+                loaded.addAll(persistenceEntryManager.findEntries(staticConfiguration.getBaseDn().getSessions(), SessionId.class, filter));
+            }
+        } catch (Exception e) {
+            log.error("Failed to load sessions by ids: " + toLoad, e);
+            return null;
+        }
+
+        for (SessionId sessionId : loaded) {
+            if (sessionId == null || !toLoad.contains(sessionId.getId())) {
+                continue;
+            }
+            localCacheService.put(DEFAULT_LOCAL_CACHE_EXPIRATION, sessionId.getDn(), sessionId);
+            if (isSessionValid(sessionId)) {
+                result.put(sessionId.getId(), sessionId);
+            }
+        }
+
+        log.trace("Loaded {} of {} sessions by ids", result.size(), sessionIds.size());
+        return result;
+    }
+
     public boolean remove(SessionId sessionId) {
         try {
             if (appConfiguration.getSessionIdPersistInCache()) {
@@ -868,6 +971,7 @@ public class SessionIdService {
                 persistenceEntryManager.remove(sessionId.getDn(), SessionId.class);
             }
             localCacheService.remove(sessionId.getDn());
+            expirationNotificatorTimer.unregister(sessionId);
             externalEvent(new SessionEvent(SessionEventType.GONE, sessionId));
             return true;
         } catch (Exception e) {
@@ -982,12 +1086,12 @@ public class SessionIdService {
         return null;
     }
 
-    public List<SessionId> findByUser(String userDn) {
+    public List<SessionId> findByUser(String userDn, String... returnAttributes) {
         if (appConfiguration.getSessionIdPersistInCache()) {
             throw new UnsupportedOperationException("Operation is not supported with sessionIdPersistInCache=true. Set it to false to avoid this exception.");
         }
         Filter filter = Filter.createEqualityFilter("oxAuthUserDN", userDn);
-        return persistenceEntryManager.findEntries(staticConfiguration.getBaseDn().getSessions(), SessionId.class, filter);
+        return persistenceEntryManager.findEntries(staticConfiguration.getBaseDn().getSessions(), SessionId.class, filter, returnAttributes);
     }
 
     public void externalEvent(SessionEvent event) {
@@ -1,7 +1,8 @@
 package org.gluu.oxauth.service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
 
 import org.gluu.oxauth.model.common.ScopeType;
 import org.gluu.oxauth.model.config.StaticConfiguration;
@@ -15,6 +16,7 @@ import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import java.util.*;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import static org.apache.commons.lang3.BooleanUtils.isFalse;
 
@@ -22,6 +24,7 @@ import static org.apache.commons.lang3.BooleanUtils.isFalse;
 public class SpontaneousScopeService {
 
     private static final int DEFAULT_SPONTANEOUS_SCOPE_LIFETIME_IN_SECONDS = 60 * 60 * 24; // 24h
+    private static final int PATTERN_CACHE_SIZE_LIMIT = 10000;
     @Inject
     private Logger log;
     @Inject
@@ -31,6 +34,8 @@ public class SpontaneousScopeService {
     @Inject
     private ScopeService scopeService;
 
+    private final Cache<String, Optional<Pattern>> patternCache = CacheBuilder.newBuilder().maximumSize(PATTERN_CACHE_SIZE_LIMIT).build();
+
     public Scope createSpontaneousScopeIfNeeded(Set<String> regExps, String scopeId, String clientId) {
         Scope fromPersistence = scopeService.getScopeById(scopeId);
         if (fromPersistence != null) { // scope already exists
@@ -83,14 +88,32 @@ public class SpontaneousScopeService {
             return false;
         }
 
-        return isAllowedBySpontaneousScopes(Sets.newHashSet(client.getAttributes().getSpontaneousScopes()), scopeRequested).getFirst();
+        return isAllowedBySpontaneousScopes(client.getAttributes().getSpontaneousScopes(), scopeRequested).getFirst();
+    }
+
+    /**
+     * @return true if spontaneous scopes are allowed globally and by client
+     */
+    public boolean isSpontaneousScopesAllowed(Client client) {
+        return !isFalse(appConfiguration.getAllowSpontaneousScopes()) && !isFalse(client.getAttributes().getAllowSpontaneousScopes());
+    }
+
+    /**
+     * @return spontaneous scopes mapped to compiled patterns, invalid regexp is mapped to null
+     */
+    public Map<String, Pattern> compileSpontaneousScopes(Collection<String> spontaneousScopes) {
+        Map<String, Pattern> result = new LinkedHashMap<>();
+        for (String spontaneousScope : spontaneousScopes) {
+            result.put(spontaneousScope, getPattern(spontaneousScope));
+        }
+        return result;
     }
 
     public boolean isAllowedBySpontaneousScopes_(Set<String> regExps, String scopeRequested) {
         return isAllowedBySpontaneousScopes(regExps, scopeRequested).getFirst();
     }
 
-    public Pair<Boolean, String> isAllowedBySpontaneousScopes(Set<String> regExps, String scopeRequested) {
+    public Pair<Boolean, String> isAllowedBySpontaneousScopes(Collection<String> regExps, String scopeRequested) {
 
         for (String spontaneousScope : regExps) {
             if (isAllowedBySpontaneousScope(spontaneousScope, scopeRequested)) {
@@ -106,7 +129,8 @@ public class SpontaneousScopeService {
             boolean result = spontaneousScope.equals(scopeRequested);
 
             if (!result) {
-                result = Pattern.matches(spontaneousScope, scopeRequested);
+                final Pattern pattern = getPattern(spontaneousScope);
+                result = pattern != null && pattern.matcher(scopeRequested).matches();
             }
 
             if (result) {
@@ -118,4 +142,15 @@ public class SpontaneousScopeService {
         }
         return false;
     }
+
+    private Pattern getPattern(String spontaneousScope) {
+        return patternCache.asMap().computeIfAbsent(spontaneousScope, regExp -> {
+            try {
+                return Optional.of(Pattern.compile(regExp));
+            } catch (PatternSyntaxException e) {
+                log.error("Invalid spontaneous scope regexp: " + regExp, e);
+                return Optional.empty();
+            }
+        }).orElse(null);
+    }
 }
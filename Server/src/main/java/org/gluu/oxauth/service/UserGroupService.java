@@ -7,20 +7,34 @@
 package org.gluu.oxauth.service;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
 import org.apache.commons.lang.StringUtils;
+import org.gluu.oxauth.model.config.StaticConfiguration;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
 import org.gluu.oxauth.model.ldap.UserGroup;
 import org.gluu.persist.PersistenceEntryManager;
 import org.gluu.persist.exception.EntryPersistenceException;
 import org.gluu.search.filter.Filter;
 import org.slf4j.Logger;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 /**
  * It's utility service which applications uses in custom authentication scripts 
+ * <p>
+ * Groups of user (where user is member and where user is member or owner) are resolved with one search under groups
+ * base DN, so repeated checks against several groups do not search each group. Resolved groups can be cached by user DN
+ * ({@code userGroupsCacheLifetimeInSeconds}, cache is disabled by default). Membership is changed outside of oxAuth,
+ * so with cache enabled changes are visible after cache lifetime only.
  * 
  * @author Yuriy Zabrovarnyy
  * @version 0.9, 27/07/2012
@@ -29,12 +43,22 @@ import org.slf4j.Logger;
 @ApplicationScoped
 public class UserGroupService {
 
+    private volatile Cache<String, UserGroups> userGroupsCache;
+    private int currentCacheLifetime;
+    private int currentCacheSizeLimit;
+
     @Inject
     private Logger log;
 
     @Inject
     private PersistenceEntryManager ldapEntryManager;
 
+    @Inject
+    private StaticConfiguration staticConfiguration;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
     public UserGroup loadGroup(String p_groupDN) {
         try {
             if (StringUtils.isNotBlank(p_groupDN)) {
@@ -47,6 +71,15 @@ public class UserGroupService {
     }
 
     public boolean isUserInGroup(String p_groupDN, String p_userDN) {
+        if (StringUtils.isBlank(p_groupDN) || StringUtils.isBlank(p_userDN)) {
+            return false;
+        }
+
+        final UserGroups userGroups = isUnderGroupsBaseDn(p_groupDN) ? getUserGroups(p_userDN) : null;
+        if (userGroups != null) {
+            return userGroups.memberGroups.contains(normalize(p_groupDN));
+        }
+
         final UserGroup group = loadGroup(p_groupDN);
         if (group != null) {
             final String[] member = group.getMember();
@@ -58,6 +91,18 @@ public class UserGroupService {
     }
 
     public boolean isUserInGroupOrMember(String groupDn, String personDn) {
+        final UserGroups userGroups = isUnderGroupsBaseDn(groupDn) && StringUtils.isNotBlank(personDn) ? getUserGroups(personDn) : null;
+        if (userGroups != null) {
+            // group DN can be DN of branch, then any group under it is checked
+            final String normalizedGroupDn = normalize(groupDn);
+            for (String dn : userGroups.memberOrOwnerGroups) {
+                if (dn.equals(normalizedGroupDn) || dn.endsWith("," + normalizedGroupDn)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
 		Filter ownerFilter = Filter.createEqualityFilter("owner", personDn);
 		Filter memberFilter = Filter.createEqualityFilter("member", personDn);
 		Filter searchFilter = Filter.createORFilter(ownerFilter, memberFilter);
@@ -77,10 +122,21 @@ public class UserGroupService {
         return p_groupDNs != null && isInAnyGroup(Arrays.asList(p_groupDNs), p_userDN);
     }
 
+    /**
+     * Checks all groups with groups of user which are resolved with one search (or taken from cache).
+     */
     public boolean isInAnyGroup(List<String> p_groupDNs, String p_userDN) {
         if (p_groupDNs != null && !p_groupDNs.isEmpty() && p_userDN != null && !p_userDN.isEmpty()) {
+            final UserGroups userGroups = getUserGroups(p_userDN);
             for (String groupDN : p_groupDNs) {
-                if (isUserInGroup(groupDN, p_userDN)) {
+                if (StringUtils.isBlank(groupDN)) {
+                    continue;
+                }
+                if (userGroups != null && isUnderGroupsBaseDn(groupDN)) {
+                    if (userGroups.memberGroups.contains(normalize(groupDN))) {
+                        return true;
+                    }
+                } else if (isUserInGroup(groupDN, p_userDN)) {
                     return true;
                 }
             }
@@ -88,4 +144,129 @@ public class UserGroupService {
         return false;
     }
 
+    /**
+     * Removes cached groups of user, e.g. after user was added to or removed from group.
+     */
+    public void invalidate(String userDn) {
+        final Cache<String, UserGroups> cache = userGroupsCache;
+        if (cache != null && StringUtils.isNotBlank(userDn)) {
+            cache.invalidate(normalize(userDn));
+        }
+    }
+
+    public void invalidateAll() {
+        final Cache<String, UserGroups> cache = userGroupsCache;
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * @return groups of user or null if they can't be resolved
+     */
+    private UserGroups getUserGroups(String userDn) {
+        final String key = normalize(userDn);
+        final Cache<String, UserGroups> cache = getUserGroupsCache();
+        UserGroups userGroups = cache != null ? cache.getIfPresent(key) : null;
+        if (userGroups != null) {
+            return userGroups;
+        }
+
+        final String groupsBaseDn = getGroupsBaseDn();
+        if (StringUtils.isBlank(groupsBaseDn)) {
+            return null;
+        }
+
+        try {
+            final Filter memberFilter = Filter.createEqualityFilter("member", userDn);
+            final Filter ownerFilter = Filter.createEqualityFilter("owner", userDn);
+            final List<UserGroup> groups = ldapEntryManager.findEntries(groupsBaseDn, UserGroup.class,
+                    Filter.createORFilter(memberFilter, ownerFilter), new String[] {"inum", "owner"});
+
+            final Set<String> memberOrOwnerGroups = new HashSet<>();
+            final Set<String> ownerGroups = new HashSet<>();
+            for (UserGroup group : groups) {
+                memberOrOwnerGroups.add(normalize(group.getDn()));
+                if (group.getOwner() != null && normalize(group.getOwner()).equals(key)) {
+                    ownerGroups.add(normalize(group.getDn()));
+                }
+            }
+
+            final Set<String> memberGroups = new HashSet<>(memberOrOwnerGroups);
+            if (!ownerGroups.isEmpty()) {
+                // owner can be member at the same time, check membership of these groups explicitly
+                memberGroups.removeAll(ownerGroups);
+                final List<UserGroup> ownedMemberGroups = ldapEntryManager.findEntries(groupsBaseDn, UserGroup.class,
+                        memberFilter, new String[] {"inum"});
+                for (UserGroup group : ownedMemberGroups) {
+                    memberGroups.add(normalize(group.getDn()));
+                }
+            }
+
+            userGroups = new UserGroups(memberGroups, memberOrOwnerGroups);
+        } catch (EntryPersistenceException ex) {
+            log.error("Failed to find groups of person '{}'", userDn, ex);
+            return null;
+        }
+
+        if (cache != null) {
+            cache.put(key, userGroups);
+        }
+        return userGroups;
+    }
+
+    private Cache<String, UserGroups> getUserGroupsCache() {
+        final int lifetime = appConfiguration.getUserGroupsCacheLifetimeInSeconds();
+        final int sizeLimit = appConfiguration.getUserGroupsCacheSizeLimit();
+        if ((lifetime <= 0) || (sizeLimit <= 0)) {
+            userGroupsCache = null;
+            return null;
+        }
+
+        Cache<String, UserGroups> cache = userGroupsCache;
+        if ((cache == null) || (currentCacheLifetime != lifetime) || (currentCacheSizeLimit != sizeLimit)) {
+            synchronized (this) {
+                cache = userGroupsCache;
+                if ((cache == null) || (currentCacheLifetime != lifetime) || (currentCacheSizeLimit != sizeLimit)) {
+                    cache = CacheBuilder.newBuilder().maximumSize(sizeLimit).expireAfterWrite(lifetime, TimeUnit.SECONDS).build();
+                    currentCacheLifetime = lifetime;
+                    currentCacheSizeLimit = sizeLimit;
+                    userGroupsCache = cache;
+                    log.trace("Re-created user groups cache with lifetime: {}, size limit: {}", lifetime, sizeLimit);
+                }
+            }
+        }
+
+        return cache;
+    }
+
+    private boolean isUnderGroupsBaseDn(String dn) {
+        final String groupsBaseDn = getGroupsBaseDn();
+        if (StringUtils.isBlank(groupsBaseDn) || StringUtils.isBlank(dn)) {
+            return false;
+        }
+
+        final String normalizedDn = normalize(dn);
+        final String normalizedBaseDn = normalize(groupsBaseDn);
+        return normalizedDn.equals(normalizedBaseDn) || normalizedDn.endsWith("," + normalizedBaseDn);
+    }
+
+    private String getGroupsBaseDn() {
+        return staticConfiguration.getBaseDn().getGroups();
+    }
+
+    private static String normalize(String dn) {
+        return dn.trim().toLowerCase();
+    }
+
+    private static class UserGroups {
+        private final Set<String> memberGroups;
+        private final Set<String> memberOrOwnerGroups;
+
+        private UserGroups(Set<String> memberGroups, Set<String> memberOrOwnerGroups) {
+            this.memberGroups = Collections.unmodifiableSet(memberGroups);
+            this.memberOrOwnerGroups = Collections.unmodifiableSet(memberOrOwnerGroups);
+        }
+    }
+
 }
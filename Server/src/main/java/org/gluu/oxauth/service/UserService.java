@@ -53,6 +53,21 @@ public class UserService extends org.gluu.oxauth.service.common.UserService {
 		return staticConfiguration.getBaseDn().getPeople();
 	}
 
+    @Override
+	protected int getUserCacheLifetimeInSeconds() {
+		return appConfiguration.getUserCacheLifetimeInSeconds();
+	}
+
+    @Override
+	protected int getUserCacheSizeLimit() {
+		return appConfiguration.getUserCacheSizeLimit();
+	}
+
+    @Override
+	protected int getUserMissCacheLifetimeInSeconds() {
+		return appConfiguration.getUserMissCacheLifetimeInSeconds();
+	}
+
 
     public long countFido2RegisteredDevices(String username, String domain) {
         String userInum = getUserInum(username);
@@ -0,0 +1,31 @@
+package org.gluu.oxauth.service.cdi.event;
+
+/**
+ * Fired on end session to revoke tokens of the session asynchronously.
+ */
+public class SessionLogoutEvent {
+
+    private final String sessionDn;
+    private final boolean removeRefreshTokens;
+
+    public SessionLogoutEvent(String sessionDn, boolean removeRefreshTokens) {
+        this.sessionDn = sessionDn;
+        this.removeRefreshTokens = removeRefreshTokens;
+    }
+
+    public String getSessionDn() {
+        return sessionDn;
+    }
+
+    public boolean isRemoveRefreshTokens() {
+        return removeRefreshTokens;
+    }
+
+    @Override
+    public String toString() {
+        return "SessionLogoutEvent{" +
+                "sessionDn='" + sessionDn + '\'' +
+                ", removeRefreshTokens=" + removeRefreshTokens +
+                '}';
+    }
+}
@@ -1,9 +1,5 @@
 package org.gluu.oxauth.service.expiration;
 
-import net.jodah.expiringmap.ExpirationListener;
-import net.jodah.expiringmap.ExpirationPolicy;
-import net.jodah.expiringmap.ExpiringMap;
-
 import org.gluu.oxauth.model.config.StaticConfiguration;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
 import org.gluu.oxauth.model.session.SessionId;
@@ -12,7 +8,10 @@ import org.gluu.oxauth.service.external.ExternalApplicationSessionService;
 import org.gluu.oxauth.service.external.session.SessionEvent;
 import org.gluu.oxauth.service.external.session.SessionEventType;
 import org.gluu.persist.PersistenceEntryManager;
+import org.gluu.persist.model.ProcessBatchOperation;
+import org.gluu.persist.model.SearchScope;
 import org.gluu.search.filter.Filter;
+import org.gluu.service.CacheService;
 import org.gluu.service.cdi.async.Asynchronous;
 import org.gluu.service.cdi.event.Scheduled;
 import org.gluu.service.timer.event.TimerEvent;
@@ -24,20 +23,35 @@ import javax.enterprise.event.Event;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 import javax.inject.Named;
-import java.util.Calendar;
-import java.util.Date;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
+ * Fires session GONE events when sessions expire.
+ *
+ * Sessions are registered in hashed timing wheel by SessionIdService on persist/merge. Full (paged) scan of
+ * persisted sessions runs only on start up or if timer was not running longer than expiration notificator interval
+ * (e.g. node was suspended or took over after failover).
+ *
  * @author Yuriy Zabrovarnyy
  */
 @ApplicationScoped
 @Named
-public class ExpirationNotificatorTimer implements ExpirationListener<ExpId, Object> {
+public class ExpirationNotificatorTimer {
+
+    private static final int DEFAULT_TICK_INTERVAL = 1; // 1 second
+    private static final int DEFAULT_CHUNK_SIZE = 100;
+    private static final int WHEEL_SIZE = 3600; // one revolution per hour with 1 second tick
+
+    /**
+     * Attributes passed to GONE event. Heavy attributes which are not relevant for event (permission granted map, jwt) are skipped.
+     */
+    private static final String[] SESSION_EVENT_ATTRIBUTES = new String[] { "oxId", "sid", "oxAuthUserDN", "authnTime", "oxState", "exp", "creationDate", "oxAuthSessionAttribute" };
 
-    private static final int DEFAULT_INTERVAL = 600; // 10 min
+    /**
+     * Attributes required to register session in wheel.
+     */
+    private static final String[] SESSION_SCHEDULE_ATTRIBUTES = new String[] { "oxId", "exp" };
 
     @Inject
     private Logger log;
@@ -48,6 +62,9 @@ public class ExpirationNotificatorTimer implements ExpirationListener<ExpId, Obj
     @Inject
     private PersistenceEntryManager persistenceEntryManager;
 
+    @Inject
+    private CacheService cacheService;
+
     @Inject
     private StaticConfiguration staticConfiguration;
 
@@ -57,34 +74,28 @@ public class ExpirationNotificatorTimer implements ExpirationListener<ExpId, Obj
     @Inject
     private ExternalApplicationSessionService externalApplicationSessionService;
 
-    private ExpiringMap<ExpId, Object> expiringMap = ExpiringMap.builder()
-            .expirationPolicy(ExpirationPolicy.CREATED)
-            .variableExpiration()
-            .build();
+    private final HashedTimingWheel<ExpId> wheel = new HashedTimingWheel<>(DEFAULT_TICK_INTERVAL * 1000L, WHEEL_SIZE, System.currentTimeMillis());
 
     private AtomicBoolean isActive;
 
-    private long lastFinishedTime;
+    private volatile boolean catchUpRequired = true;
+
+    private long lastTickTime;
 
     public void initTimer() {
         log.debug("Initializing ExpirationNotificatorTimer");
         this.isActive = new AtomicBoolean(false);
 
-        expiringMap = ExpiringMap.builder()
-                .expirationPolicy(ExpirationPolicy.CREATED)
-                .maxSize(appConfiguration.getExpirationNotificatorMapSizeLimit())
-                .variableExpiration()
-                .build();
-        expiringMap.addExpirationListener(this);
+        timerEvent.fire(new TimerEvent(new TimerSchedule(DEFAULT_TICK_INTERVAL, DEFAULT_TICK_INTERVAL), new ExpirationEvent(), Scheduled.Literal.INSTANCE));
 
-        timerEvent.fire(new TimerEvent(new TimerSchedule(DEFAULT_INTERVAL, DEFAULT_INTERVAL), new ExpirationEvent(), Scheduled.Literal.INSTANCE));
-
-        this.lastFinishedTime = System.currentTimeMillis();
+        this.lastTickTime = System.currentTimeMillis();
     }
 
     @Asynchronous
     public void process(@Observes @Scheduled ExpirationEvent expirationEvent) {
-        if (!appConfiguration.getExpirationNotificatorEnabled()) {
+        if (!isEnabled()) {
+            // sessions are not registered while disabled
+            catchUpRequired = true;
             return;
         }
 
@@ -97,73 +108,122 @@ public class ExpirationNotificatorTimer implements ExpirationListener<ExpId, Obj
         }
 
         try {
-            if (!allowToRun()) {
-                log.trace("Not allowed to run.");
-                return;
+            final long now = System.currentTimeMillis();
+            if (catchUpRequired || now - this.lastTickTime > appConfiguration.getExpirationNotificatorIntervalInSeconds() * 1000L) {
+                catchUp();
             }
-            fillMap();
-            this.lastFinishedTime = System.currentTimeMillis();
+
+            for (ExpId expId : wheel.advance(now)) {
+                expired(expId);
+            }
+            this.lastTickTime = now;
         } catch (Exception ex) {
-            log.error("Exception happened while trying to fill expiringMap update", ex);
+            log.error("Exception happened while processing session expiration", ex);
         } finally {
             this.isActive.set(false);
         }
     }
 
-    private void fillMap() {
-        Calendar future = Calendar.getInstance();
-        future.add(Calendar.SECOND, appConfiguration.getExpirationNotificatorIntervalInSeconds());
+    public void register(SessionId session) {
+        if (!isEnabled() || session == null || session.getExpirationDate() == null) {
+            return;
+        }
 
-        fillSessions(future.getTime());
+        wheel.schedule(new ExpId(session.getId(), ExpType.SESSION), session.getExpirationDate().getTime());
     }
 
-    private void fillSessions(Date future) {
-        final String baseDn = staticConfiguration.getBaseDn().getSessions();
-        final Filter filter = Filter.createANDFilter(
-                Filter.createEqualityFilter("del", true),
-                Filter.createLessOrEqualFilter("exp", persistenceEntryManager.encodeTime(baseDn, future)));
-        final List<SessionId> sessions = persistenceEntryManager.findEntries(baseDn, SessionId.class, filter);
-        if (sessions == null || sessions.isEmpty()) {
+    public void unregister(SessionId session) {
+        if (session == null) {
             return;
         }
 
-        long now = new Date().getTime();
-        for (SessionId session : sessions) {
-            final long duration = session.getExpirationDate().getTime() - now;
+        wheel.cancel(new ExpId(session.getId(), ExpType.SESSION));
+    }
 
-            if (duration <= 0) {
-                remove(session);
-                continue;
-            }
-            expiringMap.put(new ExpId(session.getId(), ExpType.SESSION), session, duration, TimeUnit.MILLISECONDS);
+    private boolean isEnabled() {
+        if (!appConfiguration.getExpirationNotificatorEnabled()) {
+            return false;
         }
+
+        if (appConfiguration.getExpirationNotificatorIntervalInSeconds() < 0) {
+            log.trace("ExpirationNotificator Timer is disabled, expirationNotificatorIntervalInSeconds is negative.");
+            return false;
+        }
+
+        return true;
     }
 
-    @Override
-    public void expired(ExpId key, Object value) {
-        if (key.getType() == ExpType.SESSION && value instanceof SessionId) {
-            externalApplicationSessionService.externalEvent(new SessionEvent(SessionEventType.GONE, (SessionId) value));
+    private void catchUp() {
+        catchUpRequired = false;
+        if (appConfiguration.getSessionIdPersistInCache()) {
+            // sessions in cache can't be searched, only registered ones are tracked
+            return;
+        }
+
+        final String baseDn = staticConfiguration.getBaseDn().getSessions();
+        final Filter filter = Filter.createEqualityFilter("del", true);
+
+        int chunkSize = appConfiguration.getCleanServiceBatchChunkSize();
+        if (chunkSize <= 0) {
+            chunkSize = DEFAULT_CHUNK_SIZE;
         }
+
+        log.debug("Scanning sessions to schedule expiration events ...");
+        ProcessBatchOperation<SessionId> batchOperation = new ProcessBatchOperation<SessionId>() {
+            @Override
+            public void performAction(List<SessionId> sessions) {
+                for (SessionId session : sessions) {
+                    register(session);
+                }
+            }
+        };
+        persistenceEntryManager.findEntries(baseDn, SessionId.class, filter, SearchScope.SUB, SESSION_SCHEDULE_ATTRIBUTES, batchOperation, 0, 0, chunkSize);
+        log.debug("Scheduled expiration events: {}", wheel.size());
     }
 
-    private boolean allowToRun() {
-        int interval = appConfiguration.getExpirationNotificatorIntervalInSeconds();
-        if (interval < 0) {
-            log.info("ExpirationNotificator Timer is disabled.");
-            log.warn("ExpirationNotificator Timer Interval (expirationNotificatorIntervalInSeconds in oxauth configuration) is negative which turns OFF internal clean up by the server. Please set it to positive value if you wish internal clean up timer run.");
-            return false;
+    private void expired(ExpId expId) {
+        if (expId.getType() != ExpType.SESSION) {
+            return;
         }
 
-        long timerInterval = interval * 1000;
+        final String dn = String.format("oxId=%s,%s", expId.getKey(), staticConfiguration.getBaseDn().getSessions());
+        final SessionId session = loadSession(dn);
+        if (session == null) {
+            // already removed (e.g. logout on other node or cleaner), GONE event was fired by the node which removed it
+            log.trace("Session is already removed, skip GONE event: {}", dn);
+            return;
+        }
 
-        long timeDiffrence = System.currentTimeMillis() - this.lastFinishedTime;
+        if (session.getExpirationDate() != null && session.getExpirationDate().getTime() > System.currentTimeMillis()) {
+            // prolonged by other node
+            wheel.schedule(expId, session.getExpirationDate().getTime());
+            return;
+        }
+
+        remove(session);
+    }
+
+    private SessionId loadSession(String dn) {
+        try {
+            if (appConfiguration.getSessionIdPersistInCache()) {
+                final Object cached = cacheService.get(dn);
+                return cached instanceof SessionId ? (SessionId) cached : null;
+            }
 
-        return timeDiffrence >= timerInterval;
+            return persistenceEntryManager.find(dn, SessionId.class, SESSION_EVENT_ATTRIBUTES);
+        } catch (Exception e) {
+            log.trace("Failed to load session: " + dn, e);
+            return null;
+        }
     }
 
     public boolean remove(SessionId sessionId) {
         try {
-            persistenceEntryManager.remove(sessionId.getDn(), SessionId.class);
+            if (appConfiguration.getSessionIdPersistInCache()) {
+                cacheService.remove(sessionId.getDn());
+            } else {
+                persistenceEntryManager.remove(sessionId.getDn(), SessionId.class);
+            }
             externalApplicationSessionService.externalEvent(new SessionEvent(SessionEventType.GONE, sessionId));
             return true;
         } catch (Exception e) {
@@ -0,0 +1,105 @@
+package org.gluu.oxauth.service.expiration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timing wheel. Entries are hashed to bucket by expiration tick, entries which expire later than
+ * one wheel revolution stay in bucket till their tick is reached. Advancing wheel costs only visited buckets,
+ * add/cancel are O(1). Entry keeps only key and expiration tick, so memory stays small for big number of entries.
+ */
+class HashedTimingWheel<K> {
+
+    private final long tickDuration;
+    private final Map<K, Entry<K>>[] buckets;
+    private final Map<K, Entry<K>> entries = new HashMap<>();
+
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    HashedTimingWheel(long tickDuration, int wheelSize, long startTime) {
+        if (tickDuration <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick duration and wheel size must be positive.");
+        }
+        this.tickDuration = tickDuration;
+        this.buckets = new Map[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new LinkedHashMap<>();
+        }
+        this.currentTick = startTime / tickDuration;
+    }
+
+    /**
+     * Schedules key for expiration. If key is already scheduled it is re-scheduled with new expiration time.
+     */
+    public synchronized void schedule(K key, long expirationTime) {
+        cancel(key);
+
+        // expired or expiring in current tick entries are fired on next advance
+        final long tick = Math.max(expirationTime / tickDuration, currentTick + 1);
+        final Entry<K> entry = new Entry<>(key, tick);
+        buckets[(int) (tick % buckets.length)].put(key, entry);
+        entries.put(key, entry);
+    }
+
+    public synchronized boolean cancel(K key) {
+        final Entry<K> entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        buckets[(int) (entry.tick % buckets.length)].remove(key);
+        return true;
+    }
+
+    public synchronized boolean contains(K key) {
+        return entries.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Advances wheel till given time.
+     *
+     * @return keys which expired
+     */
+    public synchronized List<K> advance(long now) {
+        final List<K> expired = new ArrayList<>();
+        final long targetTick = now / tickDuration;
+        if (targetTick <= currentTick) {
+            return expired;
+        }
+
+        // after long pause (e.g. node was suspended) every bucket is visited only once
+        final long fromTick = Math.max(currentTick + 1, targetTick - buckets.length + 1);
+        for (long tick = fromTick; tick <= targetTick; tick++) {
+            final Iterator<Entry<K>> iterator = buckets[(int) (tick % buckets.length)].values().iterator();
+            while (iterator.hasNext()) {
+                final Entry<K> entry = iterator.next();
+                if (entry.tick <= targetTick) {
+                    iterator.remove();
+                    entries.remove(entry.key);
+                    expired.add(entry.key);
+                }
+            }
+        }
+        currentTick = targetTick;
+
+        return expired;
+    }
+
+    private static class Entry<K> {
+        private final K key;
+        private final long tick;
+
+        private Entry(K key, long tick) {
+            this.key = key;
+            this.tick = tick;
+        }
+    }
+}
@@ -13,11 +13,13 @@ import java.util.Map;
 import java.util.Set;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 
 import org.gluu.model.SimpleCustomProperty;
 import org.gluu.model.custom.script.CustomScriptType;
 import org.gluu.model.custom.script.conf.CustomScriptConfiguration;
 import org.gluu.model.custom.script.type.scope.DynamicScopeType;
+import org.gluu.oxauth.model.token.JsonWebResponse;
 import org.gluu.oxauth.service.external.context.DynamicScopeExternalContext;
 import org.gluu.service.custom.script.ExternalScriptService;
 import org.oxauth.persistence.model.Scope;
@@ -34,11 +36,48 @@ public class ExternalDynamicScopeService extends ExternalScriptService {
 
 	private static final long serialVersionUID = 1416361273036208685L;
 
+	@Inject
+	private ScriptExecutionService scriptExecutionService;
+
+	@Inject
+	private ScriptResultCache scriptResultCache;
+
 	public ExternalDynamicScopeService() {
 		super(CustomScriptType.DYNAMIC_SCOPE);
 	}
 
 	public boolean executeExternalUpdateMethod(CustomScriptConfiguration customScriptConfiguration, DynamicScopeExternalContext dynamicScopeContext) {
+		final JsonWebResponse jsonWebResponse = dynamicScopeContext.getJsonWebResponse();
+		final ScriptResultCache.Key cacheKey = jsonWebResponse == null ? null : scriptResultCache.key(customScriptConfiguration, "update",
+				ScriptResultCache.keyParts(dynamicScopeContext.getAuthorizationGrant(), null, dynamicScopeContext.getDynamicScopes()));
+		final ScriptOutputChange cached = scriptResultCache.get(cacheKey);
+		if (cached != null) {
+			cached.applyTo(jsonWebResponse);
+			return cached.getResult();
+		}
+
+		if (jsonWebResponse == null) {
+			return scriptExecutionService.execute(customScriptConfiguration, "update", () -> executeUpdate(customScriptConfiguration, dynamicScopeContext), false, true);
+		}
+
+		// script runs on copy, claims are changed on request thread only if script completed within budget
+		final JsonWebResponse copy = ScriptOutputChange.copyOf(jsonWebResponse);
+		final Map<String, String> headerBefore = ScriptOutputChange.snapshot(copy.getHeader());
+		final Map<String, String> claimsBefore = ScriptOutputChange.snapshot(copy.getClaims());
+		final DynamicScopeExternalContext copyContext = new DynamicScopeExternalContext(dynamicScopeContext.getScopes(), copy, dynamicScopeContext.getAuthorizationGrant());
+		final ScriptOutputChange change = scriptExecutionService.execute(customScriptConfiguration, "update", () -> {
+			final boolean result = executeUpdate(customScriptConfiguration, copyContext);
+			final ScriptOutputChange diff = ScriptOutputChange.diff(result, headerBefore, claimsBefore, copy);
+			if (result) {
+				scriptResultCache.put(cacheKey, diff);
+			}
+			return diff;
+		}, ScriptOutputChange.unchanged(false), ScriptOutputChange.unchanged(true));
+		change.applyTo(jsonWebResponse);
+		return change.getResult();
+	}
+
+	private boolean executeUpdate(CustomScriptConfiguration customScriptConfiguration, DynamicScopeExternalContext dynamicScopeContext) {
 		try {
 			log.trace("Executing python 'update' method");
 			DynamicScopeType dynamicScopeType = (DynamicScopeType) customScriptConfiguration.getExternalType();
@@ -47,9 +86,8 @@ public class ExternalDynamicScopeService extends ExternalScriptService {
 		} catch (Exception ex) {
 			log.error(ex.getMessage(), ex);
             saveScriptError(customScriptConfiguration.getCustomScript(), ex);
+			throw new ScriptExecutionException(ex);
 		}
-		
-		return false;
 	}
 
     public List<String> executeExternalGetSupportedClaimsMethod(CustomScriptConfiguration customScriptConfiguration) {
@@ -4,6 +4,7 @@ import com.google.common.collect.Lists;
 import org.gluu.model.custom.script.CustomScriptType;
 import org.gluu.model.custom.script.conf.CustomScriptConfiguration;
 import org.gluu.model.custom.script.type.introspection.IntrospectionType;
+import org.gluu.oxauth.model.common.AuthorizationGrant;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
 import org.gluu.oxauth.service.external.context.ExternalIntrospectionContext;
 import org.gluu.service.custom.script.ExternalScriptService;
@@ -15,6 +16,7 @@ import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.ws.rs.WebApplicationException;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Yuriy Zabrovarnyy
@@ -28,6 +30,10 @@ public class ExternalIntrospectionService extends ExternalScriptService {
     private Logger log;
     @Inject
     private AppConfiguration appConfiguration;
+    @Inject
+    private ScriptExecutionService scriptExecutionService;
+    @Inject
+    private ScriptResultCache scriptResultCache;
 
     public ExternalIntrospectionService() {
         super(CustomScriptType.INTROSPECTION);
@@ -78,6 +84,30 @@ public class ExternalIntrospectionService extends ExternalScriptService {
     }
 
     private boolean executeExternalModifyResponse(CustomScriptConfiguration scriptConf, JSONObject responseAsJsonObject, ExternalIntrospectionContext context) {
+        final AuthorizationGrant grant = context.getTokenGrant();
+        final ScriptResultCache.Key cacheKey = scriptResultCache.key(scriptConf, "modifyResponse", ScriptResultCache.keyParts(grant, null, null));
+        final ScriptOutputChange cached = scriptResultCache.get(cacheKey);
+        if (cached != null) {
+            cached.applyTo(responseAsJsonObject);
+            return cached.getResult();
+        }
+
+        // script runs on copy, response is changed on request thread only if script completed within budget
+        final JSONObject copy = ScriptOutputChange.copyOf(responseAsJsonObject);
+        final Map<String, String> before = ScriptOutputChange.snapshot(copy);
+        final ScriptOutputChange change = scriptExecutionService.execute(scriptConf, "modifyResponse", () -> {
+            final boolean result = modifyResponse(scriptConf, copy, context);
+            final ScriptOutputChange diff = ScriptOutputChange.diff(result, before, copy);
+            if (result) {
+                scriptResultCache.put(cacheKey, diff);
+            }
+            return diff;
+        }, ScriptOutputChange.unchanged(false), ScriptOutputChange.unchanged(true));
+        change.applyTo(responseAsJsonObject);
+        return change.getResult();
+    }
+
+    private boolean modifyResponse(CustomScriptConfiguration scriptConf, JSONObject responseAsJsonObject, ExternalIntrospectionContext context) {
         try {
             log.trace("Executing external 'executeExternalModifyResponse' method, script name: {}, responseAsJsonObject: {} , context: {}",
                     scriptConf.getName(), responseAsJsonObject, context);
@@ -95,7 +125,7 @@ public class ExternalIntrospectionService extends ExternalScriptService {
         } catch (Exception ex) {
             log.error(ex.getMessage(), ex);
             saveScriptError(scriptConf.getCustomScript(), ex);
-            return false;
+            throw new ScriptExecutionException(ex);
         }
     }
 }
@@ -13,6 +13,7 @@ import org.gluu.model.custom.script.conf.CustomScriptConfiguration;
 import org.gluu.model.custom.script.type.token.UpdateTokenType;
 import org.gluu.oxauth.model.common.AccessToken;
 import org.gluu.oxauth.model.common.RefreshToken;
+import org.gluu.oxauth.model.registration.Client;
 import org.gluu.oxauth.model.token.JsonWebResponse;
 import org.gluu.oxauth.service.external.context.ExternalUpdateTokenContext;
 import org.gluu.service.custom.script.ExternalScriptService;
@@ -23,6 +24,7 @@ import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.ws.rs.WebApplicationException;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Yuriy Movchan
@@ -35,11 +37,29 @@ public class ExternalUpdateTokenService extends ExternalScriptService {
 	@Inject
     private Logger log;
 
+    @Inject
+    private ScriptExecutionService scriptExecutionService;
+
+    @Inject
+    private ScriptResultCache scriptResultCache;
+
     public ExternalUpdateTokenService() {
         super(CustomScriptType.UPDATE_TOKEN);
     }
 
     public boolean modifyIdTokenMethod(CustomScriptConfiguration script, JsonWebResponse jsonWebResponse, ExternalUpdateTokenContext context) {
+        // script runs on copy, id token is changed on request thread only if script completed within budget
+        final JsonWebResponse copy = ScriptOutputChange.copyOf(jsonWebResponse);
+        final Map<String, String> headerBefore = ScriptOutputChange.snapshot(copy.getHeader());
+        final Map<String, String> claimsBefore = ScriptOutputChange.snapshot(copy.getClaims());
+        final ScriptOutputChange change = scriptExecutionService.execute(script, "modifyIdToken",
+                () -> ScriptOutputChange.diff(executeModifyIdToken(script, copy, context), headerBefore, claimsBefore, copy),
+                ScriptOutputChange.unchanged(false), ScriptOutputChange.unchanged(true));
+        change.applyTo(jsonWebResponse);
+        return change.getResult();
+    }
+
+    private boolean executeModifyIdToken(CustomScriptConfiguration script, JsonWebResponse jsonWebResponse, ExternalUpdateTokenContext context) {
         try {
             log.trace("Executing python 'updateToken' method, script name: {}, jsonWebResponse: {}, context: {}", script.getName(), jsonWebResponse, context);
             context.setScript(script);
@@ -55,9 +75,8 @@ public class ExternalUpdateTokenService extends ExternalScriptService {
         } catch (Exception ex) {
             log.error(ex.getMessage(), ex);
             saveScriptError(script.getCustomScript(), ex);
+            throw new ScriptExecutionException(ex);
         }
-
-        return false;
     }
 
     public boolean modifyIdTokenMethods(JsonWebResponse jsonWebResponse, ExternalUpdateTokenContext context) {
@@ -70,6 +89,11 @@ public class ExternalUpdateTokenService extends ExternalScriptService {
         return true;
     }
 
+    private static Map<String, String> lifetimeKeyParts(ExternalUpdateTokenContext context) {
+        final Client client = context.getClient();
+        return ScriptResultCache.keyParts(context.getGrant(), client != null ? client.getClientId() : null, null);
+    }
+
     @NotNull
     private List<CustomScriptConfiguration> getScripts() {
         if (customScriptConfigurations == null) {
@@ -92,6 +116,11 @@ public class ExternalUpdateTokenService extends ExternalScriptService {
 	}
 
     public boolean modifyRefreshToken(CustomScriptConfiguration script, RefreshToken refreshToken, ExternalUpdateTokenContext context) {
+        // token is modified in place, so it is never issued if script did not complete within budget (even with skip policy)
+        return scriptExecutionService.execute(script, "modifyRefreshToken", () -> executeModifyRefreshToken(script, refreshToken, context), false, false);
+    }
+
+    private boolean executeModifyRefreshToken(CustomScriptConfiguration script, RefreshToken refreshToken, ExternalUpdateTokenContext context) {
         try {
             log.trace("Executing python 'modifyRefreshToken' method, script name: {}, context: {}", script.getName(), context);
             context.setScript(script);
@@ -107,9 +136,8 @@ public class ExternalUpdateTokenService extends ExternalScriptService {
         } catch (Exception ex) {
             log.error(ex.getMessage(), ex);
             saveScriptError(script.getCustomScript(), ex);
+            throw new ScriptExecutionException(ex);
         }
-
-        return false;
     }
 
     public boolean modifyRefreshToken(RefreshToken refreshToken, ExternalUpdateTokenContext context) {
@@ -129,6 +157,11 @@ public class ExternalUpdateTokenService extends ExternalScriptService {
     }
 
     public boolean modifyAccessToken(CustomScriptConfiguration script, AccessToken accessToken, ExternalUpdateTokenContext context) {
+        // token is modified in place, so it is never issued if script did not complete within budget (even with skip policy)
+        return scriptExecutionService.execute(script, "modifyAccessToken", () -> executeModifyAccessToken(script, accessToken, context), false, false);
+    }
+
+    private boolean executeModifyAccessToken(CustomScriptConfiguration script, AccessToken accessToken, ExternalUpdateTokenContext context) {
         try {
             log.trace("Executing python 'modifyAccessToken' method, script name: {}, context: {}", script.getName(), context);
             context.setScript(script);
@@ -144,9 +177,8 @@ public class ExternalUpdateTokenService extends ExternalScriptService {
         } catch (Exception ex) {
             log.error(ex.getMessage(), ex);
             saveScriptError(script.getCustomScript(), ex);
+            throw new ScriptExecutionException(ex);
         }
-
-        return false;
     }
 
     public boolean modifyAccessToken(AccessToken accessToken, ExternalUpdateTokenContext context) {
@@ -166,6 +198,16 @@ public class ExternalUpdateTokenService extends ExternalScriptService {
     }
 
     public int getAccessTokenLifetimeInSeconds(CustomScriptConfiguration script, ExternalUpdateTokenContext context) {
+        final Map<String, String> keyParts = lifetimeKeyParts(context);
+        final ScriptResultCache.Key cacheKey = scriptResultCache.key(script, "getAccessTokenLifetimeInSeconds", keyParts);
+        final Integer cached = scriptResultCache.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        return scriptExecutionService.execute(script, "getAccessTokenLifetimeInSeconds", keyParts, () -> scriptResultCache.put(cacheKey, executeGetAccessTokenLifetimeInSeconds(script, context)), 0, 0);
+    }
+
+    private int executeGetAccessTokenLifetimeInSeconds(CustomScriptConfiguration script, ExternalUpdateTokenContext context) {
         try {
             log.trace("Executing python 'getAccessTokenLifetimeInSeconds' method, script name: {}, context: {}", script.getName(), context);
             context.setScript(script);
@@ -181,8 +223,8 @@ public class ExternalUpdateTokenService extends ExternalScriptService {
         } catch (Exception ex) {
             log.error(ex.getMessage(), ex);
             saveScriptError(script.getCustomScript(), ex);
+            throw new ScriptExecutionException(ex);
         }
-        return 0;
     }
 
     public int getAccessTokenLifetimeInSeconds(ExternalUpdateTokenContext context) {
@@ -203,6 +245,16 @@ public class ExternalUpdateTokenService extends ExternalScriptService {
     }
 
     public int getIdTokenLifetimeInSeconds(CustomScriptConfiguration script, ExternalUpdateTokenContext context) {
+        final Map<String, String> keyParts = lifetimeKeyParts(context);
+        final ScriptResultCache.Key cacheKey = scriptResultCache.key(script, "getIdTokenLifetimeInSeconds", keyParts);
+        final Integer cached = scriptResultCache.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        return scriptExecutionService.execute(script, "getIdTokenLifetimeInSeconds", keyParts, () -> scriptResultCache.put(cacheKey, executeGetIdTokenLifetimeInSeconds(script, context)), 0, 0);
+    }
+
+    private int executeGetIdTokenLifetimeInSeconds(CustomScriptConfiguration script, ExternalUpdateTokenContext context) {
         try {
             log.trace("Executing python 'getIdTokenLifetimeInSeconds' method, script name: {}, context: {}", script.getName(), context);
             context.setScript(script);
@@ -218,8 +270,8 @@ public class ExternalUpdateTokenService extends ExternalScriptService {
         } catch (Exception ex) {
             log.error(ex.getMessage(), ex);
             saveScriptError(script.getCustomScript(), ex);
+            throw new ScriptExecutionException(ex);
         }
-        return 0;
     }
 
     public int getIdTokenLifetimeInSeconds(ExternalUpdateTokenContext context) {
@@ -240,6 +292,16 @@ public class ExternalUpdateTokenService extends ExternalScriptService {
     }
 
     public int getRefreshTokenLifetimeInSeconds(CustomScriptConfiguration script, ExternalUpdateTokenContext context) {
+        final Map<String, String> keyParts = lifetimeKeyParts(context);
+        final ScriptResultCache.Key cacheKey = scriptResultCache.key(script, "getRefreshTokenLifetimeInSeconds", keyParts);
+        final Integer cached = scriptResultCache.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        return scriptExecutionService.execute(script, "getRefreshTokenLifetimeInSeconds", keyParts, () -> scriptResultCache.put(cacheKey, executeGetRefreshTokenLifetimeInSeconds(script, context)), 0, 0);
+    }
+
+    private int executeGetRefreshTokenLifetimeInSeconds(CustomScriptConfiguration script, ExternalUpdateTokenContext context) {
         try {
             log.trace("Executing python 'getRefreshTokenLifetimeInSeconds' method, script name: {}, context: {}", script.getName(), context);
             context.setScript(script);
@@ -255,8 +317,8 @@ public class ExternalUpdateTokenService extends ExternalScriptService {
         } catch (Exception ex) {
             log.error(ex.getMessage(), ex);
             saveScriptError(script.getCustomScript(), ex);
+            throw new ScriptExecutionException(ex);
         }
-        return 0;
     }
 
     public int getRefreshTokenLifetimeInSeconds(ExternalUpdateTokenContext context) {
@@ -0,0 +1,18 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2020, Gluu
+ */
+
+package org.gluu.oxauth.service.external;
+
+/**
+ * Thrown by script method wrappers executed by {@link ScriptExecutionService} when script method failed. Error is
+ * already logged and saved to script entry when it is thrown.
+ */
+public class ScriptExecutionException extends RuntimeException {
+
+    public ScriptExecutionException(Throwable cause) {
+        super(cause);
+    }
+}
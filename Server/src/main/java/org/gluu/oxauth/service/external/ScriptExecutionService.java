@@ -0,0 +1,245 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2020, Gluu
+ */
+
+package org.gluu.oxauth.service.external;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Summary;
+import io.prometheus.client.exporter.common.TextFormat;
+import org.apache.commons.lang.StringUtils;
+import org.gluu.model.SimpleCustomProperty;
+import org.gluu.model.custom.script.conf.CustomScriptConfiguration;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.slf4j.Logger;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Executes custom script methods within execution budget. Budget (milliseconds) and fallback policy are taken from
+ * script configuration properties {@code execution_timeout} and {@code execution_fallback}, or from server configuration
+ * ({@code scriptExecutionTimeout}, {@code scriptExecutionFallbackPolicy}).
+ * <p>
+ * Script without budget runs on request thread. Script with budget runs on bounded executor, so it must not use request
+ * scoped beans. If budget is exceeded script is interrupted and fallback result is returned, but script thread may still
+ * run for a while, so methods which modify output (claims, introspection response) must pass copy of output to script
+ * and apply changes (see {@link ScriptOutputChange}) only if script completed within budget.
+ * <p>
+ * Last good result depends on input, so it is kept only for calls which provide input key parts
+ * (see {@link ScriptResultCache#keyParts}), for other calls {@code last_good} policy falls back to fail result.
+ * <p>
+ * Latency and outcome of each script method are exported in open metrics format (see {@link #writeMetrics(Writer)}).
+ */
+@ApplicationScoped
+public class ScriptExecutionService {
+
+    public static final String TIMEOUT_PROPERTY = "execution_timeout";
+    public static final String FALLBACK_PROPERTY = "execution_fallback";
+
+    private static final int QUEUE_SIZE_PER_THREAD = 10;
+    private static final int LAST_GOOD_RESULTS_SIZE_LIMIT = 10000;
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private AppConfiguration appConfiguration;
+
+    private final CollectorRegistry registry = new CollectorRegistry();
+
+    private final Counter executions = Counter.build()
+            .name("oxauth_script_executions_total")
+            .labelNames("script", "method", "outcome")
+            .help("Custom script executions by outcome (completed, timeout, rejected, error)")
+            .register(registry);
+
+    private final Summary latency = Summary.build()
+            .name("oxauth_script_execution_seconds")
+            .labelNames("script", "method")
+            .quantile(0.5, 0.05)
+            .quantile(0.99, 0.001)
+            .help("Custom script execution time")
+            .register(registry);
+
+    private final Cache<String, Object> lastGoodResults = CacheBuilder.newBuilder()
+            .maximumSize(LAST_GOOD_RESULTS_SIZE_LIMIT)
+            .build();
+
+    private volatile ThreadPoolExecutor executor;
+
+    /**
+     * Executes method without last good result, {@code last_good} policy falls back to fail result.
+     */
+    public <T> T execute(CustomScriptConfiguration script, String method, Supplier<T> call, T failResult, T skipResult) {
+        return execute(script, method, null, call, failResult, skipResult);
+    }
+
+    /**
+     * Script method failure must be reported by {@code call} with {@link ScriptExecutionException}, such failure is
+     * counted as error and its result is never used as last good result.
+     *
+     * @param inputKeyParts input of method, last good result is used only for the same input (null if method
+     *                      result must not be reused)
+     * @param failResult result if script failed
+     * @param skipResult result if script was not configured
+     */
+    public <T> T execute(CustomScriptConfiguration script, String method, Map<String, String> inputKeyParts,
+                         Supplier<T> call, T failResult, T skipResult) {
+        final String scriptName = script.getName();
+        final String resultKey = inputKeyParts == null ? null : scriptName + "_" + script.getCustomScript().getRevision() + "_" + method + "_" + new TreeMap<>(inputKeyParts);
+        final int timeout = getTimeout(script);
+
+        final Summary.Timer timer = latency.labels(scriptName, method).startTimer();
+        try {
+            final T result;
+            if (timeout <= 0) {
+                try {
+                    result = call.get();
+                } catch (ScriptExecutionException e) {
+                    executions.labels(scriptName, method, "error").inc();
+                    return failResult;
+                }
+            } else {
+                final Future<T> future = getExecutor().submit(call::get);
+                try {
+                    result = future.get(timeout, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    future.cancel(true);
+                    log.warn("Script {} method {} exceeded execution budget {} ms", scriptName, method, timeout);
+                    executions.labels(scriptName, method, "timeout").inc();
+                    return fallback(script, resultKey, failResult, skipResult);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    future.cancel(true);
+                    return failResult;
+                } catch (ExecutionException e) {
+                    executions.labels(scriptName, method, "error").inc();
+                    if (e.getCause() instanceof ScriptExecutionException) {
+                        // already logged by script method wrapper
+                        return failResult;
+                    }
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    if (e.getCause() instanceof Error) {
+                        throw (Error) e.getCause();
+                    }
+                    log.error(e.getMessage(), e);
+                    return failResult;
+                }
+            }
+
+            executions.labels(scriptName, method, "completed").inc();
+            if (resultKey != null && result != null) {
+                lastGoodResults.put(resultKey, result);
+            }
+            return result;
+        } catch (RejectedExecutionException e) {
+            log.warn("Script {} method {} is rejected, all script executor threads are busy", scriptName, method);
+            executions.labels(scriptName, method, "rejected").inc();
+            return fallback(script, resultKey, failResult, skipResult);
+        } finally {
+            timer.observeDuration();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T fallback(CustomScriptConfiguration script, String resultKey, T failResult, T skipResult) {
+        switch (getFallbackPolicy(script)) {
+            case SKIP:
+                return skipResult;
+            case LAST_GOOD:
+                final Object lastGood = resultKey != null ? lastGoodResults.getIfPresent(resultKey) : null;
+                return lastGood != null ? (T) lastGood : failResult;
+            default:
+                return failResult;
+        }
+    }
+
+    private int getTimeout(CustomScriptConfiguration script) {
+        final String value = getProperty(script, TIMEOUT_PROPERTY);
+        if (StringUtils.isNotBlank(value)) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                log.error("Invalid {} property of script {}: {}", TIMEOUT_PROPERTY, script.getName(), value);
+            }
+        }
+        return appConfiguration.getScriptExecutionTimeout();
+    }
+
+    private ScriptFallbackPolicy getFallbackPolicy(CustomScriptConfiguration script) {
+        final ScriptFallbackPolicy defaultPolicy = ScriptFallbackPolicy.fromString(appConfiguration.getScriptExecutionFallbackPolicy(), ScriptFallbackPolicy.FAIL);
+        return ScriptFallbackPolicy.fromString(getProperty(script, FALLBACK_PROPERTY), defaultPolicy);
+    }
+
+    static String getProperty(CustomScriptConfiguration script, String name) {
+        final Map<String, SimpleCustomProperty> attributes = script.getConfigurationAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        final SimpleCustomProperty property = attributes.get(name);
+        return property != null ? property.getValue2() : null;
+    }
+
+    private ThreadPoolExecutor getExecutor() {
+        ThreadPoolExecutor result = executor;
+        if (result == null) {
+            synchronized (this) {
+                result = executor;
+                if (result == null) {
+                    final int poolSize = Math.max(1, appConfiguration.getScriptExecutorPoolSize());
+                    result = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                            new ArrayBlockingQueue<>(poolSize * QUEUE_SIZE_PER_THREAD), new ScriptThreadFactory());
+                    result.allowCoreThreadTimeOut(true);
+                    executor = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    public void writeMetrics(Writer writer) throws IOException {
+        TextFormat.write004(writer, registry.metricFamilySamples());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class ScriptThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "oxauth-script-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
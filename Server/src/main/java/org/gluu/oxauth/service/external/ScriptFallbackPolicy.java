@@ -0,0 +1,50 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2020, Gluu
+ */
+
+package org.gluu.oxauth.service.external;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * What to return if script did not finish within its execution budget (or executor is overloaded).
+ */
+public enum ScriptFallbackPolicy {
+
+    /**
+     * Result of failed script (same as if script threw exception).
+     */
+    FAIL("fail"),
+
+    /**
+     * Result as if script was not configured. Methods which modify token in place always fail.
+     */
+    SKIP("skip"),
+
+    /**
+     * Last result which script returned in time for the same input, or result of failed script if there is no such
+     * result yet. Methods which modify output never reuse result, for them it is the same as {@link #FAIL}.
+     */
+    LAST_GOOD("last_good");
+
+    private final String value;
+
+    ScriptFallbackPolicy(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static ScriptFallbackPolicy fromString(String value, ScriptFallbackPolicy defaultPolicy) {
+        for (ScriptFallbackPolicy policy : values()) {
+            if (policy.value.equalsIgnoreCase(StringUtils.trim(value))) {
+                return policy;
+            }
+        }
+        return defaultPolicy;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2020, Gluu
+ */
+
+package org.gluu.oxauth.service.external;
+
+import org.gluu.oxauth.model.jwt.JwtClaimSet;
+import org.gluu.oxauth.model.jwt.JwtClaims;
+import org.gluu.oxauth.model.jwt.JwtHeader;
+import org.gluu.oxauth.model.token.JsonWebResponse;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Changes which script made in its output (jwt or introspection response) together with script result.
+ * Script runs on copy of output and change is applied to output on request thread, so script interrupted by execution
+ * budget never modifies output. Recorded change is also applied to output of next requests with the same input
+ * instead of script execution.
+ */
+public class ScriptOutputChange {
+
+    private final boolean result;
+    private final Map<String, Object> values;
+    private final Set<String> removed;
+    private final ScriptOutputChange headerChange;
+
+    private ScriptOutputChange(boolean result, Map<String, Object> values, Set<String> removed, ScriptOutputChange headerChange) {
+        this.result = result;
+        this.values = Collections.unmodifiableMap(values);
+        this.removed = Collections.unmodifiableSet(removed);
+        this.headerChange = headerChange;
+    }
+
+    public static ScriptOutputChange unchanged(boolean result) {
+        return new ScriptOutputChange(result, Collections.emptyMap(), Collections.emptySet(), null);
+    }
+
+    public static JsonWebResponse copyOf(JsonWebResponse jsonWebResponse) {
+        final JsonWebResponse copy = new JsonWebResponse();
+        copy.setHeader(copyOf(jsonWebResponse.getHeader(), new JwtHeader()));
+        copy.setClaims(copyOf(jsonWebResponse.getClaims(), new JwtClaims()));
+        return copy;
+    }
+
+    public static JSONObject copyOf(JSONObject jsonObject) {
+        return new JSONObject(jsonObject.toString());
+    }
+
+    private static <T extends JwtClaimSet> T copyOf(JwtClaimSet claims, T copy) {
+        for (String key : claims.keys()) {
+            copy.setClaimObject(key, copy(claims.getClaim(key)), true);
+        }
+        return copy;
+    }
+
+    /**
+     * Values are kept as strings, so nested values modified in place by script are detected too.
+     */
+    public static Map<String, String> snapshot(JwtClaimSet claims) {
+        final Map<String, String> snapshot = new HashMap<>();
+        for (String key : claims.keys()) {
+            snapshot.put(key, String.valueOf(claims.getClaim(key)));
+        }
+        return snapshot;
+    }
+
+    public static Map<String, String> snapshot(JSONObject jsonObject) {
+        final Map<String, String> snapshot = new HashMap<>();
+        final Iterator<String> keys = jsonObject.keys();
+        while (keys.hasNext()) {
+            final String key = keys.next();
+            snapshot.put(key, String.valueOf(jsonObject.opt(key)));
+        }
+        return snapshot;
+    }
+
+    /**
+     * @param headerBefore snapshot of header
+     * @param claimsBefore snapshot of claims
+     */
+    public static ScriptOutputChange diff(boolean result, Map<String, String> headerBefore, Map<String, String> claimsBefore,
+                                          JsonWebResponse jsonWebResponse) {
+        final ScriptOutputChange claimsChange = diff(result, claimsBefore, jsonWebResponse.getClaims());
+        return new ScriptOutputChange(result, claimsChange.values, claimsChange.removed, diff(result, headerBefore, jsonWebResponse.getHeader()));
+    }
+
+    public static ScriptOutputChange diff(boolean result, Map<String, String> before, JwtClaimSet claims) {
+        final Map<String, Object> after = new LinkedHashMap<>();
+        for (String key : claims.keys()) {
+            after.put(key, claims.getClaim(key));
+        }
+        return diff(result, before, after);
+    }
+
+    public static ScriptOutputChange diff(boolean result, Map<String, String> before, JSONObject jsonObject) {
+        final Map<String, Object> after = new LinkedHashMap<>();
+        final Iterator<String> keys = jsonObject.keys();
+        while (keys.hasNext()) {
+            final String key = keys.next();
+            after.put(key, jsonObject.opt(key));
+        }
+        return diff(result, before, after);
+    }
+
+    private static ScriptOutputChange diff(boolean result, Map<String, String> before, Map<String, Object> after) {
+        final Map<String, Object> values = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : after.entrySet()) {
+            if (!before.containsKey(entry.getKey()) || !Objects.equals(before.get(entry.getKey()), String.valueOf(entry.getValue()))) {
+                values.put(entry.getKey(), copy(entry.getValue()));
+            }
+        }
+
+        final Set<String> removed = new HashSet<>(before.keySet());
+        removed.removeAll(after.keySet());
+        return new ScriptOutputChange(result, values, removed, null);
+    }
+
+    public void applyTo(JsonWebResponse jsonWebResponse) {
+        if (headerChange != null) {
+            headerChange.applyTo(jsonWebResponse.getHeader());
+        }
+        applyTo(jsonWebResponse.getClaims());
+    }
+
+    public void applyTo(JwtClaimSet claims) {
+        for (String key : removed) {
+            claims.removeClaim(key);
+        }
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            claims.setClaimObject(entry.getKey(), copy(entry.getValue()), true);
+        }
+    }
+
+    public void applyTo(JSONObject jsonObject) {
+        for (String key : removed) {
+            jsonObject.remove(key);
+        }
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            jsonObject.put(entry.getKey(), copy(entry.getValue()));
+        }
+    }
+
+    public boolean getResult() {
+        return result;
+    }
+
+    public Map<String, Object> getValues() {
+        return values;
+    }
+
+    public Set<String> getRemoved() {
+        return removed;
+    }
+
+    // cached values must not be shared with output which can be modified later
+    @SuppressWarnings("unchecked")
+    private static Object copy(Object value) {
+        if (value instanceof List) {
+            return new ArrayList<>((List<Object>) value);
+        }
+        if (value instanceof JSONObject) {
+            return new JSONObject(value.toString());
+        }
+        if (value instanceof JSONArray) {
+            return new JSONArray(value.toString());
+        }
+        if (value instanceof Date) {
+            return new Date(((Date) value).getTime());
+        }
+        return value;
+    }
+}
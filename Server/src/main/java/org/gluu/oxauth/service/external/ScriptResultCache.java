@@ -0,0 +1,153 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2020, Gluu
+ */
+
+package org.gluu.oxauth.service.external;
+
+import org.apache.commons.lang.StringUtils;
+import org.gluu.model.custom.script.conf.CustomScriptConfiguration;
+import org.gluu.oxauth.model.common.IAuthorizationGrant;
+import org.gluu.service.LocalCacheService;
+import org.slf4j.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Memoizes results of script methods which depend only on small input key. Script declares method as cacheable
+ * with configuration properties:
+ * <ul>
+ * <li>{@code <method>_cache_ttl} - lifetime of result in seconds</li>
+ * <li>{@code <method>_cache_key} - comma separated key parts: client, user, grant, grant_type, scopes
+ * (empty key means that result does not depend on input at all)</li>
+ * </ul>
+ * Results are kept in {@link LocalCacheService}. Cache key contains script revision, so results of previous
+ * revision are not used after script is changed.
+ */
+@ApplicationScoped
+public class ScriptResultCache {
+
+    public static final String TTL_PROPERTY_SUFFIX = "_cache_ttl";
+    public static final String KEY_PROPERTY_SUFFIX = "_cache_key";
+
+    public static final String CLIENT_KEY_PART = "client";
+    public static final String USER_KEY_PART = "user";
+    public static final String GRANT_KEY_PART = "grant";
+    public static final String GRANT_TYPE_KEY_PART = "grant_type";
+    public static final String SCOPES_KEY_PART = "scopes";
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private LocalCacheService localCacheService;
+
+    public static Map<String, String> keyParts(IAuthorizationGrant grant, String clientId, Collection<String> scopes) {
+        final Map<String, String> parts = new HashMap<>();
+        if (grant != null) {
+            parts.put(CLIENT_KEY_PART, grant.getClientId());
+            parts.put(USER_KEY_PART, grant.getUserId());
+            parts.put(GRANT_KEY_PART, grant.getGrantId());
+            parts.put(GRANT_TYPE_KEY_PART, grant.getGrantType() != null ? grant.getGrantType().getValue() : null);
+            if (scopes == null) {
+                scopes = grant.getScopes();
+            }
+        }
+        if (clientId != null) {
+            parts.put(CLIENT_KEY_PART, clientId);
+        }
+        if (scopes != null) {
+            // order of scopes does not matter
+            parts.put(SCOPES_KEY_PART, StringUtils.join(new TreeSet<>(scopes), " "));
+        }
+        return parts;
+    }
+
+    /**
+     * @return cache key or null if script did not declare method as cacheable or some key part is not known
+     */
+    public Key key(CustomScriptConfiguration script, String method, Map<String, String> keyParts) {
+        final int ttl = getTtl(script, method);
+        if (ttl <= 0) {
+            return null;
+        }
+
+        final StringBuilder key = new StringBuilder("script_result_")
+                .append(script.getName()).append('_')
+                .append(script.getCustomScript().getRevision()).append('_')
+                .append(method);
+
+        final String keyPartNames = ScriptExecutionService.getProperty(script, method + KEY_PROPERTY_SUFFIX);
+        if (StringUtils.isNotBlank(keyPartNames)) {
+            for (String name : keyPartNames.split(",")) {
+                name = name.trim();
+                if (name.isEmpty()) {
+                    continue;
+                }
+                final String value = keyParts.get(name);
+                if (value == null) {
+                    log.trace("Result of script {} method {} is not cached, key part '{}' is not available", script.getName(), method, name);
+                    return null;
+                }
+                key.append('_').append(name).append('=').append(value);
+            }
+        }
+        return new Key(key.toString(), ttl);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(Key key) {
+        if (key == null) {
+            return null;
+        }
+        return (T) localCacheService.get(key.value);
+    }
+
+    /**
+     * Result must be taken from successful script call. Wrappers report script failures with
+     * {@link ScriptExecutionException}, so failure result never reaches cache.
+     */
+    public <T> T put(Key key, T result) {
+        if (key != null && result != null) {
+            localCacheService.put(key.ttl, key.value, result);
+        }
+        return result;
+    }
+
+    private int getTtl(CustomScriptConfiguration script, String method) {
+        final String value = ScriptExecutionService.getProperty(script, method + TTL_PROPERTY_SUFFIX);
+        if (StringUtils.isBlank(value)) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            log.error("Invalid {} property of script {}: {}", method + TTL_PROPERTY_SUFFIX, script.getName(), value);
+            return 0;
+        }
+    }
+
+    public static class Key {
+        private final String value;
+        private final int ttl;
+
+        private Key(String value, int ttl) {
+            this.value = value;
+            this.ttl = ttl;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public int getTtl() {
+            return ttl;
+        }
+    }
+}
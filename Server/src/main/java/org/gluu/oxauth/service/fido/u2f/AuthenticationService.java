@@ -147,18 +147,11 @@ public class AuthenticationService extends RequestService {
 
     public DeviceRegistrationResult finishAuthentication(AuthenticateRequestMessage requestMessage, AuthenticateResponse response, String userInum, Set<String> facets)
             throws BadInputException, DeviceCompromisedException {
-        List<DeviceRegistration> deviceRegistrations = deviceRegistrationService.findUserDeviceRegistrations(userInum, requestMessage.getAppId());
-
         final AuthenticateRequest request = getAuthenticateRequest(requestMessage, response);
 
-        DeviceRegistration usedDeviceRegistration = null;
-        for (DeviceRegistration deviceRegistration : deviceRegistrations) {
-            if (StringHelper.equals(request.getKeyHandle(), deviceRegistration.getKeyHandle())) {
-                usedDeviceRegistration = deviceRegistration;
-                break;
-            }
-        }
-
+        // Device is reloaded by DN to check and update actual counter
+        DeviceRegistration usedDeviceRegistration = deviceRegistrationService.findUserDeviceRegistrationByKeyHandle(userInum,
+                requestMessage.getAppId(), request.getKeyHandle());
         if (usedDeviceRegistration == null) {
             throw new BadInputException("Failed to find DeviceRegistration for the given AuthenticateRequest");
         }
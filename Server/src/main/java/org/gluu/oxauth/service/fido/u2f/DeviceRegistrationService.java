@@ -11,6 +11,7 @@ import org.gluu.oxauth.model.fido.u2f.DeviceRegistrationStatus;
 import org.gluu.oxauth.model.util.Base64Util;
 import org.gluu.oxauth.service.common.UserService;
 import org.gluu.persist.PersistenceEntryManager;
+import org.gluu.persist.exception.EntryPersistenceException;
 import org.gluu.persist.model.BatchOperation;
 import org.gluu.persist.model.SearchScope;
 import org.gluu.persist.model.base.SimpleBranch;
@@ -19,20 +20,55 @@ import org.gluu.util.StringHelper;
 import org.slf4j.Logger;
 import org.gluu.oxauth.model.config.StaticConfiguration;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Provides operations with user U2F devices
+ * <p>
+ * User devices are cached for short time by user and application, so start and finish of authentication do not
+ * search user devices branch each time. Key handles are indexed to device DN, so device of key handle is read by DN
+ * instead of search in whole people subtree. Cached entries are invalidated on registration, update and removal of device.
  *
  * @author Yuriy Movchan Date: 05/14/2015
  */
 @ApplicationScoped
 public class DeviceRegistrationService {
 
+	private static final int CACHE_SIZE_LIMIT = 10000;
+
+	// devices of user can be changed on other nodes, so they are cached for short time only
+	private static final int DEVICE_CACHE_LIFETIME_IN_SECONDS = 30;
+
+	// key handle of device is never changed, device DN is verified on each lookup
+	private static final int KEY_HANDLE_INDEX_LIFETIME_IN_SECONDS = 3600;
+
+	// user devices branch is created once and removed with user only
+	private static final int BRANCH_CACHE_LIFETIME_IN_SECONDS = 3600;
+
+	private final Cache<String, List<DeviceRegistration>> userDevicesCache = CacheBuilder.newBuilder()
+			.maximumSize(CACHE_SIZE_LIMIT)
+			.expireAfterWrite(DEVICE_CACHE_LIFETIME_IN_SECONDS, TimeUnit.SECONDS)
+			.build();
+
+	private final Cache<String, String> keyHandleIndex = CacheBuilder.newBuilder()
+			.maximumSize(CACHE_SIZE_LIMIT)
+			.expireAfterWrite(KEY_HANDLE_INDEX_LIFETIME_IN_SECONDS, TimeUnit.SECONDS)
+			.build();
+
+	private final Cache<String, Boolean> preparedBranches = CacheBuilder.newBuilder()
+			.maximumSize(CACHE_SIZE_LIMIT)
+			.expireAfterWrite(BRANCH_CACHE_LIFETIME_IN_SECONDS, TimeUnit.SECONDS)
+			.build();
+
 	@Inject
 	private Logger log;
 
@@ -58,15 +94,21 @@ public class DeviceRegistrationService {
 	}
 
 	public void prepareBranch(final String userInum) {
+		if (userInum != null && preparedBranches.getIfPresent(userInum) != null) {
+			return;
+		}
+
         String baseDn = getBaseDnForU2fUserDevices(userInum);
-        if (!ldapEntryManager.hasBranchesSupport(baseDn)) {
-        	return;
+        if (ldapEntryManager.hasBranchesSupport(baseDn)) {
+    		// Create U2F user device registrations branch if needed
+    		if (!containsBranch(userInum)) {
+    			addBranch(userInum);
+    		}
         }
 
-		// Create U2F user device registrations branch if needed
-		if (!containsBranch(userInum)) {
-			addBranch(userInum);
-		}
+        if (userInum != null) {
+        	preparedBranches.put(userInum, Boolean.TRUE);
+        }
 	}
 
 	public DeviceRegistration findUserDeviceRegistration(String userInum, String deviceId, String... returnAttributes) {
@@ -77,7 +119,51 @@ public class DeviceRegistrationService {
 		return ldapEntryManager.find(deviceDn, DeviceRegistration.class, returnAttributes);
 	}
 
+	/**
+	 * Returns devices of user. Full entries (without return attributes) are returned from short lived cache,
+	 * they should not be modified by caller.
+	 */
 	public List<DeviceRegistration> findUserDeviceRegistrations(String userInum, String appId, String ... returnAttributes) {
+		final boolean cacheable = returnAttributes == null || returnAttributes.length == 0;
+		final String key = getUserDevicesKey(userInum, appId);
+		if (cacheable) {
+			List<DeviceRegistration> deviceRegistrations = userDevicesCache.getIfPresent(key);
+			if (deviceRegistrations != null) {
+				return deviceRegistrations;
+			}
+		}
+
+		List<DeviceRegistration> deviceRegistrations = searchUserDeviceRegistrations(userInum, appId, returnAttributes);
+		if (cacheable) {
+			deviceRegistrations = Collections.unmodifiableList(deviceRegistrations);
+			userDevicesCache.put(key, deviceRegistrations);
+			for (DeviceRegistration deviceRegistration : deviceRegistrations) {
+				indexKeyHandle(appId, deviceRegistration);
+			}
+		}
+
+		return deviceRegistrations;
+	}
+
+	/**
+	 * Returns actual (not cached) device of user with given key handle, e.g. to check and update counter.
+	 */
+	public DeviceRegistration findUserDeviceRegistrationByKeyHandle(String userInum, String appId, String keyHandle) {
+		for (DeviceRegistration deviceRegistration : findUserDeviceRegistrations(userInum, appId)) {
+			if (StringHelper.equals(keyHandle, deviceRegistration.getKeyHandle())) {
+				DeviceRegistration actualDeviceRegistration = findDeviceRegistrationByDn(deviceRegistration.getDn());
+				if (actualDeviceRegistration == null) {
+					invalidateUserDeviceRegistrations(userInum);
+				}
+
+				return actualDeviceRegistration;
+			}
+		}
+
+		return null;
+	}
+
+	private List<DeviceRegistration> searchUserDeviceRegistrations(String userInum, String appId, String ... returnAttributes) {
 		prepareBranch(userInum);
 
 		String baseDnForU2fDevices = getBaseDnForU2fUserDevices(userInum);
@@ -94,6 +180,16 @@ public class DeviceRegistrationService {
 			return new ArrayList<DeviceRegistration>(0);
 		}
 
+		final String indexKey = getKeyHandleKey(appId, keyHandle);
+		final String deviceDn = keyHandleIndex.getIfPresent(indexKey);
+		if (deviceDn != null) {
+			DeviceRegistration deviceRegistration = findDeviceRegistrationByDn(deviceDn, returnAttributes);
+			if (deviceRegistration != null) {
+				return Collections.singletonList(deviceRegistration);
+			}
+			keyHandleIndex.invalidate(indexKey);
+		}
+
 		byte[] keyHandleDecoded = Base64Util.base64urldecode(keyHandle);
 
 		String baseDn = userService.getDnForUser(null);
@@ -105,7 +201,21 @@ public class DeviceRegistrationService {
 
 		Filter filter = Filter.createANDFilter(deviceObjectClassFilter, deviceHashCodeFilter, appIdFilter, deviceKeyHandleFilter);
 
-		return ldapEntryManager.findEntries(baseDn, DeviceRegistration.class, filter, returnAttributes);
+		List<DeviceRegistration> deviceRegistrations = ldapEntryManager.findEntries(baseDn, DeviceRegistration.class, filter, returnAttributes);
+		if (deviceRegistrations.size() == 1) {
+			keyHandleIndex.put(indexKey, deviceRegistrations.get(0).getDn());
+		}
+
+		return deviceRegistrations;
+	}
+
+	private DeviceRegistration findDeviceRegistrationByDn(String deviceDn, String... returnAttributes) {
+		try {
+			return ldapEntryManager.find(deviceDn, DeviceRegistration.class, returnAttributes);
+		} catch (EntryPersistenceException ex) {
+			log.trace("Failed to find device registration by DN '{}'", deviceDn);
+			return null;
+		}
 	}
 
 	public DeviceRegistration findOneStepUserDeviceRegistration(String deviceId, String... returnAttributes) {
@@ -121,6 +231,7 @@ public class DeviceRegistrationService {
         deviceRegistration.clearExpiration();
 
 		ldapEntryManager.persist(deviceRegistration);
+		invalidateUserDeviceRegistrations(userInum);
 	}
 
 	public boolean attachUserDeviceRegistration(String userInum, String oneStepDeviceId) {
@@ -162,16 +273,57 @@ public class DeviceRegistrationService {
 		prepareBranch(userInum);
 
 		ldapEntryManager.merge(deviceRegistration);
+		invalidateUserDeviceRegistrations(userInum);
 	}
 
 	public void disableUserDeviceRegistration(DeviceRegistration deviceRegistration) {
 		deviceRegistration.setStatus(DeviceRegistrationStatus.COMPROMISED);
 
 		ldapEntryManager.merge(deviceRegistration);
+		invalidateUserDeviceRegistrations(deviceRegistration);
 	}
 
 	public void removeUserDeviceRegistration(DeviceRegistration deviceRegistration) {
 		ldapEntryManager.remove(deviceRegistration);
+		invalidateUserDeviceRegistrations(deviceRegistration);
+		if (StringHelper.isNotEmpty(deviceRegistration.getKeyHandle())) {
+			keyHandleIndex.invalidate(getKeyHandleKey(deviceRegistration.getApplication(), deviceRegistration.getKeyHandle()));
+		}
+	}
+
+	/**
+	 * Removes cached devices of user, e.g. after device was changed outside of this service.
+	 */
+	public void invalidateUserDeviceRegistrations(String userInum) {
+		if (StringHelper.isEmpty(userInum)) {
+			return;
+		}
+
+		final String prefix = userInum + "_";
+		userDevicesCache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+	}
+
+	private void invalidateUserDeviceRegistrations(DeviceRegistration deviceRegistration) {
+		String userInum = deviceRegistration.getUserInum();
+		if (StringHelper.isEmpty(userInum)) {
+			userInum = userService.getUserInumByDn(deviceRegistration.getDn());
+		}
+
+		invalidateUserDeviceRegistrations(userInum);
+	}
+
+	private void indexKeyHandle(String appId, DeviceRegistration deviceRegistration) {
+		if (StringHelper.isNotEmpty(deviceRegistration.getKeyHandle()) && StringHelper.isNotEmpty(deviceRegistration.getDn())) {
+			keyHandleIndex.put(getKeyHandleKey(appId, deviceRegistration.getKeyHandle()), deviceRegistration.getDn());
+		}
+	}
+
+	private static String getUserDevicesKey(String userInum, String appId) {
+		return userInum + "_" + appId;
+	}
+
+	private static String getKeyHandleKey(String appId, String keyHandle) {
+		return appId + "_" + keyHandle;
 	}
 
 	public List<DeviceRegistration> getExpiredDeviceRegistrations(BatchOperation<DeviceRegistration> batchOperation, Date expirationDate, String[] returnAttributes, int sizeLimit, int chunkSize) {
@@ -237,5 +389,6 @@ public class DeviceRegistrationService {
 
     public void merge(DeviceRegistration device) {
         ldapEntryManager.merge(device);
+        invalidateUserDeviceRegistrations(device);
     }
 }
@@ -116,6 +116,7 @@ public class OpenIdConfiguration extends HttpServlet {
 			jsonObj.put(ID_GENERATION_ENDPOINT, appConfiguration.getIdGenerationEndpoint());
 			jsonObj.put(INTROSPECTION_ENDPOINT, appConfiguration.getIntrospectionEndpoint());
 			jsonObj.put(DEVICE_AUTHZ_ENDPOINT, appConfiguration.getDeviceAuthzEndpoint());
+			jsonObj.put(PAR_ENDPOINT, appConfiguration.getParEndpoint());
 
 			JSONArray responseTypesSupported = new JSONArray();
 			for (Set<ResponseType> responseTypes : appConfiguration.getResponseTypesSupported()) {
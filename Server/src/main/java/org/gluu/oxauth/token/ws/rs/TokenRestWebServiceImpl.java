@@ -113,6 +113,9 @@ public class TokenRestWebServiceImpl implements TokenRestWebService {
     @Inject
     private CibaRequestService cibaRequestService;
 
+    @Inject
+    private PollingThrottleService pollingThrottleService;
+
     @Inject
     private DeviceAuthorizationService deviceAuthorizationService;
 
@@ -442,8 +445,15 @@ public class TokenRestWebServiceImpl implements TokenRestWebService {
                             scope,
                             idToken));
                 } else {
-                    log.debug("Invalid user", new RuntimeException("User is empty"));
-                    builder = error(401, TokenErrorResponseType.INVALID_CLIENT, "Invalid user.");
+                    int retryAfter = authenticationService.getRetryAfter();
+                    if (retryAfter > 0) {
+                        log.debug("Too many authentication attempts, retry after {} seconds", retryAfter);
+                        builder = error(429, TokenErrorResponseType.INVALID_GRANT, "Too many authentication attempts.")
+                                .header("Retry-After", retryAfter);
+                    } else {
+                        log.debug("Invalid user", new RuntimeException("User is empty"));
+                        builder = error(401, TokenErrorResponseType.INVALID_CLIENT, "Invalid user.");
+                    }
                 }
             } else if (gt == GrantType.CIBA) {
                 if (!appConfiguration.getCibaEnabled()) {
@@ -509,6 +519,14 @@ public class TokenRestWebServiceImpl implements TokenRestWebService {
                         builder = error(400, TokenErrorResponseType.UNAUTHORIZED_CLIENT, "The client is not authorized as it is configured in Push Mode");
                     }
                 } else {
+                    final long currentTime = new Date().getTime();
+                    final int intervalSeconds = appConfiguration.getBackchannelAuthenticationResponseInterval();
+                    final Long lastPollTime = pollingThrottleService.getLastPollTime(authReqId, client.getClientId());
+                    if (lastPollTime != null && pollingThrottleService.isTooFast(lastPollTime, currentTime, intervalSeconds)) {
+                        log.debug("Slow down protection authReqId: '{}'", authReqId);
+                        return response(error(400, TokenErrorResponseType.SLOW_DOWN, "Client is asking too fast the token."), oAuth2AuditLog);
+                    }
+
                     final CibaRequestCacheControl cibaRequest = cibaRequestService.getCibaRequest(authReqId);
                     log.trace("Ciba request : '{}'", cibaRequest);
                     if (cibaRequest != null) {
@@ -516,19 +534,10 @@ public class TokenRestWebServiceImpl implements TokenRestWebService {
                             builder = error(400, TokenErrorResponseType.INVALID_GRANT, "The client is not authorized.");
                             return response(builder, oAuth2AuditLog);
                         }
-                        long currentTime = new Date().getTime();
-                        Long lastAccess = cibaRequest.getLastAccessControl();
-                        if (lastAccess == null) {
-                            lastAccess = currentTime;
-                        }
-                        cibaRequest.setLastAccessControl(currentTime);
-                        cibaRequestService.update(cibaRequest);
+                        pollingThrottleService.setLastPollTime(authReqId, client.getClientId(), currentTime, cibaRequest.getExpiresIn());
 
                         if (cibaRequest.getStatus() == CibaRequestStatus.PENDING) {
-                            int intervalSeconds = appConfiguration.getBackchannelAuthenticationResponseInterval();
-                            long timeFromLastAccess = currentTime - lastAccess;
-
-                            if (timeFromLastAccess > intervalSeconds * 1000) {
+                            if (!pollingThrottleService.isTooFast(lastPollTime, currentTime, intervalSeconds)) {
                                 log.debug("Access hasn't been granted yet for authReqId: '{}'", authReqId);
                                 builder = error(400, TokenErrorResponseType.AUTHORIZATION_PENDING, "User hasn't answered yet");
                             } else {
@@ -648,6 +657,14 @@ public class TokenRestWebServiceImpl implements TokenRestWebService {
             return Response.ok().entity(getJSonResponse(accessToken, accessToken.getTokenType(),
                     accessToken.getExpiresIn(), reToken, scope, idToken)).build();
         } else {
+            final long currentTime = new Date().getTime();
+            final int intervalSeconds = appConfiguration.getBackchannelAuthenticationResponseInterval();
+            final Long lastPollTime = pollingThrottleService.getLastPollTime(deviceCode, client.getClientId());
+            if (lastPollTime != null && pollingThrottleService.isTooFast(lastPollTime, currentTime, intervalSeconds)) {
+                log.debug("Slow down protection deviceCode: '{}'", deviceCode);
+                throw new WebApplicationException(response(error(400, TokenErrorResponseType.SLOW_DOWN, "Client is asking too fast the token."), oAuth2AuditLog));
+            }
+
             final DeviceAuthorizationCacheControl cacheData = deviceAuthorizationService.getDeviceAuthzByDeviceCode(deviceCode);
             log.trace("DeviceAuthorizationCacheControl data : '{}'", cacheData);
             if (cacheData == null) {
@@ -657,19 +674,10 @@ public class TokenRestWebServiceImpl implements TokenRestWebService {
             if (!cacheData.getClient().getClientId().equals(client.getClientId())) {
                 throw new WebApplicationException(response(error(400, TokenErrorResponseType.INVALID_GRANT, "The client is not authorized."), oAuth2AuditLog));
             }
-            long currentTime = new Date().getTime();
-            Long lastAccess = cacheData.getLastAccessControl();
-            if (lastAccess == null) {
-                lastAccess = currentTime;
-            }
-            cacheData.setLastAccessControl(currentTime);
-            deviceAuthorizationService.saveInCache(cacheData, true, true);
+            pollingThrottleService.setLastPollTime(deviceCode, client.getClientId(), currentTime, cacheData.getExpiresIn());
 
             if (cacheData.getStatus() == DeviceAuthorizationStatus.PENDING) {
-                int intervalSeconds = appConfiguration.getBackchannelAuthenticationResponseInterval();
-                long timeFromLastAccess = currentTime - lastAccess;
-
-                if (timeFromLastAccess > intervalSeconds * 1000) {
+                if (!pollingThrottleService.isTooFast(lastPollTime, currentTime, intervalSeconds)) {
                     log.debug("Access hasn't been granted yet for deviceCode: '{}'", deviceCode);
                     throw new WebApplicationException(response(error(400, TokenErrorResponseType.AUTHORIZATION_PENDING, "User hasn't answered yet"), oAuth2AuditLog));
                 } else {
@@ -8,14 +8,18 @@ package org.gluu.oxauth.uma.service;
 
 import com.google.common.base.Preconditions;
 import org.apache.commons.lang.ArrayUtils;
+import org.apache.commons.lang.StringUtils;
 import org.gluu.oxauth.claims.Audience;
 import org.gluu.oxauth.model.common.ExecutionContext;
 import org.gluu.oxauth.model.common.GrantType;
 import org.gluu.oxauth.model.config.StaticConfiguration;
 import org.gluu.oxauth.model.config.WebKeysConfiguration;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.crypto.AbstractCryptoProvider;
+import org.gluu.oxauth.model.crypto.signature.AlgorithmFamily;
 import org.gluu.oxauth.model.crypto.signature.SignatureAlgorithm;
 import org.gluu.oxauth.model.jwt.Jwt;
+import org.gluu.oxauth.model.jwt.JwtClaimName;
 import org.gluu.oxauth.model.registration.Client;
 import org.gluu.oxauth.model.token.JwtSigner;
 import org.gluu.oxauth.model.uma.persistence.UmaPermission;
@@ -53,6 +57,8 @@ import java.util.*;
 public class UmaRptService {
 
     private static final String ORGUNIT_OF_RPT = "uma_rpt";
+    private static final String PERMISSIONS_CLAIM = "permissions";
+    private static final String PERMISSIONS_COUNT_CLAIM = "permissions_count";
 
     public static final int DEFAULT_RPT_LIFETIME = 3600;
 
@@ -86,6 +92,9 @@ public class UmaRptService {
     @Inject
     private StatService statService;
 
+    @Inject
+    private AbstractCryptoProvider cryptoProvider;
+
     private boolean containsBranch = false;
 
     public String createDn(String tokenCode) {
@@ -96,7 +105,10 @@ public class UmaRptService {
         return String.format("ou=%s,%s", ORGUNIT_OF_RPT, staticConfiguration.getBaseDn().getTokens());
     }
 
-    public void persist(UmaRPT rpt) {
+    /**
+     * @return true if RPT is persisted
+     */
+    public boolean persist(UmaRPT rpt) {
         try {
             Preconditions.checkNotNull(rpt.getClientId());
 
@@ -104,8 +116,10 @@ public class UmaRptService {
             rpt.setDn(createDn(rpt.getNotHashedCode()));
             rpt.setCode(TokenHashUtil.hash(rpt.getNotHashedCode()));
             ldapEntryManager.persist(rpt);
+            return true;
         } catch (Exception e) {
             log.error(e.getMessage(), e);
+            return false;
         }
     }
 
@@ -201,6 +215,13 @@ public class UmaRptService {
     }
 
     public UmaRPT createRPTAndPersist(ExecutionContext executionContext, List<UmaPermission> permissions) {
+        final UmaRPT rpt = createRPT(executionContext, permissions);
+        persist(rpt);
+        statService.reportUmaToken(GrantType.OXAUTH_UMA_TICKET);
+        return rpt;
+    }
+
+    UmaRPT createRPT(ExecutionContext executionContext, List<UmaPermission> permissions) {
         try {
             final Date creationDate = new Date();
             final Date expirationDate = rptExpirationDate();
@@ -215,8 +236,6 @@ public class UmaRptService {
 
             UmaRPT rpt = new UmaRPT(code, creationDate, expirationDate, null, client.getClientId());
             rpt.setPermissions(getPermissionDns(permissions));
-            persist(rpt);
-            statService.reportUmaToken(GrantType.OXAUTH_UMA_TICKET);
             return rpt;
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -224,6 +243,127 @@ public class UmaRptService {
         }
     }
 
+    /**
+     * Upgrades self-contained RPT. Permissions are carried by signed RPT, so instead of adding permissions to existing RPT
+     * new RPT is issued which contains requested permissions and permissions of existing RPT. Existing RPT is removed
+     * once new RPT is persisted.
+     */
+    public UmaRPT upgradeSelfContainedRpt(ExecutionContext executionContext, UmaRPT rpt, List<UmaPermission> permissions) {
+        final List<UmaPermission> allPermissions = new ArrayList<UmaPermission>(permissions);
+        final List<String> permissionDns = getPermissionDns(permissions);
+        for (UmaPermission permission : getRptPermissions(rpt)) {
+            if (!permissionDns.contains(permission.getDn())) {
+                allPermissions.add(permission);
+            }
+        }
+
+        final UmaRPT upgraded = createRPT(executionContext, allPermissions);
+        if (!persist(upgraded)) {
+            throw new RuntimeException("Failed to persist upgraded RPT, clientId: " + executionContext.getClient().getClientId());
+        }
+        statService.reportUmaToken(GrantType.OXAUTH_UMA_TICKET);
+
+        try {
+            ldapEntryManager.remove(rpt);
+        } catch (Exception e) {
+            log.error("Failed to remove RPT superseded by upgraded RPT, dn: " + rpt.getDn(), e);
+        }
+        return upgraded;
+    }
+
+    public boolean isSelfContained(Client client) {
+        return client.isRptAsJwt() && ServerUtil.isTrue(appConfiguration.getUmaRptSelfContained());
+    }
+
+    /**
+     * Validates self-contained RPT locally: signature by keys of this server (or client secret for HMAC algorithms),
+     * issuer and expiration. Revocation is not checked here, caller has to check persisted RPT entry.
+     *
+     * @param rptCode RPT
+     * @param rpt     persisted RPT entry
+     * @return jwt of RPT with permissions or null if RPT is not self-contained or can't be validated locally
+     */
+    public Jwt validateSelfContainedRpt(String rptCode, UmaRPT rpt) {
+        if (!ServerUtil.isTrue(appConfiguration.getUmaRptSelfContained())) {
+            return null;
+        }
+
+        final Jwt jwt = Jwt.parseSilently(rptCode);
+        if (jwt == null) {
+            return null;
+        }
+
+        // RPT issued before self-contained mode was turned on has no signed count of persisted permissions
+        // and may be upgraded by adding permissions to persisted entry only
+        final Integer permissionsCount = jwt.getClaims().getClaimAsInteger(PERMISSIONS_COUNT_CLAIM);
+        final int persistedCount = rpt.getPermissions() != null ? rpt.getPermissions().size() : 0;
+        if (permissionsCount == null || permissionsCount != persistedCount) {
+            log.trace("Permissions of RPT jwt do not match persisted RPT, dn: {}", rpt.getDn());
+            return null;
+        }
+
+        try {
+            final Date expirationDate = jwt.getClaims().getClaimAsDate(JwtClaimName.EXPIRATION_TIME);
+            if (expirationDate == null || expirationDate.before(new Date())) {
+                log.trace("RPT jwt is expired, dn: {}", rpt.getDn());
+                return null;
+            }
+            final String issuer = jwt.getClaims().getClaimAsString(JwtClaimName.ISSUER);
+            if (!StringUtils.equals(appConfiguration.getIssuer(), issuer)) {
+                log.trace("RPT jwt is issued by another issuer: {}", issuer);
+                return null;
+            }
+            if (!verifySignature(jwt)) {
+                log.debug("Failed to verify signature of RPT jwt, dn: {}", rpt.getDn());
+                return null;
+            }
+            return jwt;
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private boolean verifySignature(Jwt jwt) throws Exception {
+        final SignatureAlgorithm signatureAlgorithm = jwt.getHeader().getSignatureAlgorithm();
+        if (signatureAlgorithm == null || signatureAlgorithm == SignatureAlgorithm.NONE) {
+            return false;
+        }
+
+        String sharedSecret = null;
+        if (AlgorithmFamily.HMAC.equals(signatureAlgorithm.getFamily())) {
+            final Client client = clientService.getClient(jwt.getClaims().getClaimAsString("client_id"));
+            if (client == null) {
+                return false;
+            }
+            sharedSecret = clientService.decryptSecret(client.getClientSecret());
+        }
+        return cryptoProvider.verifySignature(jwt.getSigningInput(), jwt.getEncodedSignature(), jwt.getHeader().getKeyId(), null, sharedSecret, signatureAlgorithm);
+    }
+
+    /**
+     * @return permissions carried by self-contained RPT, expired permissions are skipped
+     */
+    public List<org.gluu.oxauth.model.uma.UmaPermission> getSelfContainedPermissions(Jwt jwt) throws IOException {
+        final List<org.gluu.oxauth.model.uma.UmaPermission> result = new ArrayList<org.gluu.oxauth.model.uma.UmaPermission>();
+        if (!jwt.getClaims().hasClaim(PERMISSIONS_CLAIM)) {
+            return result;
+        }
+
+        final org.gluu.oxauth.model.uma.UmaPermission[] permissions = ServerUtil.createJsonMapper()
+                .readValue(jwt.getClaims().getClaimAsString(PERMISSIONS_CLAIM), org.gluu.oxauth.model.uma.UmaPermission[].class);
+
+        final Integer now = ServerUtil.dateToSeconds(new Date());
+        for (org.gluu.oxauth.model.uma.UmaPermission permission : permissions) {
+            if (permission.getExpiresAt() != null && permission.getExpiresAt() < now) {
+                log.debug("Ignore permission, skip it in response because permission is expired. Resource id: {}", permission.getResourceId());
+                continue;
+            }
+            result.add(permission);
+        }
+        return result;
+    }
+
     public void merge(UmaRPT rpt) {
         rpt.resetTtlFromExpirationDate();
         ldapEntryManager.merge(rpt);
@@ -254,7 +394,12 @@ public class UmaRptService {
                 }
             }
 
-            jwt.getClaims().setClaim("permissions", buildPermissionsJSONObject(permissions));
+            jwt.getClaims().setClaim(PERMISSIONS_CLAIM, buildPermissionsJSONObject(permissions));
+        }
+        if (isSelfContained(client)) {
+            // permissions claim skips expired and invalid permissions, so count of persisted permissions is signed
+            // to detect RPT upgraded by adding permissions to persisted entry only
+            jwt.getClaims().setClaim(PERMISSIONS_COUNT_CLAIM, permissions != null ? permissions.size() : 0);
         }
         runScriptAndInjectValuesIntoJwt(jwt, executionContext);
 
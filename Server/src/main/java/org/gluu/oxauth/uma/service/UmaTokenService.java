@@ -105,6 +105,12 @@ public class UmaTokenService {
                 executionContext.setClient(client);
                 rpt = rptService.createRPTAndPersist(executionContext, permissions);
                 rptCode = rpt.getNotHashedCode();
+            } else if (rptService.isSelfContained(client)) {
+                ExecutionContext executionContext = new ExecutionContext(httpRequest, httpResponse);
+                executionContext.setClient(client);
+                rpt = rptService.upgradeSelfContainedRpt(executionContext, rpt, permissions);
+                rptCode = rpt.getNotHashedCode();
+                upgraded = true;
             } else if (rptService.addPermissionToRPT(rpt, permissions)) {
                 upgraded = true;
             }
@@ -7,6 +7,9 @@
 package org.gluu.oxauth.uma.ws.rs;
 
 import org.gluu.oxauth.model.error.ErrorResponseFactory;
+import org.gluu.oxauth.model.exception.InvalidJwtException;
+import org.gluu.oxauth.model.jwt.Jwt;
+import org.gluu.oxauth.model.jwt.JwtClaims;
 import org.gluu.oxauth.model.uma.RptIntrospectionResponse;
 import org.gluu.oxauth.model.uma.UmaConstants;
 import org.gluu.oxauth.model.uma.UmaErrorResponseType;
@@ -32,6 +35,7 @@ import javax.ws.rs.*;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -95,33 +99,7 @@ public class UmaRptIntrospectionWS {
                         build();
             }
 
-            final List<org.gluu.oxauth.model.uma.UmaPermission> permissions = buildStatusResponsePermissions(rpt);
-
-            // active status
-            final RptIntrospectionResponse statusResponse = new RptIntrospectionResponse();
-            statusResponse.setActive(true);
-            statusResponse.setExpiresAt(ServerUtil.dateToSeconds(rpt.getExpirationDate()));
-            statusResponse.setIssuedAt(ServerUtil.dateToSeconds(rpt.getCreationDate()));
-            statusResponse.setPermissions(permissions);
-            statusResponse.setClientId(rpt.getClientId());
-            statusResponse.setAud(rpt.getClientId());
-            statusResponse.setSub(rpt.getUserId());
-
-            final List<UmaPermission> rptPermissions = rptService.getRptPermissions(rpt);
-            if (!rptPermissions.isEmpty()) {
-                UmaPermission permission = rptPermissions.iterator().next();
-                String pctCode = permission.getAttributes().get(UmaPermission.PCT);
-                if (StringHelper.isNotEmpty(pctCode)) {
-                    UmaPCT pct = pctService.getByCode(pctCode);
-                    if (pct != null) {
-                        statusResponse.setPctClaims(pct.getClaims().toMap());
-                    } else {
-                        log.error("Failed to find PCT with code: " + pctCode + " which is taken from permission object: " + permission.getDn());
-                    }
-                } else {
-                    log.trace("PCT code is blank for RPT: " + rpt.getCode());
-                }
-            }
+            final RptIntrospectionResponse statusResponse = createStatusResponse(token, rpt);
 
             JSONObject rptAsJson = new JSONObject(ServerUtil.asJson(statusResponse));
 
@@ -148,6 +126,53 @@ public class UmaRptIntrospectionWS {
         }
     }
 
+    /**
+     * @return active status of valid RPT
+     */
+    RptIntrospectionResponse createStatusResponse(String token, UmaRPT rpt) throws IOException, InvalidJwtException {
+        // self-contained RPT carries permissions and PCT claims, persisted RPT is read only to check revocation
+        final Jwt rptJwt = rptService.validateSelfContainedRpt(token, rpt);
+        final List<org.gluu.oxauth.model.uma.UmaPermission> permissions = rptJwt != null ?
+                rptService.getSelfContainedPermissions(rptJwt) : buildStatusResponsePermissions(rpt);
+
+        final RptIntrospectionResponse statusResponse = new RptIntrospectionResponse();
+        statusResponse.setActive(true);
+        statusResponse.setExpiresAt(ServerUtil.dateToSeconds(rpt.getExpirationDate()));
+        statusResponse.setIssuedAt(ServerUtil.dateToSeconds(rpt.getCreationDate()));
+        statusResponse.setPermissions(permissions);
+        statusResponse.setClientId(rpt.getClientId());
+        statusResponse.setAud(rpt.getClientId());
+        statusResponse.setSub(rpt.getUserId());
+
+        if (rptJwt != null) {
+            final JSONObject pctClaims = rptJwt.getClaims().getClaimAsJSON("pct_claims");
+            if (pctClaims != null) {
+                statusResponse.setPctClaims(new JwtClaims(pctClaims).toMap());
+            }
+        } else {
+            setPctClaims(statusResponse, rpt);
+        }
+        return statusResponse;
+    }
+
+    private void setPctClaims(RptIntrospectionResponse statusResponse, UmaRPT rpt) throws InvalidJwtException {
+        final List<UmaPermission> rptPermissions = rptService.getRptPermissions(rpt);
+        if (!rptPermissions.isEmpty()) {
+            UmaPermission permission = rptPermissions.iterator().next();
+            String pctCode = permission.getAttributes().get(UmaPermission.PCT);
+            if (StringHelper.isNotEmpty(pctCode)) {
+                UmaPCT pct = pctService.getByCode(pctCode);
+                if (pct != null) {
+                    statusResponse.setPctClaims(pct.getClaims().toMap());
+                } else {
+                    log.error("Failed to find PCT with code: " + pctCode + " which is taken from permission object: " + permission.getDn());
+                }
+            } else {
+                log.trace("PCT code is blank for RPT: " + rpt.getCode());
+            }
+        }
+    }
+
     private boolean isValid(UmaRPT p_rpt) {
         if (p_rpt != null) {
             p_rpt.checkExpired();
@@ -0,0 +1,108 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2020, Gluu
+ */
+
+package org.gluu.oxauth.userinfo.ws.rs;
+
+import org.gluu.model.GluuAttribute;
+import org.oxauth.persistence.model.Scope;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Claims which userinfo endpoint returns for client, scopes and claims request: claim attributes of each scope,
+ * dynamic scopes and attributes of requested claims. Plan keeps names of user attributes which are needed to emit
+ * these claims, so user is read only with these attributes.
+ */
+public class UserInfoClaimPlan {
+
+    // attributes which are read always, e.g. for logging and claims which are mapped to entry fields
+    private static final String[] BASE_ATTRIBUTES = {"inum", "uid"};
+
+    private final List<ScopeClaims> scopeClaims;
+    private final List<Scope> dynamicScopes;
+    private final Map<String, GluuAttribute> requestedClaims;
+    private final Map<String, GluuAttribute> requestObjectClaims;
+    private final String[] returnAttributes;
+
+    public UserInfoClaimPlan(List<ScopeClaims> scopeClaims, List<Scope> dynamicScopes,
+                             Map<String, GluuAttribute> requestedClaims, Map<String, GluuAttribute> requestObjectClaims) {
+        this.scopeClaims = Collections.unmodifiableList(scopeClaims);
+        this.dynamicScopes = Collections.unmodifiableList(dynamicScopes);
+        this.requestedClaims = Collections.unmodifiableMap(new LinkedHashMap<>(requestedClaims));
+        this.requestObjectClaims = Collections.unmodifiableMap(new LinkedHashMap<>(requestObjectClaims));
+        this.returnAttributes = returnAttributes();
+    }
+
+    private String[] returnAttributes() {
+        final Set<String> attributes = new LinkedHashSet<>();
+        Collections.addAll(attributes, BASE_ATTRIBUTES);
+        for (ScopeClaims claims : scopeClaims) {
+            for (GluuAttribute attribute : claims.getAttributes()) {
+                attributes.add(attribute.getName());
+            }
+        }
+        for (GluuAttribute attribute : requestedClaims.values()) {
+            attributes.add(attribute.getName());
+        }
+        for (GluuAttribute attribute : requestObjectClaims.values()) {
+            attributes.add(attribute.getName());
+        }
+        return attributes.toArray(new String[0]);
+    }
+
+    public List<ScopeClaims> getScopeClaims() {
+        return scopeClaims;
+    }
+
+    public List<Scope> getDynamicScopes() {
+        return dynamicScopes;
+    }
+
+    /**
+     * @return attributes of claims requested with claims parameter by claim name
+     */
+    public Map<String, GluuAttribute> getRequestedClaims() {
+        return requestedClaims;
+    }
+
+    /**
+     * @return attributes of allowed claims requested in userinfo member of request object by claim name
+     */
+    public Map<String, GluuAttribute> getRequestObjectClaims() {
+        return requestObjectClaims;
+    }
+
+    /**
+     * @return names of user attributes which are needed to emit claims of plan
+     */
+    public String[] getReturnAttributes() {
+        return returnAttributes.clone();
+    }
+
+    public static class ScopeClaims {
+
+        private final Scope scope;
+        private final List<GluuAttribute> attributes;
+
+        public ScopeClaims(Scope scope, List<GluuAttribute> attributes) {
+            this.scope = scope;
+            this.attributes = Collections.unmodifiableList(attributes);
+        }
+
+        public Scope getScope() {
+            return scope;
+        }
+
+        public List<GluuAttribute> getAttributes() {
+            return attributes;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * oxAuth is available under the MIT License (2008). See http://opensource.org/licenses/MIT for full text.
+ *
+ * Copyright (c) 2020, Gluu
+ */
+
+package org.gluu.oxauth.userinfo.ws.rs;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.gluu.model.GluuAttribute;
+import org.gluu.oxauth.model.authorize.Claim;
+import org.gluu.oxauth.model.common.AuthorizationGrant;
+import org.gluu.oxauth.model.common.ScopeType;
+import org.gluu.oxauth.model.registration.Client;
+import org.gluu.oxauth.service.AttributeService;
+import org.gluu.oxauth.service.ScopeService;
+import org.json.JSONObject;
+import org.oxauth.persistence.model.Scope;
+import org.slf4j.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds and keeps userinfo claim plans by client, scopes and requested claims, so scope, attribute and claim name
+ * lookups are not repeated on each userinfo call. Plans are kept for short time, so changes of scopes and attributes
+ * are picked up without explicit invalidation.
+ */
+@ApplicationScoped
+public class UserInfoClaimPlanService {
+
+    private static final int CACHE_SIZE_LIMIT = 10000;
+    private static final int CACHE_LIFETIME_IN_SECONDS = 60;
+
+    private final Cache<String, UserInfoClaimPlan> planCache = CacheBuilder.newBuilder()
+            .maximumSize(CACHE_SIZE_LIMIT)
+            .expireAfterWrite(CACHE_LIFETIME_IN_SECONDS, TimeUnit.SECONDS)
+            .build();
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private ScopeService scopeService;
+
+    @Inject
+    private AttributeService attributeService;
+
+    public UserInfoClaimPlan getPlan(AuthorizationGrant authorizationGrant, Collection<String> scopes) {
+        final List<Claim> requestObjectClaims = getRequestObjectClaims(authorizationGrant);
+        final String key = key(authorizationGrant, scopes, requestObjectClaims);
+
+        UserInfoClaimPlan plan = planCache.getIfPresent(key);
+        if (plan != null) {
+            return plan;
+        }
+
+        plan = createPlan(authorizationGrant, scopes, requestObjectClaims);
+        planCache.put(key, plan);
+        log.trace("Created userinfo claim plan, key: {}, attributes: {}", key, plan.getReturnAttributes());
+        return plan;
+    }
+
+    public void invalidateAll() {
+        planCache.invalidateAll();
+    }
+
+    private UserInfoClaimPlan createPlan(AuthorizationGrant authorizationGrant, Collection<String> scopes, List<Claim> requestObjectClaims) {
+        final List<UserInfoClaimPlan.ScopeClaims> scopeClaims = new ArrayList<>();
+        final List<Scope> dynamicScopes = new ArrayList<>();
+        for (String scopeName : scopes) {
+            Scope scope = scopeService.getScopeById(scopeName);
+            if (scope == null) {
+                continue;
+            }
+            if (ScopeType.DYNAMIC == scope.getScopeType()) {
+                dynamicScopes.add(scope);
+                continue;
+            }
+            scopeClaims.add(new UserInfoClaimPlan.ScopeClaims(scope, scopeService.getClaimAttributes(scope)));
+        }
+
+        final Map<String, GluuAttribute> requestedClaims = new LinkedHashMap<>();
+        if (authorizationGrant.getClaims() != null) {
+            JSONObject claimsObj = new JSONObject(authorizationGrant.getClaims());
+            if (claimsObj.has("userinfo")) {
+                JSONObject userInfoObj = claimsObj.getJSONObject("userinfo");
+                for (Iterator<String> it = userInfoObj.keys(); it.hasNext(); ) {
+                    String claimName = it.next();
+                    GluuAttribute gluuAttribute = attributeService.getByClaimName(claimName);
+                    if (gluuAttribute != null) {
+                        requestedClaims.put(claimName, gluuAttribute);
+                    }
+                }
+            }
+        }
+
+        final Map<String, GluuAttribute> allowedRequestObjectClaims = new LinkedHashMap<>();
+        for (Claim claim : requestObjectClaims) {
+            GluuAttribute gluuAttribute = attributeService.getByClaimName(claim.getName());
+            if (gluuAttribute != null && validateRequesteClaim(gluuAttribute, authorizationGrant.getClient().getClaims(), scopes)) {
+                allowedRequestObjectClaims.put(claim.getName(), gluuAttribute);
+            }
+        }
+
+        return new UserInfoClaimPlan(scopeClaims, dynamicScopes, requestedClaims, allowedRequestObjectClaims);
+    }
+
+    public boolean validateRequesteClaim(GluuAttribute gluuAttribute, String[] clientAllowedClaims, Collection<String> scopes) {
+        if (gluuAttribute == null) {
+            log.trace("gluuAttribute is null.");
+            return false;
+        }
+        if (clientAllowedClaims != null) {
+            for (String clientAllowedClaim : clientAllowedClaims) {
+                if (gluuAttribute.getDn().equals(clientAllowedClaim)) {
+                    return true;
+                }
+            }
+        }
+
+        for (String scopeName : scopes) {
+            Scope scope = scopeService.getScopeById(scopeName);
+
+            if (scope != null && scope.getOxAuthClaims() != null) {
+                for (String claimDn : scope.getOxAuthClaims()) {
+                    if (gluuAttribute.getDisplayName().equals(attributeService.getAttributeByDn(claimDn).getDisplayName())) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static List<Claim> getRequestObjectClaims(AuthorizationGrant authorizationGrant) {
+        if (authorizationGrant.getJwtAuthorizationRequest() != null
+                && authorizationGrant.getJwtAuthorizationRequest().getUserInfoMember() != null) {
+            return authorizationGrant.getJwtAuthorizationRequest().getUserInfoMember().getClaims();
+        }
+        return new ArrayList<>();
+    }
+
+    private static String key(AuthorizationGrant authorizationGrant, Collection<String> scopes, List<Claim> requestObjectClaims) {
+        final Client client = authorizationGrant.getClient();
+        final StringBuilder key = new StringBuilder();
+        key.append(client != null ? client.getClientId() : "").append('|');
+        key.append(new TreeSet<>(scopes)).append('|');
+        key.append(authorizationGrant.getClaims()).append('|');
+        for (Claim claim : requestObjectClaims) {
+            key.append(claim.getName()).append(',');
+        }
+        if (!requestObjectClaims.isEmpty() && client != null && client.getClaims() != null) {
+            key.append('|').append(Arrays.toString(client.getClaims()));
+        }
+        return key.toString();
+    }
+}
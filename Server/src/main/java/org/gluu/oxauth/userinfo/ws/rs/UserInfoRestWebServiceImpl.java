@@ -11,7 +11,6 @@ import org.gluu.oxauth.audit.ApplicationAuditLogger;
 import org.gluu.oxauth.claims.Audience;
 import org.gluu.oxauth.model.audit.Action;
 import org.gluu.oxauth.model.audit.OAuth2AuditLog;
-import org.gluu.oxauth.model.authorize.Claim;
 import org.gluu.oxauth.model.common.*;
 import org.gluu.oxauth.model.config.WebKeysConfiguration;
 import org.gluu.oxauth.model.configuration.AppConfiguration;
@@ -20,22 +19,16 @@ import org.gluu.oxauth.model.crypto.encryption.BlockEncryptionAlgorithm;
 import org.gluu.oxauth.model.crypto.encryption.KeyEncryptionAlgorithm;
 import org.gluu.oxauth.model.crypto.signature.SignatureAlgorithm;
 import org.gluu.oxauth.model.error.ErrorResponseFactory;
-import org.gluu.oxauth.model.exception.InvalidJweException;
 import org.gluu.oxauth.model.jwe.Jwe;
-import org.gluu.oxauth.model.jwe.JweEncrypter;
-import org.gluu.oxauth.model.jwe.JweEncrypterImpl;
 import org.gluu.oxauth.model.jwk.Algorithm;
-import org.gluu.oxauth.model.jwk.JSONWebKeySet;
 import org.gluu.oxauth.model.jwk.Use;
 import org.gluu.oxauth.model.jwt.Jwt;
 import org.gluu.oxauth.model.jwt.JwtClaims;
 import org.gluu.oxauth.model.jwt.JwtSubClaimObject;
 import org.gluu.oxauth.model.jwt.JwtType;
-import org.gluu.oxauth.model.registration.Client;
 import org.gluu.oxauth.model.token.JsonWebResponse;
 import org.gluu.oxauth.model.userinfo.UserInfoErrorResponseType;
 import org.gluu.oxauth.model.userinfo.UserInfoParamsValidator;
-import org.gluu.oxauth.model.util.Util;
 import org.gluu.oxauth.service.*;
 import org.gluu.oxauth.service.date.DateFormatterService;
 import org.gluu.oxauth.service.external.ExternalDynamicScopeService;
@@ -43,7 +36,6 @@ import org.gluu.oxauth.service.external.context.DynamicScopeExternalContext;
 import org.gluu.oxauth.service.token.TokenService;
 import org.gluu.oxauth.util.ServerUtil;
 import org.gluu.persist.exception.EntryPersistenceException;
-import org.json.JSONObject;
 import org.oxauth.persistence.model.Scope;
 import org.slf4j.Logger;
 
@@ -54,7 +46,6 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
 import java.io.Serializable;
-import java.security.PublicKey;
 import java.util.*;
 
 /**
@@ -84,9 +75,6 @@ public class UserInfoRestWebServiceImpl implements UserInfoRestWebService {
     @Inject
     private ScopeService scopeService;
 
-    @Inject
-    private AttributeService attributeService;
-
     @Inject
     private UserService userService;
 
@@ -108,6 +96,12 @@ public class UserInfoRestWebServiceImpl implements UserInfoRestWebService {
     @Inject
     private DateFormatterService dateFormatterService;
 
+    @Inject
+    private JweCacheService jweCacheService;
+
+    @Inject
+    private UserInfoClaimPlanService userInfoClaimPlanService;
+
     @Override
     public Response requestUserInfoGet(String accessToken, String authorization, HttpServletRequest request, SecurityContext securityContext) {
         return requestUserInfo(accessToken, authorization, request, securityContext);
@@ -165,9 +159,11 @@ public class UserInfoRestWebServiceImpl implements UserInfoRestWebService {
             builder.cacheControl(ServerUtil.cacheControlWithNoStoreTransformAndPrivate());
             builder.header("Pragma", "no-cache");
 
+            // user is read only with attributes which are needed for claims of plan
+            final UserInfoClaimPlan plan = userInfoClaimPlanService.getPlan(authorizationGrant, authorizationGrant.getScopes());
             User currentUser = authorizationGrant.getUser();
             try {
-                currentUser = userService.getUserByDn(authorizationGrant.getUserDn());
+                currentUser = userService.getUserByDn(authorizationGrant.getUserDn(), plan.getReturnAttributes());
             } catch (EntryPersistenceException ex) {
                 log.warn("Failed to reload user entry: '{}'", authorizationGrant.getUserDn());
             }
@@ -183,7 +179,7 @@ public class UserInfoRestWebServiceImpl implements UserInfoRestWebService {
                         blockEncryptionAlgorithm,
                         currentUser,
                         authorizationGrant,
-                        authorizationGrant.getScopes()));
+                        plan));
             } else if (authorizationGrant.getClient() != null
                     && authorizationGrant.getClient().getUserInfoSignedResponseAlg() != null) {
                 SignatureAlgorithm algorithm = SignatureAlgorithm.fromString(authorizationGrant.getClient().getUserInfoSignedResponseAlg());
@@ -191,12 +187,12 @@ public class UserInfoRestWebServiceImpl implements UserInfoRestWebService {
                 builder.entity(getJwtResponse(algorithm,
                         currentUser,
                         authorizationGrant,
-                        authorizationGrant.getScopes()));
+                        plan));
             } else {
                 builder.type((MediaType.APPLICATION_JSON + ";charset=UTF-8"));
                 builder.entity(getJSonResponse(currentUser,
                         authorizationGrant,
-                        authorizationGrant.getScopes()));
+                        plan));
             }
             return builder.build();
         } catch (Exception e) {
@@ -221,8 +217,8 @@ public class UserInfoRestWebServiceImpl implements UserInfoRestWebService {
     }
 
     private String getJwtResponse(SignatureAlgorithm signatureAlgorithm, User user, AuthorizationGrant authorizationGrant,
-                                  Collection<String> scopes) throws Exception {
-        log.trace("Building JWT reponse with next scopes {0} for user {1} and user custom attributes {0}", scopes, user.getUserId(), user.getCustomAttributes());
+                                  UserInfoClaimPlan plan) throws Exception {
+        log.trace("Building JWT reponse with next scopes {0} for user {1} and user custom attributes {0}", authorizationGrant.getScopes(), user.getUserId(), user.getCustomAttributes());
 
         Jwt jwt = new Jwt();
 
@@ -236,7 +232,7 @@ public class UserInfoRestWebServiceImpl implements UserInfoRestWebService {
         }
 
         // Claims
-        jwt.setClaims(createJwtClaims(user, authorizationGrant, scopes));
+        jwt.setClaims(createJwtClaims(user, authorizationGrant, plan));
 
         // Signature
         String sharedSecret = clientService.decryptSecret(authorizationGrant.getClient().getClientSecret());
@@ -246,9 +242,8 @@ public class UserInfoRestWebServiceImpl implements UserInfoRestWebService {
         return jwt.toString();
     }
 
-    private JwtClaims createJwtClaims(User user, AuthorizationGrant authorizationGrant, Collection<String> scopes) throws Exception {
-        String claimsString = getJSonResponse(user, authorizationGrant, scopes);
-        JwtClaims claims = new JwtClaims(new JSONObject(claimsString));
+    private JwtClaims createJwtClaims(User user, AuthorizationGrant authorizationGrant, UserInfoClaimPlan plan) throws Exception {
+        JwtClaims claims = createClaims(user, authorizationGrant, plan).getClaims();
 
         claims.setIssuer(appConfiguration.getIssuer());
         Audience.setAudience(claims, authorizationGrant.getClient());
@@ -257,8 +252,8 @@ public class UserInfoRestWebServiceImpl implements UserInfoRestWebService {
 
     public String getJweResponse(
             KeyEncryptionAlgorithm keyEncryptionAlgorithm, BlockEncryptionAlgorithm blockEncryptionAlgorithm,
-            User user, AuthorizationGrant authorizationGrant, Collection<String> scopes) throws Exception {
-        log.trace("Building JWE reponse with next scopes {0} for user {1} and user custom attributes {0}", scopes, user.getUserId(), user.getCustomAttributes());
+            User user, AuthorizationGrant authorizationGrant, UserInfoClaimPlan plan) throws Exception {
+        log.trace("Building JWE reponse with next scopes {0} for user {1} and user custom attributes {0}", authorizationGrant.getScopes(), user.getUserId(), user.getCustomAttributes());
 
         Jwe jwe = new Jwe();
 
@@ -268,32 +263,14 @@ public class UserInfoRestWebServiceImpl implements UserInfoRestWebService {
         jwe.getHeader().setEncryptionMethod(blockEncryptionAlgorithm);
 
         // Claims
-        jwe.setClaims(createJwtClaims(user, authorizationGrant, scopes));
+        jwe.setClaims(createJwtClaims(user, authorizationGrant, plan));
 
         // Encryption
         if (keyEncryptionAlgorithm == KeyEncryptionAlgorithm.RSA_OAEP
-                || keyEncryptionAlgorithm == KeyEncryptionAlgorithm.RSA1_5) {
-            JSONObject jsonWebKeys = ServerUtil.getJwks(authorizationGrant.getClient());
-            String keyId = new ServerCryptoProvider(cryptoProvider).getKeyId(JSONWebKeySet.fromJSONObject(jsonWebKeys),
-                    Algorithm.fromString(keyEncryptionAlgorithm.getName()),
-                    Use.ENCRYPTION);
-            PublicKey publicKey = cryptoProvider.getPublicKey(keyId, jsonWebKeys, null);
-
-            if (publicKey != null) {
-                JweEncrypter jweEncrypter = new JweEncrypterImpl(keyEncryptionAlgorithm, blockEncryptionAlgorithm, publicKey);
-                jwe = jweEncrypter.encrypt(jwe);
-            } else {
-                throw new InvalidJweException("The public key is not valid");
-            }
-        } else if (keyEncryptionAlgorithm == KeyEncryptionAlgorithm.A128KW
+                || keyEncryptionAlgorithm == KeyEncryptionAlgorithm.RSA1_5
+                || keyEncryptionAlgorithm == KeyEncryptionAlgorithm.A128KW
                 || keyEncryptionAlgorithm == KeyEncryptionAlgorithm.A256KW) {
-            try {
-                byte[] sharedSymmetricKey = clientService.decryptSecret(authorizationGrant.getClient().getClientSecret()).getBytes(Util.UTF8_STRING_ENCODING);
-                JweEncrypter jweEncrypter = new JweEncrypterImpl(keyEncryptionAlgorithm, blockEncryptionAlgorithm, sharedSymmetricKey);
-                jwe = jweEncrypter.encrypt(jwe);
-            } catch (Exception e) {
-                throw new InvalidJweException(e);
-            }
+            jwe = jweCacheService.encrypt(jwe, authorizationGrant.getClient(), keyEncryptionAlgorithm, blockEncryptionAlgorithm);
         }
 
         return jwe.toString();
@@ -302,27 +279,26 @@ public class UserInfoRestWebServiceImpl implements UserInfoRestWebService {
     /**
      * Builds a JSon String with the response parameters.
      */
-    public String getJSonResponse(User user, AuthorizationGrant authorizationGrant, Collection<String> scopes)
+    public String getJSonResponse(User user, AuthorizationGrant authorizationGrant, UserInfoClaimPlan plan)
             throws Exception {
-        log.trace("Building JSON reponse with next scopes {0} for user {1} and user custom attributes {0}", scopes, user.getUserId(), user.getCustomAttributes());
+        log.trace("Building JSON reponse with next scopes {0} for user {1} and user custom attributes {0}", authorizationGrant.getScopes(), user.getUserId(), user.getCustomAttributes());
 
+        return createClaims(user, authorizationGrant, plan).toString();
+    }
+
+    /**
+     * Emits claims of plan. Claims are set directly to claims object which is used as is for JSON, JWT and JWE responses.
+     */
+    private JsonWebResponse createClaims(User user, AuthorizationGrant authorizationGrant, UserInfoClaimPlan plan)
+            throws Exception {
         JsonWebResponse jsonWebResponse = new JsonWebResponse();
 
         // Claims
-        List<Scope> dynamicScopes = new ArrayList<Scope>();
-        for (String scopeName : scopes) {
-            org.oxauth.persistence.model.Scope scope = scopeService.getScopeById(scopeName);
-            if ((scope != null) && (org.gluu.oxauth.model.common.ScopeType.DYNAMIC == scope.getScopeType())) {
-                dynamicScopes.add(scope);
-                continue;
-            }
-
-            Map<String, Object> claims = scopeService.getClaims(user, scope);
-            if (claims == null) {
-                continue;
-            }
+        for (UserInfoClaimPlan.ScopeClaims scopeClaims : plan.getScopeClaims()) {
+            final Scope scope = scopeClaims.getScope();
+            Map<String, Object> claims = scopeService.getClaims(user, scopeClaims.getAttributes());
 
-            if (scope != null && Boolean.TRUE.equals(scope.isOxAuthGroupClaims())) {
+            if (Boolean.TRUE.equals(scope.isOxAuthGroupClaims())) {
                 JwtSubClaimObject groupClaim = new JwtSubClaimObject();
                 groupClaim.setName(scope.getId());
                 for (Map.Entry<String, Object> entry : claims.entrySet()) {
@@ -357,79 +333,31 @@ public class UserInfoRestWebServiceImpl implements UserInfoRestWebService {
             }
         }
 
-        if (authorizationGrant.getClaims() != null) {
-            JSONObject claimsObj = new JSONObject(authorizationGrant.getClaims());
-            if (claimsObj.has("userinfo")) {
-                JSONObject userInfoObj = claimsObj.getJSONObject("userinfo");
-                for (Iterator<String> it = userInfoObj.keys(); it.hasNext(); ) {
-                    String claimName = it.next();
-                    boolean optional = true; // ClaimValueType.OPTIONAL.equals(claim.getClaimValue().getClaimValueType());
-                    GluuAttribute gluuAttribute = attributeService.getByClaimName(claimName);
-
-                    if (gluuAttribute != null) {
-                        String ldapClaimName = gluuAttribute.getName();
-
-                        Object attribute = user.getAttribute(ldapClaimName, optional, gluuAttribute.getOxMultiValuedAttribute());
-                        jsonWebResponse.getClaims().setClaimFromJsonObject(claimName, attribute);
-                    }
-                }
-            }
+        boolean optional = true; // ClaimValueType.OPTIONAL.equals(claim.getClaimValue().getClaimValueType());
+        for (Map.Entry<String, GluuAttribute> entry : plan.getRequestedClaims().entrySet()) {
+            GluuAttribute gluuAttribute = entry.getValue();
+            Object attribute = user.getAttribute(gluuAttribute.getName(), optional, gluuAttribute.getOxMultiValuedAttribute());
+            jsonWebResponse.getClaims().setClaimFromJsonObject(entry.getKey(), attribute);
         }
 
-        if (authorizationGrant.getJwtAuthorizationRequest() != null
-                && authorizationGrant.getJwtAuthorizationRequest().getUserInfoMember() != null) {
-            for (Claim claim : authorizationGrant.getJwtAuthorizationRequest().getUserInfoMember().getClaims()) {
-                boolean optional = true; // ClaimValueType.OPTIONAL.equals(claim.getClaimValue().getClaimValueType());
-                GluuAttribute gluuAttribute = attributeService.getByClaimName(claim.getName());
-
-                if (gluuAttribute != null) {
-                    Client client = authorizationGrant.getClient();
-
-                    if (validateRequesteClaim(gluuAttribute, client.getClaims(), scopes)) {
-                        String ldapClaimName = gluuAttribute.getName();
-                        Object attribute = user.getAttribute(ldapClaimName, optional, gluuAttribute.getOxMultiValuedAttribute());
-                        jsonWebResponse.getClaims().setClaimFromJsonObject(claim.getName(), attribute);
-                    }
-                }
-            }
+        for (Map.Entry<String, GluuAttribute> entry : plan.getRequestObjectClaims().entrySet()) {
+            GluuAttribute gluuAttribute = entry.getValue();
+            Object attribute = user.getAttribute(gluuAttribute.getName(), optional, gluuAttribute.getOxMultiValuedAttribute());
+            jsonWebResponse.getClaims().setClaimFromJsonObject(entry.getKey(), attribute);
         }
 
         jsonWebResponse.getClaims().setSubjectIdentifier(authorizationGrant.getSub());
 
-        if ((dynamicScopes.size() > 0) && externalDynamicScopeService.isEnabled()) {
+        if (!plan.getDynamicScopes().isEmpty() && externalDynamicScopeService.isEnabled()) {
             final UnmodifiableAuthorizationGrant unmodifiableAuthorizationGrant = new UnmodifiableAuthorizationGrant(authorizationGrant);
-            DynamicScopeExternalContext dynamicScopeContext = new DynamicScopeExternalContext(dynamicScopes, jsonWebResponse, unmodifiableAuthorizationGrant);
+            DynamicScopeExternalContext dynamicScopeContext = new DynamicScopeExternalContext(new ArrayList<>(plan.getDynamicScopes()), jsonWebResponse, unmodifiableAuthorizationGrant);
             externalDynamicScopeService.executeExternalUpdateMethods(dynamicScopeContext);
         }
 
-        return jsonWebResponse.toString();
+        return jsonWebResponse;
     }
 
     public boolean validateRequesteClaim(GluuAttribute gluuAttribute, String[] clientAllowedClaims, Collection<String> scopes) {
-        if (gluuAttribute == null) {
-            log.trace("gluuAttribute is null.");
-            return false;
-        }
-        if (clientAllowedClaims != null) {
-            for (String clientAllowedClaim : clientAllowedClaims) {
-                if (gluuAttribute.getDn().equals(clientAllowedClaim)) {
-                    return true;
-                }
-            }
-        }
-
-        for (String scopeName : scopes) {
-            org.oxauth.persistence.model.Scope scope = scopeService.getScopeById(scopeName);
-
-            if (scope != null && scope.getOxAuthClaims() != null) {
-                for (String claimDn : scope.getOxAuthClaims()) {
-                    if (gluuAttribute.getDisplayName().equals(attributeService.getAttributeByDn(claimDn).getDisplayName())) {
-                        return true;
-                    }
-                }
-            }
-        }
-
-        return false;
+        return userInfoClaimPlanService.validateRequesteClaim(gluuAttribute, clientAllowedClaims, scopes);
     }
 }
\ No newline at end of file
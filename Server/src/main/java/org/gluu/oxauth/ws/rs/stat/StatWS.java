@@ -12,6 +12,7 @@ import org.gluu.oxauth.model.error.ErrorResponseFactory;
 import org.gluu.oxauth.model.stat.StatEntry;
 import org.gluu.oxauth.model.token.TokenErrorResponseType;
 import org.gluu.oxauth.security.Identity;
+import org.gluu.oxauth.service.external.ScriptExecutionService;
 import org.gluu.oxauth.service.stat.StatService;
 import org.gluu.oxauth.service.token.TokenService;
 import org.gluu.oxauth.util.ServerUtil;
@@ -74,6 +75,9 @@ public class StatWS {
     @Inject
     private TokenService tokenService;
 
+    @Inject
+    private ScriptExecutionService scriptExecutionService;
+
     private long lastProcessedAt;
 
     @GET
@@ -88,6 +92,25 @@ public class StatWS {
         return stat(authorization, month, format);
     }
 
+    /**
+     * Custom script execution latency and outcome counters of current node in open metrics format.
+     */
+    @GET
+    @Path("/scripts")
+    @Produces(TextFormat.CONTENT_TYPE_004)
+    public Response scriptStatGet(@HeaderParam("Authorization") String authorization) {
+        validateAuthorization(authorization);
+
+        try {
+            Writer writer = new StringWriter();
+            scriptExecutionService.writeMetrics(writer);
+            return Response.ok().entity(writer.toString()).build();
+        } catch (IOException e) {
+            log.error(e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     public Response stat(String authorization, String month, String format) {
         log.debug("Attempting to request stat, month: " + month + ", format: " + format);
 
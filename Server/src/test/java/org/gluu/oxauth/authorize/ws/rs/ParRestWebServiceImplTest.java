@@ -0,0 +1,174 @@
+package org.gluu.oxauth.authorize.ws.rs;
+
+import org.gluu.oxauth.audit.ApplicationAuditLogger;
+import org.gluu.oxauth.model.authorize.PushedAuthorizationRequest;
+import org.gluu.oxauth.model.common.AuthenticationMethod;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.error.ErrorResponseFactory;
+import org.gluu.oxauth.model.error.IErrorType;
+import org.gluu.oxauth.model.registration.Client;
+import org.gluu.oxauth.model.session.SessionClient;
+import org.gluu.oxauth.security.Identity;
+import org.gluu.oxauth.service.ClientService;
+import org.gluu.oxauth.service.ParService;
+import org.gluu.oxauth.service.RedirectionUriService;
+import org.json.JSONObject;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+@Listeners(MockitoTestNGListener.class)
+public class ParRestWebServiceImplTest {
+
+    private static final String CLIENT_ID = "client";
+    private static final String REDIRECT_URI = "https://client.example.com/cb";
+
+    @InjectMocks
+    private ParRestWebServiceImpl parRestWebService;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private ApplicationAuditLogger applicationAuditLogger;
+
+    @Mock
+    private ErrorResponseFactory errorResponseFactory;
+
+    @Mock
+    private Identity identity;
+
+    @Mock
+    private AppConfiguration appConfiguration;
+
+    @Mock
+    private ClientService clientService;
+
+    @Mock
+    private RedirectionUriService redirectionUriService;
+
+    @Mock
+    private ParService parService;
+
+    @Mock
+    private HttpServletRequest httpRequest;
+
+    @Mock
+    private HttpServletResponse httpResponse;
+
+    private final Map<String, String[]> requestParameters = new HashMap<>();
+
+    @BeforeMethod
+    public void setUp() {
+        requestParameters.clear();
+        requestParameters.put("client_id", new String[] {CLIENT_ID});
+        requestParameters.put("response_type", new String[] {"code"});
+        requestParameters.put("redirect_uri", new String[] {REDIRECT_URI});
+        requestParameters.put("client_secret", new String[] {"secret"});
+
+        lenient().when(httpRequest.getParameterMap()).thenReturn(requestParameters);
+        lenient().when(errorResponseFactory.createWebApplicationException(any(Response.Status.class), any(IErrorType.class), anyString()))
+                .thenAnswer(invocation -> new WebApplicationException(Response.status(invocation.getArgument(0, Response.Status.class)).build()));
+        lenient().when(parService.create(anyString(), anyMap()))
+                .thenAnswer(invocation -> new PushedAuthorizationRequest(ParService.PAR_REQUEST_URI_PREFIX + "1", invocation.getArgument(0), invocation.getArgument(1), 60));
+        lenient().when(redirectionUriService.validateRedirectionUri(any(Client.class), eq(REDIRECT_URI))).thenReturn(REDIRECT_URI);
+    }
+
+    @Test
+    public void requestPushedAuthorization_authenticatedClient_shouldIssueRequestUri() throws Exception {
+        authenticated(client(AuthenticationMethod.CLIENT_SECRET_BASIC));
+
+        Response response = push(null);
+
+        assertEquals(response.getStatus(), Response.Status.CREATED.getStatusCode());
+        JSONObject json = new JSONObject((String) response.getEntity());
+        assertEquals(json.getString("request_uri"), ParService.PAR_REQUEST_URI_PREFIX + "1");
+        assertEquals(json.getInt("expires_in"), 60);
+
+        verify(parService).persist(argThat(par -> CLIENT_ID.equals(par.getClientId())
+                && "code".equals(par.getParameter("response_type"))
+                && par.getParameter("client_secret") == null));
+    }
+
+    @Test
+    public void requestPushedAuthorization_confidentialClientNotAuthenticated_shouldBeRejected() {
+        when(clientService.getClient(CLIENT_ID)).thenReturn(client(AuthenticationMethod.CLIENT_SECRET_BASIC));
+        when(clientService.isPublic(any(Client.class))).thenReturn(false);
+
+        assertStatus(null, Response.Status.UNAUTHORIZED);
+        verify(parService, never()).persist(any());
+    }
+
+    @Test
+    public void requestPushedAuthorization_publicClient_shouldIssueRequestUri() {
+        when(clientService.getClient(CLIENT_ID)).thenReturn(client(AuthenticationMethod.NONE));
+        when(clientService.isPublic(any(Client.class))).thenReturn(true);
+
+        assertEquals(push(null).getStatus(), Response.Status.CREATED.getStatusCode());
+        verify(parService).persist(any());
+    }
+
+    @Test
+    public void requestPushedAuthorization_requestUriInRequest_shouldBeRejected() {
+        authenticated(client(AuthenticationMethod.CLIENT_SECRET_BASIC));
+
+        assertStatus(ParService.PAR_REQUEST_URI_PREFIX + "other", Response.Status.BAD_REQUEST);
+        verify(parService, never()).persist(any());
+    }
+
+    @Test
+    public void requestPushedAuthorization_invalidRedirectUri_shouldBeRejected() {
+        authenticated(client(AuthenticationMethod.CLIENT_SECRET_BASIC));
+        when(redirectionUriService.validateRedirectionUri(any(Client.class), eq(REDIRECT_URI))).thenReturn(null);
+
+        assertStatus(null, Response.Status.BAD_REQUEST);
+        verify(parService, never()).persist(any());
+    }
+
+    private Response push(String requestUri) {
+        return parRestWebService.requestPushedAuthorization(CLIENT_ID, "code", REDIRECT_URI, null, requestUri, httpRequest, httpResponse, null);
+    }
+
+    private void assertStatus(String requestUri, Response.Status status) {
+        try {
+            push(requestUri);
+            fail("Pushed authorization request must be rejected");
+        } catch (WebApplicationException e) {
+            assertEquals(e.getResponse().getStatus(), status.getStatusCode());
+        }
+    }
+
+    private void authenticated(Client client) {
+        SessionClient sessionClient = new SessionClient();
+        sessionClient.setClient(client);
+        when(identity.getSessionClient()).thenReturn(sessionClient);
+    }
+
+    private static Client client(AuthenticationMethod authenticationMethod) {
+        Client client = new Client();
+        client.setClientId(CLIENT_ID);
+        client.setTokenEndpointAuthMethod(authenticationMethod.toString());
+        return client;
+    }
+}
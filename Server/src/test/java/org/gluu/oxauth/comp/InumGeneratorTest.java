@@ -6,6 +6,9 @@
 
 package org.gluu.oxauth.comp;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import javax.inject.Inject;
 
 import org.apache.commons.lang.StringUtils;
@@ -31,4 +34,14 @@ public class InumGeneratorTest extends BaseComponentTest {
 		Assert.assertTrue(StringUtils.isNotBlank(inum));
 	}
 
+	@Test
+	public void generatedIdsAreUnique() {
+		final Set<String> inums = new HashSet<>();
+		for (int i = 0; i < 10000; i++) {
+			final String inum = inumGenerator.generateId(IdType.CLIENTS, "@!1111");
+			Assert.assertTrue(inum.startsWith("@!1111!" + IdType.CLIENTS.getInum() + "!"), "Unexpected inum: " + inum);
+			Assert.assertTrue(inums.add(inum), "Duplicated inum: " + inum);
+		}
+	}
+
 }
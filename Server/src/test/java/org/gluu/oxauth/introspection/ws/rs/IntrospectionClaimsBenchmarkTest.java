@@ -0,0 +1,54 @@
+package org.gluu.oxauth.introspection.ws.rs;
+
+import org.gluu.oxauth.model.common.IntrospectionResponse;
+import org.gluu.oxauth.util.ServerUtil;
+import org.json.JSONObject;
+import org.testng.Reporter;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.gluu.oxauth.introspection.ws.rs.IntrospectionClaimsTest.X5TS256;
+import static org.gluu.oxauth.introspection.ws.rs.IntrospectionClaimsTest.newResponse;
+
+/**
+ * Compares introspection response written in single pass with response serialized to json, parsed and serialized
+ * again to add cnf claim. Run with testng-benchmark.xml.
+ */
+public class IntrospectionClaimsBenchmarkTest {
+
+    private static final int WARM_UP_ITERATIONS = 10000;
+    private static final int ITERATIONS = 100000;
+
+    @Test
+    public void compareWithDoubleSerialization() throws Exception {
+        final IntrospectionResponse response = newResponse();
+
+        run("Double serialization", () -> {
+            JSONObject result = new JSONObject(ServerUtil.asJson(response));
+            result.put("cnf", new JSONObject().put("x5t#S256", X5TS256));
+            result.toString().getBytes(StandardCharsets.UTF_8);
+        });
+        run("Single pass", () -> IntrospectionClaims.write(IntrospectionClaims.create(response, X5TS256), new ByteArrayOutputStream(512)));
+    }
+
+    private static void run(String name, Serialization serialization) throws IOException {
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            serialization.run();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            serialization.run();
+        }
+        long took = System.nanoTime() - start;
+
+        Reporter.log(String.format("%s: %d responses, %d ns per response", name, ITERATIONS, took / ITERATIONS), true);
+    }
+
+    private interface Serialization {
+        void run() throws IOException;
+    }
+}
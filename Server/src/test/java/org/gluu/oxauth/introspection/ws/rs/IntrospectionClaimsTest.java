@@ -0,0 +1,77 @@
+package org.gluu.oxauth.introspection.ws.rs;
+
+import com.google.common.collect.Lists;
+import org.gluu.oxauth.model.common.IntrospectionResponse;
+import org.gluu.oxauth.model.jwt.JwtClaims;
+import org.gluu.oxauth.util.ServerUtil;
+import org.json.JSONObject;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class IntrospectionClaimsTest {
+
+    static final String X5TS256 = "A4DtL2JmUMhAsvJj5tKyn64SqzmuXbMrJa0n761y5v0";
+
+    @Test
+    public void create_shouldContainSameClaimsAsSerializedResponse() throws Exception {
+        IntrospectionResponse response = newResponse();
+
+        JSONObject expected = new JSONObject(ServerUtil.asJson(response));
+        expected.put("cnf", new JSONObject().put("x5t#S256", X5TS256));
+
+        JSONObject actual = new JSONObject(IntrospectionClaims.asString(IntrospectionClaims.create(response, X5TS256)));
+
+        assertEquals(actual.toMap(), expected.toMap());
+    }
+
+    @Test
+    public void create_withoutCertificateThumbprint_shouldNotContainCnf() {
+        assertFalse(IntrospectionClaims.create(newResponse(), null).containsKey("cnf"));
+    }
+
+    @Test
+    public void fromJsonObject_afterScriptModification_shouldKeepAddedClaims() throws Exception {
+        Map<String, Object> claims = IntrospectionClaims.create(newResponse(), X5TS256);
+
+        JSONObject jsonObject = IntrospectionClaims.toJsonObject(claims);
+        jsonObject.put("custom_claim", "custom_value");
+
+        Map<String, Object> modified = IntrospectionClaims.fromJsonObject(jsonObject);
+        assertEquals(modified.get("custom_claim"), "custom_value");
+        assertTrue(modified.containsKey("username"));
+
+        JSONObject written = new JSONObject(IntrospectionClaims.asString(modified));
+        assertEquals(written.getJSONObject("cnf").getString("x5t#S256"), X5TS256);
+        assertEquals(written.getString("custom_claim"), "custom_value");
+    }
+
+    @Test
+    public void setJwtClaim_shouldSkipNullsAndSetNestedObjects() {
+        JwtClaims jwtClaims = new JwtClaims();
+        for (Map.Entry<String, Object> entry : IntrospectionClaims.create(newResponse(), X5TS256).entrySet()) {
+            IntrospectionClaims.setJwtClaim(jwtClaims, entry.getKey(), entry.getValue());
+        }
+
+        assertEquals(jwtClaims.getClaimAsString("client_id"), "clientId");
+        assertFalse(jwtClaims.hasClaim("username"));
+        assertEquals(jwtClaims.getClaimAsJSON("cnf").getString("x5t#S256"), X5TS256);
+    }
+
+    static IntrospectionResponse newResponse() {
+        IntrospectionResponse response = new IntrospectionResponse(true);
+        response.setScope(Lists.newArrayList("openid", "profile"));
+        response.setClientId("clientId");
+        response.setTokenType("bearer");
+        response.setExpiresAt(1600000600);
+        response.setIssuedAt(1600000000);
+        response.setSub("sub");
+        response.setAudience("clientId");
+        response.setIssuer("https://example.gluu.org");
+        return response;
+    }
+}
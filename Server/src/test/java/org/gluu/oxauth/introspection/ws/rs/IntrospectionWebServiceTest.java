@@ -0,0 +1,180 @@
+package org.gluu.oxauth.introspection.ws.rs;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.commons.codec.binary.Base64;
+import org.gluu.oxauth.model.common.AccessToken;
+import org.gluu.oxauth.model.common.AuthorizationGrant;
+import org.gluu.oxauth.model.common.AuthorizationGrantList;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.error.ErrorResponseFactory;
+import org.gluu.oxauth.service.ClientService;
+import org.gluu.oxauth.service.external.ExternalIntrospectionService;
+import org.gluu.oxauth.service.token.TokenService;
+import org.json.JSONArray;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+@Listeners(MockitoTestNGListener.class)
+public class IntrospectionWebServiceTest {
+
+    private static final String BEARER_AUTHORIZATION = "Bearer caller_token";
+    private static final String BASIC_AUTHORIZATION = "Basic caller_token";
+
+    @InjectMocks
+    private IntrospectionWebService introspectionWebService;
+
+    @Mock
+    private Logger log;
+    @Mock
+    private AppConfiguration appConfiguration;
+    @Mock
+    private TokenService tokenService;
+    @Mock
+    private ErrorResponseFactory errorResponseFactory;
+    @Mock
+    private AuthorizationGrantList authorizationGrantList;
+    @Mock
+    private ClientService clientService;
+    @Mock
+    private ExternalIntrospectionService externalIntrospectionService;
+
+    @Test
+    public void introspectBatch_validBearerToken_responsesInOrderOfTokens() throws Exception {
+        when(appConfiguration.getIntrospectionBatchSizeLimit()).thenReturn(10);
+        callerGrant(BEARER_AUTHORIZATION, true);
+
+        final Map<String, AuthorizationGrant> grants = Maps.newHashMap();
+        grants.put("token1", grant("client1", "token1", true));
+        grants.put("token2", grant("client2", "token2", false));
+        when(authorizationGrantList.getAuthorizationGrantsByAccessTokens(anyCollection())).thenReturn(grants);
+
+        final JSONArray result = introspectBatch(BEARER_AUTHORIZATION, Lists.newArrayList("token2", "unknown", "token1"));
+
+        assertEquals(result.length(), 3);
+        assertEquals(result.getJSONObject(0).getString("client_id"), "client2");
+        assertFalse(result.getJSONObject(0).getBoolean("active"));
+        assertFalse(result.getJSONObject(1).getBoolean("active"));
+        assertTrue(result.getJSONObject(1).isNull("client_id"));
+        assertEquals(result.getJSONObject(2).getString("client_id"), "client1");
+        assertTrue(result.getJSONObject(2).getBoolean("active"));
+        verify(authorizationGrantList, times(1)).getAuthorizationGrantsByAccessTokens(anyCollection());
+    }
+
+    @Test
+    public void introspectBatch_expiredBearerToken_unauthorized() {
+        callerGrant(BEARER_AUTHORIZATION, false);
+
+        assertUnauthorized(BEARER_AUTHORIZATION);
+    }
+
+    @Test
+    public void introspectBatch_expiredAccessTokenAsBasicAuthorization_unauthorized() {
+        final AuthorizationGrant grant = grant("caller", "caller_token", false);
+        when(tokenService.getBasicAuthorizationGrant(BASIC_AUTHORIZATION)).thenReturn(grant);
+        when(tokenService.getToken(BASIC_AUTHORIZATION)).thenReturn("caller_token");
+
+        assertUnauthorized(BASIC_AUTHORIZATION);
+    }
+
+    @Test
+    public void introspectBatch_unknownCaller_unauthorized() {
+        assertUnauthorized(BEARER_AUTHORIZATION);
+    }
+
+    @Test
+    public void introspectBatch_blankAuthorization_badRequest() {
+        try {
+            introspectionWebService.introspectBatch("", Lists.newArrayList("token1"), null, null);
+            fail("Blank authorization must be rejected.");
+        } catch (WebApplicationException e) {
+            assertEquals(e.getResponse().getStatus(), Response.Status.BAD_REQUEST.getStatusCode());
+        }
+        verifyNoInteractions(authorizationGrantList);
+    }
+
+    @Test
+    public void introspectBatch_batchSizeLimitExceeded_badRequest() {
+        when(appConfiguration.getIntrospectionBatchSizeLimit()).thenReturn(2);
+        callerGrant(BEARER_AUTHORIZATION, true);
+
+        final Response response = introspectionWebService.introspectBatch(BEARER_AUTHORIZATION, Lists.newArrayList("token1", "token2", "token3"), null, null);
+
+        assertEquals(response.getStatus(), Response.Status.BAD_REQUEST.getStatusCode());
+        verifyNoInteractions(authorizationGrantList);
+    }
+
+    @Test
+    public void introspectBatch_basicClientAuthenticationRestrictedToOwnTokens_tokenOfAnotherClientInactive() throws Exception {
+        final String authorization = "Basic " + Base64.encodeBase64String("client1:secret".getBytes(StandardCharsets.UTF_8));
+        when(appConfiguration.getIntrospectionBatchSizeLimit()).thenReturn(10);
+        when(appConfiguration.getIntrospectionRestrictBasicAuthnToOwnTokens()).thenReturn(true);
+        when(tokenService.isBasicAuthToken(authorization)).thenReturn(true);
+        when(tokenService.getBasicToken(authorization)).thenReturn(authorization.substring("Basic ".length()));
+        when(clientService.authenticate("client1", "secret")).thenReturn(true);
+
+        final Map<String, AuthorizationGrant> grants = Maps.newHashMap();
+        grants.put("own", grant("client1", "own", true));
+        grants.put("foreign", grant("client2", "foreign", true));
+        when(authorizationGrantList.getAuthorizationGrantsByAccessTokens(anyCollection())).thenReturn(grants);
+
+        final JSONArray result = introspectBatch(authorization, Lists.newArrayList("own", "foreign"));
+
+        assertTrue(result.getJSONObject(0).getBoolean("active"));
+        assertEquals(result.getJSONObject(0).getString("client_id"), "client1");
+        assertFalse(result.getJSONObject(1).getBoolean("active"));
+        assertTrue(result.getJSONObject(1).isNull("client_id"));
+    }
+
+    private void assertUnauthorized(String authorization) {
+        try {
+            introspectionWebService.introspectBatch(authorization, Lists.newArrayList("token1"), null, null);
+            fail("Caller must not be authorized.");
+        } catch (WebApplicationException e) {
+            assertEquals(e.getResponse().getStatus(), Response.Status.UNAUTHORIZED.getStatusCode());
+        }
+        verifyNoInteractions(authorizationGrantList);
+    }
+
+    private void callerGrant(String authorization, boolean valid) {
+        final AuthorizationGrant grant = grant("caller", "caller_token", valid);
+        when(tokenService.getBearerAuthorizationGrant(authorization)).thenReturn(grant);
+        when(tokenService.getToken(authorization)).thenReturn("caller_token");
+    }
+
+    private static AuthorizationGrant grant(String clientId, String token, boolean valid) {
+        final AccessToken accessToken = new AccessToken(token, new Date(),
+                new Date(System.currentTimeMillis() + (valid ? 60000 : -60000)));
+
+        final AuthorizationGrant grant = mock(AuthorizationGrant.class);
+        lenient().when(grant.getClientId()).thenReturn(clientId);
+        lenient().when(grant.getAccessToken(token)).thenReturn(accessToken);
+        return grant;
+    }
+
+    private JSONArray introspectBatch(String authorization, List<String> tokens) throws Exception {
+        final Response response = introspectionWebService.introspectBatch(authorization, tokens, null, null);
+        assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(output);
+        return new JSONArray(new String(output.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
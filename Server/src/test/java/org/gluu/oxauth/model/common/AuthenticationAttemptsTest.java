@@ -0,0 +1,95 @@
+package org.gluu.oxauth.model.common;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class AuthenticationAttemptsTest {
+
+    private static final long WINDOW = 10000;
+    private static final long WINDOW_START = 100000;
+
+    @Test
+    public void add_sameWindow_countsAccumulated() {
+        AuthenticationAttempts attempts = new AuthenticationAttempts();
+        attempts.add(WINDOW_START, WINDOW, 2);
+        attempts.add(WINDOW_START + 5000, WINDOW, 3);
+
+        assertEquals(attempts.getWindowStart(), WINDOW_START);
+        assertEquals(attempts.getCurrentCount(), 5);
+        assertEquals(attempts.getPreviousCount(), 0);
+        assertEquals(attempts.estimate(WINDOW_START + 9999, WINDOW), 5.0);
+    }
+
+    @Test
+    public void estimate_nextWindow_previousCountWeightedByOverlap() {
+        AuthenticationAttempts attempts = new AuthenticationAttempts();
+        attempts.add(WINDOW_START + 3000, WINDOW, 4);
+        attempts.add(WINDOW_START + WINDOW + 2500, WINDOW, 1);
+
+        assertEquals(attempts.getPreviousCount(), 4);
+        assertEquals(attempts.getCurrentCount(), 1);
+        assertEquals(attempts.estimate(WINDOW_START + WINDOW + 2500, WINDOW), 4 * 0.75 + 1, 0.0001);
+    }
+
+    @Test
+    public void estimate_windowSkipped_previousCountDropped() {
+        AuthenticationAttempts attempts = new AuthenticationAttempts();
+        attempts.add(WINDOW_START, WINDOW, 4);
+
+        assertEquals(attempts.estimate(WINDOW_START + 2 * WINDOW + 1, WINDOW), 0.0);
+        assertEquals(attempts.getPreviousCount(), 0);
+        assertEquals(attempts.getCurrentCount(), 0);
+    }
+
+    @Test
+    public void retryAfter_belowLimit_zero() {
+        AuthenticationAttempts attempts = new AuthenticationAttempts();
+        attempts.add(WINDOW_START, WINDOW, 3);
+
+        assertEquals(attempts.retryAfter(WINDOW_START, WINDOW, 4), 0);
+    }
+
+    @Test
+    public void retryAfter_limitReachedInCurrentWindow_waitTillEstimateDropsBelowLimit() {
+        AuthenticationAttempts attempts = new AuthenticationAttempts();
+        attempts.add(WINDOW_START, WINDOW, 5);
+
+        final long retryAfter = attempts.retryAfter(WINDOW_START, WINDOW, 4);
+        assertEquals(retryAfter, 12001);
+
+        assertAllowedOnlyAfter(attempts, WINDOW_START, retryAfter, 4);
+    }
+
+    @Test
+    public void retryAfter_limitReachedWithPreviousWindow_waitTillEstimateDropsBelowLimit() {
+        AuthenticationAttempts attempts = new AuthenticationAttempts();
+        attempts.add(WINDOW_START, WINDOW, 5);
+        attempts.add(WINDOW_START + WINDOW + 1000, WINDOW, 2);
+
+        final long now = WINDOW_START + WINDOW + 1000;
+        final long retryAfter = attempts.retryAfter(now, WINDOW, 4);
+        assertEquals(retryAfter, 5001);
+
+        assertAllowedOnlyAfter(attempts, now, retryAfter, 4);
+    }
+
+    @Test
+    public void copy_countsAndWindowCopied() {
+        AuthenticationAttempts attempts = new AuthenticationAttempts();
+        attempts.add(WINDOW_START, WINDOW, 2);
+        attempts.add(WINDOW_START + WINDOW, WINDOW, 1);
+
+        AuthenticationAttempts copy = new AuthenticationAttempts(attempts);
+        assertEquals(copy.getWindowStart(), attempts.getWindowStart());
+        assertEquals(copy.getCurrentCount(), 1);
+        assertEquals(copy.getPreviousCount(), 2);
+    }
+
+    private static void assertAllowedOnlyAfter(AuthenticationAttempts attempts, long now, long retryAfter, int limit) {
+        assertTrue(new AuthenticationAttempts(attempts).estimate(now + retryAfter - 2, WINDOW) >= limit);
+        assertTrue(new AuthenticationAttempts(attempts).estimate(now + retryAfter, WINDOW) < limit);
+        assertEquals(new AuthenticationAttempts(attempts).retryAfter(now + retryAfter, WINDOW, limit), 0);
+    }
+}
@@ -0,0 +1,87 @@
+package org.gluu.oxauth.model.config;
+
+import org.gluu.service.CacheService;
+import org.gluu.service.cache.CacheConfiguration;
+import org.gluu.service.cache.CacheProviderType;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Listeners(MockitoTestNGListener.class)
+public class CacheConfigurationChangeChannelTest {
+
+    @InjectMocks
+    private CacheConfigurationChangeChannel channel;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private CacheService cacheService;
+
+    @Mock
+    private CacheConfiguration cacheConfiguration;
+
+    // behaves like in memory cache provider
+    private final Map<String, Object> cache = new HashMap<>();
+
+    @BeforeMethod
+    public void setUp() {
+        cache.clear();
+        lenient().when(cacheConfiguration.getCacheProviderType()).thenReturn(CacheProviderType.IN_MEMORY);
+        lenient().when(cacheService.get(anyString())).thenAnswer(invocation -> cache.get(invocation.getArgument(0)));
+        lenient().doAnswer(invocation -> cache.put(invocation.getArgument(1), invocation.getArgument(2)))
+                .when(cacheService).put(anyInt(), anyString(), any());
+    }
+
+    @Test
+    public void getPublishedRevision_nothingPublished_shouldReturnMinusOne() {
+        assertEquals(channel.getPublishedRevision(), -1);
+    }
+
+    @Test
+    public void publish_increasingRevisions_shouldReturnLatest() {
+        channel.publish(5);
+        channel.publish(7);
+
+        assertEquals(channel.getPublishedRevision(), 7);
+    }
+
+    @Test
+    public void publish_olderRevision_shouldKeepNewerRevision() {
+        channel.publish(7);
+        channel.publish(5);
+
+        assertEquals(channel.getPublishedRevision(), 7);
+        verify(cacheService, times(1)).put(anyInt(), anyString(), any());
+    }
+
+    @Test
+    public void publish_nativePersistenceCache_shouldNotUseCache() {
+        when(cacheConfiguration.getCacheProviderType()).thenReturn(CacheProviderType.NATIVE_PERSISTENCE);
+
+        assertFalse(channel.isAvailable());
+        channel.publish(5);
+
+        verify(cacheService, never()).put(anyInt(), anyString(), any());
+    }
+
+    @Test
+    public void isAvailable_inMemoryCache_shouldBeAvailable() {
+        assertTrue(channel.isAvailable());
+    }
+}
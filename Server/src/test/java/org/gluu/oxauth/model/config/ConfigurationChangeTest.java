@@ -0,0 +1,57 @@
+package org.gluu.oxauth.model.config;
+
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.testng.annotations.Test;
+
+import java.util.EnumSet;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class ConfigurationChangeTest {
+
+    @Test
+    public void compare_firstLoad_shouldMarkAllSectionsChanged() throws Exception {
+        ConfigurationChange change = ConfigurationChange.compare(1, null, ConfigurationChange.sections(newConf("https://as.example.com")));
+
+        assertEquals(change.getChangedSections(), EnumSet.allOf(ConfigurationChange.Section.class));
+    }
+
+    @Test
+    public void compare_sameConfiguration_shouldBeEmpty() throws Exception {
+        Map<ConfigurationChange.Section, String> previous = ConfigurationChange.sections(newConf("https://as.example.com"));
+        Map<ConfigurationChange.Section, String> current = ConfigurationChange.sections(newConf("https://as.example.com"));
+
+        assertTrue(ConfigurationChange.compare(2, previous, current).isEmpty());
+    }
+
+    @Test
+    public void compare_changedDynamicConfiguration_shouldMarkOnlyDynamicSection() throws Exception {
+        Map<ConfigurationChange.Section, String> previous = ConfigurationChange.sections(newConf("https://as.example.com"));
+        Map<ConfigurationChange.Section, String> current = ConfigurationChange.sections(newConf("https://as2.example.com"));
+
+        ConfigurationChange change = ConfigurationChange.compare(2, previous, current);
+        assertEquals(change.getChangedSections(), EnumSet.of(ConfigurationChange.Section.DYNAMIC));
+        assertEquals(change.getRevision(), 2);
+    }
+
+    @Test
+    public void getConfigurationChangeNotificationEnabled_notSet_shouldBeEnabled() {
+        AppConfiguration appConfiguration = new AppConfiguration();
+        appConfiguration.setConfigurationChangeNotificationEnabled(null);
+
+        assertTrue(appConfiguration.getConfigurationChangeNotificationEnabled());
+    }
+
+    private static Conf newConf(String issuer) {
+        AppConfiguration dynamic = new AppConfiguration();
+        dynamic.setIssuer(issuer);
+
+        Conf conf = new Conf();
+        conf.setDynamic(dynamic);
+        conf.setStatics(new StaticConfiguration());
+        conf.setWebKeys(new WebKeysConfiguration());
+        return conf;
+    }
+}
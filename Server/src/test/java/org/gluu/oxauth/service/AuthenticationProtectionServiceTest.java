@@ -0,0 +1,148 @@
+package org.gluu.oxauth.service;
+
+import org.gluu.oxauth.model.common.AuthenticationAttempts;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.configuration.AuthenticationProtectionConfiguration;
+import org.gluu.service.CacheService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+@Listeners(MockitoTestNGListener.class)
+public class AuthenticationProtectionServiceTest {
+
+    private static final int ATTEMPT_EXPIRATION = 60;
+    private static final int USER_LIMIT = 3;
+
+    @InjectMocks
+    private AuthenticationProtectionService authenticationProtectionService;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private AppConfiguration appConfiguration;
+
+    @Mock
+    private CacheService cacheService;
+
+    // behaves like in memory cache provider shared by all nodes
+    private final Map<String, Object> cache = new HashMap<>();
+
+    private final AuthenticationProtectionConfiguration configuration = new AuthenticationProtectionConfiguration();
+
+    @BeforeMethod
+    public void setUp() {
+        cache.clear();
+        configuration.setAttemptExpiration(ATTEMPT_EXPIRATION);
+        configuration.setMaximumAllowedAttemptsWithoutDelay(USER_LIMIT);
+        configuration.setMaximumAllowedAttemptsPerClient(0);
+        configuration.setMaximumAllowedAttemptsPerIpAddress(0);
+
+        lenient().when(appConfiguration.getAuthenticationProtectionConfiguration()).thenReturn(configuration);
+        lenient().when(cacheService.get(anyString())).thenAnswer(invocation -> cache.get(invocation.getArgument(0)));
+        lenient().doAnswer(invocation -> cache.put(invocation.getArgument(1), invocation.getArgument(2)))
+                .when(cacheService).put(anyInt(), anyString(), any());
+        lenient().doAnswer(invocation -> cache.remove(invocation.getArgument(0)))
+                .when(cacheService).remove(anyString());
+
+        authenticationProtectionService.updateConfiguration(appConfiguration);
+    }
+
+    @Test
+    public void getRetryAfter_belowLimit_shouldAllow() {
+        registerFailures("user1", "client1", "10.0.0.1", USER_LIMIT - 1);
+
+        assertEquals(authenticationProtectionService.getRetryAfter("user1", "client1", "10.0.0.1"), 0);
+    }
+
+    @Test
+    public void getRetryAfter_overLimit_shouldRejectWithinTwoWindows() {
+        registerFailures("user1", "client1", "10.0.0.1", USER_LIMIT + 1);
+
+        final int retryAfter = authenticationProtectionService.getRetryAfter("user1", "client1", "10.0.0.1");
+        assertTrue(retryAfter > 0);
+        assertTrue(retryAfter <= 2 * ATTEMPT_EXPIRATION + 1);
+    }
+
+    @Test
+    public void getRetryAfter_otherUser_shouldAllow() {
+        registerFailures("user1", "client1", "10.0.0.1", USER_LIMIT + 1);
+
+        assertEquals(authenticationProtectionService.getRetryAfter("user2", "client1", "10.0.0.1"), 0);
+    }
+
+    @Test
+    public void getRetryAfter_userIdInDifferentCase_shouldReject() {
+        registerFailures("User1", "client1", "10.0.0.1", USER_LIMIT + 1);
+
+        assertTrue(authenticationProtectionService.getRetryAfter("user1", "client1", "10.0.0.1") > 0);
+    }
+
+    @Test
+    public void registerAttempt_success_shouldResetUserCounter() {
+        registerFailures("user1", "client1", "10.0.0.1", USER_LIMIT + 1);
+        authenticationProtectionService.registerAttempt("user1", "client1", "10.0.0.1", true);
+
+        assertEquals(authenticationProtectionService.getRetryAfter("user1", "client1", "10.0.0.1"), 0);
+        verify(cacheService).remove("authn_attempts_user_user1");
+    }
+
+    @Test
+    public void registerAttempt_limitReached_shouldFlushCountersToCache() {
+        registerFailures("user1", "client1", "10.0.0.1", USER_LIMIT);
+
+        final AuthenticationAttempts shared = (AuthenticationAttempts) cache.get("authn_attempts_user_user1");
+        assertEquals(shared.getCurrentCount() + shared.getPreviousCount(), USER_LIMIT);
+    }
+
+    @Test
+    public void getRetryAfter_limitReachedOnOtherNode_shouldReject() {
+        AuthenticationAttempts shared = new AuthenticationAttempts();
+        shared.add(System.currentTimeMillis(), ATTEMPT_EXPIRATION * 1000L, USER_LIMIT + 1);
+        cache.put("authn_attempts_user_user1", shared);
+
+        assertTrue(authenticationProtectionService.getRetryAfter("user1", "client1", "10.0.0.1") > 0);
+    }
+
+    @Test
+    public void getRetryAfter_clientLimitReachedByDifferentUsers_shouldReject() {
+        configuration.setMaximumAllowedAttemptsPerClient(3);
+        for (int i = 0; i < 4; i++) {
+            authenticationProtectionService.registerAttempt("user" + i, "client1", "10.0.0.1", false);
+        }
+
+        assertTrue(authenticationProtectionService.getRetryAfter("user9", "client1", "10.0.0.2") > 0);
+        assertEquals(authenticationProtectionService.getRetryAfter("user9", "client2", "10.0.0.2"), 0);
+    }
+
+    @Test
+    public void getRetryAfter_ipLimitReachedByDifferentUsers_shouldReject() {
+        configuration.setMaximumAllowedAttemptsPerIpAddress(3);
+        for (int i = 0; i < 4; i++) {
+            authenticationProtectionService.registerAttempt("user" + i, "client" + i, "10.0.0.1", false);
+        }
+
+        assertTrue(authenticationProtectionService.getRetryAfter("user9", "client9", "10.0.0.1") > 0);
+        assertEquals(authenticationProtectionService.getRetryAfter("user9", "client9", "10.0.0.2"), 0);
+    }
+
+    private void registerFailures(String userId, String clientId, String ipAddress, int count) {
+        for (int i = 0; i < count; i++) {
+            authenticationProtectionService.registerAttempt(userId, clientId, ipAddress, false);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.gluu.oxauth.service;
+
+import org.gluu.oxauth.model.common.BackchannelTokenDeliveryMode;
+import org.gluu.oxauth.model.common.CibaRequestCacheControl;
+import org.gluu.oxauth.model.common.CibaRequestStatus;
+import org.gluu.oxauth.model.common.DeviceAuthorizationCacheControl;
+import org.gluu.oxauth.model.common.DeviceAuthorizationStatus;
+import org.gluu.oxauth.model.registration.Client;
+import org.gluu.oxauth.service.ciba.CibaRequestService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+@Listeners(MockitoTestNGListener.class)
+public class AuthorizeServiceTest {
+
+    @InjectMocks
+    private AuthorizeService authorizeService;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private CibaRequestService cibaRequestService;
+
+    @Mock
+    private DeviceAuthorizationService deviceAuthorizationService;
+
+    @Mock
+    private PollingThrottleService pollingThrottleService;
+
+    @Test
+    public void processCibaDeniedResponse_pendingPollRequest_deniedAndPollTimeRemoved() {
+        CibaRequestCacheControl request = new CibaRequestCacheControl();
+        request.setAuthReqId("authReqId");
+        request.setClient(client(BackchannelTokenDeliveryMode.POLL));
+        request.setStatus(CibaRequestStatus.PENDING);
+        when(cibaRequestService.getCibaRequest("authReqId")).thenReturn(request);
+
+        authorizeService.processCibaDeniedResponse("authReqId");
+
+        assertEquals(request.getStatus(), CibaRequestStatus.DENIED);
+        verify(cibaRequestService).update(request);
+        verify(pollingThrottleService).removeLastPollTime("authReqId", "client");
+    }
+
+    @Test
+    public void processDeviceAuthDeniedResponse_pendingRequest_deniedAndPollTimeRemoved() {
+        DeviceAuthorizationCacheControl cacheData = new DeviceAuthorizationCacheControl();
+        cacheData.setUserCode("userCode");
+        cacheData.setDeviceCode("deviceCode");
+        cacheData.setClient(client(BackchannelTokenDeliveryMode.POLL));
+        cacheData.setStatus(DeviceAuthorizationStatus.PENDING);
+        when(deviceAuthorizationService.getDeviceAuthzByUserCode("userCode")).thenReturn(cacheData);
+
+        authorizeService.processDeviceAuthDeniedResponse(Collections.singletonMap(DeviceAuthorizationService.SESSION_USER_CODE, "userCode"));
+
+        assertEquals(cacheData.getStatus(), DeviceAuthorizationStatus.DENIED);
+        verify(deviceAuthorizationService).saveInCache(cacheData, true, false);
+        verify(pollingThrottleService).removeLastPollTime("deviceCode", "client");
+    }
+
+    private static Client client(BackchannelTokenDeliveryMode mode) {
+        Client client = new Client();
+        client.setClientId("client");
+        client.setBackchannelTokenDeliveryMode(mode);
+        return client;
+    }
+}
@@ -0,0 +1,91 @@
+package org.gluu.oxauth.service;
+
+import com.google.common.collect.Lists;
+import org.gluu.oxauth.model.config.BaseDnConfiguration;
+import org.gluu.oxauth.model.config.StaticConfiguration;
+import org.gluu.oxauth.model.ldap.TokenLdap;
+import org.gluu.oxauth.util.TokenHashUtil;
+import org.gluu.persist.PersistenceEntryManager;
+import org.gluu.search.filter.Filter;
+import org.gluu.service.CacheService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+
+@Listeners(MockitoTestNGListener.class)
+public class GrantServiceTest {
+
+    private static final String TOKENS_BASE_DN = "ou=tokens,o=gluu";
+
+    @InjectMocks
+    private GrantService grantService;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private PersistenceEntryManager ldapEntryManager;
+
+    @Mock
+    private CacheService cacheService;
+
+    @Mock
+    private StaticConfiguration staticConfiguration;
+
+    @BeforeMethod
+    public void setUp() {
+        BaseDnConfiguration baseDn = new BaseDnConfiguration();
+        baseDn.setTokens(TOKENS_BASE_DN);
+
+        lenient().when(staticConfiguration.getBaseDn()).thenReturn(baseDn);
+    }
+
+    @Test
+    public void getGrantsByCodes_cachedAndPersistedCodes_missedCodesLoadedWithOneSearch() {
+        TokenLdap cached = newToken("cached");
+        TokenLdap persisted1 = newToken("persisted1");
+        TokenLdap persisted2 = newToken("persisted2");
+
+        when(cacheService.get(TokenHashUtil.hash("cached"))).thenReturn(cached);
+        when(ldapEntryManager.findEntries(eq(TOKENS_BASE_DN), eq(TokenLdap.class), any(Filter.class), any()))
+                .thenReturn(Lists.newArrayList(persisted1, persisted2));
+
+        Map<String, TokenLdap> grants = grantService.getGrantsByCodes(Lists.newArrayList("cached", "persisted1", "persisted2", "unknown"));
+
+        assertEquals(grants.size(), 3);
+        assertSame(grants.get("cached"), cached);
+        assertSame(grants.get("persisted1"), persisted1);
+        assertSame(grants.get("persisted2"), persisted2);
+        assertFalse(grants.containsKey("unknown"));
+        verify(ldapEntryManager, times(1)).findEntries(eq(TOKENS_BASE_DN), eq(TokenLdap.class), any(Filter.class), any());
+        verify(ldapEntryManager, never()).find(anyString(), eq(TokenLdap.class), any());
+    }
+
+    @Test
+    public void getGrantsByCodes_allCodesCached_noSearch() {
+        when(cacheService.get(TokenHashUtil.hash("cached"))).thenReturn(newToken("cached"));
+
+        assertEquals(grantService.getGrantsByCodes(Lists.newArrayList("cached")).size(), 1);
+        verify(ldapEntryManager, never()).findEntries(anyString(), eq(TokenLdap.class), any(Filter.class), any());
+    }
+
+    private static TokenLdap newToken(String code) {
+        TokenLdap token = new TokenLdap();
+        token.setTokenCode(TokenHashUtil.hash(code));
+        return token;
+    }
+}
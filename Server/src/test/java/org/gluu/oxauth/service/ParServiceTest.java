@@ -0,0 +1,91 @@
+package org.gluu.oxauth.service;
+
+import org.gluu.oxauth.model.authorize.PushedAuthorizationRequest;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.service.CacheService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+@Listeners(MockitoTestNGListener.class)
+public class ParServiceTest {
+
+    @InjectMocks
+    private ParService parService;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private AppConfiguration appConfiguration;
+
+    @Mock
+    private CacheService cacheService;
+
+    @Test
+    public void create_shouldIssueUniqueRequestUriWithConfiguredLifetime() {
+        when(appConfiguration.getParLifetime()).thenReturn(90);
+
+        PushedAuthorizationRequest first = parService.create("client", new HashMap<>());
+        PushedAuthorizationRequest second = parService.create("client", new HashMap<>());
+
+        assertTrue(first.getRequestUri().startsWith(ParService.PAR_REQUEST_URI_PREFIX));
+        assertNotEquals(first.getRequestUri(), second.getRequestUri());
+        assertEquals(first.getExpiresIn(), 90);
+        assertEquals(first.getClientId(), "client");
+    }
+
+    @Test
+    public void create_lifetimeIsNotConfigured_shouldUseDefaultLifetime() {
+        assertEquals(parService.create("client", new HashMap<>()).getExpiresIn(), 60);
+    }
+
+    @Test
+    public void persist_shouldPutToCacheForLifetime() {
+        when(appConfiguration.getParLifetime()).thenReturn(90);
+        PushedAuthorizationRequest par = parService.create("client", new HashMap<>());
+
+        parService.persist(par);
+
+        verify(cacheService).put(eq(90), anyString(), eq(par));
+    }
+
+    @Test
+    public void getAndRemove_firstUse_shouldReturnRequestAndRemoveIt() {
+        PushedAuthorizationRequest par = parService.create("client", new HashMap<>());
+        when(cacheService.get(anyString())).thenReturn(par, (Object) null);
+
+        assertSame(parService.getAndRemove(par.getRequestUri()), par);
+        assertNull(parService.getAndRemove(par.getRequestUri()));
+
+        verify(cacheService, times(1)).remove(anyString());
+    }
+
+    @Test
+    public void getAndRemove_expired_shouldReturnNull() {
+        when(cacheService.get(anyString())).thenReturn(null);
+
+        assertNull(parService.getAndRemove(ParService.PAR_REQUEST_URI_PREFIX + "expired"));
+        verify(cacheService, never()).remove(anyString());
+    }
+
+    @Test
+    public void getAndRemove_notParRequestUri_shouldNotReadCache() {
+        assertNull(parService.getAndRemove("https://client.example.com/request.jwt"));
+        verifyNoInteractions(cacheService);
+    }
+}
@@ -0,0 +1,68 @@
+package org.gluu.oxauth.service;
+
+import org.gluu.search.filter.Filter;
+import org.gluu.search.filter.FilterType;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+public class ParameterizedFilterTest {
+
+    @Test
+    public void bind_equalityWithMetacharacters_valueBoundAsIs() {
+        ParameterizedFilter compiled = ParameterizedFilter.compile(Filter.createEqualityFilter("uid", ParameterizedFilter.token(0)), 1);
+        assertNotNull(compiled);
+
+        Filter filter = compiled.bind(new String[]{"adm*)(|(uid=*"});
+
+        assertEquals(filter.getType(), FilterType.EQUALITY);
+        assertEquals(filter.getAttributeName(), "uid");
+        assertEquals(filter.getAssertionValue(), "adm*)(|(uid=*");
+    }
+
+    @Test
+    public void bind_slotsInComposite_constantSubtreeShared() {
+        Filter constant = Filter.createEqualityFilter("objectClass", "gluuPerson");
+        Filter template = Filter.createANDFilter(constant,
+                Filter.createORFilter(
+                        Filter.createEqualityFilter("uid", ParameterizedFilter.token(0)),
+                        Filter.createEqualityFilter("mail", ParameterizedFilter.token(1) + "@example.com")));
+        ParameterizedFilter compiled = ParameterizedFilter.compile(template, 2);
+
+        Filter filter = compiled.bind(new String[]{"admin", "root"});
+
+        assertEquals(filter.getType(), FilterType.AND);
+        assertSame(filter.getFilters()[0], constant);
+        Filter[] or = filter.getFilters()[1].getFilters();
+        assertEquals(or[0].getAssertionValue(), "admin");
+        assertEquals(or[1].getAssertionValue(), "root@example.com");
+    }
+
+    @Test
+    public void bind_substring_slotsBoundInParts() {
+        Filter template = Filter.createSubstringFilter("uid", null, new String[]{ParameterizedFilter.token(0)}, null);
+        ParameterizedFilter compiled = ParameterizedFilter.compile(template, 1);
+
+        Filter filter = compiled.bind(new String[]{"adm"});
+
+        assertEquals(filter.getType(), FilterType.SUBSTRING);
+        assertEquals(filter.getSubAny(), new String[]{"adm"});
+        assertNull(filter.getSubInitial());
+    }
+
+    @Test
+    public void compile_withoutSlots_sameFilterReturned() {
+        Filter template = Filter.createPresenceFilter("uid");
+        ParameterizedFilter compiled = ParameterizedFilter.compile(template, 0);
+
+        assertSame(compiled.bind(new String[0]), template);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void bind_wrongNumberOfValues_fails() {
+        ParameterizedFilter.compile(Filter.createEqualityFilter("uid", ParameterizedFilter.token(0)), 1).bind(new String[0]);
+    }
+}
@@ -0,0 +1,66 @@
+package org.gluu.oxauth.service;
+
+import org.gluu.service.CacheService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+@Listeners(MockitoTestNGListener.class)
+public class PollingThrottleServiceTest {
+
+    @InjectMocks
+    private PollingThrottleService pollingThrottleService;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private CacheService cacheService;
+
+    @Test
+    public void getLastPollTime_keyBoundToClient() {
+        when(cacheService.get("poll_client_code")).thenReturn(1000L);
+
+        assertEquals(pollingThrottleService.getLastPollTime("code", "client"), Long.valueOf(1000L));
+    }
+
+    @Test
+    public void getLastPollTime_noPoll_returnNull() {
+        assertNull(pollingThrottleService.getLastPollTime("code", "client"));
+    }
+
+    @Test
+    public void setLastPollTime_putSmallValue() {
+        pollingThrottleService.setLastPollTime("code", "client", 1000L, 600);
+
+        verify(cacheService).put(600, "poll_client_code", 1000L);
+    }
+
+    @Test
+    public void removeLastPollTime_removeKeyBoundToClient() {
+        pollingThrottleService.removeLastPollTime("code", "client");
+
+        verify(cacheService).remove("poll_client_code");
+    }
+
+    @Test
+    public void isTooFast_withinInterval_returnTrue() {
+        assertTrue(pollingThrottleService.isTooFast(1000L, 5000L, 5));
+        assertTrue(pollingThrottleService.isTooFast(null, 5000L, 5));
+    }
+
+    @Test
+    public void isTooFast_afterInterval_returnFalse() {
+        assertFalse(pollingThrottleService.isTooFast(1000L, 6001L, 5));
+    }
+}
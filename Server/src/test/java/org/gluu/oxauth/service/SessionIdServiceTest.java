@@ -0,0 +1,212 @@
+package org.gluu.oxauth.service;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.gluu.oxauth.model.config.BaseDnConfiguration;
+import org.gluu.oxauth.model.config.StaticConfiguration;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.crypto.signature.SignatureAlgorithm;
+import org.gluu.oxauth.model.jwt.Jwt;
+import org.gluu.oxauth.model.session.SessionId;
+import org.gluu.oxauth.model.session.SessionIdState;
+import org.gluu.oxauth.model.token.JwtSigner;
+import org.gluu.oxauth.service.expiration.ExpirationNotificatorTimer;
+import org.gluu.oxauth.service.external.ExternalApplicationSessionService;
+import org.gluu.persist.PersistenceEntryManager;
+import org.gluu.search.filter.Filter;
+import org.gluu.service.CacheService;
+import org.gluu.service.LocalCacheService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+@Listeners(MockitoTestNGListener.class)
+public class SessionIdServiceTest {
+
+    private static final String SESSIONS_BASE_DN = "ou=sessions,o=gluu";
+
+    @InjectMocks
+    private SessionIdService sessionIdService;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private PersistenceEntryManager persistenceEntryManager;
+
+    @Mock
+    private StaticConfiguration staticConfiguration;
+
+    @Mock
+    private AppConfiguration appConfiguration;
+
+    @Mock
+    private LocalCacheService localCacheService;
+
+    @Mock
+    private CacheService cacheService;
+
+    @Mock
+    private CookieService cookieService;
+
+    @Mock
+    private ExpirationNotificatorTimer expirationNotificatorTimer;
+
+    @Mock
+    private ExternalApplicationSessionService externalApplicationSessionService;
+
+    @Mock
+    private JwtSigner jwtSigner;
+
+    @BeforeMethod
+    public void setUp() {
+        BaseDnConfiguration baseDn = new BaseDnConfiguration();
+        baseDn.setSessions(SESSIONS_BASE_DN);
+
+        lenient().when(staticConfiguration.getBaseDn()).thenReturn(baseDn);
+        lenient().when(appConfiguration.getSessionIdUnusedLifetime()).thenReturn(86400);
+        lenient().when(appConfiguration.getSessionIdUnauthenticatedUnusedLifetime()).thenReturn(120);
+    }
+
+    @Test
+    public void getSessionIds_persistence_loadedWithOneSearch() {
+        SessionId first = session("1");
+        SessionId second = session("2");
+        when(persistenceEntryManager.findEntries(eq(SESSIONS_BASE_DN), eq(SessionId.class), any(Filter.class)))
+                .thenReturn(Lists.newArrayList(first, second));
+
+        Map<String, SessionId> sessions = sessionIdService.getSessionIds(Arrays.asList("1", "2", "3"));
+
+        assertEquals(sessions.size(), 2);
+        assertSame(sessions.get("1"), first);
+        assertSame(sessions.get("2"), second);
+        verify(persistenceEntryManager, times(1)).findEntries(eq(SESSIONS_BASE_DN), eq(SessionId.class), any(Filter.class));
+    }
+
+    @Test
+    public void getSessionIds_inLocalCache_notLoaded() {
+        SessionId first = session("1");
+        when(localCacheService.get("oxId=1," + SESSIONS_BASE_DN)).thenReturn(first);
+
+        Map<String, SessionId> sessions = sessionIdService.getSessionIds(Arrays.asList("1"));
+
+        assertSame(sessions.get("1"), first);
+        verifyNoInteractions(persistenceEntryManager, cacheService);
+    }
+
+    @Test
+    public void getSessionIds_expiredSession_skipped() {
+        SessionId expired = session("1");
+        expired.setLastUsedAt(new Date(System.currentTimeMillis() - 200000L * 1000));
+        when(appConfiguration.getSessionIdPersistInCache()).thenReturn(true);
+        when(cacheService.get(anyString())).thenReturn(expired);
+
+        assertTrue(sessionIdService.getSessionIds(Arrays.asList("1")).isEmpty());
+    }
+
+    @Test
+    public void getSessionIds_loadFailed_returnNull() {
+        when(persistenceEntryManager.findEntries(eq(SESSIONS_BASE_DN), eq(SessionId.class), any(Filter.class)))
+                .thenThrow(new RuntimeException("Persistence is not available"));
+
+        assertNull(sessionIdService.getSessionIds(Arrays.asList("1", "2")));
+    }
+
+    @Test
+    public void getCurrentSessions_loadFailed_cookieNotPruned() {
+        when(cookieService.getCurrentSessions()).thenReturn(Sets.newHashSet("1", "2"));
+        when(persistenceEntryManager.findEntries(eq(SESSIONS_BASE_DN), eq(SessionId.class), any(Filter.class)))
+                .thenThrow(new RuntimeException("Persistence is not available"));
+
+        assertTrue(sessionIdService.getCurrentSessions().isEmpty());
+        verify(cookieService, never()).removeCurrentSessions(any());
+    }
+
+    @Test
+    public void getCurrentSessions_sessionNotFound_removedFromCookie() {
+        when(cookieService.getCurrentSessions()).thenReturn(Sets.newHashSet("1", "2"));
+        when(persistenceEntryManager.findEntries(eq(SESSIONS_BASE_DN), eq(SessionId.class), any(Filter.class)))
+                .thenReturn(Lists.newArrayList(session("1")));
+
+        assertEquals(sessionIdService.getCurrentSessions().size(), 1);
+        verify(cookieService).removeCurrentSessions(Sets.newHashSet("2"));
+    }
+
+    @Test
+    public void generateSessionId_sessionAsJwt_signedBeforePersist() throws Exception {
+        final SessionIdService service = jwtSigningService();
+
+        final SessionId session = service.generateUnauthenticatedSessionId("inum=user,o=gluu", new Date(), SessionIdState.UNAUTHENTICATED, new HashMap<>(), true);
+
+        assertNotNull(session.getJwt());
+        verify(persistenceEntryManager).persist(argThat(entry -> ((SessionId) entry).getJwt() != null));
+        verify(jwtSigner, times(1)).sign();
+    }
+
+    @Test
+    public void setSessionIdStateAuthenticated_sessionIdChanged_jwtSignedForNewId() throws Exception {
+        final SessionIdService service = jwtSigningService();
+        when(appConfiguration.getChangeSessionIdOnAuthentication()).thenReturn(true);
+
+        final SessionId session = session("1");
+        session.setIsJwt(true);
+        session.setState(SessionIdState.UNAUTHENTICATED);
+        session.setJwt("old.jwt.value");
+
+        service.setSessionIdStateAuthenticated(mock(HttpServletRequest.class), mock(HttpServletResponse.class), session, null);
+
+        assertNotEquals(session.getId(), "1");
+        assertNotEquals(session.getJwt(), "old.jwt.value");
+        assertEquals(session.getJwt(), signedJwt.asString());
+        verify(persistenceEntryManager).persist(argThat(entry -> signedJwt.asString().equals(((SessionId) entry).getJwt())));
+    }
+
+    private Jwt signedJwt;
+
+    private SessionIdService jwtSigningService() throws Exception {
+        when(appConfiguration.getSessionAsJwt()).thenReturn(true);
+
+        signedJwt = new Jwt();
+        signedJwt.getHeader().setAlgorithm(SignatureAlgorithm.RS512);
+        when(jwtSigner.newJwt()).thenReturn(signedJwt);
+        when(jwtSigner.sign()).thenAnswer(invocation -> {
+            signedJwt.setEncodedSignature("c2lnbmF0dXJl");
+            return signedJwt;
+        });
+
+        final SessionIdService service = spy(sessionIdService);
+        doReturn(jwtSigner).when(service).newJwtSigner(any());
+        return service;
+    }
+
+    private static SessionId session(String id) {
+        SessionId session = new SessionId();
+        session.setId(id);
+        session.setDn("oxId=" + id + "," + SESSIONS_BASE_DN);
+        session.setState(SessionIdState.AUTHENTICATED);
+        session.setLastUsedAt(new Date());
+        return session;
+    }
+}
@@ -0,0 +1,107 @@
+package org.gluu.oxauth.service;
+
+import com.google.common.collect.Lists;
+import org.gluu.oxauth.model.config.BaseDnConfiguration;
+import org.gluu.oxauth.model.config.StaticConfiguration;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.ldap.UserGroup;
+import org.gluu.persist.PersistenceEntryManager;
+import org.gluu.search.filter.Filter;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Listeners(MockitoTestNGListener.class)
+public class UserGroupServiceTest {
+
+    private static final String GROUPS_BASE_DN = "ou=groups,o=gluu";
+    private static final String USER_DN = "inum=user,ou=people,o=gluu";
+    private static final String MANAGERS_DN = "inum=managers," + GROUPS_BASE_DN;
+    private static final String USERS_DN = "inum=users," + GROUPS_BASE_DN;
+
+    @InjectMocks
+    private UserGroupService userGroupService;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private PersistenceEntryManager ldapEntryManager;
+
+    @Mock
+    private StaticConfiguration staticConfiguration;
+
+    @Mock
+    private AppConfiguration appConfiguration;
+
+    @BeforeMethod
+    public void setUp() {
+        BaseDnConfiguration baseDn = new BaseDnConfiguration();
+        baseDn.setGroups(GROUPS_BASE_DN);
+        lenient().when(staticConfiguration.getBaseDn()).thenReturn(baseDn);
+        lenient().when(appConfiguration.getUserGroupsCacheLifetimeInSeconds()).thenReturn(60);
+        lenient().when(appConfiguration.getUserGroupsCacheSizeLimit()).thenReturn(100);
+
+        lenient().when(ldapEntryManager.findEntries(eq(GROUPS_BASE_DN), eq(UserGroup.class), any(Filter.class), any(String[].class)))
+                .thenReturn(Lists.newArrayList(group(USERS_DN)));
+    }
+
+    @Test
+    public void isInAnyGroup_severalGroups_oneSearch() {
+        assertTrue(userGroupService.isInAnyGroup(Arrays.asList("inum=other," + GROUPS_BASE_DN, MANAGERS_DN, USERS_DN), USER_DN));
+
+        verify(ldapEntryManager, times(1)).findEntries(eq(GROUPS_BASE_DN), eq(UserGroup.class), any(Filter.class), any(String[].class));
+        verify(ldapEntryManager, never()).find(eq(UserGroup.class), anyString());
+    }
+
+    @Test
+    public void isUserInGroup_calledTwice_groupsResolvedOnce() {
+        assertTrue(userGroupService.isUserInGroup(USERS_DN, USER_DN));
+        assertFalse(userGroupService.isUserInGroup(MANAGERS_DN, USER_DN));
+
+        verify(ldapEntryManager, times(1)).findEntries(eq(GROUPS_BASE_DN), eq(UserGroup.class), any(Filter.class), any(String[].class));
+    }
+
+    @Test
+    public void isUserInGroup_afterInvalidate_groupsResolvedAgain() {
+        userGroupService.isUserInGroup(USERS_DN, USER_DN);
+        userGroupService.invalidate(USER_DN);
+        userGroupService.isUserInGroup(USERS_DN, USER_DN);
+
+        verify(ldapEntryManager, times(2)).findEntries(eq(GROUPS_BASE_DN), eq(UserGroup.class), any(Filter.class), any(String[].class));
+    }
+
+    @Test
+    public void isUserInGroup_cacheDisabled_groupsResolvedEachTime() {
+        when(appConfiguration.getUserGroupsCacheLifetimeInSeconds()).thenReturn(0);
+
+        assertTrue(userGroupService.isUserInGroup(USERS_DN, USER_DN));
+        assertTrue(userGroupService.isUserInGroup(USERS_DN, USER_DN));
+
+        verify(ldapEntryManager, times(2)).findEntries(eq(GROUPS_BASE_DN), eq(UserGroup.class), any(Filter.class), any(String[].class));
+    }
+
+    @Test
+    public void isUserInGroupOrMember_branchDn_anyGroupUnderBranchMatched() {
+        assertTrue(userGroupService.isUserInGroupOrMember(GROUPS_BASE_DN, USER_DN));
+    }
+
+    private static UserGroup group(String dn) {
+        UserGroup group = new UserGroup();
+        group.setDn(dn);
+        return group;
+    }
+}
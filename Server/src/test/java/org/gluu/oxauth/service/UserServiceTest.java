@@ -0,0 +1,161 @@
+package org.gluu.oxauth.service;
+
+import com.google.common.collect.Lists;
+import org.gluu.oxauth.model.common.User;
+import org.gluu.oxauth.model.config.BaseDnConfiguration;
+import org.gluu.oxauth.model.config.StaticConfiguration;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.service.common.InumService;
+import org.gluu.persist.PersistenceEntryManager;
+import org.gluu.search.filter.Filter;
+import org.gluu.service.DataSourceTypeService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+@Listeners(MockitoTestNGListener.class)
+public class UserServiceTest {
+
+    private static final String PEOPLE_BASE_DN = "ou=people,o=gluu";
+
+    @InjectMocks
+    private UserService userService;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private PersistenceEntryManager persistenceEntryManager;
+
+    @Mock
+    private DataSourceTypeService dataSourceTypeService;
+
+    @Mock
+    private StaticConfiguration staticConfiguration;
+
+    @Mock
+    private AppConfiguration appConfiguration;
+
+    @Mock
+    private InumService inumService;
+
+    @BeforeMethod
+    public void setUp() {
+        BaseDnConfiguration baseDn = new BaseDnConfiguration();
+        baseDn.setPeople(PEOPLE_BASE_DN);
+
+        lenient().when(staticConfiguration.getBaseDn()).thenReturn(baseDn);
+        lenient().when(appConfiguration.getUserCacheLifetimeInSeconds()).thenReturn(10);
+        lenient().when(appConfiguration.getUserCacheSizeLimit()).thenReturn(100);
+        lenient().when(appConfiguration.getUserMissCacheLifetimeInSeconds()).thenReturn(5);
+    }
+
+    @Test
+    public void getUser_calledTwice_searchedOnceAndReadByDn() {
+        User user = user();
+        User fresh = user();
+
+        when(persistenceEntryManager.findEntries(eq(PEOPLE_BASE_DN), eq(User.class), any(Filter.class), any()))
+                .thenReturn(Lists.newArrayList(user));
+        when(persistenceEntryManager.find(eq(user.getDn()), eq(User.class), any())).thenReturn(fresh);
+
+        assertSame(userService.getUser("admin"), user);
+        assertSame(userService.getUser("Admin"), fresh);
+
+        verify(persistenceEntryManager, times(1)).findEntries(eq(PEOPLE_BASE_DN), eq(User.class), any(Filter.class), any());
+        verify(persistenceEntryManager, times(1)).find(eq(user.getDn()), eq(User.class), any());
+    }
+
+    @Test
+    public void getUser_unknownUser_missCachedAndClearedByAddUser() {
+        User added = user();
+        added.setDn(null);
+        added.setUserId("unknown");
+
+        when(inumService.generatePeopleInum()).thenReturn("2");
+        when(persistenceEntryManager.findEntries(eq(PEOPLE_BASE_DN), eq(User.class), any(Filter.class), any()))
+                .thenReturn(new ArrayList<>(), Lists.newArrayList(added));
+
+        assertNull(userService.getUser("unknown"));
+        assertNull(userService.getUser("Unknown"));
+        verify(persistenceEntryManager, times(1)).findEntries(eq(PEOPLE_BASE_DN), eq(User.class), any(Filter.class), any());
+
+        userService.addUser(added, true);
+
+        assertSame(userService.getUser("unknown"), added);
+        verify(persistenceEntryManager, times(2)).findEntries(eq(PEOPLE_BASE_DN), eq(User.class), any(Filter.class), any());
+    }
+
+    @Test
+    public void getUser_missCacheDisabled_searchedEachTime() {
+        when(appConfiguration.getUserMissCacheLifetimeInSeconds()).thenReturn(0);
+        when(persistenceEntryManager.findEntries(eq(PEOPLE_BASE_DN), eq(User.class), any(Filter.class), any()))
+                .thenReturn(new ArrayList<>());
+
+        assertNull(userService.getUser("unknown"));
+        assertNull(userService.getUser("unknown"));
+
+        verify(persistenceEntryManager, times(2)).findEntries(eq(PEOPLE_BASE_DN), eq(User.class), any(Filter.class), any());
+    }
+
+    @Test
+    public void getUser_cachedDnRemoved_searchedAgain() {
+        User user = user();
+
+        when(persistenceEntryManager.findEntries(eq(PEOPLE_BASE_DN), eq(User.class), any(Filter.class), any()))
+                .thenReturn(Lists.newArrayList(user), new ArrayList<>());
+        when(persistenceEntryManager.find(eq(user.getDn()), eq(User.class), any())).thenReturn(null);
+
+        assertSame(userService.getUser("admin"), user);
+        assertNull(userService.getUser("admin"));
+
+        verify(persistenceEntryManager, times(2)).findEntries(eq(PEOPLE_BASE_DN), eq(User.class), any(Filter.class), any());
+    }
+
+    @Test
+    public void getUser_afterUpdate_searchedAgain() {
+        User user = user();
+
+        when(persistenceEntryManager.findEntries(eq(PEOPLE_BASE_DN), eq(User.class), any(Filter.class), any()))
+                .thenReturn(Lists.newArrayList(user));
+        when(persistenceEntryManager.find(anyString(), eq(User.class), any())).thenReturn(user);
+
+        userService.getUser("admin");
+        userService.updateUser(user);
+        userService.getUser("admin");
+
+        verify(persistenceEntryManager, times(2)).findEntries(eq(PEOPLE_BASE_DN), eq(User.class), any(Filter.class), any());
+    }
+
+    @Test
+    public void getUser_cacheDisabled_searchedEachTime() {
+        when(appConfiguration.getUserCacheLifetimeInSeconds()).thenReturn(0);
+        when(persistenceEntryManager.findEntries(eq(PEOPLE_BASE_DN), eq(User.class), any(Filter.class), any()))
+                .thenReturn(Lists.newArrayList(user()));
+
+        userService.getUser("admin");
+        userService.getUser("admin");
+
+        verify(persistenceEntryManager, times(2)).findEntries(eq(PEOPLE_BASE_DN), eq(User.class), any(Filter.class), any());
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setDn("inum=1," + PEOPLE_BASE_DN);
+        user.setUserId("admin");
+        return user;
+    }
+}
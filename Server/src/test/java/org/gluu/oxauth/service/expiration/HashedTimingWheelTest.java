@@ -0,0 +1,77 @@
+package org.gluu.oxauth.service.expiration;
+
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class HashedTimingWheelTest {
+
+    @Test
+    public void advance_beforeExpiration_nothingExpired() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(1000, 10, 0);
+        wheel.schedule("a", 5000);
+
+        assertTrue(wheel.advance(4999).isEmpty());
+        assertEquals(wheel.advance(5000), Collections.singletonList("a"));
+        assertEquals(wheel.size(), 0);
+    }
+
+    @Test
+    public void advance_expirationLaterThanRevolution_expiredOnlyAtItsTick() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(1000, 10, 0);
+        wheel.schedule("a", 25000);
+
+        for (long now = 1000; now < 25000; now += 1000) {
+            assertTrue(wheel.advance(now).isEmpty(), "Expired too early at " + now);
+        }
+        assertEquals(wheel.advance(25000), Collections.singletonList("a"));
+    }
+
+    @Test
+    public void advance_afterLongPause_allDueEntriesExpired() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(1000, 10, 0);
+        wheel.schedule("a", 3000);
+        wheel.schedule("b", 17000);
+        wheel.schedule("c", 100000);
+
+        List<String> expired = wheel.advance(50000);
+
+        assertEquals(expired.size(), 2);
+        assertTrue(expired.contains("a") && expired.contains("b"));
+        assertTrue(wheel.contains("c"));
+    }
+
+    @Test
+    public void schedule_sameKeyTwice_rescheduled() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(1000, 10, 0);
+        wheel.schedule("a", 2000);
+        wheel.schedule("a", 8000);
+
+        assertEquals(wheel.size(), 1);
+        assertTrue(wheel.advance(5000).isEmpty());
+        assertEquals(wheel.advance(8000), Collections.singletonList("a"));
+    }
+
+    @Test
+    public void cancel_scheduledKey_notExpired() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(1000, 10, 0);
+        wheel.schedule("a", 2000);
+
+        assertTrue(wheel.cancel("a"));
+        assertFalse(wheel.cancel("a"));
+        assertTrue(wheel.advance(3000).isEmpty());
+    }
+
+    @Test
+    public void schedule_alreadyExpired_expiredOnNextTick() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(1000, 10, 10000);
+        wheel.schedule("a", 1000);
+
+        assertEquals(wheel.advance(11000), Collections.singletonList("a"));
+    }
+}
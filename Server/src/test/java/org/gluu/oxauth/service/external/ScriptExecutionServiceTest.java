@@ -0,0 +1,217 @@
+package org.gluu.oxauth.service.external;
+
+import org.gluu.model.SimpleCustomProperty;
+import org.gluu.model.custom.script.conf.CustomScriptConfiguration;
+import org.gluu.model.custom.script.model.CustomScript;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.service.LocalCacheService;
+import org.json.JSONObject;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+@Listeners(MockitoTestNGListener.class)
+public class ScriptExecutionServiceTest {
+
+    @InjectMocks
+    private ScriptExecutionService scriptExecutionService;
+
+    @InjectMocks
+    private ScriptResultCache scriptResultCache;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private LocalCacheService localCacheService;
+
+    @Mock
+    private AppConfiguration appConfiguration;
+
+    @Mock
+    private CustomScriptConfiguration script;
+
+    @Mock
+    private CustomScript customScript;
+
+    private final Map<String, SimpleCustomProperty> attributes = new HashMap<>();
+
+    @BeforeMethod
+    public void setUp() {
+        attributes.clear();
+        lenient().when(script.getName()).thenReturn("test_script");
+        lenient().when(script.getCustomScript()).thenReturn(customScript);
+        lenient().when(script.getConfigurationAttributes()).thenReturn(attributes);
+        lenient().when(appConfiguration.getScriptExecutorPoolSize()).thenReturn(2);
+        lenient().when(appConfiguration.getScriptExecutionFallbackPolicy()).thenReturn("fail");
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        scriptExecutionService.destroy();
+    }
+
+    @Test
+    public void execute_withoutBudget_shouldRunOnCallerThread() {
+        final Thread caller = Thread.currentThread();
+
+        final Boolean result = scriptExecutionService.execute(script, "method", () -> Thread.currentThread() == caller, false, true);
+
+        assertTrue(result);
+    }
+
+    @Test
+    public void execute_withinBudget_shouldRunOnExecutorAndReturnResult() {
+        attributes.put(ScriptExecutionService.TIMEOUT_PROPERTY, new SimpleCustomProperty(ScriptExecutionService.TIMEOUT_PROPERTY, "1000"));
+        final Thread caller = Thread.currentThread();
+
+        final Thread executedBy = scriptExecutionService.execute(script, "method", Thread::currentThread, null, null);
+
+        assertNotEquals(executedBy, caller);
+    }
+
+    @Test
+    public void execute_budgetExceededWithFailPolicy_shouldReturnFailResult() {
+        when(appConfiguration.getScriptExecutionTimeout()).thenReturn(50);
+
+        assertEquals(scriptExecutionService.execute(script, "method", () -> sleepAndReturn(10), 0, -1).intValue(), 0);
+    }
+
+    @Test
+    public void execute_budgetExceededWithSkipPolicy_shouldReturnSkipResult() {
+        when(appConfiguration.getScriptExecutionTimeout()).thenReturn(50);
+        attributes.put(ScriptExecutionService.FALLBACK_PROPERTY, new SimpleCustomProperty(ScriptExecutionService.FALLBACK_PROPERTY, "skip"));
+
+        assertEquals(scriptExecutionService.execute(script, "method", () -> sleepAndReturn(10), 0, -1).intValue(), -1);
+    }
+
+    @Test
+    public void execute_budgetExceededWithLastGoodPolicy_shouldReturnLastResultReturnedInTime() throws Exception {
+        when(appConfiguration.getScriptExecutionTimeout()).thenReturn(50);
+        attributes.put(ScriptExecutionService.FALLBACK_PROPERTY, new SimpleCustomProperty(ScriptExecutionService.FALLBACK_PROPERTY, "last_good"));
+
+        assertEquals(scriptExecutionService.execute(script, "method", input("client1"), () -> 7, 0, -1).intValue(), 7);
+        assertEquals(scriptExecutionService.execute(script, "method", input("client1"), () -> sleepAndReturn(10), 0, -1).intValue(), 7);
+
+        StringWriter metrics = new StringWriter();
+        scriptExecutionService.writeMetrics(metrics);
+        assertTrue(metrics.toString().contains("outcome=\"timeout\""));
+    }
+
+    @Test
+    public void execute_budgetExceededWithLastGoodPolicyForOtherInput_shouldReturnFailResult() {
+        when(appConfiguration.getScriptExecutionTimeout()).thenReturn(50);
+        attributes.put(ScriptExecutionService.FALLBACK_PROPERTY, new SimpleCustomProperty(ScriptExecutionService.FALLBACK_PROPERTY, "last_good"));
+
+        assertEquals(scriptExecutionService.execute(script, "method", input("client1"), () -> 7, 0, -1).intValue(), 7);
+        assertEquals(scriptExecutionService.execute(script, "method", input("client2"), () -> sleepAndReturn(10), 0, -1).intValue(), 0);
+    }
+
+    @Test
+    public void execute_budgetExceededWithLastGoodPolicyWithoutInput_shouldReturnFailResult() {
+        when(appConfiguration.getScriptExecutionTimeout()).thenReturn(50);
+        attributes.put(ScriptExecutionService.FALLBACK_PROPERTY, new SimpleCustomProperty(ScriptExecutionService.FALLBACK_PROPERTY, "last_good"));
+
+        assertEquals(scriptExecutionService.execute(script, "method", () -> 7, 0, -1).intValue(), 7);
+        assertEquals(scriptExecutionService.execute(script, "method", () -> sleepAndReturn(10), 0, -1).intValue(), 0);
+    }
+
+    @Test
+    public void execute_budgetExceededForScriptRunningOnCopy_shouldLeaveOutputUnchanged() throws Exception {
+        when(appConfiguration.getScriptExecutionTimeout()).thenReturn(50);
+        attributes.put(ScriptExecutionService.FALLBACK_PROPERTY, new SimpleCustomProperty(ScriptExecutionService.FALLBACK_PROPERTY, "skip"));
+        final JSONObject response = new JSONObject().put("active", true);
+        final CountDownLatch modified = new CountDownLatch(1);
+
+        final JSONObject copy = ScriptOutputChange.copyOf(response);
+        final Map<String, String> before = ScriptOutputChange.snapshot(copy);
+        final ScriptOutputChange change = scriptExecutionService.execute(script, "modifyResponse", () -> {
+            sleepAndReturn(0);
+            copy.put("active", false);
+            modified.countDown();
+            return ScriptOutputChange.diff(true, before, copy);
+        }, ScriptOutputChange.unchanged(false), ScriptOutputChange.unchanged(true));
+        change.applyTo(response);
+
+        assertTrue(change.getResult());
+        // interrupted script thread keeps running, but it never touches response
+        modified.await(2, TimeUnit.SECONDS);
+        assertTrue(response.getBoolean("active"));
+    }
+
+    @Test
+    public void execute_scriptFailedWithoutBudget_shouldCountErrorAndReturnFailResult() throws Exception {
+        assertEquals(scriptExecutionService.execute(script, "method", ScriptExecutionServiceTest::throwingScript, 0, -1).intValue(), 0);
+
+        assertTrue(metrics().contains("outcome=\"error\""));
+        assertFalse(metrics().contains("outcome=\"completed\""));
+    }
+
+    @Test
+    public void execute_scriptFailedWithinBudget_shouldNotBeUsedAsLastGoodResult() throws Exception {
+        when(appConfiguration.getScriptExecutionTimeout()).thenReturn(50);
+        attributes.put(ScriptExecutionService.FALLBACK_PROPERTY, new SimpleCustomProperty(ScriptExecutionService.FALLBACK_PROPERTY, "last_good"));
+
+        assertEquals(scriptExecutionService.execute(script, "method", input("client1"), () -> 7, 0, -1).intValue(), 7);
+        assertEquals(scriptExecutionService.execute(script, "method", input("client1"), ScriptExecutionServiceTest::throwingScript, -2, -1).intValue(), -2);
+        assertEquals(scriptExecutionService.execute(script, "method", input("client1"), () -> sleepAndReturn(10), 0, -1).intValue(), 7);
+
+        assertTrue(metrics().contains("outcome=\"error\""));
+    }
+
+    @Test
+    public void execute_cacheableScriptFailed_shouldNotMemoizeFailResult() {
+        attributes.put("getAccessTokenLifetimeInSeconds" + ScriptResultCache.TTL_PROPERTY_SUFFIX,
+                new SimpleCustomProperty("getAccessTokenLifetimeInSeconds" + ScriptResultCache.TTL_PROPERTY_SUFFIX, "60"));
+        final ScriptResultCache.Key key = scriptResultCache.key(script, "getAccessTokenLifetimeInSeconds", new HashMap<>());
+
+        final int result = scriptExecutionService.execute(script, "getAccessTokenLifetimeInSeconds",
+                () -> scriptResultCache.put(key, throwingScript()), 0, 0);
+
+        assertEquals(result, 0);
+        verify(localCacheService, never()).put(anyInt(), anyString(), any());
+    }
+
+    private static Map<String, String> input(String clientId) {
+        return ScriptResultCache.keyParts(null, clientId, null);
+    }
+
+    private String metrics() throws Exception {
+        StringWriter metrics = new StringWriter();
+        scriptExecutionService.writeMetrics(metrics);
+        return metrics.toString();
+    }
+
+    /**
+     * Behaves like script method wrapper of external service when script throws exception.
+     */
+    private static Integer throwingScript() {
+        throw new ScriptExecutionException(new IllegalStateException("Script failed"));
+    }
+
+    private static int sleepAndReturn(int value) {
+        try {
+            Thread.sleep(500);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return value;
+    }
+}
@@ -0,0 +1,96 @@
+package org.gluu.oxauth.service.external;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.gluu.oxauth.model.jwt.JwtClaims;
+import org.gluu.oxauth.model.token.JsonWebResponse;
+import org.json.JSONObject;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class ScriptOutputChangeTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void diff_claimsChangedByScript_shouldBeAppliedToOtherClaims() {
+        JwtClaims claims = new JwtClaims();
+        claims.setClaim("sub", "user1");
+        claims.setClaim("removed", "value");
+        claims.setClaim("groups", Lists.newArrayList("a"));
+
+        Map<String, String> before = ScriptOutputChange.snapshot(claims);
+        claims.setClaim("added", "value");
+        claims.removeClaim("removed");
+        ((List<String>) claims.getClaim("groups")).add("b");
+
+        ScriptOutputChange change = ScriptOutputChange.diff(true, before, claims);
+        assertEquals(change.getValues().keySet(), Sets.newHashSet("groups", "added"));
+
+        JwtClaims otherClaims = new JwtClaims();
+        otherClaims.setClaim("sub", "user2");
+        otherClaims.setClaim("removed", "value");
+        change.applyTo(otherClaims);
+
+        assertEquals(otherClaims.getClaimAsString("sub"), "user2");
+        assertEquals(otherClaims.getClaimAsString("added"), "value");
+        assertEquals(otherClaims.getClaim("groups"), Lists.newArrayList("a", "b"));
+        assertFalse(otherClaims.hasClaim("removed"));
+        assertTrue(change.getResult());
+    }
+
+    @Test
+    public void diff_jsonChangedByScript_shouldBeAppliedToOtherJson() {
+        JSONObject response = new JSONObject();
+        response.put("active", true);
+
+        Map<String, String> before = ScriptOutputChange.snapshot(response);
+        response.put("custom", new JSONObject().put("key", "value"));
+
+        ScriptOutputChange change = ScriptOutputChange.diff(true, before, response);
+
+        JSONObject otherResponse = new JSONObject();
+        otherResponse.put("active", true);
+        change.applyTo(otherResponse);
+        assertEquals(otherResponse.getJSONObject("custom").getString("key"), "value");
+
+        // cached value is not shared with response
+        otherResponse.getJSONObject("custom").put("key", "changed");
+        JSONObject thirdResponse = new JSONObject();
+        change.applyTo(thirdResponse);
+        assertEquals(thirdResponse.getJSONObject("custom").getString("key"), "value");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void diff_copyOfJwtChangedByScript_shouldBeAppliedToJwtOnlyWhenApplied() {
+        JsonWebResponse jwt = new JsonWebResponse();
+        jwt.getHeader().setClaim("kid", "key1");
+        jwt.getClaims().setClaim("sub", "user1");
+        jwt.getClaims().setClaim("groups", Lists.newArrayList("a"));
+
+        JsonWebResponse copy = ScriptOutputChange.copyOf(jwt);
+        Map<String, String> headerBefore = ScriptOutputChange.snapshot(copy.getHeader());
+        Map<String, String> claimsBefore = ScriptOutputChange.snapshot(copy.getClaims());
+        copy.getHeader().setClaim("kid", "key2");
+        copy.getClaims().setClaim("added", "value");
+        ((List<String>) copy.getClaims().getClaim("groups")).add("b");
+
+        // copy does not share values with original
+        assertEquals(jwt.getHeader().getClaimAsString("kid"), "key1");
+        assertFalse(jwt.getClaims().hasClaim("added"));
+        assertEquals(jwt.getClaims().getClaim("groups"), Lists.newArrayList("a"));
+
+        ScriptOutputChange.diff(true, headerBefore, claimsBefore, copy).applyTo(jwt);
+
+        assertEquals(jwt.getHeader().getClaimAsString("kid"), "key2");
+        assertEquals(jwt.getClaims().getClaimAsString("sub"), "user1");
+        assertEquals(jwt.getClaims().getClaimAsString("added"), "value");
+        assertEquals(jwt.getClaims().getClaim("groups"), Lists.newArrayList("a", "b"));
+    }
+}
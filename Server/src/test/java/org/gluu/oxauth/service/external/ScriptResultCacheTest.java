@@ -0,0 +1,105 @@
+package org.gluu.oxauth.service.external;
+
+import com.google.common.collect.Lists;
+import org.gluu.model.SimpleCustomProperty;
+import org.gluu.model.custom.script.conf.CustomScriptConfiguration;
+import org.gluu.model.custom.script.model.CustomScript;
+import org.gluu.service.LocalCacheService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+
+@Listeners(MockitoTestNGListener.class)
+public class ScriptResultCacheTest {
+
+    @InjectMocks
+    private ScriptResultCache scriptResultCache;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private LocalCacheService localCacheService;
+
+    @Mock
+    private CustomScriptConfiguration script;
+
+    @Mock
+    private CustomScript customScript;
+
+    private final Map<String, SimpleCustomProperty> attributes = new HashMap<>();
+
+    @BeforeMethod
+    public void setUp() {
+        attributes.clear();
+        lenient().when(script.getName()).thenReturn("test_script");
+        lenient().when(script.getCustomScript()).thenReturn(customScript);
+        lenient().when(script.getConfigurationAttributes()).thenReturn(attributes);
+        lenient().when(customScript.getRevision()).thenReturn(1L);
+    }
+
+    @Test
+    public void key_methodIsNotCacheable_shouldReturnNull() {
+        assertNull(scriptResultCache.key(script, "update", keyParts("client1")));
+    }
+
+    @Test
+    public void key_cacheableMethod_shouldContainRequestedKeyPartsOnly() {
+        declareCacheable("update", "60", "client, scopes");
+
+        ScriptResultCache.Key key1 = scriptResultCache.key(script, "update", keyParts("client1"));
+        ScriptResultCache.Key key2 = scriptResultCache.key(script, "update", ScriptResultCache.keyParts(null, "client1", Lists.newArrayList("profile", "openid")));
+
+        assertEquals(key1.getTtl(), 60);
+        assertEquals(key1.getValue(), key2.getValue());
+        assertNotEquals(key1.getValue(), scriptResultCache.key(script, "update", keyParts("client2")).getValue());
+    }
+
+    @Test
+    public void key_keyPartIsNotAvailable_shouldReturnNull() {
+        declareCacheable("update", "60", "user");
+
+        assertNull(scriptResultCache.key(script, "update", keyParts("client1")));
+    }
+
+    @Test
+    public void key_scriptRevisionChanged_shouldChangeKey() {
+        declareCacheable("update", "60", "client");
+        ScriptResultCache.Key key1 = scriptResultCache.key(script, "update", keyParts("client1"));
+
+        when(customScript.getRevision()).thenReturn(2L);
+        ScriptResultCache.Key key2 = scriptResultCache.key(script, "update", keyParts("client1"));
+
+        assertNotEquals(key1.getValue(), key2.getValue());
+    }
+
+    @Test
+    public void put_cacheableResult_shouldBeStoredWithTtl() {
+        declareCacheable("getAccessTokenLifetimeInSeconds", "30", "");
+        ScriptResultCache.Key key = scriptResultCache.key(script, "getAccessTokenLifetimeInSeconds", keyParts("client1"));
+
+        assertEquals(scriptResultCache.put(key, 3600).intValue(), 3600);
+        verify(localCacheService).put(30, key.getValue(), 3600);
+    }
+
+    private void declareCacheable(String method, String ttl, String key) {
+        attributes.put(method + ScriptResultCache.TTL_PROPERTY_SUFFIX, new SimpleCustomProperty(method + ScriptResultCache.TTL_PROPERTY_SUFFIX, ttl));
+        attributes.put(method + ScriptResultCache.KEY_PROPERTY_SUFFIX, new SimpleCustomProperty(method + ScriptResultCache.KEY_PROPERTY_SUFFIX, key));
+    }
+
+    private static Map<String, String> keyParts(String clientId) {
+        return ScriptResultCache.keyParts(null, clientId, Lists.newArrayList("openid", "profile"));
+    }
+}
@@ -0,0 +1,102 @@
+package org.gluu.oxauth.service.fido.u2f;
+
+import com.google.common.collect.Lists;
+import org.gluu.oxauth.model.fido.u2f.DeviceRegistration;
+import org.gluu.oxauth.service.common.UserService;
+import org.gluu.persist.PersistenceEntryManager;
+import org.gluu.search.filter.Filter;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+@Listeners(MockitoTestNGListener.class)
+public class DeviceRegistrationServiceTest {
+
+    private static final String APP_ID = "https://gluu.local";
+    private static final String USER_INUM = "1234";
+    private static final String USER_DN = "inum=1234,ou=people,o=gluu";
+    private static final String DEVICES_DN = "ou=fido," + USER_DN;
+    private static final String DEVICE_DN = "oxId=1," + DEVICES_DN;
+
+    @InjectMocks
+    private DeviceRegistrationService deviceRegistrationService;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private PersistenceEntryManager ldapEntryManager;
+
+    @Mock
+    private UserService userService;
+
+    private DeviceRegistration device;
+
+    @BeforeMethod
+    public void setUp() {
+        device = new DeviceRegistration();
+        device.setDn(DEVICE_DN);
+        device.setUserInum(USER_INUM);
+        device.setApplication(APP_ID);
+        device.setKeyHandle("keyHandle");
+
+        lenient().when(userService.getDnForUser(USER_INUM)).thenReturn(USER_DN);
+        lenient().when(ldapEntryManager.findEntries(eq(DEVICES_DN), eq(DeviceRegistration.class), any(Filter.class), any()))
+                .thenReturn(Lists.newArrayList(device));
+    }
+
+    @Test
+    public void findUserDeviceRegistrations_calledTwice_searchedOnce() {
+        deviceRegistrationService.findUserDeviceRegistrations(USER_INUM, APP_ID);
+        List<DeviceRegistration> devices = deviceRegistrationService.findUserDeviceRegistrations(USER_INUM, APP_ID);
+
+        assertEquals(devices.size(), 1);
+        verify(ldapEntryManager, times(1)).findEntries(eq(DEVICES_DN), eq(DeviceRegistration.class), any(Filter.class), any());
+    }
+
+    @Test
+    public void findUserDeviceRegistrations_afterUpdate_searchedAgain() {
+        deviceRegistrationService.findUserDeviceRegistrations(USER_INUM, APP_ID);
+        deviceRegistrationService.updateDeviceRegistration(USER_INUM, device);
+        deviceRegistrationService.findUserDeviceRegistrations(USER_INUM, APP_ID);
+
+        verify(ldapEntryManager, times(2)).findEntries(eq(DEVICES_DN), eq(DeviceRegistration.class), any(Filter.class), any());
+    }
+
+    @Test
+    public void findUserDeviceRegistrationByKeyHandle_cachedDevices_actualDeviceReadByDn() {
+        DeviceRegistration actual = new DeviceRegistration();
+        when(ldapEntryManager.find(eq(DEVICE_DN), eq(DeviceRegistration.class), any())).thenReturn(actual);
+
+        deviceRegistrationService.findUserDeviceRegistrations(USER_INUM, APP_ID);
+
+        assertSame(deviceRegistrationService.findUserDeviceRegistrationByKeyHandle(USER_INUM, APP_ID, "keyHandle"), actual);
+        verify(ldapEntryManager, times(1)).findEntries(eq(DEVICES_DN), eq(DeviceRegistration.class), any(Filter.class), any());
+    }
+
+    @Test
+    public void findDeviceRegistrationsByKeyHandle_indexed_noSubtreeSearch() {
+        when(ldapEntryManager.find(eq(DEVICE_DN), eq(DeviceRegistration.class), any())).thenReturn(device);
+
+        deviceRegistrationService.findUserDeviceRegistrations(USER_INUM, APP_ID);
+        List<DeviceRegistration> devices = deviceRegistrationService.findDeviceRegistrationsByKeyHandle(APP_ID, "keyHandle", "oxId");
+
+        assertEquals(devices.size(), 1);
+        assertSame(devices.get(0), device);
+        verify(userService, never()).getDnForUser(null);
+        verify(ldapEntryManager, never()).findEntries(anyString(), eq(DeviceRegistration.class), any(Filter.class), eq("oxId"));
+    }
+}
@@ -0,0 +1,237 @@
+package org.gluu.oxauth.uma.service;
+
+import com.google.common.collect.Lists;
+import org.gluu.oxauth.model.common.ExecutionContext;
+import org.gluu.oxauth.model.config.BaseDnConfiguration;
+import org.gluu.oxauth.model.config.StaticConfiguration;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.crypto.AbstractCryptoProvider;
+import org.gluu.oxauth.model.crypto.signature.SignatureAlgorithm;
+import org.gluu.oxauth.model.jwt.Jwt;
+import org.gluu.oxauth.model.registration.Client;
+import org.gluu.oxauth.model.uma.persistence.UmaPermission;
+import org.gluu.oxauth.service.stat.StatService;
+import org.gluu.oxauth.uma.authorization.UmaRPT;
+import org.gluu.persist.PersistenceEntryManager;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+@Listeners(MockitoTestNGListener.class)
+public class UmaRptServiceTest {
+
+    private static final String ISSUER = "https://gluu.local";
+
+    @InjectMocks
+    private UmaRptService rptService;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private AppConfiguration appConfiguration;
+
+    @Mock
+    private AbstractCryptoProvider cryptoProvider;
+
+    @Mock
+    private PersistenceEntryManager ldapEntryManager;
+
+    @Mock
+    private StaticConfiguration staticConfiguration;
+
+    @Mock
+    private StatService statService;
+
+    @Test
+    public void validateSelfContainedRpt_modeIsOff_returnNull() {
+        when(appConfiguration.getUmaRptSelfContained()).thenReturn(false);
+
+        assertNull(rptService.validateSelfContainedRpt(rptJwt(ISSUER, new Date(System.currentTimeMillis() + 60000)), rpt(1)));
+        verifyNoInteractions(cryptoProvider);
+    }
+
+    @Test
+    public void validateSelfContainedRpt_permissionsAddedToPersistedRpt_returnNull() {
+        when(appConfiguration.getUmaRptSelfContained()).thenReturn(true);
+
+        assertNull(rptService.validateSelfContainedRpt(rptJwt(ISSUER, new Date(System.currentTimeMillis() + 60000)), rpt(2)));
+        verifyNoInteractions(cryptoProvider);
+    }
+
+    @Test
+    public void validateSelfContainedRpt_issuedBeforeSelfContainedMode_returnNull() {
+        when(appConfiguration.getUmaRptSelfContained()).thenReturn(true);
+
+        assertNull(rptService.validateSelfContainedRpt(rptJwt(ISSUER, new Date(System.currentTimeMillis() + 60000), null), rpt(1)));
+        verifyNoInteractions(cryptoProvider);
+    }
+
+    @Test
+    public void validateSelfContainedRpt_invalidPermissionSkippedInJwt_returnJwt() throws Exception {
+        when(appConfiguration.getUmaRptSelfContained()).thenReturn(true);
+        when(appConfiguration.getIssuer()).thenReturn(ISSUER);
+        when(cryptoProvider.verifySignature(anyString(), anyString(), eq("kid"), isNull(), isNull(), eq(SignatureAlgorithm.RS256))).thenReturn(true);
+
+        // jwt carries one permission while two permissions are persisted and signed count matches persisted RPT
+        assertNotNull(rptService.validateSelfContainedRpt(rptJwt(ISSUER, new Date(System.currentTimeMillis() + 60000), 2), rpt(2)));
+    }
+
+    @Test
+    public void validateSelfContainedRpt_expired_returnNull() {
+        when(appConfiguration.getUmaRptSelfContained()).thenReturn(true);
+
+        assertNull(rptService.validateSelfContainedRpt(rptJwt(ISSUER, new Date(System.currentTimeMillis() - 60000)), rpt(1)));
+        verifyNoInteractions(cryptoProvider);
+    }
+
+    @Test
+    public void validateSelfContainedRpt_anotherIssuer_returnNull() {
+        when(appConfiguration.getUmaRptSelfContained()).thenReturn(true);
+        when(appConfiguration.getIssuer()).thenReturn(ISSUER);
+
+        assertNull(rptService.validateSelfContainedRpt(rptJwt("https://another.local", new Date(System.currentTimeMillis() + 60000)), rpt(1)));
+        verifyNoInteractions(cryptoProvider);
+    }
+
+    @Test
+    public void validateSelfContainedRpt_validSignature_returnJwt() throws Exception {
+        when(appConfiguration.getUmaRptSelfContained()).thenReturn(true);
+        when(appConfiguration.getIssuer()).thenReturn(ISSUER);
+        when(cryptoProvider.verifySignature(anyString(), anyString(), eq("kid"), isNull(), isNull(), eq(SignatureAlgorithm.RS256))).thenReturn(true);
+
+        assertNotNull(rptService.validateSelfContainedRpt(rptJwt(ISSUER, new Date(System.currentTimeMillis() + 60000)), rpt(1)));
+    }
+
+    @Test
+    public void validateSelfContainedRpt_invalidSignature_returnNull() throws Exception {
+        when(appConfiguration.getUmaRptSelfContained()).thenReturn(true);
+        when(appConfiguration.getIssuer()).thenReturn(ISSUER);
+        when(cryptoProvider.verifySignature(anyString(), anyString(), any(), any(), any(), any())).thenReturn(false);
+
+        assertNull(rptService.validateSelfContainedRpt(rptJwt(ISSUER, new Date(System.currentTimeMillis() + 60000)), rpt(1)));
+    }
+
+    @Test
+    public void getSelfContainedPermissions_expiredPermission_skipped() throws Exception {
+        final int now = (int) (System.currentTimeMillis() / 1000);
+        final JSONArray permissions = new JSONArray()
+                .put(new JSONObject().put("resource_id", "active").put("resource_scopes", new JSONArray().put("view")).put("exp", now + 60))
+                .put(new JSONObject().put("resource_id", "expired").put("resource_scopes", new JSONArray().put("view")).put("exp", now - 60));
+
+        final Jwt jwt = new Jwt();
+        jwt.getClaims().setClaim("permissions", permissions);
+
+        final List<org.gluu.oxauth.model.uma.UmaPermission> result = rptService.getSelfContainedPermissions(jwt);
+
+        assertEquals(result.size(), 1);
+        assertEquals(result.get(0).getResourceId(), "active");
+        assertEquals(result.get(0).getScopes(), Lists.newArrayList("view"));
+    }
+
+    @Test
+    public void getSelfContainedPermissions_noPermissionsClaim_returnEmptyList() throws Exception {
+        assertTrue(rptService.getSelfContainedPermissions(new Jwt()).isEmpty());
+    }
+
+    @Test
+    public void upgradeSelfContainedRpt_upgradedRptPersisted_supersededRptRemoved() {
+        final UmaRPT rpt = rpt(1);
+        final UmaPermission existingPermission = permission(rpt.getPermissions().get(0));
+        final UmaPermission requestedPermission = permission("oxId=requested,ou=uma_permission,o=gluu");
+        when(ldapEntryManager.find(UmaPermission.class, existingPermission.getDn())).thenReturn(existingPermission);
+
+        final UmaRPT upgradedRpt = new UmaRPT("upgraded", new Date(), new Date(System.currentTimeMillis() + 60000), null, "client");
+        final UmaRptService service = spy(rptService);
+        doReturn(upgradedRpt).when(service).createRPT(any(), eq(Lists.newArrayList(requestedPermission, existingPermission)));
+        stubBranch();
+
+        assertSame(service.upgradeSelfContainedRpt(executionContext(), rpt, Lists.newArrayList(requestedPermission)), upgradedRpt);
+
+        final InOrder inOrder = inOrder(ldapEntryManager);
+        inOrder.verify(ldapEntryManager).persist(upgradedRpt);
+        inOrder.verify(ldapEntryManager).remove(rpt);
+    }
+
+    @Test
+    public void upgradeSelfContainedRpt_failedToPersistUpgradedRpt_supersededRptKept() {
+        final UmaRPT rpt = rpt(0);
+        final UmaPermission requestedPermission = permission("oxId=requested,ou=uma_permission,o=gluu");
+
+        final UmaRPT upgradedRpt = new UmaRPT("upgraded", new Date(), new Date(System.currentTimeMillis() + 60000), null, "client");
+        final UmaRptService service = spy(rptService);
+        doReturn(upgradedRpt).when(service).createRPT(any(), anyList());
+        stubBranch();
+        doThrow(new RuntimeException("Failed to persist")).when(ldapEntryManager).persist(upgradedRpt);
+
+        assertThrows(RuntimeException.class, () -> service.upgradeSelfContainedRpt(executionContext(), rpt, Lists.newArrayList(requestedPermission)));
+        verify(ldapEntryManager, never()).remove(any(UmaRPT.class));
+    }
+
+    private void stubBranch() {
+        final BaseDnConfiguration baseDn = new BaseDnConfiguration();
+        baseDn.setTokens("ou=tokens,o=gluu");
+        when(staticConfiguration.getBaseDn()).thenReturn(baseDn);
+    }
+
+    private static ExecutionContext executionContext() {
+        final Client client = new Client();
+        client.setClientId("client");
+
+        final ExecutionContext executionContext = new ExecutionContext(null, null);
+        executionContext.setClient(client);
+        return executionContext;
+    }
+
+    private static UmaPermission permission(String dn) {
+        final UmaPermission permission = new UmaPermission();
+        permission.setDn(dn);
+        return permission;
+    }
+
+        return rptJwt(issuer, expirationDate, 1);
+    }
+
+    private static String rptJwt(String issuer, Date expirationDate, Integer permissionsCount) {
+        final Jwt jwt = new Jwt();
+        jwt.getHeader().setAlgorithm(SignatureAlgorithm.RS256);
+        jwt.getHeader().setKeyId("kid");
+        jwt.getClaims().setIssuer(issuer);
+        jwt.getClaims().setExpirationTime(expirationDate);
+        jwt.getClaims().setClaim("client_id", "client");
+        jwt.getClaims().setClaim("permissions", new JSONArray().put(new JSONObject().put("resource_id", "resource")));
+        if (permissionsCount != null) {
+            jwt.getClaims().setClaim("permissions_count", permissionsCount);
+        }
+        jwt.setEncodedSignature("c2lnbmF0dXJl");
+        return jwt.toString();
+    }
+
+    private static UmaRPT rpt(int permissionCount) {
+        final UmaRPT rpt = new UmaRPT();
+        rpt.setDn("tknCde=hash,ou=uma_rpt,ou=tokens,o=gluu");
+        final List<String> permissions = Lists.newArrayList();
+        for (int i = 0; i < permissionCount; i++) {
+            permissions.add("oxId=" + i + ",ou=uma_permission,o=gluu");
+        }
+        rpt.setPermissions(permissions);
+        return rpt;
+    }
+}
@@ -0,0 +1,120 @@
+package org.gluu.oxauth.uma.service;
+
+import com.google.common.collect.Lists;
+import org.gluu.oxauth.model.common.ExecutionContext;
+import org.gluu.oxauth.model.configuration.AppConfiguration;
+import org.gluu.oxauth.model.error.ErrorResponseFactory;
+import org.gluu.oxauth.model.registration.Client;
+import org.gluu.oxauth.model.session.SessionClient;
+import org.gluu.oxauth.model.uma.persistence.UmaPermission;
+import org.gluu.oxauth.security.Identity;
+import org.gluu.oxauth.uma.authorization.UmaPCT;
+import org.gluu.oxauth.uma.authorization.UmaRPT;
+import org.json.JSONObject;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import javax.ws.rs.core.Response;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+@Listeners(MockitoTestNGListener.class)
+public class UmaTokenServiceTest {
+
+    private static final String TICKET = "ticket";
+    private static final String RPT_CODE = "rpt";
+
+    @InjectMocks
+    private UmaTokenService umaTokenService;
+
+    @Mock
+    private Logger log;
+    @Mock
+    private Identity identity;
+    @Mock
+    private ErrorResponseFactory errorResponseFactory;
+    @Mock
+    private UmaRptService rptService;
+    @Mock
+    private UmaPctService pctService;
+    @Mock
+    private UmaPermissionService permissionService;
+    @Mock
+    private UmaValidationService umaValidationService;
+    @Mock
+    private AppConfiguration appConfiguration;
+    @Mock
+    private UmaNeedsInfoService umaNeedsInfoService;
+    @Mock
+    private UmaExpressionService expressionService;
+
+    private final Client client = new Client();
+    private final UmaRPT rpt = new UmaRPT(RPT_CODE, new Date(), new Date(System.currentTimeMillis() + 60000), null, "client");
+    private List<UmaPermission> permissions;
+
+    @BeforeMethod
+    public void setUp() {
+        client.setClientId("client");
+        permissions = Lists.newArrayList(new UmaPermission());
+
+        final SessionClient sessionClient = mock(SessionClient.class);
+        final UmaPCT pct = mock(UmaPCT.class);
+        when(pct.getCode()).thenReturn("pct");
+
+        when(umaValidationService.validateTicket(TICKET)).thenReturn(permissions);
+        when(umaValidationService.validateRPT(RPT_CODE)).thenReturn(rpt);
+        when(identity.getSessionClient()).thenReturn(sessionClient);
+        when(sessionClient.getClient()).thenReturn(client);
+        when(umaValidationService.validate(client)).thenReturn(client);
+        when(umaValidationService.validateScopes(isNull(), eq(permissions), eq(client))).thenReturn(Collections.emptyMap());
+        when(pctService.updateClaims(isNull(), isNull(), eq("client"), eq(permissions))).thenReturn(pct);
+        when(umaNeedsInfoService.checkNeedsInfo(any(), any(), any(), any(), any(), any())).thenReturn(Collections.emptyMap());
+        when(appConfiguration.getUmaGrantAccessIfNoPolicies()).thenReturn(true);
+    }
+
+    @Test
+    public void requestRpt_selfContainedRpt_upgradedRptIssued() {
+        final UmaRPT upgradedRpt = new UmaRPT("upgraded_rpt", new Date(), new Date(System.currentTimeMillis() + 60000), null, "client");
+        when(rptService.isSelfContained(client)).thenReturn(true);
+        when(rptService.upgradeSelfContainedRpt(any(ExecutionContext.class), eq(rpt), eq(permissions))).thenReturn(upgradedRpt);
+
+        final JSONObject response = requestRpt();
+
+        assertEquals(response.getString("access_token"), "upgraded_rpt");
+        assertTrue(response.getBoolean("upgraded"));
+        verify(rptService, never()).addPermissionToRPT(any(UmaRPT.class), anyList());
+    }
+
+    @Test
+    public void requestRpt_notSelfContainedRpt_permissionsAddedToRpt() {
+        when(rptService.isSelfContained(client)).thenReturn(false);
+        when(rptService.addPermissionToRPT(rpt, permissions)).thenReturn(true);
+
+        final JSONObject response = requestRpt();
+
+        assertEquals(response.getString("access_token"), RPT_CODE);
+        assertTrue(response.getBoolean("upgraded"));
+        verify(rptService, never()).upgradeSelfContainedRpt(any(), any(), anyList());
+    }
+
+    private JSONObject requestRpt() {
+        final Response response = umaTokenService.requestRpt("urn:ietf:params:oauth:grant-type:uma-ticket", TICKET,
+                null, null, null, RPT_CODE, null, null, null);
+
+        assertEquals(response.getStatus(), 200);
+        return new JSONObject((String) response.getEntity());
+    }
+}
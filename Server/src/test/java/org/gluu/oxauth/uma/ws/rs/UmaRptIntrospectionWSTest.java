@@ -0,0 +1,111 @@
+package org.gluu.oxauth.uma.ws.rs;
+
+import com.google.common.collect.Lists;
+import org.gluu.oxauth.model.jwt.Jwt;
+import org.gluu.oxauth.model.jwt.JwtClaims;
+import org.gluu.oxauth.model.uma.RptIntrospectionResponse;
+import org.gluu.oxauth.model.uma.persistence.UmaPermission;
+import org.gluu.oxauth.uma.authorization.UmaPCT;
+import org.gluu.oxauth.uma.authorization.UmaRPT;
+import org.gluu.oxauth.uma.service.UmaPctService;
+import org.gluu.oxauth.uma.service.UmaRptService;
+import org.gluu.oxauth.uma.service.UmaScopeService;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.slf4j.Logger;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.util.Date;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+@Listeners(MockitoTestNGListener.class)
+public class UmaRptIntrospectionWSTest {
+
+    private static final String TOKEN = "rpt";
+
+    @InjectMocks
+    private UmaRptIntrospectionWS introspectionWS;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private UmaRptService rptService;
+
+    @Mock
+    private UmaScopeService umaScopeService;
+
+    @Mock
+    private UmaPctService pctService;
+
+    private final UmaRPT rpt = new UmaRPT(TOKEN, new Date(), new Date(System.currentTimeMillis() + 60000), "user", "client");
+
+    @Test
+    public void createStatusResponse_selfContainedRpt_permissionsAndPctClaimsTakenFromJwt() throws Exception {
+        final Jwt jwt = new Jwt();
+        jwt.getClaims().setClaim("pct_claims", new JSONObject().put("country", "US").put("role", new JSONArray().put("admin").put("user")));
+        final org.gluu.oxauth.model.uma.UmaPermission permission = new org.gluu.oxauth.model.uma.UmaPermission();
+        permission.setResourceId("resource");
+
+        when(rptService.validateSelfContainedRpt(TOKEN, rpt)).thenReturn(jwt);
+        when(rptService.getSelfContainedPermissions(jwt)).thenReturn(Lists.newArrayList(permission));
+
+        final RptIntrospectionResponse response = introspectionWS.createStatusResponse(TOKEN, rpt);
+
+        assertTrue(response.getActive());
+        assertEquals(response.getClientId(), "client");
+        assertEquals(response.getSub(), "user");
+        assertEquals(response.getPermissions().size(), 1);
+        assertEquals(response.getPermissions().get(0).getResourceId(), "resource");
+        assertEquals(response.getPctClaims().get("country"), Lists.newArrayList("US"));
+        assertEquals(response.getPctClaims().get("role"), Lists.newArrayList("admin", "user"));
+
+        verify(rptService, never()).getRptPermissions(any());
+        verifyNoInteractions(pctService, umaScopeService);
+    }
+
+    @Test
+    public void createStatusResponse_selfContainedRptWithoutPctClaims_noPctClaims() throws Exception {
+        final Jwt jwt = new Jwt();
+        when(rptService.validateSelfContainedRpt(TOKEN, rpt)).thenReturn(jwt);
+        when(rptService.getSelfContainedPermissions(jwt)).thenReturn(Lists.newArrayList());
+
+        final RptIntrospectionResponse response = introspectionWS.createStatusResponse(TOKEN, rpt);
+
+        assertTrue(response.getActive());
+        assertTrue(response.getPermissions().isEmpty());
+        assertNull(response.getPctClaims());
+        verifyNoInteractions(pctService);
+    }
+
+    @Test
+    public void createStatusResponse_notSelfContainedRpt_pctClaimsTakenFromPersistedPct() throws Exception {
+        final UmaPermission permission = new UmaPermission();
+        permission.setDn("oxId=expired,ou=uma_permission,o=gluu");
+        permission.setExpirationDate(new Date(System.currentTimeMillis() - 60000));
+        permission.getAttributes().put(UmaPermission.PCT, "pct");
+
+        final JwtClaims pctClaims = new JwtClaims();
+        pctClaims.setClaim("country", "US");
+        final UmaPCT pct = mock(UmaPCT.class);
+        when(pct.getClaims()).thenReturn(pctClaims);
+
+        when(rptService.validateSelfContainedRpt(TOKEN, rpt)).thenReturn(null);
+        when(rptService.getRptPermissions(rpt)).thenReturn(Lists.newArrayList(permission));
+        when(pctService.getByCode("pct")).thenReturn(pct);
+
+        final RptIntrospectionResponse response = introspectionWS.createStatusResponse(TOKEN, rpt);
+
+        assertTrue(response.getActive());
+        assertTrue(response.getPermissions().isEmpty());
+        assertEquals(response.getPctClaims().get("country"), Lists.newArrayList("US"));
+        verify(rptService, never()).getSelfContainedPermissions(any());
+    }
+}
@@ -0,0 +1,103 @@
+package org.gluu.oxauth.userinfo.ws.rs;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.gluu.model.GluuAttribute;
+import org.gluu.oxauth.model.common.AuthorizationGrant;
+import org.gluu.oxauth.model.common.ScopeType;
+import org.gluu.oxauth.model.registration.Client;
+import org.gluu.oxauth.service.AttributeService;
+import org.gluu.oxauth.service.ScopeService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.oxauth.persistence.model.Scope;
+import org.slf4j.Logger;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+@Listeners(MockitoTestNGListener.class)
+public class UserInfoClaimPlanServiceTest {
+
+    @InjectMocks
+    private UserInfoClaimPlanService userInfoClaimPlanService;
+
+    @Mock
+    private Logger log;
+
+    @Mock
+    private ScopeService scopeService;
+
+    @Mock
+    private AttributeService attributeService;
+
+    @Mock
+    private AuthorizationGrant authorizationGrant;
+
+    private Scope profile;
+
+    @BeforeMethod
+    public void setUp() {
+        Client client = new Client();
+        client.setClientId("client");
+        lenient().when(authorizationGrant.getClient()).thenReturn(client);
+
+        profile = new Scope();
+        profile.setId("profile");
+        profile.setScopeType(ScopeType.OPENID);
+        lenient().when(scopeService.getScopeById("profile")).thenReturn(profile);
+        lenient().when(scopeService.getClaimAttributes(profile)).thenReturn(Lists.newArrayList(attribute("givenName", "given_name")));
+    }
+
+    @Test
+    public void getPlan_calledTwice_builtOnce() {
+        Set<String> scopes = Sets.newHashSet("openid", "profile");
+
+        UserInfoClaimPlan plan = userInfoClaimPlanService.getPlan(authorizationGrant, scopes);
+
+        assertSame(userInfoClaimPlanService.getPlan(authorizationGrant, scopes), plan);
+        verify(scopeService, times(1)).getClaimAttributes(profile);
+    }
+
+    @Test
+    public void getPlan_requestedClaims_attributesProjected() {
+        when(authorizationGrant.getClaims()).thenReturn("{\"userinfo\":{\"email\":null}}");
+        when(attributeService.getByClaimName("email")).thenReturn(attribute("mail", "email"));
+
+        UserInfoClaimPlan plan = userInfoClaimPlanService.getPlan(authorizationGrant, Sets.newHashSet("profile"));
+
+        assertEquals(plan.getScopeClaims().size(), 1);
+        assertTrue(plan.getRequestedClaims().containsKey("email"));
+        assertTrue(Arrays.asList(plan.getReturnAttributes()).containsAll(Arrays.asList("givenName", "mail")));
+    }
+
+    @Test
+    public void getPlan_dynamicScope_notResolvedToAttributes() {
+        Scope dynamic = new Scope();
+        dynamic.setId("dynamic");
+        dynamic.setScopeType(ScopeType.DYNAMIC);
+        when(scopeService.getScopeById("dynamic")).thenReturn(dynamic);
+
+        UserInfoClaimPlan plan = userInfoClaimPlanService.getPlan(authorizationGrant, Sets.newHashSet("dynamic"));
+
+        assertEquals(plan.getDynamicScopes(), Lists.newArrayList(dynamic));
+        assertTrue(plan.getScopeClaims().isEmpty());
+        verify(scopeService, never()).getClaimAttributes(dynamic);
+    }
+
+    private static GluuAttribute attribute(String name, String claimName) {
+        GluuAttribute attribute = new GluuAttribute();
+        attribute.setName(name);
+        attribute.setOxAuthClaimName(claimName);
+        return attribute;
+    }
+}
@@ -15,16 +15,23 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.security.NoSuchProviderException;
 import java.security.Principal;
+import java.security.PublicKey;
 import java.security.cert.CRLException;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509CRL;
 import java.security.cert.X509CRLEntry;
 import java.security.cert.X509Certificate;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.BoundedInputStream;
@@ -66,25 +73,35 @@ public class CRLCertificateVerifier implements CertificateVerifier {
 
 	private static final Logger log = LoggerFactory.getLogger(CRLCertificateVerifier.class);
 
+	// CRL is re-downloaded this time before its nextUpdate, so validations don't wait for download
+	private static final long CRL_REFRESH_AHEAD_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+	// CRL without nextUpdate is re-downloaded with this period
+	private static final long CRL_MAX_AGE_MILLIS = TimeUnit.MINUTES.toMillis(60);
+
+	// protects CRL server if CA didn't publish new CRL in time or download failed
+	private static final long CRL_MIN_REFRESH_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
 	private int maxCrlSize;
 
-	private LoadingCache<String, X509CRL> crlCache;
+	private LoadingCache<String, CrlEntry> crlCache;
 
 	public CRLCertificateVerifier(final int maxCrlSize) {
 		SecurityProviderUtility.installBCProvider(true);
 
 		this.maxCrlSize = maxCrlSize;
 		
-		CacheLoader<String, X509CRL> checkedLoader = new CacheLoader<String, X509CRL>() {
-			public X509CRL load(String crlURL) throws CertificateException, CRLException, NoSuchProviderException, NoSuchParserException, StreamParsingException, MalformedURLException, IOException, ExecutionException {
+		CacheLoader<String, CrlEntry> checkedLoader = new CacheLoader<String, CrlEntry>() {
+			public CrlEntry load(String crlURL) throws CertificateException, CRLException, NoSuchProviderException, NoSuchParserException, StreamParsingException, MalformedURLException, IOException, ExecutionException {
 				X509CRL result = requestCRL(crlURL);
 				Preconditions.checkNotNull(result);
 
-				return result;
+				return new CrlEntry(result, System.currentTimeMillis());
 			}
 		};
 
-		this.crlCache = CacheBuilder.newBuilder().maximumSize(10).expireAfterWrite(60, TimeUnit.MINUTES).build(checkedLoader);
+		// Entries don't expire, they are refreshed ahead of CRL nextUpdate (see getCrl)
+		this.crlCache = CacheBuilder.newBuilder().maximumSize(10).build(checkedLoader);
 	}
 
 	@Override
@@ -104,25 +121,26 @@ public class CRLCertificateVerifier implements CertificateVerifier {
 
 			log.debug("CRL's URL for '" + subjectX500Principal + "' is '" + crlURL + "'");
 
-			X509CRL x509crl = getCrl(crlURL);
-			if (!validateCRL(x509crl, certificate, issuer, validationDate)) {
+			CrlEntry crlEntry = getCrl(crlURL);
+			if (!validateCRL(crlEntry, certificate, issuer, validationDate)) {
 				log.error("The CRL is not valid!");
 				status.setValidity(CertificateValidity.INVALID);
 				return status;
 			}
 
-			X509CRLEntry crlEntry = x509crl.getRevokedCertificate(certificate.getSerialNumber());
-			if (crlEntry == null) {
+			X509CRL x509crl = crlEntry.getCrl();
+			Date revocationDate = crlEntry.getRevocationDate(certificate.getSerialNumber());
+			if (revocationDate == null) {
 				log.debug("CRL status is valid for '" + subjectX500Principal + "'");
 				status.setValidity(CertificateValidity.VALID);
-			} else if (crlEntry.getRevocationDate().after(validationDate)) {
+			} else if (revocationDate.after(validationDate)) {
 				log.warn("CRL revocation time after the validation date, the certificate '" + subjectX500Principal + "' was valid at " + validationDate);
 				status.setRevocationObjectIssuingTime(x509crl.getThisUpdate());
 				status.setValidity(CertificateValidity.VALID);
 			} else {
-				log.info("CRL for certificate '" + subjectX500Principal + "' is revoked since " + crlEntry.getRevocationDate());
+				log.info("CRL for certificate '" + subjectX500Principal + "' is revoked since " + revocationDate);
 				status.setRevocationObjectIssuingTime(x509crl.getThisUpdate());
-				status.setRevocationDate(crlEntry.getRevocationDate());
+				status.setRevocationDate(revocationDate);
 				status.setValidity(CertificateValidity.REVOKED);
 			}
 		} catch (Exception ex) {
@@ -132,14 +150,16 @@ public class CRLCertificateVerifier implements CertificateVerifier {
 		return status;
 	}
 
-	private boolean validateCRL(X509CRL x509crl, X509Certificate certificate, X509Certificate issuerCertificate, Date validationDate) {
+	private boolean validateCRL(CrlEntry crlEntry, X509Certificate certificate, X509Certificate issuerCertificate, Date validationDate) {
 		Principal subjectX500Principal = certificate.getSubjectX500Principal();
 
-		if (x509crl == null) {
+		if (crlEntry == null) {
 			log.error("No CRL found for certificate '" + subjectX500Principal + "'");
 			return false;
 		}
 
+		X509CRL x509crl = crlEntry.getCrl();
+
 		if (log.isTraceEnabled()) {
 			try {
 				log.trace("CRL number: " + getCrlNumber(x509crl));
@@ -154,11 +174,16 @@ public class CRLCertificateVerifier implements CertificateVerifier {
 			return false;
 		}
 
-		try {
-			x509crl.verify(issuerCertificate.getPublicKey());
-		} catch (Exception ex) {
-			log.error("The signature verification for CRL cannot be performed", ex);
-			return false;
+		// Signature is verified once per loaded CRL and issuer key
+		PublicKey issuerPublicKey = issuerCertificate.getPublicKey();
+		if (!crlEntry.isVerifiedBy(issuerPublicKey)) {
+			try {
+				x509crl.verify(issuerPublicKey);
+				crlEntry.addVerifiedKey(issuerPublicKey);
+			} catch (Exception ex) {
+				log.error("The signature verification for CRL cannot be performed", ex);
+				return false;
+			}
 		}
 
 		log.debug("CRL validationDate: " + validationDate);
@@ -184,7 +209,7 @@ public class CRLCertificateVerifier implements CertificateVerifier {
 
 	}
 
-	private X509CRL getCrl(String url) throws CertificateException, CRLException, NoSuchProviderException, NoSuchParserException, StreamParsingException,
+	private CrlEntry getCrl(String url) throws CertificateException, CRLException, NoSuchProviderException, NoSuchParserException, StreamParsingException,
 			MalformedURLException, IOException, ExecutionException {
 		if (!(url.startsWith("http://") || url.startsWith("https://"))) {
 			log.error("It's possible to download CRL via HTTP and HTTPS only");
@@ -192,9 +217,16 @@ public class CRLCertificateVerifier implements CertificateVerifier {
 		}
 		
 		String cacheKey = url.toLowerCase();
-		X509CRL crl = crlCache.get(cacheKey);
+		CrlEntry crlEntry = crlCache.get(cacheKey);
+		if (crlEntry.tryStartRefresh(System.currentTimeMillis())) {
+			// Only one thread downloads new CRL, other threads use current CRL till new one is loaded.
+			// If download fails current CRL is kept
+			log.debug("Refreshing CRL '" + url + "', nextUpdate: " + crlEntry.getCrl().getNextUpdate());
+			crlCache.refresh(cacheKey);
+			crlEntry = crlCache.get(cacheKey);
+		}
 
-		return crl;
+		return crlEntry;
 	}
 
 	public X509CRL requestCRL(String url) throws IOException, MalformedURLException, CertificateException, CRLException {
@@ -299,4 +331,67 @@ public class CRLCertificateVerifier implements CertificateVerifier {
 		crlCache.cleanUp();
 	}
 
+	/**
+	 * Downloaded CRL with revoked serial numbers indexed in hash map and keys which CRL signature was verified with
+	 */
+	static class CrlEntry {
+
+		private final X509CRL crl;
+		private final Map<BigInteger, Date> revokedSerials;
+		private final Set<PublicKey> verifiedKeys = Collections.newSetFromMap(new ConcurrentHashMap<PublicKey, Boolean>());
+
+		private final long refreshTime;
+		private final AtomicLong lastRefreshAttempt;
+
+		CrlEntry(X509CRL crl, long loadTime) {
+			this.crl = crl;
+
+			Set<? extends X509CRLEntry> revokedCertificates = crl.getRevokedCertificates();
+			Map<BigInteger, Date> revoked = new HashMap<BigInteger, Date>(revokedCertificates == null ? 0 : (int) (revokedCertificates.size() / 0.75f) + 1);
+			if (revokedCertificates != null) {
+				for (X509CRLEntry revokedCertificate : revokedCertificates) {
+					revoked.put(revokedCertificate.getSerialNumber(), revokedCertificate.getRevocationDate());
+				}
+			}
+			this.revokedSerials = revoked;
+
+			Date nextUpdate = crl.getNextUpdate();
+			this.refreshTime = nextUpdate != null ? nextUpdate.getTime() - CRL_REFRESH_AHEAD_MILLIS : loadTime + CRL_MAX_AGE_MILLIS;
+			this.lastRefreshAttempt = new AtomicLong(loadTime);
+		}
+
+		public X509CRL getCrl() {
+			return crl;
+		}
+
+		public Date getRevocationDate(BigInteger serialNumber) {
+			return revokedSerials.get(serialNumber);
+		}
+
+		public boolean isVerifiedBy(PublicKey publicKey) {
+			return verifiedKeys.contains(publicKey);
+		}
+
+		public void addVerifiedKey(PublicKey publicKey) {
+			verifiedKeys.add(publicKey);
+		}
+
+		/**
+		 * @return true if CRL has to be refreshed and calling thread should do it
+		 */
+		public boolean tryStartRefresh(long now) {
+			if (now < refreshTime) {
+				return false;
+			}
+
+			long lastAttempt = lastRefreshAttempt.get();
+			if (now - lastAttempt < CRL_MIN_REFRESH_INTERVAL_MILLIS) {
+				return false;
+			}
+
+			return lastRefreshAttempt.compareAndSet(lastAttempt, now);
+		}
+
+	}
+
 }
@@ -17,6 +17,8 @@ import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.IOUtils;
 import org.bouncycastle.asn1.ASN1InputStream;
@@ -43,6 +45,7 @@ import org.bouncycastle.cert.ocsp.SingleResp;
 import org.bouncycastle.operator.DigestCalculator;
 import org.bouncycastle.operator.OperatorCreationException;
 import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.bouncycastle.util.encoders.Hex;
 import org.gluu.oxauth.cert.validation.model.ValidationStatus;
 import org.gluu.oxauth.cert.validation.model.ValidationStatus.CertificateValidity;
 import org.gluu.oxauth.cert.validation.model.ValidationStatus.ValidatorSourceType;
@@ -51,6 +54,9 @@ import org.gluu.util.security.SecurityProviderUtility;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 /**
  * Certificate verifier based on OCSP
  * 
@@ -61,8 +67,16 @@ public class OCSPCertificateVerifier implements CertificateVerifier {
 
 	private static final Logger log = LoggerFactory.getLogger(OCSPCertificateVerifier.class);
 
+	// Response without nextUpdate is reused during this time
+	private static final long OCSP_DEFAULT_LIFETIME_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+	private Cache<String, OcspEntry> ocspCache;
+
 	public OCSPCertificateVerifier() {
 		SecurityProviderUtility.installBCProvider(true);
+
+		// Entries are valid till nextUpdate of OCSP response (see getOCSPResponse)
+		this.ocspCache = CacheBuilder.newBuilder().maximumSize(1000).expireAfterWrite(1, TimeUnit.DAYS).build();
 	}
 
 	@Override
@@ -85,11 +99,8 @@ public class OCSPCertificateVerifier implements CertificateVerifier {
 			DigestCalculator digestCalculator = new JcaDigestCalculatorProviderBuilder().build().get(CertificateID.HASH_SHA1);
             CertificateID certificateId = new CertificateID(digestCalculator, new JcaX509CertificateHolder(issuer), certificate.getSerialNumber());			
 
-			// Generate OCSP request
-			OCSPReq ocspReq = generateOCSPRequest(certificateId);
-
-			// Get OCSP response from server
-			OCSPResp ocspResp = requestOCSPResponse(ocspUrl, ocspReq);
+			// Get OCSP response from cache or from server
+			OCSPResp ocspResp = getOCSPResponse(ocspUrl, certificateId);
 			if (ocspResp.getStatus() != OCSPRespBuilder.SUCCESSFUL) {
 				log.error("OCSP response is invalid!");
 				status.setValidity(CertificateValidity.INVALID);
@@ -144,6 +155,35 @@ public class OCSPCertificateVerifier implements CertificateVerifier {
 		return status;
 	}
 
+	private OCSPResp getOCSPResponse(final String ocspUrl, final CertificateID certificateId) throws Exception {
+		String cacheKey = ocspUrl + "_" + Hex.toHexString(certificateId.getIssuerKeyHash()) + "_" + certificateId.getSerialNumber();
+
+		OcspEntry ocspEntry = ocspCache.getIfPresent(cacheKey);
+		if ((ocspEntry != null) && ocspEntry.isExpired(System.currentTimeMillis())) {
+			ocspCache.asMap().remove(cacheKey, ocspEntry);
+		}
+
+		// Concurrent validations of the same certificate wait for single request to OCSP server
+		ocspEntry = ocspCache.get(cacheKey, new Callable<OcspEntry>() {
+			public OcspEntry call() throws Exception {
+				// Generate OCSP request
+				OCSPReq ocspReq = generateOCSPRequest(certificateId);
+
+				// Get OCSP response from server
+				OCSPResp ocspResp = requestOCSPResponse(ocspUrl, ocspReq);
+
+				return new OcspEntry(ocspResp, certificateId, System.currentTimeMillis());
+			}
+		});
+
+		if (ocspEntry.isExpired(System.currentTimeMillis())) {
+			// Don't keep unsuccessful or already outdated responses
+			ocspCache.asMap().remove(cacheKey, ocspEntry);
+		}
+
+		return ocspEntry.getResponse();
+	}
+
 	private OCSPReq generateOCSPRequest(CertificateID certificateId) throws OCSPException, OperatorCreationException, CertificateEncodingException {
 		OCSPReqBuilder ocspReqGenerator = new OCSPReqBuilder();
 
@@ -241,6 +281,43 @@ public class OCSPCertificateVerifier implements CertificateVerifier {
 
 	@Override
 	public void destroy() {
+		ocspCache.invalidateAll();
+	}
+
+	/**
+	 * OCSP response with time till which it can be reused
+	 */
+	static class OcspEntry {
+
+		private final OCSPResp response;
+		private final long expirationTime;
+
+		OcspEntry(OCSPResp response, CertificateID certificateId, long loadTime) throws OCSPException {
+			this.response = response;
+
+			long expiration = loadTime;
+			if (response.getStatus() == OCSPRespBuilder.SUCCESSFUL) {
+				expiration = loadTime + OCSP_DEFAULT_LIFETIME_MILLIS;
+
+				BasicOCSPResp basicOCSPResp = (BasicOCSPResp) response.getResponseObject();
+				for (SingleResp singleResp : basicOCSPResp.getResponses()) {
+					if (certificateId.equals(singleResp.getCertID()) && (singleResp.getNextUpdate() != null)) {
+						expiration = singleResp.getNextUpdate().getTime();
+						break;
+					}
+				}
+			}
+			this.expirationTime = expiration;
+		}
+
+		public OCSPResp getResponse() {
+			return response;
+		}
+
+		public boolean isExpired(long now) {
+			return now >= expirationTime;
+		}
+
 	}
 
 }
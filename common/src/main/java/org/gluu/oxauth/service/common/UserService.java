@@ -12,6 +12,7 @@ import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -27,6 +28,9 @@ import org.gluu.util.ArrayHelper;
 import org.gluu.util.StringHelper;
 import org.slf4j.Logger;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 /**
  * Provides operations with users.
  *
@@ -50,6 +54,14 @@ public abstract class UserService {
     @Inject
     private InumService inumService;
 
+    private volatile Cache<String, String> userDnCache;
+    private int currentUserCacheLifetime;
+    private int currentUserCacheSizeLimit;
+
+    private volatile Cache<String, Boolean> userMissCache;
+    private int currentUserMissCacheLifetime;
+    private int currentUserMissCacheSizeLimit;
+
     /**
      * returns User by Dn
      *
@@ -84,6 +96,39 @@ public abstract class UserService {
 			return null;
 		}
 
+		final Cache<String, String> cache = getUserDnCache();
+		final String cacheKey = StringHelper.toLowerCase(userId);
+		if (cache != null) {
+			final String userDn = cache.getIfPresent(cacheKey);
+			if (userDn != null) {
+				// Only DN is cached, base lookup is cheaper than subtree search and always returns fresh entry
+				User user = getUserByDn(userDn, returnAttributes);
+				if ((user != null) && ((user.getUserId() == null) || StringHelper.equalsIgnoreCase(userId, user.getUserId()))) {
+					log.debug("Found user by cached DN: userId = {}", userId);
+					return user;
+				}
+				cache.invalidate(cacheKey);
+			}
+		}
+
+		final Cache<String, Boolean> missCache = getUserMissCache();
+		if ((missCache != null) && (missCache.getIfPresent(cacheKey) != null)) {
+			log.debug("User is not found (cached miss): userId = {}", userId);
+			return null;
+		}
+
+		User user = findUser(userId, returnAttributes);
+		if ((cache != null) && (user != null) && StringHelper.isNotEmpty(user.getDn())) {
+			cache.put(cacheKey, user.getDn());
+		}
+		if ((missCache != null) && (user == null)) {
+			missCache.put(cacheKey, Boolean.TRUE);
+		}
+
+		return user;
+	}
+
+	private User findUser(String userId, String... returnAttributes) {
 		String peopleBaseDn = getPeopleBaseDn();
 		Filter userUidFilter;
 		if (dataSourceTypeService.isSpanner(peopleBaseDn)) {
@@ -102,6 +147,88 @@ public abstract class UserService {
 		}
 	}
 
+	/**
+	 * Removes user DN and cached miss from local user caches. Should be called when user entry is
+	 * added, renamed or removed bypassing this service.
+	 *
+	 * @param userId user id (uid)
+	 */
+	public void removeUserFromCache(String userId) {
+		if (StringHelper.isEmpty(userId)) {
+			return;
+		}
+
+		final String cacheKey = StringHelper.toLowerCase(userId);
+		final Cache<String, String> cache = userDnCache;
+		if (cache != null) {
+			cache.invalidate(cacheKey);
+		}
+		final Cache<String, Boolean> missCache = userMissCache;
+		if (missCache != null) {
+			missCache.invalidate(cacheKey);
+		}
+	}
+
+	private void removeUserFromCache(User user) {
+		if (user != null) {
+			removeUserFromCache(user.getUserId());
+		}
+	}
+
+	private Cache<String, String> getUserDnCache() {
+		final int lifetime = getUserCacheLifetimeInSeconds();
+		final int sizeLimit = getUserCacheSizeLimit();
+		if ((lifetime <= 0) || (sizeLimit <= 0)) {
+			userDnCache = null;
+			return null;
+		}
+
+		Cache<String, String> cache = userDnCache;
+		if ((cache == null) || (currentUserCacheLifetime != lifetime) || (currentUserCacheSizeLimit != sizeLimit)) {
+			synchronized (this) {
+				cache = userDnCache;
+				if ((cache == null) || (currentUserCacheLifetime != lifetime) || (currentUserCacheSizeLimit != sizeLimit)) {
+					cache = CacheBuilder.newBuilder().maximumSize(sizeLimit).expireAfterWrite(lifetime, TimeUnit.SECONDS).build();
+					currentUserCacheLifetime = lifetime;
+					currentUserCacheSizeLimit = sizeLimit;
+					userDnCache = cache;
+					log.trace("Re-created user DN cache with lifetime: {}, size limit: {}", lifetime, sizeLimit);
+				}
+			}
+		}
+
+		return cache;
+	}
+
+	/**
+	 * Unknown uids are cached separately with short lifetime, so repeated lookups of unknown user (e.g. credential
+	 * stuffing) do not reach backend while user added on other node becomes visible soon.
+	 */
+	private Cache<String, Boolean> getUserMissCache() {
+		final int lifetime = getUserMissCacheLifetimeInSeconds();
+		final int sizeLimit = getUserCacheSizeLimit();
+		if ((lifetime <= 0) || (sizeLimit <= 0)) {
+			userMissCache = null;
+			return null;
+		}
+
+		Cache<String, Boolean> cache = userMissCache;
+		if ((cache == null) || (currentUserMissCacheLifetime != lifetime) || (currentUserMissCacheSizeLimit != sizeLimit)) {
+			synchronized (this) {
+				cache = userMissCache;
+				if ((cache == null) || (currentUserMissCacheLifetime != lifetime) || (currentUserMissCacheSizeLimit != sizeLimit)) {
+					cache = CacheBuilder.newBuilder().maximumSize(sizeLimit).expireAfterWrite(lifetime, TimeUnit.SECONDS).build();
+					currentUserMissCacheLifetime = lifetime;
+					currentUserMissCacheSizeLimit = sizeLimit;
+					userMissCache = cache;
+					log.trace("Re-created user miss cache with lifetime: {}, size limit: {}", lifetime, sizeLimit);
+				}
+			}
+		}
+
+		return cache;
+	}
+
 	public String getUserInum(User user) {
 		if (user == null) {
 			return null;
@@ -120,7 +247,11 @@ public abstract class UserService {
 
     public User updateUser(User user) {
         user.setUpdatedAt(new Date());
-		persistenceEntryManager.merge(user);
+        try {
+            persistenceEntryManager.merge(user);
+        } finally {
+            removeUserFromCache(user);
+        }
 
 		return getUserByDn(user.getDn());
 	}
@@ -145,6 +276,7 @@ public abstract class UserService {
 
     	user.setCreatedAt(new Date());
 		persistenceEntryManager.persist(user);
+		removeUserFromCache(uid);
 		
 		return getUser(uid);
 	}
@@ -176,6 +308,7 @@ public abstract class UserService {
 
             user.setCreatedAt(new Date());
             persistenceEntryManager.persist(user);
+            removeUserFromCache(user);
 
             return getUserByDn(user.getDn());
         } catch (Exception e) {
@@ -544,4 +677,22 @@ public abstract class UserService {
 	protected abstract List<String> getPersonCustomObjectClassList();
 
 	protected abstract String getPeopleBaseDn();
+
+	/**
+	 * @return lifetime of entries in local user DN cache, 0 disables cache
+	 */
+	protected int getUserCacheLifetimeInSeconds() {
+		return 0;
+	}
+
+	protected int getUserCacheSizeLimit() {
+		return 0;
+	}
+
+	/**
+	 * @return lifetime of unknown uids in local user miss cache, 0 disables cache
+	 */
+	protected int getUserMissCacheLifetimeInSeconds() {
+		return 0;
+	}
 }
@@ -0,0 +1,129 @@
+package org.gluu.oxauth.cert.validation;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.CRLDistPoint;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.asn1.x509.DistributionPoint;
+import org.bouncycastle.asn1.x509.DistributionPointName;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.asn1.x509.KeyUsage;
+import org.bouncycastle.cert.X509v2CRLBuilder;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CRLConverter;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.gluu.oxauth.cert.validation.model.ValidationStatus;
+import org.gluu.oxauth.cert.validation.model.ValidationStatus.CertificateValidity;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class CRLCertificateVerifierTest {
+
+    private static final String CRL_URL = "http://localhost/test.crl";
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    private KeyPair caKeyPair;
+    private X509Certificate caCertificate;
+    private Date revocationDate;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        caKeyPair = keyPairGenerator.generateKeyPair();
+
+        X500Name caName = new X500Name("CN=Test CA");
+        X509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(caName, BigInteger.ONE,
+                new Date(System.currentTimeMillis() - DAY), new Date(System.currentTimeMillis() + DAY), caName, caKeyPair.getPublic());
+        builder.addExtension(Extension.basicConstraints, true, new BasicConstraints(true));
+        builder.addExtension(Extension.keyUsage, true, new KeyUsage(KeyUsage.keyCertSign | KeyUsage.cRLSign));
+        caCertificate = new JcaX509CertificateConverter().getCertificate(builder.build(signer()));
+
+        revocationDate = new Date(System.currentTimeMillis() - DAY / 2);
+    }
+
+    @Test
+    public void validate_crlIsDownloadedAndVerifiedOnce_shouldReturnStatusBySerialNumber() throws Exception {
+        final X509CRL crl = createCrl(BigInteger.valueOf(3));
+        final AtomicInteger downloads = new AtomicInteger();
+        CRLCertificateVerifier verifier = new CRLCertificateVerifier(1024 * 1024) {
+            @Override
+            public X509CRL requestCRL(String url) {
+                downloads.incrementAndGet();
+                return crl;
+            }
+        };
+
+        List<X509Certificate> issuers = Collections.singletonList(caCertificate);
+        Date now = new Date();
+
+        ValidationStatus valid = verifier.validate(createCertificate(BigInteger.valueOf(2)), issuers, now);
+        assertEquals(valid.getValidity(), CertificateValidity.VALID);
+
+        ValidationStatus revoked = verifier.validate(createCertificate(BigInteger.valueOf(3)), issuers, now);
+        assertEquals(revoked.getValidity(), CertificateValidity.REVOKED);
+        assertEquals(revoked.getRevocationDate().getTime() / 1000, revocationDate.getTime() / 1000);
+
+        ValidationStatus validBeforeRevocation = verifier.validate(createCertificate(BigInteger.valueOf(3)), issuers, new Date(revocationDate.getTime() - DAY / 4));
+        assertEquals(validBeforeRevocation.getValidity(), CertificateValidity.VALID);
+
+        assertEquals(downloads.get(), 1);
+    }
+
+    @Test
+    public void crlEntry_beforeAndAfterRefreshTime_shouldAllowSingleRefresh() throws Exception {
+        X509CRL crl = createCrl(BigInteger.valueOf(3));
+        long now = System.currentTimeMillis();
+
+        CRLCertificateVerifier.CrlEntry entry = new CRLCertificateVerifier.CrlEntry(crl, now);
+        assertNull(entry.getRevocationDate(BigInteger.valueOf(2)));
+        assertEquals(entry.tryStartRefresh(now), false);
+
+        long afterNextUpdate = crl.getNextUpdate().getTime() + 1;
+        assertEquals(entry.tryStartRefresh(afterNextUpdate), true);
+        assertEquals(entry.tryStartRefresh(afterNextUpdate), false);
+    }
+
+    private X509CRL createCrl(BigInteger revokedSerialNumber) throws Exception {
+        Date now = new Date();
+        X509v2CRLBuilder builder = new X509v2CRLBuilder(new X500Name("CN=Test CA"), now);
+        builder.setNextUpdate(new Date(now.getTime() + DAY));
+        builder.addCRLEntry(revokedSerialNumber, revocationDate, CRLReason.keyCompromise);
+        return new JcaX509CRLConverter().getCRL(builder.build(signer()));
+    }
+
+    private X509Certificate createCertificate(BigInteger serialNumber) throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+
+        X509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(new X500Name("CN=Test CA"), serialNumber,
+                new Date(System.currentTimeMillis() - DAY), new Date(System.currentTimeMillis() + DAY), new X500Name("CN=Test " + serialNumber), keyPair.getPublic());
+        DistributionPointName distributionPointName = new DistributionPointName(new GeneralNames(new GeneralName(GeneralName.uniformResourceIdentifier, CRL_URL)));
+        builder.addExtension(Extension.cRLDistributionPoints, false, new CRLDistPoint(new DistributionPoint[]{new DistributionPoint(distributionPointName, null, null)}));
+        return new JcaX509CertificateConverter().getCertificate(builder.build(signer()));
+    }
+
+    private ContentSigner signer() throws Exception {
+        return new JcaContentSignerBuilder("SHA256withRSA").build(caKeyPair.getPrivate());
+    }
+}